@@ -0,0 +1,20 @@
+#!/bin/sh
+# Starts the backend from the layout built by `mvn -Pcds package`: the thin
+# jar with lib/, the Spring AOT initializers and the application CDS archive.
+#
+#   AOT=false   skip the AOT initializers. Needed when switching on beans that
+#               were off at build time (app.datasource.routing.enabled,
+#               app.shards.enabled, export.out): AOT fixes the bean set.
+#   JAVA_OPTS   extra JVM options
+#
+# Runs from its own directory, as the training run did, so the class path
+# matches the archive; relative paths such as ./data resolve there too. An
+# archive made by another JDK is ignored and the JVM starts without it.
+cd "$(dirname "$0")" || exit 1
+
+CDS=""
+if [ -f application.jsa ]; then
+    CDS="-XX:SharedArchiveFile=application.jsa -Xshare:auto"
+fi
+
+exec java $CDS -Dspring.aot.enabled="${AOT:-true}" $JAVA_OPTS -jar @container.jar@ "$@"
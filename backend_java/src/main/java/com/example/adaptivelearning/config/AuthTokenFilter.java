@@ -0,0 +1,109 @@
+package com.example.adaptivelearning.config;
+
+import com.example.adaptivelearning.model.User;
+import com.example.adaptivelearning.repository.UserRepository;
+import com.example.adaptivelearning.service.SessionTokens;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Verifies "Authorization: Bearer" session tokens and exposes the holder as
+ * the {@link #PRINCIPAL} request attribute. Verification is a signature and
+ * expiry check against keys already in memory; the database is only read
+ * for a token that SessionTokens marks stale, and the refreshed token goes
+ * back in the X-Auth-Token response header.
+ *
+ * A bad or expired token gets 401. Requests without one pass through unless
+ * app.auth.required is set; only login and register are always open. The
+ * event streams take the token as an access_token query parameter instead,
+ * since EventSource cannot send headers.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    public static final String PRINCIPAL = "auth.principal";
+    public static final String REFRESH_HEADER = "X-Auth-Token";
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.auth.required:false}")
+    private boolean required;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = token(request);
+        if (token == null) {
+            if (required && !isOpen(request)) {
+                unauthorized(response, "Authentication required");
+                return;
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+
+        SessionTokens.Principal principal = sessionTokens.verify(token);
+        if (principal == null) {
+            unauthorized(response, "Invalid or expired token");
+            return;
+        }
+        if (sessionTokens.isStale(principal)) {
+            Optional<User> user = userRepository.findById(principal.userId());
+            if (user.isEmpty()) {
+                unauthorized(response, "Unknown user");
+                return;
+            }
+            String refreshed = sessionTokens.issue(user.get());
+            principal = sessionTokens.verify(refreshed);
+            response.setHeader(REFRESH_HEADER, refreshed);
+        }
+        request.setAttribute(PRINCIPAL, principal);
+        chain.doFilter(request, response);
+    }
+
+    private static String token(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return authorization.substring(7).trim();
+        }
+        // Query tokens only for the event streams; anywhere else they would just leak into logs
+        String query = request.getParameter("access_token");
+        return query != null && !query.isBlank() && path(request).startsWith("/api/events/") ? query : null;
+    }
+
+    private static boolean isOpen(HttpServletRequest request) {
+        String path = path(request);
+        return path.equals("/login") || path.equals("/register");
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static void unauthorized(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(401);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
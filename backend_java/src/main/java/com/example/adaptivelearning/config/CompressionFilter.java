@@ -0,0 +1,134 @@
+package com.example.adaptivelearning.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips responses of app.compression.mime-types once the body reaches
+ * app.compression.min-size bytes, for clients that send Accept-Encoding:
+ * gzip. A filter rather than server.compression so it also applies behind
+ * API Gateway, where the Lambda container has no Tomcat connector.
+ *
+ * The body is buffered to measure it, so streaming endpoints (SSE and the
+ * exports, which gzip themselves) are left alone. The JDK has no brotli
+ * encoder; a CDN in front can add br.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final List<String> STREAMING_PATHS = List.of("/api/events/", "/api/admin/export/");
+
+    @Value("${app.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.compression.min-size:2048}")
+    private int minSize;
+
+    @Value("${app.compression.mime-types:application/json,application/x-jackson-smile,application/cbor,text/plain}")
+    private List<String> mimeTypes;
+
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return STREAMING_PATHS.stream().anyMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.addHeader("Vary", "Accept-Encoding");
+        if (!acceptsGzip(request.getHeader("Accept-Encoding"))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, buffered);
+
+        int size = buffered.getContentSize();
+        if (request.isAsyncStarted() || size < minSize || !compressible(buffered.getContentType())
+                || buffered.getHeader("Content-Encoding") != null) {
+            buffered.copyBodyToResponse();
+            return;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(buffered.getContentAsByteArray());
+        }
+        response.setHeader("Content-Encoding", "gzip");
+        response.setContentLength(out.size());
+        out.writeTo(response.getOutputStream());
+
+        compressed.incrementAndGet();
+        bytesIn.addAndGet(size);
+        bytesOut.addAndGet(out.size());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("min_size", minSize);
+        stats.put("compressed_responses", compressed.get());
+        stats.put("bytes_in", bytesIn.get());
+        stats.put("bytes_out", bytesOut.get());
+        return stats;
+    }
+
+    private boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return mimeTypes.stream().anyMatch(type::startsWith);
+    }
+
+    // gzip listed without q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            if (!params[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
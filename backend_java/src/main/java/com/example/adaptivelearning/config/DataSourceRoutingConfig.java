@@ -0,0 +1,77 @@
+package com.example.adaptivelearning.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Optional primary/replica split so heavy analytics reads do not compete with
+ * quiz submissions and logins for the same pool.
+ *
+ * Enabled with {@code app.datasource.routing.enabled=true}. The primary uses
+ * the regular {@code spring.datasource.*} settings; the replica has its own
+ * URL and pool size under {@code app.datasource.replica.*}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    HikariDataSource primaryDataSource(DataSourceProperties properties,
+            @Value("${app.datasource.primary.maximum-pool-size:10}") int maxPoolSize) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primary");
+        ds.setMaximumPoolSize(maxPoolSize);
+        return ds;
+    }
+
+    @Bean
+    HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.maximum-pool-size:10}") int maxPoolSize) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName("replica");
+        ds.setJdbcUrl(url);
+        ds.setDriverClassName(properties.determineDriverClassName());
+        ds.setUsername(properties.determineUsername());
+        ds.setPassword(properties.determinePassword());
+        ds.setReadOnly(true);
+        ds.setMaximumPoolSize(maxPoolSize);
+        return ds;
+    }
+
+    @Bean
+    ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primary,
+                ReadWriteRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    // Open-in-view keeps one Hibernate session per request; release the connection after
+    // each transaction so a read-only transaction's replica connection is not reused for writes
+    @Bean
+    HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return props -> props.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.adaptivelearning.config;
+
+import com.example.adaptivelearning.service.SubmissionExporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Command-line export of quiz submissions: starting the application with
+ * {@code --export.out=<file>} writes the export and exits.
+ *
+ * java -jar adaptive-learning.jar --server.port=0
+ * --export.out=submissions.csv.gz [--export.format=csv|columnar]
+ * [--export.from=2025-01-01] [--export.to=2025-12-31]
+ */
+@Component
+@ConditionalOnProperty(name = "export.out")
+public class ExportCommand implements ApplicationRunner {
+
+    @Autowired
+    private SubmissionExporter exporter;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${export.out}")
+    private String out;
+
+    @Value("${export.format:csv}")
+    private String format;
+
+    @Value("${export.from:}")
+    private String from;
+
+    @Value("${export.to:}")
+    private String to;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long started = System.nanoTime();
+        long rows = exporter.exportToFile(SubmissionExporter.Format.parse(format),
+                from.isEmpty() ? null : LocalDate.parse(from), to.isEmpty() ? null : LocalDate.parse(to),
+                Path.of(out));
+        System.out.println("Exported " + rows + " submissions to " + out + " in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms.");
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.adaptivelearning.config;
+
+import com.example.adaptivelearning.diagnostics.Profiling;
+import com.example.adaptivelearning.service.SessionTokens;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.Repository;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The phase events that are not emitted inline (see diagnostics.Profiling):
+ * Controller from a handler interceptor, which also routes the request's
+ * profiling context to its endpoint pattern, user and class; Repository from
+ * advice added to every Spring Data repository proxy; and Serialization from
+ * the Jackson message converters.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilingConfig implements WebMvcConfigurer {
+
+    private static final String CONTROLLER_EVENT = "profiling.controller";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                Profiling.Context context = Profiling.current();
+                if (context == null) {
+                    return true;
+                }
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                if (pattern != null) {
+                    context.endpoint = request.getMethod() + " " + pattern;
+                }
+                identify(context, request);
+
+                Profiling.Controller event = new Profiling.Controller();
+                if (handler instanceof HandlerMethod method) {
+                    event.handler = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+                }
+                event.begin();
+                request.setAttribute(CONTROLLER_EVENT, event);
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                    Exception ex) {
+                if (request.getAttribute(CONTROLLER_EVENT) instanceof Profiling.Controller event) {
+                    event.finish();
+                }
+            }
+        });
+    }
+
+    // The token's identity if there is one, else the ids in the path
+    @SuppressWarnings("unchecked")
+    private static void identify(Profiling.Context context, HttpServletRequest request) {
+        if (request.getAttribute(AuthTokenFilter.PRINCIPAL) instanceof SessionTokens.Principal principal) {
+            context.userId = principal.userId().toString();
+            context.classId = principal.classId();
+            return;
+        }
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables instanceof Map<?, ?> map) {
+            Map<String, String> vars = (Map<String, String>) map;
+            context.userId = vars.getOrDefault("userId", vars.get("studentId"));
+            context.classId = vars.get("classId");
+        }
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            HttpMessageConverter<?> converter = converters.get(i);
+            if (converter instanceof MappingJackson2HttpMessageConverter json) {
+                converters.set(i, new ProfiledJson(json.getObjectMapper()));
+            } else if (converter instanceof MappingJackson2SmileHttpMessageConverter smile) {
+                converters.set(i, new ProfiledSmile(smile.getObjectMapper()));
+            } else if (converter instanceof MappingJackson2CborHttpMessageConverter cbor) {
+                converters.set(i, new ProfiledCbor(cbor.getObjectMapper()));
+            }
+        }
+    }
+
+    @Bean
+    static BeanPostProcessor repositoryProfiling() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof Repository<?, ?> && bean instanceof Advised advised && !advised.isFrozen()) {
+                    String repository = repositoryName(advised);
+                    // First in the chain: Spring Data's query interceptors end it without proceeding
+                    advised.addAdvice(0, (MethodInterceptor) invocation -> {
+                        Profiling.Repository event = new Profiling.Repository();
+                        if (!event.isEnabled()) {
+                            return invocation.proceed();
+                        }
+                        event.begin();
+                        try {
+                            return invocation.proceed();
+                        } finally {
+                            event.method = repository + "." + invocation.getMethod().getName();
+                            event.finish();
+                        }
+                    });
+                }
+                return bean;
+            }
+        };
+    }
+
+    // The application's repository interface among the proxy's interfaces
+    private static String repositoryName(Advised advised) {
+        for (Class<?> type : advised.getProxiedInterfaces()) {
+            if (Repository.class.isAssignableFrom(type) && !type.getName().startsWith("org.springframework.")) {
+                return type.getSimpleName();
+            }
+        }
+        return "Repository";
+    }
+
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    private static void serialize(String format, Write write) throws IOException {
+        Profiling.Serialization event = new Profiling.Serialization();
+        event.format = format;
+        event.begin();
+        try {
+            write.run();
+        } finally {
+            event.finish();
+        }
+    }
+
+    private static class ProfiledJson extends MappingJackson2HttpMessageConverter {
+        ProfiledJson(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+            serialize("json", () -> super.writeInternal(object, type, outputMessage));
+        }
+    }
+
+    private static class ProfiledSmile extends MappingJackson2SmileHttpMessageConverter {
+        ProfiledSmile(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+            serialize("smile", () -> super.writeInternal(object, type, outputMessage));
+        }
+    }
+
+    private static class ProfiledCbor extends MappingJackson2CborHttpMessageConverter {
+        ProfiledCbor(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+            serialize("cbor", () -> super.writeInternal(object, type, outputMessage));
+        }
+    }
+}
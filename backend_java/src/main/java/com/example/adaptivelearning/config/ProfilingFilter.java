@@ -0,0 +1,47 @@
+package com.example.adaptivelearning.config;
+
+import com.example.adaptivelearning.diagnostics.Profiling;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Outermost filter: opens the profiling context for the request and emits
+ * its Request event, so compression, auth and rate limiting count towards
+ * the request but not towards any phase. The endpoint is "METHOD unmapped"
+ * until a handler is chosen and ProfilingConfig replaces it with the mapped
+ * pattern; raw paths are never used, so endpoint cardinality stays bounded.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Profiling.Request event = new Profiling.Request();
+        if (!event.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Profiling.open(request.getMethod() + " unmapped");
+        event.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            event.method = request.getMethod();
+            event.status = response.getStatus();
+            event.finish();
+            Profiling.close();
+        }
+    }
+}
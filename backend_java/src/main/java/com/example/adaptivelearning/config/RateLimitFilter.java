@@ -0,0 +1,158 @@
+package com.example.adaptivelearning.config;
+
+import com.example.adaptivelearning.service.SessionTokens;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user, per-endpoint token buckets for the endpoints that call Gemini
+ * (/quiz/generate and /interview/*). Every other endpoint passes straight
+ * through.
+ *
+ * Buckets are keyed by the verified session token's user, else by the client
+ * address; headers and parameters are the client's to choose, so they never
+ * pick the bucket. Over-limit requests get 429 with Retry-After before any
+ * work is done.
+ *
+ * At most {@code app.ratelimit.max-buckets} buckets are kept. Once that many
+ * clients are active, new ones share a single overflow bucket per endpoint
+ * until idle buckets are evicted.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final long IDLE_EVICT_NANOS = 10L * 60 * 1_000_000_000;
+
+    @Value("${app.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    // Burst size and sustained rate per user, per endpoint
+    @Value("${app.ratelimit.capacity:5}")
+    private int capacity;
+
+    @Value("${app.ratelimit.refill-per-minute:10}")
+    private double refillPerMinute;
+
+    @Value("${app.ratelimit.max-buckets:100000}")
+    private int maxBuckets;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> overflow = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> rejectedByEndpoint = new ConcurrentHashMap<>();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long last;
+
+        TokenBucket(double capacity, double tokensPerNano, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerNano;
+            this.tokens = capacity;
+            this.last = now;
+        }
+
+        /** Returns 0 if a token was taken, else nanos until the next one. */
+        synchronized long tryConsume(long now) {
+            tokens = Math.min(capacity, tokens + (now - last) * tokensPerNano);
+            last = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        synchronized boolean idleSince(long cutoff) {
+            return last < cutoff;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || endpointOf(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String endpoint = endpointOf(request);
+        long now = System.nanoTime();
+        TokenBucket bucket = bucketFor(endpoint, clientOf(request), now);
+
+        long waitNanos = bucket.tryConsume(now);
+        if (waitNanos > 0) {
+            rejectedByEndpoint.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000)));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Too many requests\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private TokenBucket bucketFor(String endpoint, String client, long now) {
+        String key = endpoint + "|" + client;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        // The size check can be overshot by concurrent inserts, but only by the number of request threads
+        if (buckets.size() >= maxBuckets) {
+            overflowed.incrementAndGet();
+            return overflow.computeIfAbsent(endpoint, k -> newBucket(now));
+        }
+        return buckets.computeIfAbsent(key, k -> newBucket(now));
+    }
+
+    private TokenBucket newBucket(long now) {
+        return new TokenBucket(capacity, refillPerMinute / 60e9, now);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleBuckets() {
+        long cutoff = System.nanoTime() - IDLE_EVICT_NANOS;
+        buckets.values().removeIf(b -> b.idleSince(cutoff));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Long> rejected = new TreeMap<>();
+        rejectedByEndpoint.forEach((k, v) -> rejected.put(k, v.get()));
+        return Map.of("buckets", buckets.size(), "overflowed", overflowed.get(), "rejected", rejected);
+    }
+
+    // Rate-limited endpoint key, or null for everything else
+    private static String endpointOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if ("OPTIONS".equals(request.getMethod())) {
+            return null;
+        }
+        if (path.equals("/quiz/generate") || path.startsWith("/interview/")) {
+            return path;
+        }
+        return null;
+    }
+
+    private static String clientOf(HttpServletRequest request) {
+        // AuthTokenFilter runs first
+        if (request.getAttribute(AuthTokenFilter.PRINCIPAL) instanceof SessionTokens.Principal principal) {
+            return principal.userId().toString();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.adaptivelearning.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps a local H2 replica in sync with the primary for development and tests.
+ *
+ * Not real replication: at startup the replica schema is rebuilt from the
+ * primary (foreign keys skipped), then every table is reloaded on a fixed
+ * delay inside one replica transaction, so readers see either the old or the
+ * new snapshot. Replica reads may lag the primary by up to one interval.
+ */
+@Component
+@ConditionalOnProperty(name = { "app.datasource.routing.enabled",
+        "app.datasource.replica.replication-stand-in" }, havingValue = "true")
+public class ReplicationStandIn implements SmartInitializingSingleton {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final DataSource primary;
+    private final DataSource replica;
+
+    private volatile long lastSyncMillis;
+    private volatile long lastSyncRows;
+    private volatile long lastSyncCompletedAt;
+
+    public ReplicationStandIn(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    // Runs after Hibernate has created the schema but before CommandLineRunners read from the replica
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            copySchema();
+            sync();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not initialize replica", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.sync-interval-ms:1000}")
+    public void scheduledSync() {
+        try {
+            sync();
+        } catch (SQLException e) {
+            System.err.println("Replica sync failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized void sync() throws SQLException {
+        long start = System.currentTimeMillis();
+        long rows = 0;
+        try (Connection src = primary.getConnection(); Connection dst = replica.getConnection()) {
+            dst.setReadOnly(false);
+            dst.setAutoCommit(false);
+            try {
+                for (String table : tables(src)) {
+                    rows += copyTable(src, dst, table);
+                }
+                dst.commit();
+            } catch (SQLException e) {
+                dst.rollback();
+                throw e;
+            } finally {
+                dst.setAutoCommit(true);
+            }
+        }
+        lastSyncRows = rows;
+        lastSyncCompletedAt = System.currentTimeMillis();
+        lastSyncMillis = lastSyncCompletedAt - start;
+    }
+
+    private void copySchema() throws SQLException {
+        List<String> ddl = new ArrayList<>();
+        try (Connection src = primary.getConnection();
+                Statement st = src.createStatement();
+                ResultSet rs = st.executeQuery("SCRIPT NODATA")) {
+            while (rs.next()) {
+                String sql = rs.getString(1);
+                if (!sql.startsWith("--") && !sql.contains("FOREIGN KEY") && !sql.startsWith("CREATE USER")) {
+                    ddl.add(sql);
+                }
+            }
+        }
+        try (Connection dst = replica.getConnection(); Statement st = dst.createStatement()) {
+            dst.setReadOnly(false);
+            st.execute("DROP ALL OBJECTS");
+            for (String sql : ddl) {
+                st.execute(sql);
+            }
+        }
+    }
+
+    private List<String> tables(Connection src) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        DatabaseMetaData meta = src.getMetaData();
+        try (ResultSet rs = meta.getTables(null, "PUBLIC", "%", new String[] { "TABLE", "BASE TABLE" })) {
+            while (rs.next()) {
+                tables.add(rs.getString("TABLE_NAME"));
+            }
+        }
+        return tables;
+    }
+
+    private long copyTable(Connection src, Connection dst, String table) throws SQLException {
+        String quoted = "\"PUBLIC\".\"" + table + "\"";
+        try (Statement del = dst.createStatement()) {
+            del.executeUpdate("DELETE FROM " + quoted);
+        }
+
+        long rows = 0;
+        try (Statement select = src.createStatement(); ResultSet rs = select.executeQuery("SELECT * FROM " + quoted)) {
+            int columns = rs.getMetaData().getColumnCount();
+            String placeholders = String.join(",", Collections.nCopies(columns, "?"));
+            try (PreparedStatement insert = dst.prepareStatement(
+                    "INSERT INTO " + quoted + " VALUES (" + placeholders + ")")) {
+                while (rs.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        insert.setObject(i, rs.getObject(i));
+                    }
+                    insert.addBatch();
+                    if (++rows % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+        return rows;
+    }
+
+    public long getLastSyncMillis() {
+        return lastSyncMillis;
+    }
+
+    public long getLastSyncRows() {
+        return lastSyncRows;
+    }
+
+    public long getLastSyncCompletedAt() {
+        return lastSyncCompletedAt;
+    }
+}
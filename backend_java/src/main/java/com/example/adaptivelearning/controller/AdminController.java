@@ -1,14 +1,47 @@
 package com.example.adaptivelearning.controller;
 
+import com.example.adaptivelearning.config.AuthTokenFilter;
 import com.example.adaptivelearning.model.User;
 import com.example.adaptivelearning.repository.UserRepository;
+import com.example.adaptivelearning.service.DashboardEvents;
+import com.example.adaptivelearning.service.LeaderboardService;
+import com.example.adaptivelearning.service.RosterService;
+import com.example.adaptivelearning.service.SessionTokens;
+import com.example.adaptivelearning.service.SubmissionArchive;
+import com.example.adaptivelearning.service.SubmissionShards;
+import com.example.adaptivelearning.service.SubmissionExporter;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.Part;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Class assignment, roster import, archiving and export. Every endpoint
+ * needs a professor or HOD token, whether or not app.auth.required is set:
+ * 401 without a token, 403 for any other role.
+ */
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
@@ -16,8 +49,35 @@ public class AdminController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private DashboardEvents dashboardEvents;
+
+    @Autowired
+    private SubmissionExporter submissionExporter;
+
+    @Autowired
+    private RosterService rosterService;
+
+    @Autowired
+    private ObjectProvider<SubmissionShards> submissionShards;
+
+    @Autowired
+    private SubmissionArchive submissionArchive;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Transactional
     @PostMapping("/assign-class")
-    public ResponseEntity<?> assignClass(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<?> assignClass(@RequestBody Map<String, String> payload,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        HttpStatus refused = refusal(principal);
+        if (refused != null) {
+            return ResponseEntity.status(refused).build();
+        }
         String userIdStr = payload.get("userId");
         String classId = payload.get("classId");
 
@@ -33,9 +93,141 @@ public class AdminController {
         }
 
         return userRepository.findById(userId).map(user -> {
+            String previousClassId = user.getClassId();
             user.setClassId(classId);
             userRepository.save(user);
+            leaderboardService.moveStudent(userId, classId);
+            sessionTokens.usersChanged(List.of(userId));
+            // Their submissions follow them to the new class's shard once this commits
+            submissionShards.ifAvailable(shards -> shards.moveUsers(Collections.singletonMap(userId,
+                    previousClassId), classId));
+
+            Map<String, Object> event = new HashMap<>();
+            event.put("id", userId);
+            event.put("name", user.getName());
+            event.put("role", user.getRole());
+            event.put("class_id", classId);
+            event.put("previous_class_id", previousClassId);
+            // Both class dashboards hear about it: the old one drops the row, the new one adds it
+            dashboardEvents.publish("assignment", event, previousClassId, classId);
             return ResponseEntity.ok(Map.of("message", "Class assigned successfully", "user", user));
         }).orElse(ResponseEntity.notFound().build());
     }
+
+    // CSV roster (email,name,role[,class_id][,password]) as the raw body or a multipart "file" part
+    @PostMapping("/roster/import")
+    public ResponseEntity<?> importRoster(HttpServletRequest request,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) throws IOException {
+        HttpStatus refused = refusal(principal);
+        if (refused != null) {
+            return ResponseEntity.status(refused).build();
+        }
+        InputStream in;
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            Part part;
+            try {
+                part = request.getPart("file");
+            } catch (ServletException e) {
+                return ResponseEntity.badRequest().body("Malformed multipart request");
+            }
+            if (part == null) {
+                return ResponseEntity.badRequest().body("A file part is required");
+            }
+            in = part.getInputStream();
+        } else {
+            in = request.getInputStream();
+        }
+
+        try (InputStreamReader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(rosterService.importCsv(reader));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Either {userIds: [...], classId} or {fromClassId, classId[, role]}: set-based, one refresh per class
+    @PostMapping("/bulk-assign")
+    public ResponseEntity<?> bulkAssign(@RequestBody Map<String, Object> payload,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        HttpStatus refused = refusal(principal);
+        if (refused != null) {
+            return ResponseEntity.status(refused).build();
+        }
+        if (!(payload.get("classId") instanceof String classId) || classId.isBlank()) {
+            return ResponseEntity.badRequest().body("classId is required");
+        }
+
+        int moved;
+        if (payload.get("userIds") instanceof List<?> rawIds) {
+            List<UUID> userIds = new ArrayList<>(rawIds.size());
+            try {
+                for (Object id : rawIds) {
+                    userIds.add(UUID.fromString(String.valueOf(id)));
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Invalid user ID format");
+            }
+            moved = rosterService.reassignUsers(userIds, classId);
+        } else if (payload.get("fromClassId") instanceof String fromClassId) {
+            String role = payload.get("role") instanceof String r ? r.toUpperCase(Locale.ROOT) : null;
+            if (role != null && !RosterService.ROLES.contains(role)) {
+                return ResponseEntity.badRequest().body("Invalid role");
+            }
+            moved = rosterService.reassignClass(fromClassId, classId, role);
+        } else {
+            return ResponseEntity.badRequest().body("userIds or fromClassId is required");
+        }
+        return ResponseEntity.ok(Map.of("message", "Users reassigned", "moved", moved, "class_id", classId));
+    }
+
+    // Runs the archive job now instead of waiting for app.archive.cron
+    @PostMapping("/archive/run")
+    public ResponseEntity<?> runArchive(@RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        HttpStatus refused = refusal(principal);
+        if (refused != null) {
+            return ResponseEntity.status(refused).build();
+        }
+        int archived = submissionArchive.archive();
+        Map<String, Object> response = new HashMap<>(submissionArchive.getStats());
+        response.put("archived_now", archived);
+        return ResponseEntity.ok(response);
+    }
+
+    // Gzipped download of every submission in the range, streamed from a cursor on an async thread
+    @GetMapping("/export/submissions")
+    public ResponseEntity<StreamingResponseBody> exportSubmissions(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        HttpStatus refused = refusal(principal);
+        if (refused != null) {
+            return ResponseEntity.status(refused).build();
+        }
+        SubmissionExporter.Format f;
+        LocalDate start;
+        LocalDate end;
+        try {
+            f = SubmissionExporter.Format.parse(format);
+            start = from != null ? LocalDate.parse(from) : null;
+            end = to != null ? LocalDate.parse(to) : null;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> submissionExporter.export(f, start, end, Channels.newChannel(out));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, "application/gzip")
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"submissions." + f.extension() + "\"")
+                .body(body);
+    }
+
+    private static HttpStatus refusal(SessionTokens.Principal principal) {
+        if (principal == null) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+        return principal.isStaff() ? null : HttpStatus.FORBIDDEN;
+    }
 }
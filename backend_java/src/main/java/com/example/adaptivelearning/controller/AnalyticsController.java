@@ -1,5 +1,6 @@
 package com.example.adaptivelearning.controller;
 
+import com.example.adaptivelearning.config.AuthTokenFilter;
 import com.example.adaptivelearning.model.User;
 import com.example.adaptivelearning.model.AnalyticsDTO;
 import com.example.adaptivelearning.model.QuizSubmission;
@@ -7,14 +8,27 @@ import com.example.adaptivelearning.repository.UserRepository;
 import com.example.adaptivelearning.repository.QuizSubmissionRepository;
 import com.example.adaptivelearning.service.RecommendationService;
 import com.example.adaptivelearning.service.AnalyticsService;
+import com.example.adaptivelearning.service.ProgressRollups;
+import com.example.adaptivelearning.service.RiskEngine;
+import com.example.adaptivelearning.service.SessionTokens;
+import com.example.adaptivelearning.service.SubmissionArchive;
+import com.example.adaptivelearning.service.SubmissionShards;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.UUID;
 
+// Read-only so that, with routing enabled, analytics runs on the replica pool
 @RestController
+@Transactional(readOnly = true)
 public class AnalyticsController {
 
     @Autowired
@@ -29,31 +43,42 @@ public class AnalyticsController {
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private RiskEngine riskEngine;
+
+    @Autowired
+    private ProgressRollups progressRollups;
+
+    @Autowired
+    private SubmissionArchive submissionArchive;
+
+    // Present with app.shards.enabled: class reads go to one shard, department reads to all in parallel
+    @Autowired
+    private ObjectProvider<SubmissionShards> submissionShards;
+
     @GetMapping("/recommendation/{studentId}")
     public ResponseEntity<Map<String, Object>> getRecommendation(
             @PathVariable String studentId,
-            @RequestParam(required = false) String score) {
+            @RequestParam(required = false) String score,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
 
         Map<String, Object> response = new HashMap<>();
         response.put("student_id", studentId);
 
         try {
             UUID userId = UUID.fromString(studentId);
-            Optional<User> userOpt = userRepository.findById(userId);
+            // A verified token for this student already proves it exists
+            boolean known = principal != null && principal.userId().equals(userId)
+                    || userRepository.existsById(userId);
 
-            if (userOpt.isPresent()) {
-                List<QuizSubmission> history = quizRepository.findByUserOrderBySubmittedAtDesc(userOpt.get());
+            if (known) {
+                // Only the latest submission's recommendations are shown
+                List<QuizSubmission> history = quizRepository.findByUser_IdOrderBySubmittedAtDescIdDesc(userId,
+                        PageRequest.of(0, 1));
 
                 if (!history.isEmpty()) {
                     QuizSubmission latest = history.get(0);
-                    String masteryRaw = latest.getTopicMastery(); // Stored as list string like "[Course A, Course B]"
-
-                    // Simple parsing for now since we stored it as toString()
-                    List<String> recs = new ArrayList<>();
-                    if (masteryRaw != null && masteryRaw.length() > 2) {
-                        String clean = masteryRaw.substring(1, masteryRaw.length() - 1);
-                        recs = Arrays.asList(clean.split(", "));
-                    }
+                    List<String> recs = RecommendationService.parseStoredCourses(latest.getTopicMastery());
 
                     response.put("recommended_subjects", recs);
                     if (!recs.isEmpty()) {
@@ -95,14 +120,19 @@ public class AnalyticsController {
                 User user = userOpt.get();
                 List<QuizSubmission> history = quizRepository.findByUserOrderBySubmittedAtDesc(user);
 
-                // 1. Core Stats
-                double avgSpeed = history.stream().mapToInt(QuizSubmission::getTypingSpeed).average().orElse(0);
-                double avgAccuracy = history.stream().mapToInt(QuizSubmission::getAccuracy).average().orElse(0);
+                // 1. Core Stats (hot history plus archived totals)
+                SubmissionArchive.Totals archived = submissionArchive.totalsFor(userId);
+                long quizzes = history.size() + archived.count();
+                long speedSum = history.stream().mapToLong(QuizSubmission::getTypingSpeed).sum() + archived.speedSum();
+                long accuracySum = history.stream().mapToLong(QuizSubmission::getAccuracy).sum()
+                        + archived.accuracySum();
+                double avgSpeed = quizzes > 0 ? (double) speedSum / quizzes : 0;
+                double avgAccuracy = quizzes > 0 ? (double) accuracySum / quizzes : 0;
 
                 response.put("average_speed", (int) avgSpeed);
                 response.put("accuracy", (int) avgAccuracy);
-                response.put("quizzes_taken", history.size());
-                response.put("total_study_hours", history.size() * 0.5); // Mock calculation: 30 mins per quiz
+                response.put("quizzes_taken", quizzes);
+                response.put("total_study_hours", quizzes * 0.5); // Mock calculation: 30 mins per quiz
                 response.put("current_streak", user.getCurrentStreak());
 
                 // 2. Module Progress (Mocked for now as we don't have Module entities yet, but
@@ -138,23 +168,151 @@ public class AnalyticsController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * A student's submissions, newest first. Archived submissions are only
+     * read (and their segment blocks inflated) with include_archived=true,
+     * for pages that go past the hot table.
+     *
+     * Passing the previous page's next_cursor as {@code after} pages the hot
+     * table by key instead of by offset, so deep pages cost the same as the
+     * first and new submissions do not shift them.
+     */
+    @GetMapping("/analytics/{studentId}/history")
+    public ResponseEntity<Map<String, Object>> getHistory(@PathVariable String studentId,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "include_archived", defaultValue = "false") boolean includeArchived,
+            @RequestParam(value = "after", required = false) String after) {
+        UUID userId;
+        UUID cursor;
+        try {
+            userId = UUID.fromString(studentId);
+            cursor = after != null ? UUID.fromString(after) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (cursor != null) {
+            return historyAfter(userId, cursor, size);
+        }
+
+        long offset = (long) page * size;
+        long hotTotal = quizRepository.countByUser_Id(userId);
+        long archivedTotal = submissionArchive.totalsFor(userId).count();
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        if (offset < hotTotal) {
+            for (QuizSubmission sub : quizRepository.findByUser_IdOrderBySubmittedAtDescIdDesc(userId,
+                    PageRequest.of(page, size))) {
+                items.add(historyItem(sub.getId(), sub.getSubmittedAt(), sub.getScore(), sub.getAccuracy(),
+                        sub.getTypingSpeed(), false));
+            }
+        }
+        if (includeArchived && items.size() < size) {
+            for (SubmissionArchive.ArchivedSubmission sub : submissionArchive.history(userId,
+                    Math.max(0, offset - hotTotal), size - items.size())) {
+                items.add(historyItem(sub.id(), sub.submittedAt(), sub.score(), sub.accuracy(), sub.typingSpeed(),
+                        true));
+            }
+        }
+
+        long total = hotTotal + (includeArchived ? archivedTotal : 0);
+        Map<String, Object> response = new HashMap<>();
+        response.put("page", page);
+        response.put("size", size);
+        response.put("items", items);
+        response.put("hot_total", hotTotal);
+        response.put("archived_total", archivedTotal);
+        response.put("has_more", offset + items.size() < total);
+        response.put("next_cursor", items.size() == size && !(Boolean) items.get(size - 1).get("archived")
+                ? items.get(size - 1).get("id") : null);
+        return ResponseEntity.ok(response);
+    }
+
+    // Hot rows only; a cursor that is not a hot submission of this user (e.g. since archived) is a 400
+    private ResponseEntity<Map<String, Object>> historyAfter(UUID userId, UUID cursor, int size) {
+        Optional<QuizSubmission> from = quizRepository.findById(cursor);
+        if (from.isEmpty() || !from.get().getUser().getId().equals(userId)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // One extra row tells whether there is a next page
+        List<QuizSubmission> rows = quizRepository.findHistoryAfter(userId, from.get().getSubmittedAt(), cursor,
+                PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (QuizSubmission sub : rows.subList(0, Math.min(size, rows.size()))) {
+            items.add(historyItem(sub.getId(), sub.getSubmittedAt(), sub.getScore(), sub.getAccuracy(),
+                    sub.getTypingSpeed(), false));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("size", size);
+        response.put("items", items);
+        response.put("has_more", hasMore);
+        response.put("next_cursor", hasMore ? items.get(size - 1).get("id") : null);
+        return ResponseEntity.ok(response);
+    }
+
+    private static Map<String, Object> historyItem(UUID id, LocalDateTime submittedAt, int score, int accuracy,
+            int typingSpeed, boolean archived) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", id);
+        item.put("submitted_at", submittedAt != null ? submittedAt.toString() : null);
+        item.put("score", score);
+        item.put("accuracy", accuracy);
+        item.put("typing_speed", typingSpeed);
+        item.put("archived", archived);
+        return item;
+    }
+
     @GetMapping("/department/analytics")
     public ResponseEntity<Map<String, Object>> getDepartmentAnalytics() {
         Map<String, Object> response = new HashMap<>();
+        SubmissionShards sharded = readableShards();
 
         // 1. Overview
         long totalProfs = userRepository.countByRole("PROFESSOR");
         long totalStudents = userRepository.countByRole("STUDENT");
-        Double avgScore = quizRepository.findGlobalAverageScore();
+        QuizSubmissionRepository.ScoreTotals hot = sharded != null ? sharded.scoreTotals()
+                : quizRepository.findScoreTotals();
+        SubmissionArchive.Totals archived = submissionArchive.globalTotals();
+        long submissions = hot.getSubmissions() + archived.count();
+        double avgScore = submissions > 0 ? (double) (hot.getScoreSum() + archived.scoreSum()) / submissions : 0;
 
         Map<String, Object> overview = new HashMap<>();
         overview.put("total_professors", totalProfs);
         overview.put("total_students", totalStudents);
-        overview.put("avg_dept_score", avgScore != null ? avgScore.intValue() : 0);
+        overview.put("avg_dept_score", (int) avgScore);
 
         response.put("overview", overview);
 
         // 2. Professors List
+        // Class sizes and averages are aggregated once up front instead of per professor
+        Map<String, Long> studentCounts = new HashMap<>();
+        for (UserRepository.ClassCount c : userRepository.countByRoleGroupedByClassId("STUDENT")) {
+            studentCounts.put(c.getClassId(), c.getUserCount());
+        }
+        // {score sum, submissions} per class, hot rows first, then archived totals by their user's class
+        Map<String, double[]> classTotals = new HashMap<>();
+        for (QuizSubmissionRepository.ClassScore c : sharded != null ? sharded.averageScoreByClass()
+                : quizRepository.findAverageScoreGroupedByClassId()) {
+            classTotals.put(c.getClassId(), new double[] { c.getAverageScore() * c.getSubmissions(),
+                    c.getSubmissions() });
+        }
+        if (archived.count() > 0) {
+            for (UserRepository.ClassAssignment u : userRepository.findClassAssignments()) {
+                SubmissionArchive.Totals totals = submissionArchive.totalsFor(u.getId());
+                if (totals.count() > 0) {
+                    double[] t = classTotals.computeIfAbsent(u.getClassId(), k -> new double[2]);
+                    t[0] += totals.scoreSum();
+                    t[1] += totals.count();
+                }
+            }
+        }
+        Map<String, Double> classAverages = new HashMap<>();
+        classTotals.forEach((classId, t) -> classAverages.put(classId, t[1] > 0 ? t[0] / t[1] : 0));
+
         List<User> professors = userRepository.findByRole("PROFESSOR");
         List<Map<String, Object>> profList = professors.stream().map(p -> {
             Map<String, Object> m = new HashMap<>();
@@ -166,9 +324,8 @@ public class AnalyticsController {
             long studentCount = 0;
             Double classAvg = 0.0;
             if (p.getClassId() != null) {
-                List<User> students = userRepository.findByClassIdAndRole(p.getClassId(), "STUDENT");
-                studentCount = students.size();
-                classAvg = quizRepository.findAverageScoreByClassId(p.getClassId());
+                studentCount = studentCounts.getOrDefault(p.getClassId(), 0L);
+                classAvg = classAverages.get(p.getClassId());
             }
 
             m.put("students_count", studentCount);
@@ -180,18 +337,30 @@ public class AnalyticsController {
         response.put("professors", profList);
 
         // 3. Students List
+        Map<UUID, Integer> latestScores = new HashMap<>();
+        // Shards return every user's latest score; only students are looked up below
+        for (QuizSubmissionRepository.LatestScore l : sharded != null ? sharded.latestScores()
+                : quizRepository.findLatestScoreByRole("STUDENT")) {
+            latestScores.putIfAbsent(l.getUserId(), l.getScore());
+        }
+
         List<User> students = userRepository.findByRole("STUDENT");
         List<Map<String, Object>> studentList = students.stream().map(s -> {
             Map<String, Object> m = new HashMap<>();
             m.put("id", s.getId());
             m.put("name", s.getName());
 
-            // Fetch score from history
-            List<QuizSubmission> subs = quizRepository.findByUserOrderBySubmittedAtDesc(s);
-            int score = subs.isEmpty() ? 0 : subs.get(0).getScore();
+            // Score of the latest submission, from the archive once all of it is archived, 0 if none yet
+            Integer score = latestScores.get(s.getId());
+            if (score == null) {
+                score = submissionArchive.totalsFor(s.getId()).count() > 0
+                        ? submissionArchive.latest(s.getId()).map(SubmissionArchive.ArchivedSubmission::score)
+                                .orElse(0)
+                        : 0;
+            }
 
             m.put("score", score); // Raw score assuming 0-100 or normalized? Controller usually sends raw.
-            m.put("status", s.getStatus() != null ? s.getStatus() : "On Track");
+            m.put("status", riskEngine.statusOf(s.getId()));
             m.put("last_active", s.getLastLoginDate() != null ? s.getLastLoginDate().toString() : "Never");
             return m;
 
@@ -213,27 +382,33 @@ public class AnalyticsController {
         double totalScoreSum = 0;
         int activeStudents = 0;
 
+        // Per-student averages for the whole class in one query
+        Map<UUID, QuizSubmissionRepository.UserScoreSummary> summaries = new HashMap<>();
+        SubmissionShards sharded = readableShards();
+        for (QuizSubmissionRepository.UserScoreSummary s : sharded != null ? sharded.summarizeClass(classId)
+                : quizRepository.summarizeByClassIdAndRole(classId, "STUDENT")) {
+            summaries.put(s.getUserId(), s);
+        }
+
         for (User student : students) {
-            List<QuizSubmission> submissions = quizRepository.findByUserOrderBySubmittedAtDesc(student);
+            QuizSubmissionRepository.UserScoreSummary summary = summaries.get(student.getId());
+            SubmissionArchive.Totals archived = submissionArchive.totalsFor(student.getId());
 
             double avgScore = 0;
-            String status = "New";
+            // Precomputed from score/accuracy trends and inactivity
+            String status = riskEngine.statusOf(student.getId());
             String lastActive = "Never";
 
-            if (!submissions.isEmpty()) {
+            if (summary != null || archived.count() > 0) {
                 activeStudents++;
-                avgScore = submissions.stream().mapToInt(QuizSubmission::getScore).average().orElse(0.0);
+                long hotCount = summary != null ? summary.getSubmissionCount() : 0;
+                double hotSum = summary != null ? summary.getAverageScore() * hotCount : 0;
+                avgScore = (hotSum + archived.scoreSum()) / (hotCount + archived.count());
                 // Assume score 0-10 -> 0-100
                 avgScore = avgScore * 10;
 
-                if (avgScore < 50)
-                    status = "At Risk";
-                else if (avgScore < 70)
-                    status = "Needs Attention";
-                else
-                    status = "On Track";
-
-                lastActive = submissions.get(0).getSubmittedAt().toString().substring(0, 10);
+                LocalDateTime last = summary != null ? summary.getLastSubmittedAt() : archived.lastSubmittedAt();
+                lastActive = last.toString().substring(0, 10);
             }
 
             totalScoreSum += avgScore;
@@ -257,6 +432,54 @@ public class AnalyticsController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/analytics/{studentId}/trend")
+    public ResponseEntity<Map<String, Object>> getStudentTrend(@PathVariable String studentId,
+            @RequestParam(value = "granularity", defaultValue = "week") String granularity,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to) {
+        try {
+            return trend(ProgressRollups.studentScope(UUID.fromString(studentId)), granularity, from, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/analytics/class/{classId}/trend")
+    public ResponseEntity<Map<String, Object>> getClassTrend(@PathVariable String classId,
+            @RequestParam(value = "granularity", defaultValue = "week") String granularity,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to) {
+        return trend(ProgressRollups.classScope(classId), granularity, from, to);
+    }
+
+    // Null when sharding is off or a failed shard write is awaiting repair
+    private SubmissionShards readableShards() {
+        SubmissionShards sharded = submissionShards.getIfAvailable();
+        return sharded != null && !sharded.isStale() ? sharded : null;
+    }
+
+    // Defaults to the last year; longer ranges are cut to ProgressRollups.MAX_DAYS
+    private ResponseEntity<Map<String, Object>> trend(String scope, String granularity, String from, String to) {
+        ProgressRollups.Granularity g;
+        LocalDate end;
+        LocalDate start;
+        try {
+            g = ProgressRollups.Granularity.parse(granularity);
+            end = to != null ? LocalDate.parse(to) : LocalDate.now();
+            start = from != null ? LocalDate.parse(from) : end.minusDays(ProgressRollups.MAX_DAYS - 1);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        start = ProgressRollups.clampFrom(start, end);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("granularity", g.name().toLowerCase());
+        response.put("from", start.toString());
+        response.put("to", end.toString());
+        response.put("points", progressRollups.trend(scope, g, start, end));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/api/analytics/user/{email}")
     public ResponseEntity<AnalyticsDTO> getUserAnalytics(@PathVariable String email) {
         return ResponseEntity.ok(analyticsService.getUserAnalytics(email));
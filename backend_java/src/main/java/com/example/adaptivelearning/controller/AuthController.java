@@ -3,8 +3,12 @@ package com.example.adaptivelearning.controller;
 import com.example.adaptivelearning.model.AuthModels;
 import com.example.adaptivelearning.model.User;
 import com.example.adaptivelearning.repository.UserRepository;
+import com.example.adaptivelearning.service.DashboardEvents;
+import com.example.adaptivelearning.service.RiskEngine;
+import com.example.adaptivelearning.service.SessionTokens;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,6 +19,16 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RiskEngine riskEngine;
+
+    @Autowired
+    private DashboardEvents dashboardEvents;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Transactional
     @RequestMapping(value = "/login", method = { RequestMethod.POST, RequestMethod.OPTIONS })
     public ResponseEntity<?> login(@RequestBody(required = false) AuthModels.LoginRequest request) {
         if (request == null || request.getEmail() == null) {
@@ -43,8 +57,17 @@ public class AuthController {
                 }
                 user.setLastLoginDate(today);
                 userRepository.save(user);
+                if ("STUDENT".equals(user.getRole())) {
+                    riskEngine.recordLogin(user.getId(), today);
+
+                    java.util.Map<String, Object> event = new java.util.HashMap<>();
+                    event.put("id", user.getId());
+                    event.put("status", riskEngine.statusOf(user.getId()));
+                    event.put("last_active", today.toString());
+                    dashboardEvents.publish("activity", event, user.getClassId());
+                }
 
-                String token = "jwt-token-" + System.currentTimeMillis();
+                String token = sessionTokens.issue(user);
                 AuthModels.UserDTO userDTO = new AuthModels.UserDTO(
                         user.getId().toString(),
                         user.getEmail(),
@@ -57,6 +80,7 @@ public class AuthController {
         return ResponseEntity.status(401).body("Invalid credentials");
     }
 
+    @Transactional
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody AuthModels.RegisterRequest request) {
         if (request == null || request.getEmail() == null || request.getPassword() == null) {
@@ -84,7 +108,7 @@ public class AuthController {
 
         return ResponseEntity.ok(new AuthModels.LoginResponse(
                 "Registration successful",
-                "jwt-token-register-" + System.currentTimeMillis(),
+                sessionTokens.issue(newUser),
                 userDTO));
     }
 }
@@ -2,6 +2,7 @@ package com.example.adaptivelearning.controller;
 
 import com.example.adaptivelearning.model.User;
 import com.example.adaptivelearning.repository.UserRepository;
+import com.example.adaptivelearning.service.LeaderboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @RestController
@@ -18,6 +20,9 @@ public class ClassController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private LeaderboardService leaderboardService;
+
     @GetMapping("/{classId}/details")
     public ResponseEntity<Map<String, Object>> getClassDetails(@PathVariable String classId) {
         Map<String, Object> response = new HashMap<>();
@@ -47,4 +52,26 @@ public class ClassController {
 
         return ResponseEntity.ok(response);
     }
+
+    // Live ranking by average quiz score, served from memory
+    @GetMapping("/{classId}/leaderboard")
+    public ResponseEntity<Map<String, Object>> getLeaderboard(@PathVariable String classId,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("class_id", classId);
+        response.put("class_size", leaderboardService.classSize(classId));
+        response.put("top", leaderboardService.top(classId, limit));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/leaderboard/student/{studentId}")
+    public ResponseEntity<?> getStudentRank(@PathVariable String studentId,
+            @RequestParam(value = "radius", defaultValue = "2") int radius) {
+        try {
+            Map<String, Object> rank = leaderboardService.around(UUID.fromString(studentId), radius);
+            return rank != null ? ResponseEntity.ok(rank) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid student ID format");
+        }
+    }
 }
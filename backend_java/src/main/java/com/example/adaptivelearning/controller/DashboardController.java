@@ -0,0 +1,35 @@
+package com.example.adaptivelearning.controller;
+
+import com.example.adaptivelearning.config.AuthTokenFilter;
+import com.example.adaptivelearning.service.DashboardService;
+import com.example.adaptivelearning.service.SessionTokens;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    // Profile, analytics and recommendation in one round trip; late sections come back null under "degraded"
+    @GetMapping("/{userId}")
+    public ResponseEntity<?> getDashboard(@PathVariable String userId,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        UUID id;
+        try {
+            id = UUID.fromString(userId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid user ID format");
+        }
+        if (principal != null && principal.isStudent() && !principal.userId().equals(id)) {
+            return ResponseEntity.status(403).build();
+        }
+        return dashboardService.bootstrap(id).<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
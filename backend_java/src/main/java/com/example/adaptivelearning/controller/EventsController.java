@@ -0,0 +1,55 @@
+package com.example.adaptivelearning.controller;
+
+import com.example.adaptivelearning.config.AuthTokenFilter;
+import com.example.adaptivelearning.service.DashboardEvents;
+import com.example.adaptivelearning.service.SessionTokens;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Live dashboard updates (server-sent events): submission, status and
+ * assignment deltas. The events name students and their scores, so a token
+ * is always needed: a class stream is open to that class's professor and to
+ * HODs, the department stream to HODs only.
+ */
+@RestController
+@RequestMapping("/api/events")
+public class EventsController {
+
+    @Autowired
+    private DashboardEvents dashboardEvents;
+
+    @GetMapping(value = "/class/{classId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeClass(@PathVariable String classId,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        boolean allowed = "HOD".equals(principal.role())
+                || ("PROFESSOR".equals(principal.role()) && classId.equals(principal.classId()));
+        if (!allowed) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(dashboardEvents.subscribe(DashboardEvents.classTopic(classId)));
+    }
+
+    @GetMapping(value = "/department", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeDepartment(
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!"HOD".equals(principal.role())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(dashboardEvents.subscribe(DashboardEvents.DEPARTMENT));
+    }
+}
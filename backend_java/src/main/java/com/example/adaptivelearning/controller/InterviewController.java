@@ -1,12 +1,21 @@
 package com.example.adaptivelearning.controller;
 
+import com.example.adaptivelearning.config.AuthTokenFilter;
 import com.example.adaptivelearning.service.GeminiService;
+import com.example.adaptivelearning.service.InterviewSessions;
+import com.example.adaptivelearning.service.SessionTokens;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
 import java.util.HashMap;
 
+/**
+ * Interview turns run against a server-side session (InterviewSessions):
+ * /start returns a session_id that /chat and /analyze take back. A missing
+ * or expired id starts a new session (flagged session_restarted when an id
+ * was sent); a session started with a token only answers to the same user.
+ */
 @RestController
 @RequestMapping("/interview")
 public class InterviewController {
@@ -14,14 +23,31 @@ public class InterviewController {
     @Autowired
     private GeminiService geminiService;
 
+    @Autowired
+    private InterviewSessions interviewSessions;
+
     @PostMapping("/chat")
-    public ResponseEntity<Map<String, String>> chat(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<Map<String, Object>> chat(@RequestBody Map<String, String> payload,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
         String userMessage = payload.get("message");
         String subject = payload.get("subject");
-        String aiResponse = geminiService.getChatResponse(userMessage, subject);
+        InterviewSessions.Session session = resolve(payload.get("session_id"), subject, principal);
+        if (session == null) {
+            return ResponseEntity.status(403).build();
+        }
 
-        Map<String, String> response = new HashMap<>();
+        InterviewSessions.Prompt prompt = interviewSessions.prepareTurn(session, userMessage);
+        String aiResponse = geminiService.getInterviewReply(prompt.text(), userMessage,
+                session.subject != null ? session.subject : subject);
+        interviewSessions.recordInterviewer(session, aiResponse);
+
+        Map<String, Object> response = new HashMap<>();
         response.put("response", aiResponse);
+        response.put("session_id", session.id);
+        response.put("prompt_tokens", prompt.tokens());
+        if (restarted(payload.get("session_id"), session)) {
+            response.put("session_restarted", true);
+        }
 
         return ResponseEntity.ok(response);
     }
@@ -30,16 +56,29 @@ public class InterviewController {
     public ResponseEntity<Map<String, String>> analyzeInterview(
             @RequestParam(value = "message", required = false, defaultValue = "") String message,
             @RequestParam(value = "subject", required = false) String subject,
+            @RequestParam(value = "session_id", required = false) String sessionId,
             @RequestParam(value = "audio", required = false) org.springframework.web.multipart.MultipartFile audioFile,
-            @RequestParam(value = "images", required = false) java.util.List<String> images) {
+            @RequestParam(value = "images", required = false) java.util.List<String> images,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
 
+        InterviewSessions.Session session = resolve(sessionId, subject, principal);
+        if (session == null) {
+            return ResponseEntity.status(403).build();
+        }
         try {
             byte[] audioBytes = audioFile != null ? audioFile.getBytes() : null;
 
-            String aiResponse = geminiService.getMultimodalChatResponse(message, subject, audioBytes, images);
+            String aiResponse = geminiService.getMultimodalChatResponse(message, subject,
+                    interviewSessions.context(session), audioBytes, images);
+            interviewSessions.recordCandidate(session, message.isEmpty() ? "(spoken answer)" : message);
+            interviewSessions.recordInterviewer(session, aiResponse);
 
             Map<String, String> response = new HashMap<>();
             response.put("response", aiResponse);
+            response.put("session_id", session.id);
+            if (restarted(sessionId, session)) {
+                response.put("session_restarted", "true");
+            }
             return ResponseEntity.ok(response);
         } catch (java.io.IOException e) {
             Map<String, String> error = new HashMap<>();
@@ -49,12 +88,34 @@ public class InterviewController {
     }
 
     @PostMapping("/start")
-    public ResponseEntity<Map<String, String>> startInterview(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<Map<String, String>> startInterview(@RequestBody Map<String, String> payload,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
         String subject = payload.get("subject");
+        InterviewSessions.Session session = interviewSessions.start(
+                principal != null ? principal.userId().toString() : null, subject);
         String question = geminiService.generateQuestion(subject);
+        interviewSessions.recordInterviewer(session, question);
 
         Map<String, String> response = new HashMap<>();
         response.put("message", question);
+        response.put("session_id", session.id);
         return ResponseEntity.ok(response);
     }
+
+    // The caller's session, a new one if the id is missing or expired, or null if it is someone else's
+    private InterviewSessions.Session resolve(String sessionId, String subject, SessionTokens.Principal principal) {
+        String userId = principal != null ? principal.userId().toString() : null;
+        if (sessionId != null && !sessionId.isBlank()) {
+            InterviewSessions.Session session = interviewSessions.get(sessionId);
+            if (session != null) {
+                return session.userId == null || session.userId.equals(userId) ? session : null;
+            }
+        }
+        return interviewSessions.start(userId, subject);
+    }
+
+    // An id was sent but had expired, so the earlier context is gone
+    private static boolean restarted(String sessionId, InterviewSessions.Session session) {
+        return sessionId != null && !sessionId.isBlank() && !sessionId.equals(session.id);
+    }
 }
@@ -0,0 +1,171 @@
+package com.example.adaptivelearning.controller;
+
+import com.example.adaptivelearning.config.CompressionFilter;
+import com.example.adaptivelearning.config.RateLimitFilter;
+import com.example.adaptivelearning.config.ReadWriteRoutingDataSource;
+import com.example.adaptivelearning.config.ReplicationStandIn;
+import com.example.adaptivelearning.service.DashboardEvents;
+import com.example.adaptivelearning.service.DashboardService;
+import com.example.adaptivelearning.service.FramePipeline;
+import com.example.adaptivelearning.service.GeminiAdmission;
+import com.example.adaptivelearning.service.GeminiHedger;
+import com.example.adaptivelearning.service.InterviewSessions;
+import com.example.adaptivelearning.service.SessionTokens;
+import com.example.adaptivelearning.service.SubmissionArchive;
+import com.example.adaptivelearning.service.SubmissionShards;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private ObjectProvider<ReadWriteRoutingDataSource> routingDataSource;
+
+    @Autowired
+    private ObjectProvider<ReplicationStandIn> replication;
+
+    @Autowired
+    private ObjectProvider<SubmissionShards> submissionShards;
+
+    @Autowired
+    private SubmissionArchive submissionArchive;
+
+    @Autowired
+    private DashboardEvents dashboardEvents;
+
+    @Autowired
+    private GeminiAdmission geminiAdmission;
+
+    @Autowired
+    private GeminiHedger geminiHedger;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Autowired
+    private CompressionFilter compressionFilter;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private InterviewSessions interviewSessions;
+
+    @Autowired
+    private FramePipeline framePipeline;
+
+    // Admission control and rate limiting in front of the Gemini-backed endpoints
+    @GetMapping("/llm")
+    public ResponseEntity<Map<String, Object>> getLlmMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("admission", geminiAdmission.getStats());
+        response.put("rate_limit", rateLimitFilter.getStats());
+        response.put("hedging", geminiHedger.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    // Signing keys in use (ids only), tokens issued and rejected
+    @GetMapping("/auth")
+    public ResponseEntity<Map<String, Object>> getAuthMetrics() {
+        return ResponseEntity.ok(sessionTokens.getStats());
+    }
+
+    // Dashboard bootstraps served and sections degraded (late, failed or shed)
+    @GetMapping("/dashboard")
+    public ResponseEntity<Map<String, Object>> getDashboardMetrics() {
+        return ResponseEntity.ok(dashboardService.getStats());
+    }
+
+    // Responses gzipped by CompressionFilter and bytes saved
+    @GetMapping("/http")
+    public ResponseEntity<Map<String, Object>> getHttpMetrics() {
+        return ResponseEntity.ok(compressionFilter.getStats());
+    }
+
+    // Live interview sessions, prompt sizes against the budget, compactions and evictions
+    @GetMapping("/interview")
+    public ResponseEntity<Map<String, Object>> getInterviewMetrics() {
+        return ResponseEntity.ok(interviewSessions.getStats());
+    }
+
+    // Multimodal frames in and out, duplicates dropped and upload bytes saved
+    @GetMapping("/frames")
+    public ResponseEntity<Map<String, Object>> getFrameMetrics() {
+        return ResponseEntity.ok(framePipeline.getStats());
+    }
+
+    @GetMapping("/events")
+    public ResponseEntity<Map<String, Object>> getEventMetrics() {
+        return ResponseEntity.ok(dashboardEvents.getStats());
+    }
+
+    @GetMapping("/datasource")
+    public ResponseEntity<Map<String, Object>> getDataSourceMetrics() {
+        Map<String, Object> response = new HashMap<>();
+
+        // 1. Pool utilization (one entry per Hikari pool)
+        List<Map<String, Object>> pools = new ArrayList<>();
+        applicationContext.getBeansOfType(HikariDataSource.class).forEach((name, ds) -> {
+            Map<String, Object> pool = new HashMap<>();
+            pool.put("name", ds.getPoolName() != null ? ds.getPoolName() : name);
+            pool.put("max", ds.getMaximumPoolSize());
+
+            HikariPoolMXBean mx = ds.getHikariPoolMXBean();
+            int active = mx != null ? mx.getActiveConnections() : 0;
+            pool.put("active", active);
+            pool.put("idle", mx != null ? mx.getIdleConnections() : 0);
+            pool.put("total", mx != null ? mx.getTotalConnections() : 0);
+            pool.put("waiting", mx != null ? mx.getThreadsAwaitingConnection() : 0);
+            pool.put("utilization", ds.getMaximumPoolSize() > 0 ? (double) active / ds.getMaximumPoolSize() : 0);
+            pools.add(pool);
+        });
+        response.put("pools", pools);
+
+        // 2. Routing decisions, only when the primary/replica split is enabled
+        ReadWriteRoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (routing != null) {
+            response.put("primary_connections", routing.getPrimaryConnections());
+            response.put("replica_connections", routing.getReplicaConnections());
+        }
+
+        ReplicationStandIn standIn = replication.getIfAvailable();
+        if (standIn != null) {
+            Map<String, Object> sync = new HashMap<>();
+            sync.put("last_sync_ms", standIn.getLastSyncMillis());
+            sync.put("last_sync_rows", standIn.getLastSyncRows());
+            sync.put("lag_ms", System.currentTimeMillis() - standIn.getLastSyncCompletedAt());
+            response.put("replication", sync);
+        }
+
+        // 3. Submission shards: row count and pool activity per shard
+        SubmissionShards shards = submissionShards.getIfAvailable();
+        if (shards != null) {
+            response.put("shards", shards.getStats());
+        }
+
+        // 4. Cold tier: archived segments
+        response.put("archive", submissionArchive.getStats());
+
+        return ResponseEntity.ok(response);
+    }
+}
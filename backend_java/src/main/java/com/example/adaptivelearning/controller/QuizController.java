@@ -1,15 +1,38 @@
 package com.example.adaptivelearning.controller;
 
+import com.example.adaptivelearning.config.AuthTokenFilter;
+import com.example.adaptivelearning.model.Question;
 import com.example.adaptivelearning.model.QuizModels;
 import com.example.adaptivelearning.model.QuizSubmission;
 import com.example.adaptivelearning.model.User;
 import com.example.adaptivelearning.repository.QuizSubmissionRepository;
 import com.example.adaptivelearning.repository.UserRepository;
+import com.example.adaptivelearning.service.AbilityEngine;
+import com.example.adaptivelearning.service.DashboardEvents;
+import com.example.adaptivelearning.service.LeaderboardService;
+import com.example.adaptivelearning.service.ProgressRollups;
+import com.example.adaptivelearning.service.QuestionBank;
 import com.example.adaptivelearning.service.RecommendationService;
+import com.example.adaptivelearning.service.ReviewScheduler;
+import com.example.adaptivelearning.service.RiskEngine;
+import com.example.adaptivelearning.service.SessionTokens;
+import com.example.adaptivelearning.service.SubmissionShards;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.Optional;
 
@@ -29,13 +52,167 @@ public class QuizController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AbilityEngine abilityEngine;
+
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    @Autowired
+    private QuestionBank questionBank;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private RiskEngine riskEngine;
+
+    @Autowired
+    private DashboardEvents dashboardEvents;
+
+    @Autowired
+    private ProgressRollups progressRollups;
+
+    @Autowired
+    private ObjectProvider<SubmissionShards> submissionShards;
+
+    @Value("${app.reviews.max-per-quiz:5}")
+    private int maxReviewsPerQuiz;
+
     @GetMapping("/generate")
-    public ResponseEntity<?> generateQuiz() {
-        return ResponseEntity.ok(geminiService.generateQuestions());
+    public ResponseEntity<?> generateQuiz(@RequestParam(value = "student_id", required = false) String studentId,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        if (studentId == null && principal != null && principal.isStudent()) {
+            studentId = principal.userId().toString();
+        }
+        if (studentId == null) {
+            List<Question> questions = geminiService.generateQuestions();
+            reviewScheduler.rememberServed(questions);
+            questionBank.addAll(questions);
+            return ResponseEntity.ok(questions);
+        }
+
+        UUID userId;
+        try {
+            userId = UUID.fromString(studentId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid student ID format");
+        }
+
+        List<Question> candidates = geminiService.generateCandidateQuestions();
+        reviewScheduler.rememberServed(candidates);
+        questionBank.addAll(candidates);
+
+        // Due reviews first (only those we still have options for), then fill with
+        // the candidates closest to the student's current ability
+        List<Question> reviews = reviewScheduler.dueQuestions(userId, maxReviewsPerQuiz);
+        List<Question> remaining = candidates;
+        if (!reviews.isEmpty()) {
+            Set<String> reviewKeys = new HashSet<>();
+            for (Question review : reviews) {
+                reviewKeys.add(RecommendationService.normalizeQuestion(review.question()));
+            }
+            remaining.removeIf(candidate -> reviewKeys.contains(
+                    RecommendationService.normalizeQuestion(candidate.question())));
+        }
+
+        List<Question> quiz = new ArrayList<>(reviews);
+        quiz.addAll(abilityEngine.selectNearAbility(userId, remaining, 15 - reviews.size()));
+        Collections.shuffle(quiz);
+        return ResponseEntity.ok(renumber(quiz));
+    }
+
+    // Questions from earlier quizzes or the bank carry stale ids; number them by position, in place
+    private List<Question> renumber(List<Question> quiz) {
+        for (int i = 0; i < quiz.size(); i++) {
+            quiz.set(i, quiz.get(i).withId(i + 1));
+        }
+        return quiz;
+    }
+
+    // Quiz assembled from the question bank on the topics of the student's last recommendations
+    @GetMapping("/weak-topics/{studentId}")
+    public ResponseEntity<?> generateWeakTopicQuiz(@PathVariable String studentId) {
+        UUID userId;
+        try {
+            userId = UUID.fromString(studentId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid student ID format");
+        }
+
+        // topicMastery holds the last submission's recommended topics
+        List<String> weakTopics = quizRepository.findFirstByUser_IdOrderBySubmittedAtDesc(userId)
+                .map(last -> RecommendationService.parseStoredCourses(last.getTopicMastery()))
+                .orElse(List.of());
+
+        // A new install has an empty bank, seed it with one generated batch
+        if (questionBank.size() < 15) {
+            questionBank.addAll(geminiService.generateCandidateQuestions());
+        }
+
+        List<Question> quiz = questionBank.assemble(weakTopics, 15);
+        if (quiz.size() < 15) {
+            // Not enough banked questions on those topics: top up from the rest of the bank
+            Set<Question> seen = new HashSet<>(quiz);
+            for (Question extra : questionBank.assemble(recommendationService.getTopics(), 30)) {
+                if (quiz.size() < 15 && seen.add(extra)) {
+                    quiz.add(extra);
+                }
+            }
+        }
+        reviewScheduler.rememberServed(quiz);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("topics", weakTopics);
+        response.put("questions", renumber(quiz));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/bank")
+    public ResponseEntity<?> getQuestionBank() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("size", questionBank.size());
+        response.put("topics", questionBank.topicCounts());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/reviews/{studentId}")
+    public ResponseEntity<?> getDueReviews(@PathVariable String studentId,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        try {
+            UUID student = UUID.fromString(studentId);
+            List<Map<String, Object>> due = reviewScheduler.dueReviews(student, limit);
+            Map<String, Object> response = new HashMap<>();
+            response.put("due", due);
+            response.put("due_count", due.size());
+            response.put("pending_count", reviewScheduler.pendingCount(student));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid student ID format");
+        }
     }
 
+    @GetMapping("/ability/{studentId}")
+    public ResponseEntity<?> getAbility(@PathVariable String studentId) {
+        try {
+            return ResponseEntity.ok(abilityEngine.getAbilities(UUID.fromString(studentId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid student ID format");
+        }
+    }
+
+    @Transactional
     @PostMapping("/submit")
-    public ResponseEntity<QuizModels.QuizResponse> submitQuiz(@RequestBody QuizModels.QuizSubmission submission) {
+    public ResponseEntity<QuizModels.QuizResponse> submitQuiz(@RequestBody QuizModels.QuizSubmission submission,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+
+        if (principal != null) {
+            if (submission.getStudent_id() == null) {
+                submission.setStudent_id(principal.userId().toString());
+            } else if (principal.isStudent() && !principal.userId().toString().equals(submission.getStudent_id())) {
+                return ResponseEntity.status(403).build();
+            }
+        }
 
         java.util.List<String> recommendedCourses = recommendationService
                 .getRecommendationsFromMistakes(submission.getWrong_answers());
@@ -53,25 +230,76 @@ public class QuizController {
         // PERSISTENCE IMPLEMENTATION
         try {
             UUID userId = UUID.fromString(submission.getStudent_id());
-            Optional<User> userOpt = userRepository.findById(userId);
-
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                QuizSubmission entity = new QuizSubmission();
-                entity.setUser(user);
-                entity.setScore(submission.getScore());
-                // Assuming max score is 10 for accuracy calc, or we just trust the mock logic
-                // for now
-                // Accuracy isn't sent in the request body yet?
-                // The frontend api.js Mock submitQuiz just returns score.
-                // We'll set defaults for now.
-                entity.setAccuracy(85); // Default for now
-                entity.setTypingSpeed(45); // Default for now
-                entity.setTopicMastery(recommendedCourses.toString()); // Simple storage
-
-                quizRepository.save(entity);
+            User user;
+            String name;
+            String role;
+            String classId;
+            if (principal != null && principal.userId().equals(userId)) {
+                // The verified token already names the user; a reference is enough for the foreign key
+                user = userRepository.getReferenceById(userId);
+                name = principal.name();
+                role = principal.role();
+                classId = principal.classId();
             } else {
-                System.out.println("User not found for ID: " + submission.getStudent_id());
+                Optional<User> userOpt = userRepository.findById(userId);
+                if (userOpt.isEmpty()) {
+                    System.out.println("User not found for ID: " + submission.getStudent_id());
+                    return ResponseEntity.ok(new QuizModels.QuizResponse("Quiz submitted successfully", result));
+                }
+                user = userOpt.get();
+                name = user.getName();
+                role = user.getRole();
+                classId = user.getClassId();
+            }
+
+            QuizSubmission entity = new QuizSubmission();
+            entity.setUser(user);
+            entity.setScore(submission.getScore());
+            // Assuming max score is 10 for accuracy calc, or we just trust the mock logic
+            // for now
+            // Accuracy isn't sent in the request body yet?
+            // The frontend api.js Mock submitQuiz just returns score.
+            // We'll set defaults for now.
+            entity.setAccuracy(85); // Default for now
+            entity.setTypingSpeed(45); // Default for now
+            entity.setTopicMastery(recommendedCourses.toString()); // Simple storage
+
+            quizRepository.save(entity);
+            SubmissionShards sharded = submissionShards.getIfAvailable();
+            if (sharded != null) {
+                sharded.recordSubmission(entity.getId(), userId, classId, entity.getScore(),
+                        entity.getSubmittedAt());
+            }
+            // Class trends only count students
+            progressRollups.recordSubmission(userId, "STUDENT".equals(role) ? classId : null,
+                    entity.getScore(), entity.getAccuracy(), entity.getTypingSpeed(),
+                    entity.getSubmittedAt().toLocalDate());
+
+            // The in-memory engines only learn about the submission once it is committed
+            afterCommit(() -> {
+                abilityEngine.recordQuiz(userId, submission.getAnswered_questions(),
+                        submission.getWrong_answers());
+                reviewScheduler.recordQuiz(userId, submission.getAnswered_questions(),
+                        submission.getWrong_answers());
+                if ("STUDENT".equals(role)) {
+                    leaderboardService.recordScore(userId, name, classId, submission.getScore());
+                    riskEngine.recordSubmission(userId, submission.getScore(), entity.getAccuracy());
+                }
+            });
+            if ("STUDENT".equals(role)) {
+                // Built when it goes out, after the updates above; same fields as the dashboard rows
+                dashboardEvents.publish("submission", () -> {
+                    Double average = leaderboardService.averageScore(userId);
+                    Map<String, Object> event = new HashMap<>();
+                    event.put("id", userId);
+                    event.put("name", name);
+                    event.put("class_id", classId);
+                    event.put("latest_score", submission.getScore());
+                    event.put("score", average != null ? (int) (average * 10) : submission.getScore() * 10);
+                    event.put("status", riskEngine.statusOf(userId));
+                    event.put("last_active", LocalDateTime.now().toString().substring(0, 10));
+                    return event;
+                }, classId);
             }
         } catch (IllegalArgumentException e) {
             System.err.println("Invalid UUID format for student ID: " + submission.getStudent_id());
@@ -79,4 +307,17 @@ public class QuizController {
 
         return ResponseEntity.ok(new QuizModels.QuizResponse("Quiz submitted successfully", result));
     }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
@@ -1,12 +1,16 @@
 package com.example.adaptivelearning.controller;
 
+import com.example.adaptivelearning.config.AuthTokenFilter;
 import com.example.adaptivelearning.model.AuthModels;
 import com.example.adaptivelearning.model.User;
 import com.example.adaptivelearning.repository.UserRepository;
+import com.example.adaptivelearning.service.SessionTokens;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -16,8 +20,17 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionTokens sessionTokens;
+
     @GetMapping("/{email}")
-    public ResponseEntity<?> getProfile(@PathVariable String email) {
+    public ResponseEntity<?> getProfile(@PathVariable String email,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        // Your own profile is all in the token
+        if (principal != null && email.equalsIgnoreCase(principal.email())) {
+            return ResponseEntity.ok(new AuthModels.UserDTO(principal.userId().toString(), principal.email(),
+                    principal.role(), principal.name()));
+        }
         Optional<User> userOpt = userRepository.findByEmail(email);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
@@ -32,8 +45,17 @@ public class UserController {
         return ResponseEntity.notFound().build();
     }
 
+    @Transactional
     @PutMapping("/update")
-    public ResponseEntity<?> updateProfile(@RequestBody AuthModels.ProfileUpdateRequest request) {
+    public ResponseEntity<?> updateProfile(@RequestBody AuthModels.ProfileUpdateRequest request,
+            @RequestAttribute(name = AuthTokenFilter.PRINCIPAL, required = false) SessionTokens.Principal principal) {
+        // Changes names and passwords: only your own profile, or anyone's with a staff token
+        if (principal == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!principal.isStaff() && !principal.email().equalsIgnoreCase(request.getEmail())) {
+            return ResponseEntity.status(403).build();
+        }
         Optional<User> userOpt = userRepository.findByEmail(request.getEmail());
         if (userOpt.isPresent()) {
             User user = userOpt.get();
@@ -44,6 +66,8 @@ public class UserController {
                 user.setPassword(request.getPassword());
             }
             userRepository.save(user);
+            // Tokens carry the name; older ones get re-issued on their next request
+            sessionTokens.usersChanged(List.of(user.getId()));
 
             AuthModels.UserDTO userDTO = new AuthModels.UserDTO(
                     user.getId().toString(),
@@ -0,0 +1,191 @@
+package com.example.adaptivelearning.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * JDK Flight Recorder events for where a request's time goes: one Request
+ * event per HTTP request, and Controller, Repository, Aggregation, Upstream,
+ * Frames and Serialization events for the phases inside it. Every event
+ * carries the request id, the endpoint pattern and, once known, the user and
+ * class, so bench.PhaseReport (test scope) can turn a recording into a per-endpoint
+ * breakdown.
+ *
+ * Nothing is recorded unless a recording is running with these events
+ * enabled (they are by default); otherwise begin/commit are no-ops the JIT
+ * removes. To record in production:
+ *
+ * JAVA_OPTS="-XX:StartFlightRecording=name=phases,maxage=1h,disk=true,filename=phases.jfr"
+ *
+ * Phase events find their request through a thread-local context that
+ * config.ProfilingFilter opens; work handed to another thread must be
+ * wrapped with {@link #propagate(Supplier)} to stay attributed.
+ */
+public final class Profiling {
+
+    private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong REQUEST_IDS = new AtomicLong();
+
+    private Profiling() {
+    }
+
+    /** Who and what the current request is about; filled in as the request is routed and authenticated. */
+    public static final class Context {
+        public final long requestId = REQUEST_IDS.incrementAndGet();
+        public volatile String endpoint;
+        public volatile String userId;
+        public volatile String classId;
+
+        Context(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    public static Context open(String endpoint) {
+        Context context = new Context(endpoint);
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    /** The current request's context, or null outside a request. */
+    public static Context current() {
+        return CURRENT.get();
+    }
+
+    /** Runs the supplier with the caller's request context, for work moved to a pool thread. */
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        Context context = CURRENT.get();
+        if (context == null) {
+            return work;
+        }
+        return () -> {
+            Context previous = CURRENT.get();
+            CURRENT.set(context);
+            try {
+                return work.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    @Category({ "Adaptive Learning", "Request Phases" })
+    @StackTrace(false)
+    public abstract static class RequestScoped extends Event {
+        @Label("Request Id")
+        public long requestId;
+
+        @Label("Endpoint")
+        public String endpoint;
+
+        @Label("User Id")
+        public String userId;
+
+        @Label("Class Id")
+        public String classId;
+
+        /** Ends the event and, if it is being recorded, tags and commits it. */
+        public void finish() {
+            end();
+            if (shouldCommit()) {
+                Context context = CURRENT.get();
+                if (context != null) {
+                    requestId = context.requestId;
+                    endpoint = context.endpoint;
+                    userId = context.userId;
+                    classId = context.classId;
+                }
+                commit();
+            }
+        }
+    }
+
+    @Name("adaptivelearning.Request")
+    @Label("Request")
+    @Description("A whole HTTP request, from the outermost filter")
+    public static class Request extends RequestScoped {
+        @Label("Method")
+        public String method;
+
+        @Label("Status")
+        public int status;
+    }
+
+    @Name("adaptivelearning.Controller")
+    @Label("Controller")
+    @Description("Handler method, including writing its response body")
+    public static class Controller extends RequestScoped {
+        @Label("Handler")
+        public String handler;
+    }
+
+    @Name("adaptivelearning.Repository")
+    @Label("Repository Call")
+    public static class Repository extends RequestScoped {
+        @Label("Method")
+        public String method;
+    }
+
+    @Name("adaptivelearning.Aggregation")
+    @Label("Analytics Aggregation")
+    public static class Aggregation extends RequestScoped {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Items")
+        public int items;
+    }
+
+    @Name("adaptivelearning.Upstream")
+    @Label("Gemini Call")
+    public static class Upstream extends RequestScoped {
+        @Label("Mode")
+        @Description("direct or hedged")
+        public String mode;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name("adaptivelearning.Frames")
+    @Label("Frame Processing")
+    @Description("Decoding, deduplicating and re-encoding the webcam frames of a multimodal turn")
+    public static class Frames extends RequestScoped {
+        @Label("Frames Received")
+        public int received;
+
+        @Label("Frames Sent")
+        public int sent;
+
+        @Label("Bytes In")
+        @DataAmount
+        public long bytesIn;
+
+        @Label("Bytes Out")
+        @DataAmount
+        public long bytesOut;
+    }
+
+    @Name("adaptivelearning.Serialization")
+    @Label("Response Serialization")
+    public static class Serialization extends RequestScoped {
+        @Label("Format")
+        public String format;
+    }
+}
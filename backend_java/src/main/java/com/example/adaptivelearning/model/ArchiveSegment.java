@@ -0,0 +1,28 @@
+package com.example.adaptivelearning.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+// Catalog of archived submission segment files; a file without a row here is an unfinished archive run
+@Entity
+@Table(name = "archive_segments")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveSegment {
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    private int submissions;
+    private int users;
+
+    private LocalDateTime firstSubmittedAt;
+    private LocalDateTime lastSubmittedAt;
+
+    private long bytes;
+    private LocalDateTime createdAt;
+}
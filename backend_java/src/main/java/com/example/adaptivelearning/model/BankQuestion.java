@@ -0,0 +1,30 @@
+package com.example.adaptivelearning.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+// A generated quiz question kept for reuse, stored once per normalized content hash
+@Entity
+@Table(name = "question_bank")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankQuestion {
+    // SHA-256 (hex) of the normalized question text and options
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    // Full question JSON (question, options, answer)
+    @Column(length = 4000)
+    private String payload;
+
+    // Comma-separated topics from the RecommendationService keyword table
+    @Column(length = 500)
+    private String topics;
+
+    private LocalDateTime createdAt;
+}
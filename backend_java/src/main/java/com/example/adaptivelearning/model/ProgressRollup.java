@@ -0,0 +1,46 @@
+package com.example.adaptivelearning.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// One day of quiz activity for a student ("student:<uuid>") or a class ("class:<id>")
+@Entity
+@Table(name = "progress_rollups")
+@IdClass(ProgressRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgressRollup {
+    @Id
+    @Column(length = 100)
+    private String scope;
+
+    @Id
+    private LocalDate bucketDay;
+
+    private int submissions;
+
+    private long scoreSum;
+    private int scoreMin;
+    private int scoreMax;
+
+    private long accuracySum;
+    private int accuracyMin;
+    private int accuracyMax;
+
+    private long speedSum;
+    private int speedMin;
+    private int speedMax;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String scope;
+        private LocalDate bucketDay;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.adaptivelearning.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One multiple-choice question as served to the client:
+ * {@code {"id", "question", "options", "answer"}}.
+ *
+ * {@code fields} is the JSON of everything except the id, rendered once in
+ * the constructor and shared by {@link #withId} copies, so serializing a
+ * quiz copies bytes instead of walking maps. Use the four-argument
+ * constructor; the canonical one exists because records require it.
+ */
+@JsonSerialize(using = Question.Serializer.class)
+public record Question(int id, String question, List<String> options, String answer, SerializedString fields) {
+
+    public Question(int id, String question, List<String> options, String answer) {
+        this(id, question, List.copyOf(options), answer, render(question, options, answer));
+    }
+
+    /** The same question under another id; shares the text, options and rendered JSON. */
+    public Question withId(int newId) {
+        return newId == id ? this : new Question(newId, question, options, answer, fields);
+    }
+
+    public String toJson() {
+        return "{\"id\":" + id + fields.getValue() + "}";
+    }
+
+    /** From a parsed JSON object; null if it has no text or no options. */
+    public static Question fromMap(Map<String, Object> map) {
+        Object text = map.get("question");
+        if (text == null || !(map.get("options") instanceof Collection<?> raw)) {
+            return null;
+        }
+        List<String> options = new ArrayList<>(raw.size());
+        for (Object option : raw) {
+            options.add(String.valueOf(option));
+        }
+        Object id = map.get("id");
+        Object answer = map.get("answer");
+        return new Question(id instanceof Number n ? n.intValue() : 0, String.valueOf(text), options,
+                answer != null ? String.valueOf(answer) : null);
+    }
+
+    // ,"question":...,"options":[...],"answer":... ready to splice after the id
+    private static SerializedString render(String question, List<String> options, String answer) {
+        StringBuilder json = new StringBuilder(",\"question\":");
+        quote(json, question);
+        json.append(",\"options\":[");
+        for (int i = 0; i < options.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            quote(json, options.get(i));
+        }
+        json.append("],\"answer\":");
+        quote(json, answer);
+        return new SerializedString(json.toString());
+    }
+
+    private static void quote(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        JsonStringEncoder.getInstance().quoteAsString(value, json);
+        json.append('"');
+    }
+
+    public static final class Serializer extends StdSerializer<Question> {
+
+        public Serializer() {
+            super(Question.class);
+        }
+
+        @Override
+        public void serialize(Question q, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("id", q.id);
+            gen.writeRaw(q.fields);
+            gen.writeEndObject();
+        }
+    }
+}
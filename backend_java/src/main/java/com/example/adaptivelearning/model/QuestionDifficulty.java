@@ -0,0 +1,21 @@
+package com.example.adaptivelearning.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// Checkpointed item difficulty from AbilityEngine, keyed by normalized question text
+@Entity
+@Table(name = "question_difficulty")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionDifficulty {
+    @Id
+    @Column(length = 1000)
+    private String questionKey;
+
+    private double difficulty;
+    private int answers;
+}
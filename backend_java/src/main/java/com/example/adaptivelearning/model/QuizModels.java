@@ -15,6 +15,8 @@ public class QuizModels {
         private Integer score;
         private Map<String, Object> typing_metrics;
         private java.util.List<String> wrong_answers;
+        // Every question shown in the quiz; lets the ability engine credit correct answers too
+        private java.util.List<String> answered_questions;
     }
 
     @Data
@@ -8,13 +8,16 @@ import java.util.UUID;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "quiz_submissions")
+// submitted_at is indexed for date-range reads (exports, rollup backfill), and per user for history paging
+@Table(name = "quiz_submissions", indexes = {
+        @Index(name = "idx_quiz_submissions_submitted_at", columnList = "submittedAt"),
+        @Index(name = "idx_quiz_submissions_user_history", columnList = "user_id, submittedAt, id") })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class QuizSubmission {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
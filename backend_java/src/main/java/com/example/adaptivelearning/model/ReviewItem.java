@@ -0,0 +1,43 @@
+package com.example.adaptivelearning.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One missed question in a student's spaced-repetition schedule (SM-2 state)
+@Entity
+@Table(name = "review_items")
+@IdClass(ReviewItem.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewItem {
+    @Id
+    private UUID userId;
+
+    // Normalized question text
+    @Id
+    @Column(length = 1000)
+    private String questionKey;
+
+    // Full question JSON (question, options, answer) when known, else just the text
+    @Column(length = 4000)
+    private String payload;
+
+    private int repetitions;
+    private int intervalDays;
+    private double easeFactor;
+    private LocalDateTime dueAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private String questionKey;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.adaptivelearning.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Checkpointed trend state from RiskEngine (exponentially weighted score/accuracy)
+@Entity
+@Table(name = "student_risk")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentRisk {
+    @Id
+    private UUID userId;
+
+    // 0-100 scale
+    private double ewmaScore;
+    private double ewmaAccuracy;
+    private int quizzes;
+    private LocalDate lastSubmittedOn;
+}
@@ -0,0 +1,34 @@
+package com.example.adaptivelearning.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.io.Serializable;
+import java.util.UUID;
+
+// Checkpointed per-topic student ability from AbilityEngine
+@Entity
+@Table(name = "student_topic_ability")
+@IdClass(StudentTopicAbility.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentTopicAbility {
+    @Id
+    private UUID userId;
+
+    @Id
+    private String topic;
+
+    private double ability;
+    private int answers;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private String topic;
+    }
+}
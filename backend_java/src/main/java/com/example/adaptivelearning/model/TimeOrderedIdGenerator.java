@@ -0,0 +1,53 @@
+package com.example.adaptivelearning.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version 7 UUIDs (RFC 9562): 48 bits of Unix epoch millis, then a 12-bit
+ * sequence in rand_a, then 62 random bits. New rows therefore append to the
+ * right edge of the primary key index instead of splitting random pages,
+ * and ids sort in creation order in the database (UUID columns compare
+ * unsigned; java.util.UUID.compareTo is signed and does not).
+ *
+ * Ids are strictly increasing within this JVM, across threads: the sequence
+ * restarts each millisecond, and if 4096 ids are taken in one millisecond or
+ * the clock steps back, the timestamp is carried forward instead.
+ */
+public class TimeOrderedIdGenerator implements BeforeExecutionGenerator {
+
+    // (epoch millis << 12) | sequence of the last id handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << 12;
+        long last;
+        long next;
+        do {
+            last = LAST.get();
+            next = Math.max(last + 1, now);
+        } while (!LAST.compareAndSet(last, next));
+
+        long msb = (next >>> 12) << 16 | 0x7000L | (next & 0xFFFL);
+        long lsb = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+            EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -2,21 +2,99 @@ package com.example.adaptivelearning.repository;
 
 import com.example.adaptivelearning.model.QuizSubmission;
 import com.example.adaptivelearning.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface QuizSubmissionRepository extends JpaRepository<QuizSubmission, UUID> {
     List<QuizSubmission> findByUserOrderBySubmittedAtDesc(User user);
 
+    Optional<QuizSubmission> findFirstByUser_IdOrderBySubmittedAtDesc(UUID userId);
+
     // Analytics: Average score for a class
     @Query("SELECT AVG(q.score) FROM QuizSubmission q WHERE q.user.classId = :classId")
     Double findAverageScoreByClassId(String classId);
 
-    // Global Analytics: Average score for everyone
-    @Query("SELECT AVG(q.score) FROM QuizSubmission q")
-    Double findGlobalAverageScore();
+    // Global Analytics: score sum and count for everyone, to combine with archived totals
+    @Query("SELECT COALESCE(SUM(q.score), 0) AS scoreSum, COUNT(q) AS submissions FROM QuizSubmission q")
+    ScoreTotals findScoreTotals();
+
+    // History paging: the hot rows of one user, newest first; the id breaks ties so pages never overlap
+    List<QuizSubmission> findByUser_IdOrderBySubmittedAtDescIdDesc(UUID userId, Pageable pageable);
+
+    // History paging by cursor: the rows after (submittedAt, id) in the order above
+    @Query("SELECT q FROM QuizSubmission q WHERE q.user.id = :userId AND (q.submittedAt < :submittedAt "
+            + "OR (q.submittedAt = :submittedAt AND q.id < :id)) ORDER BY q.submittedAt DESC, q.id DESC")
+    List<QuizSubmission> findHistoryAfter(UUID userId, LocalDateTime submittedAt, UUID id, Pageable pageable);
+
+    long countByUser_Id(UUID userId);
+
+    // Dashboard: one user's hot count and sums, without loading the rows
+    @Query("SELECT COUNT(q) AS submissions, COALESCE(SUM(q.score), 0) AS scoreSum, "
+            + "COALESCE(SUM(q.accuracy), 0) AS accuracySum, COALESCE(SUM(q.typingSpeed), 0) AS speedSum "
+            + "FROM QuizSubmission q WHERE q.user.id = :userId")
+    UserTotals findTotalsByUserId(UUID userId);
+
+    // HOD Analytics: Average score of every class in one query
+    @Query("SELECT q.user.classId AS classId, AVG(q.score) AS averageScore, COUNT(q) AS submissions "
+            + "FROM QuizSubmission q "
+            + "WHERE q.user.classId IS NOT NULL GROUP BY q.user.classId")
+    List<ClassScore> findAverageScoreGroupedByClassId();
+
+    // HOD Analytics: Latest score of every user with the given role
+    @Query("SELECT q.user.id AS userId, q.score AS score FROM QuizSubmission q WHERE q.user.role = :role "
+            + "AND q.submittedAt = (SELECT MAX(q2.submittedAt) FROM QuizSubmission q2 WHERE q2.user = q.user)")
+    List<LatestScore> findLatestScoreByRole(String role);
+
+    // Professor Dashboard: Per-student average and last activity for a class
+    @Query("SELECT q.user.id AS userId, AVG(q.score) AS averageScore, MAX(q.submittedAt) AS lastSubmittedAt, "
+            + "COUNT(q) AS submissionCount FROM QuizSubmission q WHERE q.user.classId = :classId AND q.user.role = :role GROUP BY q.user.id")
+    List<UserScoreSummary> summarizeByClassIdAndRole(String classId, String role);
+
+    interface ScoreTotals {
+        Long getScoreSum();
+
+        Long getSubmissions();
+    }
+
+    interface UserTotals {
+        Long getSubmissions();
+
+        Long getScoreSum();
+
+        Long getAccuracySum();
+
+        Long getSpeedSum();
+    }
+
+    interface ClassScore {
+        String getClassId();
+
+        Double getAverageScore();
+
+        // Weight of the average when archived totals are folded in
+        long getSubmissions();
+    }
+
+    interface LatestScore {
+        UUID getUserId();
+
+        int getScore();
+    }
+
+    interface UserScoreSummary {
+        UUID getUserId();
+
+        Double getAverageScore();
+
+        LocalDateTime getLastSubmittedAt();
+
+        Long getSubmissionCount();
+    }
 }
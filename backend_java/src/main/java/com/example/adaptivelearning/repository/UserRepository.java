@@ -19,4 +19,25 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     // HOD Analytics: Count users by role
     long countByRole(String role);
+
+    // HOD Analytics: Head count of every class in one query
+    @Query("SELECT u.classId AS classId, COUNT(u) AS userCount FROM User u "
+            + "WHERE u.role = :role AND u.classId IS NOT NULL GROUP BY u.classId")
+    List<ClassCount> countByRoleGroupedByClassId(String role);
+
+    // HOD Analytics: class of every assigned user, to attribute archived totals
+    @Query("SELECT u.id AS id, u.classId AS classId FROM User u WHERE u.classId IS NOT NULL")
+    List<ClassAssignment> findClassAssignments();
+
+    interface ClassAssignment {
+        UUID getId();
+
+        String getClassId();
+    }
+
+    interface ClassCount {
+        String getClassId();
+
+        long getUserCount();
+    }
 }
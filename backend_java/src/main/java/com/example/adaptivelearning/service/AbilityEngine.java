@@ -0,0 +1,246 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.Question;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps item difficulty and per-topic student ability up to date as quizzes
+ * are submitted, and uses them to pick questions near a student's level.
+ *
+ * State is held in an {@link AbilityModel} and checkpointed to the
+ * question_difficulty / student_topic_ability tables on a fixed delay, so a
+ * restart reloads the estimates instead of replaying submission history.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class AbilityEngine implements SmartInitializingSingleton {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    // Offset so selected items are answered correctly ~70% of the time: ln(0.7 / 0.3)
+    @Value("${app.adaptive.target-offset:0.85}")
+    private double targetOffset;
+
+    private final RecommendationService recommendationService;
+    private final AbilityModel model;
+    private final Map<String, Integer> topicIndex = new HashMap<>();
+    private final List<String> topics;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public AbilityEngine(RecommendationService recommendationService,
+            @Value("${app.adaptive.step:0.4}") double step,
+            @Value("${app.adaptive.step-decay:0.05}") double stepDecay) {
+        this.recommendationService = recommendationService;
+        this.topics = recommendationService.getTopics();
+        for (int i = 0; i < topics.size(); i++) {
+            topicIndex.put(topics.get(i), i);
+        }
+        this.model = new AbilityModel(topics.size(), step, stepDecay);
+    }
+
+    // Tables exist once Hibernate has run its schema update
+    @Override
+    public void afterSingletonsInstantiated() {
+        lock.writeLock().lock();
+        try {
+            jdbcTemplate.query("SELECT question_key, difficulty, answers FROM question_difficulty", rs -> {
+                String key = rs.getString(1);
+                model.restoreQuestion(model.questionSlot(key, topicIds(key)), rs.getDouble(2), rs.getInt(3));
+            });
+            jdbcTemplate.query("SELECT user_id, topic, ability, answers FROM student_topic_ability", rs -> {
+                Integer topic = topicIndex.get(rs.getString(2));
+                if (topic != null) {
+                    int student = model.studentSlot(rs.getObject(1, UUID.class));
+                    model.restoreAbility(student, topic, rs.getDouble(3), rs.getInt(4));
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Ability engine restored " + model.questionCount() + " questions and "
+                + model.studentCount() + " students.");
+    }
+
+    /**
+     * Records one quiz. Questions in {@code answered} but not in {@code wrong}
+     * count as correct; if {@code answered} is missing only the misses are known.
+     * Question strings come from the client, so a new item is only tracked if
+     * the server actually served it.
+     */
+    public void recordQuiz(UUID studentId, Collection<String> answered, Collection<String> wrong) {
+        Set<String> wrongKeys = new HashSet<>();
+        if (wrong != null) {
+            wrong.forEach(q -> wrongKeys.add(key(q)));
+        }
+        Collection<String> all = answered != null ? answered : wrong;
+        if (all == null || all.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int student = model.studentSlot(studentId);
+            for (String question : all) {
+                String key = key(question);
+                int slot = model.findQuestion(key);
+                if (slot < 0) {
+                    if (!reviewScheduler.wasServed(key)) {
+                        continue;
+                    }
+                    slot = model.questionSlot(key, topicIds(key));
+                }
+                model.update(student, slot, !wrongKeys.contains(key));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Picks {@code count} candidates whose difficulty is closest to the
+     * student's ability (minus the target offset) on the question's topics.
+     */
+    public List<Question> selectNearAbility(UUID studentId, List<Question> candidates, int count) {
+        double[] distance = new double[candidates.size()];
+        lock.readLock().lock();
+        try {
+            int student = model.findStudent(studentId);
+            for (int i = 0; i < candidates.size(); i++) {
+                String key = key(candidates.get(i).question());
+                int slot = model.findQuestion(key);
+                int[] ids = slot >= 0 ? model.topicsOf(slot) : topicIds(key);
+                double b = slot >= 0 ? model.difficulty(slot) : 0;
+                // Random jitter breaks ties so unseen items are not always served in the same order
+                distance[i] = Math.abs(b - (model.estimate(student, ids) - targetOffset))
+                        + ThreadLocalRandom.current().nextDouble(0.05);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(i -> distance[i]));
+
+        List<Question> selected = new ArrayList<>(Math.min(count, candidates.size()));
+        for (int i = 0; i < Math.min(count, order.size()); i++) {
+            selected.add(candidates.get(order.get(i)));
+        }
+        return selected;
+    }
+
+    public Map<String, Object> getAbilities(UUID studentId) {
+        Map<String, Object> abilities = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int student = model.findStudent(studentId);
+            if (student >= 0) {
+                for (int t = 0; t < topics.size(); t++) {
+                    if (model.abilityAnswers(student, t) > 0) {
+                        abilities.put(topics.get(t), model.ability(student, t));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return abilities;
+    }
+
+    @Scheduled(fixedDelayString = "${app.adaptive.checkpoint-interval-ms:30000}")
+    public void checkpoint() {
+        AbilityModel.Changes changes;
+        lock.writeLock().lock();
+        try {
+            changes = model.drainChanges();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> questionRows = new ArrayList<>(changes.questionKeys.length);
+        for (int i = 0; i < changes.questionKeys.length; i++) {
+            questionRows.add(new Object[] { changes.questionKeys[i], changes.difficulties[i],
+                    changes.questionAnswers[i] });
+        }
+        List<Object[]> abilityRows = new ArrayList<>(changes.studentIds.length);
+        for (int i = 0; i < changes.studentIds.length; i++) {
+            abilityRows.add(new Object[] { changes.studentIds[i], topics.get(changes.topics[i]),
+                    changes.abilities[i], changes.abilityAnswers[i] });
+        }
+        try {
+            jdbcTemplate.batchUpdate("MERGE INTO question_difficulty (question_key, difficulty, answers) "
+                    + "KEY (question_key) VALUES (?, ?, ?)", questionRows);
+            jdbcTemplate.batchUpdate("MERGE INTO student_topic_ability (user_id, topic, ability, answers) "
+                    + "KEY (user_id, topic) VALUES (?, ?, ?, ?)", abilityRows);
+        } catch (RuntimeException e) {
+            // MERGE is idempotent, so the next checkpoint can rewrite all of it
+            lock.writeLock().lock();
+            try {
+                model.restoreChanges(changes);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        try {
+            checkpoint();
+        } catch (Exception e) {
+            System.err.println("Final ability checkpoint failed, " + pendingChanges()
+                    + " estimates not saved: " + e.getMessage());
+        }
+    }
+
+    private int pendingChanges() {
+        lock.readLock().lock();
+        try {
+            return model.dirtyCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] topicIds(String questionKey) {
+        List<String> names = recommendationService.getTopicsForQuestion(questionKey);
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = topicIndex.get(names.get(i));
+        }
+        return ids;
+    }
+
+    private static String key(String question) {
+        return RecommendationService.normalizeQuestion(question);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.adaptivelearning.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Online Elo/Rasch estimator for question difficulty and per-topic student ability.
+ *
+ * The chance a student answers a question correctly is modelled as
+ * sigmoid(ability - difficulty), where ability is the mean of the student's
+ * abilities over the question's topics. Each answer moves the difficulty and
+ * those topic abilities against the prediction error, with a step size that
+ * shrinks as an item or skill collects answers. An update is O(topics).
+ *
+ * State lives in flat primitive arrays indexed by dense slots; the maps only
+ * translate question keys and user ids to slots. Not thread-safe, callers
+ * must synchronize.
+ */
+public class AbilityModel {
+
+    private final int topicCount;
+    private final double baseStep;
+    private final double stepDecay;
+
+    private final Map<String, Integer> questionSlots = new HashMap<>();
+    private String[] questionKeys = new String[1024];
+    private int[][] questionTopics = new int[1024][];
+    private double[] difficulty = new double[1024];
+    private int[] questionAnswers = new int[1024];
+    private int questions;
+
+    private final Map<UUID, Integer> studentSlots = new HashMap<>();
+    private UUID[] studentIds = new UUID[1024];
+    // ability[student * topicCount + topic]
+    private double[] ability;
+    private int[] abilityAnswers;
+    private int students;
+
+    private final BitSet dirtyQuestions = new BitSet();
+    private final BitSet dirtyAbilities = new BitSet();
+
+    public AbilityModel(int topicCount, double baseStep, double stepDecay) {
+        this.topicCount = topicCount;
+        this.baseStep = baseStep;
+        this.stepDecay = stepDecay;
+        this.ability = new double[1024 * topicCount];
+        this.abilityAnswers = new int[1024 * topicCount];
+    }
+
+    public int questionSlot(String key, int[] topics) {
+        Integer slot = questionSlots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        if (questions == difficulty.length) {
+            int size = questions * 2;
+            questionKeys = Arrays.copyOf(questionKeys, size);
+            questionTopics = Arrays.copyOf(questionTopics, size);
+            difficulty = Arrays.copyOf(difficulty, size);
+            questionAnswers = Arrays.copyOf(questionAnswers, size);
+        }
+        questionKeys[questions] = key;
+        questionTopics[questions] = topics;
+        questionSlots.put(key, questions);
+        return questions++;
+    }
+
+    public int findQuestion(String key) {
+        Integer slot = questionSlots.get(key);
+        return slot != null ? slot : -1;
+    }
+
+    public int studentSlot(UUID id) {
+        Integer slot = studentSlots.get(id);
+        if (slot != null) {
+            return slot;
+        }
+        if (students == studentIds.length) {
+            int size = students * 2;
+            studentIds = Arrays.copyOf(studentIds, size);
+            ability = Arrays.copyOf(ability, size * topicCount);
+            abilityAnswers = Arrays.copyOf(abilityAnswers, size * topicCount);
+        }
+        studentIds[students] = id;
+        studentSlots.put(id, students);
+        return students++;
+    }
+
+    public int findStudent(UUID id) {
+        Integer slot = studentSlots.get(id);
+        return slot != null ? slot : -1;
+    }
+
+    /** Applies one answer and returns the predicted probability it was correct. */
+    public double update(int student, int question, boolean correct) {
+        int[] topics = questionTopics[question];
+        int base = student * topicCount;
+
+        double theta = 0;
+        for (int t : topics) {
+            theta += ability[base + t];
+        }
+        theta /= topics.length;
+
+        double p = 1.0 / (1.0 + Math.exp(difficulty[question] - theta));
+        double error = (correct ? 1.0 : 0.0) - p;
+
+        difficulty[question] -= step(questionAnswers[question]++) * error;
+        dirtyQuestions.set(question);
+
+        for (int t : topics) {
+            int i = base + t;
+            ability[i] += step(abilityAnswers[i]++) * error;
+            dirtyAbilities.set(i);
+        }
+        return p;
+    }
+
+    // Large steps while an estimate is new, settling as evidence accumulates
+    private double step(int answers) {
+        return baseStep / (1.0 + stepDecay * answers);
+    }
+
+    /** Mean ability over the given topics; 0 (the prior) for unknown students. */
+    public double estimate(int student, int[] topics) {
+        if (student < 0) {
+            return 0;
+        }
+        double theta = 0;
+        for (int t : topics) {
+            theta += ability[student * topicCount + t];
+        }
+        return theta / topics.length;
+    }
+
+    public double ability(int student, int topic) {
+        return ability[student * topicCount + topic];
+    }
+
+    public int abilityAnswers(int student, int topic) {
+        return abilityAnswers[student * topicCount + topic];
+    }
+
+    public double difficulty(int question) {
+        return difficulty[question];
+    }
+
+    public int[] topicsOf(int question) {
+        return questionTopics[question];
+    }
+
+    public int topicCount() {
+        return topicCount;
+    }
+
+    public int questionCount() {
+        return questions;
+    }
+
+    public int studentCount() {
+        return students;
+    }
+
+    // Restores checkpointed state without marking it dirty
+    public void restoreQuestion(int question, double value, int answers) {
+        difficulty[question] = value;
+        questionAnswers[question] = answers;
+    }
+
+    public void restoreAbility(int student, int topic, double value, int answers) {
+        ability[student * topicCount + topic] = value;
+        abilityAnswers[student * topicCount + topic] = answers;
+    }
+
+    /** Questions and student-topic estimates changed since the last drain. */
+    public int dirtyCount() {
+        return dirtyQuestions.cardinality() + dirtyAbilities.cardinality();
+    }
+
+    /** Copies out and clears everything changed since the previous call. */
+    public Changes drainChanges() {
+        Changes changes = new Changes(dirtyQuestions.cardinality(), dirtyAbilities.cardinality());
+        for (int q = dirtyQuestions.nextSetBit(0); q >= 0; q = dirtyQuestions.nextSetBit(q + 1)) {
+            changes.addQuestion(q, questionKeys[q], difficulty[q], questionAnswers[q]);
+        }
+        for (int i = dirtyAbilities.nextSetBit(0); i >= 0; i = dirtyAbilities.nextSetBit(i + 1)) {
+            changes.addAbility(i, studentIds[i / topicCount], i % topicCount, ability[i], abilityAnswers[i]);
+        }
+        dirtyQuestions.clear();
+        dirtyAbilities.clear();
+        return changes;
+    }
+
+    /**
+     * Marks drained entries dirty again, for a checkpoint that failed to
+     * write them. Entries changed since the drain are dirty already, and the
+     * next drain copies their current values either way.
+     */
+    public void restoreChanges(Changes changes) {
+        for (int q : changes.questionSlots) {
+            dirtyQuestions.set(q);
+        }
+        for (int i : changes.abilitySlots) {
+            dirtyAbilities.set(i);
+        }
+    }
+
+    public static final class Changes {
+        public final String[] questionKeys;
+        public final double[] difficulties;
+        public final int[] questionAnswers;
+        public final UUID[] studentIds;
+        public final int[] topics;
+        public final double[] abilities;
+        public final int[] abilityAnswers;
+        final int[] questionSlots;
+        final int[] abilitySlots;
+        private int q;
+        private int a;
+
+        Changes(int questions, int abilities) {
+            questionKeys = new String[questions];
+            difficulties = new double[questions];
+            questionAnswers = new int[questions];
+            studentIds = new UUID[abilities];
+            topics = new int[abilities];
+            this.abilities = new double[abilities];
+            abilityAnswers = new int[abilities];
+            questionSlots = new int[questions];
+            abilitySlots = new int[abilities];
+        }
+
+        void addQuestion(int slot, String key, double value, int answers) {
+            questionSlots[q] = slot;
+            questionKeys[q] = key;
+            difficulties[q] = value;
+            questionAnswers[q++] = answers;
+        }
+
+        void addAbility(int slot, UUID student, int topic, double value, int answers) {
+            abilitySlots[a] = slot;
+            studentIds[a] = student;
+            topics[a] = topic;
+            abilities[a] = value;
+            abilityAnswers[a++] = answers;
+        }
+
+        public boolean isEmpty() {
+            return questionKeys.length == 0 && studentIds.length == 0;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.adaptivelearning.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Server-sent event fan-out for the professor (per class) and HOD
+ * (department) dashboards.
+ *
+ * Writers publish small delta events; each event is serialized once and
+ * offered to every subscriber's bounded queue without blocking. A small
+ * sender pool drains the queues, and a subscriber whose queue is full is
+ * disconnected rather than allowed to hold up the others; its EventSource
+ * reconnects and reloads the full dashboard once.
+ */
+@Service
+public class DashboardEvents {
+
+    public static final String DEPARTMENT = "department";
+
+    @Value("${app.events.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${app.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "dashboard-events");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final class Subscriber {
+        final String topic;
+        final SseEmitter emitter = new SseEmitter(timeoutMs);
+        final Queue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(String topic) {
+            this.topic = topic;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (!queue.offer(event)) {
+                dropped.incrementAndGet();
+                remove(this);
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    emitter.send(event);
+                    delivered.incrementAndGet();
+                }
+            } catch (Exception e) {
+                remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event offered after the last poll but before draining was cleared
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+
+    public static String classTopic(String classId) {
+        return "class:" + classId;
+    }
+
+    public SseEmitter subscribe(String topic) {
+        Subscriber subscriber = new Subscriber(topic);
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+        topics.computeIfAbsent(topic, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        try {
+            subscriber.offer(SseEmitter.event().name("connected")
+                    .data(objectMapper.writeValueAsString(Map.of("topic", topic))));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return subscriber.emitter;
+    }
+
+    /**
+     * Publishes an event to the given class topics (nulls skipped) and the
+     * department topic. Inside a transaction it goes out after commit, so
+     * dashboards never see a change that was rolled back.
+     */
+    public void publish(String name, Map<String, Object> payload, String... classIds) {
+        publish(name, () -> payload, classIds);
+    }
+
+    /**
+     * As above, with the payload built when the event goes out. Commit
+     * callbacks run in registration order, so it sees whatever earlier
+     * callbacks of the same transaction updated.
+     */
+    public void publish(String name, Supplier<Map<String, Object>> payload, String... classIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fanOut(name, payload.get(), classIds);
+                }
+            });
+        } else {
+            fanOut(name, payload.get(), classIds);
+        }
+    }
+
+    private void fanOut(String name, Map<String, Object> payload, String... classIds) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            System.err.println("Could not serialize dashboard event " + name + ": " + e.getMessage());
+            return;
+        }
+        published.incrementAndGet();
+        Set<String> classes = new HashSet<>();
+        for (String classId : classIds) {
+            if (classId != null && classes.add(classId)) {
+                send(classTopic(classId), name, json);
+            }
+        }
+        send(DEPARTMENT, name, json);
+    }
+
+    private void send(String topic, String name, String json) {
+        Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().name(name).data(json));
+        }
+    }
+
+    // Keeps idle connections open through proxies and notices clients that went away
+    @Scheduled(fixedDelayString = "${app.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> subscribers : topics.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int subscribers = 0;
+        for (Set<Subscriber> s : topics.values()) {
+            subscribers += s.size();
+        }
+        return Map.of("subscribers", subscribers, "topics", topics.size(), "published", published.get(),
+                "delivered", delivered.get(), "dropped_slow_consumers", dropped.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> subscribers = topics.get(subscriber.topic);
+        if (subscribers != null) {
+            subscribers.remove(subscriber);
+        }
+    }
+}
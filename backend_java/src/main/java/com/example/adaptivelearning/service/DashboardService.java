@@ -0,0 +1,241 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.diagnostics.Profiling;
+import com.example.adaptivelearning.model.QuizSubmission;
+import com.example.adaptivelearning.model.User;
+import com.example.adaptivelearning.repository.QuizSubmissionRepository;
+import com.example.adaptivelearning.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Everything the student dashboard shows, in one response. The user, the
+ * newest app.dashboard.history-size submissions and the user's hot totals
+ * are read once; the profile, analytics and recommendation sections are then
+ * built from them in parallel on a small fixed pool.
+ *
+ * Each section has app.dashboard.section-timeout-ms from the start of the
+ * fan-out. A section that is late, fails, or finds the pool and its queue
+ * full comes back as null and is named under "degraded" with the reason;
+ * the other sections are returned as usual.
+ */
+@Service
+public class DashboardService {
+
+    private static final String[] SECTIONS = { "profile", "analytics", "recommendation" };
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private QuizSubmissionRepository quizRepository;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private SubmissionArchive submissionArchive;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private RiskEngine riskEngine;
+
+    @Autowired
+    private AbilityEngine abilityEngine;
+
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    @Value("${app.dashboard.history-size:50}")
+    private int historySize;
+
+    @Value("${app.dashboard.section-timeout-ms:300}")
+    private long sectionTimeoutMs;
+
+    @Value("${app.reviews.max-per-quiz:5}")
+    private int maxReviews;
+
+    private final ThreadPoolExecutor sections;
+    private final Map<String, AtomicLong> degradedBySection = new ConcurrentHashMap<>();
+    private final AtomicLong served = new AtomicLong();
+
+    public DashboardService(@Value("${app.dashboard.threads:4}") int threads,
+            @Value("${app.dashboard.queue-size:64}") int queueSize) {
+        // No caller-runs fallback: a saturated pool degrades sections instead of blocking request threads
+        sections = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "dashboard-section");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /** The dashboard for a user, or empty if there is no such user. */
+    public Optional<Map<String, Object>> bootstrap(UUID userId) {
+        Optional<User> userOpt = userRepository.findById(userId);
+        if (userOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        User user = userOpt.get();
+        List<QuizSubmission> recent = quizRepository.findByUser_IdOrderBySubmittedAtDescIdDesc(userId,
+                PageRequest.of(0, historySize));
+        QuizSubmissionRepository.UserTotals hot = quizRepository.findTotalsByUserId(userId);
+
+        Map<String, Supplier<Object>> work = new LinkedHashMap<>();
+        work.put("profile", () -> profile(user));
+        work.put("analytics", () -> analytics(user, recent, hot));
+        work.put("recommendation", () -> recommendation(userId, recent));
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        Map<String, Future<Object>> futures = new LinkedHashMap<>();
+        Map<String, String> degraded = new TreeMap<>();
+        for (Map.Entry<String, Supplier<Object>> entry : work.entrySet()) {
+            try {
+                // Section work stays attributed to this request in profiling recordings
+                Supplier<Object> section = Profiling.propagate(entry.getValue());
+                futures.put(entry.getKey(), sections.submit(section::get));
+            } catch (RejectedExecutionException e) {
+                degraded.put(entry.getKey(), "overloaded");
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("user_id", userId);
+        for (String section : SECTIONS) {
+            Future<Object> future = futures.get(section);
+            Object value = null;
+            if (future != null) {
+                try {
+                    value = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    degraded.put(section, "timeout");
+                } catch (ExecutionException e) {
+                    System.err.println("Dashboard section " + section + " failed for " + userId + ": "
+                            + e.getCause());
+                    degraded.put(section, "error");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    degraded.put(section, "interrupted");
+                }
+            }
+            response.put(section, value);
+        }
+        degraded.keySet().forEach(s -> degradedBySection.computeIfAbsent(s, k -> new AtomicLong()).incrementAndGet());
+        served.incrementAndGet();
+        response.put("degraded", degraded);
+        response.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
+        response.put("generated_at", LocalDateTime.now().toString());
+        return Optional.of(response);
+    }
+
+    private Map<String, Object> profile(User user) {
+        Map<String, Object> profile = new LinkedHashMap<>();
+        profile.put("id", user.getId().toString());
+        profile.put("email", user.getEmail());
+        profile.put("name", user.getName());
+        profile.put("role", user.getRole());
+        profile.put("class_id", user.getClassId());
+        profile.put("current_streak", user.getCurrentStreak());
+        if ("STUDENT".equals(user.getRole())) {
+            profile.put("status", riskEngine.statusOf(user.getId()));
+            Map<String, Object> standing = leaderboardService.around(user.getId(), 0);
+            if (standing != null) {
+                profile.put("rank", standing.get("rank"));
+                profile.put("class_size", standing.get("class_size"));
+            }
+        }
+        return profile;
+    }
+
+    // Same fields as /api/analytics/user/{email}, so the dashboard maps it the same way
+    private Map<String, Object> analytics(User user, List<QuizSubmission> recent,
+            QuizSubmissionRepository.UserTotals hot) {
+        SubmissionArchive.Totals archived = submissionArchive.totalsFor(user.getId());
+        long count = hot.getSubmissions() + archived.count();
+
+        Map<String, Object> analytics = new LinkedHashMap<>();
+        analytics.put("averageScore", count > 0 ? (double) (hot.getScoreSum() + archived.scoreSum()) / count : 0.0);
+        analytics.put("averageAccuracy",
+                count > 0 ? (double) (hot.getAccuracySum() + archived.accuracySum()) / count : 0.0);
+        analytics.put("averageTypingSpeed",
+                count > 0 ? (double) (hot.getSpeedSum() + archived.speedSum()) / count : 0.0);
+        analytics.put("totalQuizzes", count);
+        analytics.put("currentStreak", user.getCurrentStreak());
+        // Over the loaded window only
+        analytics.put("topicMastery", analyticsService.averageTopicMastery(recent));
+        List<Map<String, Object>> submissions = new ArrayList<>();
+        for (QuizSubmission sub : recent.subList(0, Math.min(10, recent.size()))) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("score", sub.getScore());
+            row.put("accuracy", sub.getAccuracy());
+            row.put("typingSpeed", sub.getTypingSpeed());
+            row.put("submittedAt", sub.getSubmittedAt().toString());
+            submissions.add(row);
+        }
+        analytics.put("recentSubmissions", submissions);
+        return analytics;
+    }
+
+    private Map<String, Object> recommendation(UUID userId, List<QuizSubmission> recent) {
+        Map<String, Object> recommendation = new LinkedHashMap<>();
+        List<String> courses = recent.isEmpty() ? List.of()
+                : RecommendationService.parseStoredCourses(recent.get(0).getTopicMastery());
+        recommendation.put("recommended_subjects", courses);
+        recommendation.put("recommended_subject", courses.isEmpty() ? "General Assessment" : courses.get(0));
+
+        // Three weakest topics the ability engine has seen answers for
+        List<Map.Entry<String, Object>> abilities = new ArrayList<>(abilityEngine.getAbilities(userId).entrySet());
+        abilities.sort(Comparator.comparingDouble(e -> ((Number) e.getValue()).doubleValue()));
+        List<String> weakTopics = new ArrayList<>();
+        for (int i = 0; i < Math.min(3, abilities.size()); i++) {
+            weakTopics.add(abilities.get(i).getKey());
+        }
+        recommendation.put("weak_topics", weakTopics);
+        recommendation.put("due_reviews", reviewScheduler.dueReviews(userId, maxReviews).size());
+        return recommendation;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("served", served.get());
+        Map<String, Long> degraded = new TreeMap<>();
+        degradedBySection.forEach((k, v) -> degraded.put(k, v.get()));
+        stats.put("degraded", degraded);
+        stats.put("active_sections", sections.getActiveCount());
+        stats.put("queued_sections", sections.getQueue().size());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sections.shutdownNow();
+    }
+}
@@ -0,0 +1,417 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.diagnostics.Profiling;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shrinks the webcam frames of a multimodal interview turn before they are
+ * sent to Gemini. Every frame is decoded, scaled so its longer side is at
+ * most app.frames.max-dimension and given a 64-bit difference hash; a frame
+ * within app.frames.duplicate-distance bits of one already kept is dropped,
+ * and the rest are re-encoded as JPEG at app.frames.quality. A JPEG that
+ * needed no scaling keeps its original bytes when re-encoding would not make
+ * it smaller.
+ *
+ * Decoding and encoding run on a fixed pool of app.frames.threads, with at
+ * most threads + app.frames.queue-size frames queued or in work at once. A
+ * frame waits up to app.frames.queue-timeout-ms for a slot; after that the
+ * turn is shed with {@link GeminiOverloadedException} (HTTP 429) instead of
+ * decoding on the request thread. Frames that cannot be decoded, or
+ * that are larger than app.frames.max-pixels, are dropped: Gemini would
+ * reject them anyway.
+ */
+@Service
+public class FramePipeline {
+
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+    private static final double HASH_DEADBAND = 2.0;
+
+    /** The frames to send, as bare base64 JPEG, and what it took to get them. */
+    public record Result(List<String> frames, int received, int duplicates, int dropped, long bytesIn,
+            long bytesOut) {
+        public long bytesSaved() {
+            return Math.max(0, bytesIn - bytesOut);
+        }
+    }
+
+    // A decoded frame, already scaled, with its hash
+    private record Decoded(BufferedImage image, long hash, byte[] original, boolean reusable) {
+    }
+
+    @Value("${app.frames.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.frames.max-dimension:512}")
+    private int maxDimension;
+
+    @Value("${app.frames.quality:0.7}")
+    private float quality;
+
+    @Value("${app.frames.duplicate-distance:5}")
+    private int duplicateDistance;
+
+    @Value("${app.frames.max-pixels:16000000}")
+    private long maxPixels;
+
+    @Value("${app.frames.queue-timeout-ms:1000}")
+    private long queueTimeoutMs;
+
+    private final ThreadPoolExecutor pool;
+    // One permit per frame queued or in work, so the pool's queue never overflows
+    private final Semaphore slots;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong framesIn = new AtomicLong();
+    private final AtomicLong framesOut = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile Result last;
+
+    public FramePipeline(@Value("${app.frames.threads:2}") int threads,
+            @Value("${app.frames.queue-size:32}") int queueSize) {
+        pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "frame-pipeline");
+                    t.setDaemon(true);
+                    return t;
+                });
+        slots = new Semaphore(threads + queueSize);
+    }
+
+    /** The frames of one turn, deduplicated and shrunk, in the order they were sent. */
+    public Result process(List<String> base64Frames) {
+        List<String> input = new ArrayList<>();
+        if (base64Frames != null) {
+            for (String frame : base64Frames) {
+                if (frame != null && !frame.isEmpty()) {
+                    input.add(frame);
+                }
+            }
+        }
+        if (input.isEmpty()) {
+            return new Result(List.of(), 0, 0, 0, 0, 0);
+        }
+        if (!enabled) {
+            List<String> bare = input.stream().map(FramePipeline::stripDataUrl).toList();
+            long size = bare.stream().mapToLong(String::length).sum();
+            return new Result(bare, bare.size(), 0, 0, size, size);
+        }
+
+        long start = System.nanoTime();
+        Profiling.Frames event = new Profiling.Frames();
+        event.begin();
+
+        long in = 0;
+        List<Future<Decoded>> decoding = new ArrayList<>(input.size());
+        for (String frame : input) {
+            String data = stripDataUrl(frame);
+            in += data.length();
+            decoding.add(submit(() -> decode(data)));
+        }
+
+        // Sequential so the earliest of a run of near-identical frames is the one kept
+        List<Decoded> kept = new ArrayList<>();
+        int duplicateCount = 0;
+        int droppedCount = 0;
+        for (Future<Decoded> future : decoding) {
+            Decoded frame = await(future);
+            if (frame == null) {
+                droppedCount++;
+            } else if (isDuplicate(frame, kept)) {
+                duplicateCount++;
+            } else {
+                kept.add(frame);
+            }
+        }
+
+        List<Future<String>> encoding = new ArrayList<>(kept.size());
+        for (Decoded frame : kept) {
+            encoding.add(submit(() -> encode(frame)));
+        }
+        List<String> frames = new ArrayList<>(kept.size());
+        long out = 0;
+        for (Future<String> future : encoding) {
+            String frame = await(future);
+            if (frame == null) {
+                droppedCount++;
+            } else {
+                frames.add(frame);
+                out += frame.length();
+            }
+        }
+
+        Result result = new Result(frames, input.size(), duplicateCount, droppedCount, in, out);
+        requests.incrementAndGet();
+        framesIn.addAndGet(result.received());
+        framesOut.addAndGet(frames.size());
+        duplicates.addAndGet(duplicateCount);
+        dropped.addAndGet(droppedCount);
+        bytesIn.addAndGet(in);
+        bytesOut.addAndGet(out);
+        nanos.addAndGet(System.nanoTime() - start);
+        last = result;
+
+        event.received = result.received();
+        event.sent = frames.size();
+        event.bytesIn = in;
+        event.bytesOut = out;
+        event.finish();
+        return result;
+    }
+
+    // Frames already submitted by a turn that is then shed still finish and free their slots
+    private <T> Future<T> submit(Callable<T> task) {
+        boolean admitted;
+        try {
+            admitted = slots.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            rejected.incrementAndGet();
+            throw new GeminiOverloadedException("Frame pipeline is busy");
+        }
+        FutureTask<T> future = new FutureTask<>(task) {
+            @Override
+            protected void done() {
+                slots.release();
+            }
+        };
+        try {
+            pool.execute(future);
+        } catch (RejectedExecutionException e) {
+            // Shut down, or a cancelled frame still holding its thread
+            slots.release();
+            rejected.incrementAndGet();
+            throw new GeminiOverloadedException("Frame pipeline is busy");
+        }
+        return future;
+    }
+
+    private Decoded decode(String base64) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        try (ImageInputStream stream = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                // Checked before decoding so a small upload cannot claim a huge raster
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels <= 0 || pixels > maxPixels) {
+                    return null;
+                }
+                boolean jpeg = "jpeg".equalsIgnoreCase(reader.getFormatName());
+                BufferedImage image = reader.read(0);
+                BufferedImage scaled = scale(image);
+                return new Decoded(scaled, hash(scaled), bytes, jpeg && scaled.getWidth() == image.getWidth());
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Halving steps before the last one keep bilinear scaling from aliasing on large frames
+    private BufferedImage scale(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double factor = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * factor));
+        int targetHeight = Math.max(1, (int) Math.round(height * factor));
+
+        BufferedImage current = image;
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            current = draw(current, width, height);
+        }
+        if (width != targetWidth || height != targetHeight || current.getType() != BufferedImage.TYPE_INT_RGB) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    // Always RGB on white: JPEG has no alpha channel
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Difference hash: one bit per horizontally adjacent pair of cells in a
+     * 9x8 grid of mean luminance. Whole cells are averaged, not sampled, so
+     * sensor noise cancels out, and a pair only sets its bit when the left
+     * cell is brighter by more than HASH_DEADBAND, so flat areas hash the
+     * same from frame to frame instead of by noise.
+     */
+    static long hash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long[] sums = new long[HASH_WIDTH * HASH_HEIGHT];
+        int[] counts = new int[HASH_WIDTH * HASH_HEIGHT];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellRow = y * HASH_HEIGHT / height * HASH_WIDTH;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                int cell = cellRow + x * HASH_WIDTH / width;
+                // Rec. 601 luma, scaled by 1000
+                sums[cell] += 299 * ((rgb >> 16) & 0xff) + 587 * ((rgb >> 8) & 0xff) + 114 * (rgb & 0xff);
+                counts[cell]++;
+            }
+        }
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                int cell = y * HASH_WIDTH + x;
+                double left = sums[cell] / 1000.0 / Math.max(1, counts[cell]);
+                double right = sums[cell + 1] / 1000.0 / Math.max(1, counts[cell + 1]);
+                hash = (hash << 1) | (left - right > HASH_DEADBAND ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    private boolean isDuplicate(Decoded frame, List<Decoded> kept) {
+        for (Decoded other : kept) {
+            if (Long.bitCount(frame.hash() ^ other.hash()) <= duplicateDistance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String encode(Decoded frame) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            return null;
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(frame.image(), null, null), param);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            writer.dispose();
+        }
+        byte[] encoded = frame.reusable() && frame.original().length <= bytes.size() ? frame.original()
+                : bytes.toByteArray();
+        return Base64.getEncoder().encodeToString(encoded);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    static String stripDataUrl(String frame) {
+        int comma = frame.indexOf(',');
+        return frame.startsWith("data:") && comma >= 0 ? frame.substring(comma + 1) : frame;
+    }
+
+    public Map<String, Object> getStats() {
+        long count = requests.get();
+        long in = bytesIn.get();
+        long out = bytesOut.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("requests", count);
+        stats.put("frames_in", framesIn.get());
+        stats.put("frames_out", framesOut.get());
+        stats.put("duplicates_dropped", duplicates.get());
+        stats.put("undecodable_dropped", dropped.get());
+        stats.put("base64_bytes_in", in);
+        stats.put("base64_bytes_out", out);
+        stats.put("bytes_saved", Math.max(0, in - out));
+        stats.put("bytes_saved_per_request", count > 0 ? Math.max(0, in - out) / count : 0);
+        stats.put("avg_ms", count > 0 ? nanos.get() / count / 1_000_000.0 : 0);
+        Result latest = last;
+        if (latest != null) {
+            Map<String, Object> lastRequest = new LinkedHashMap<>();
+            lastRequest.put("frames_in", latest.received());
+            lastRequest.put("frames_out", latest.frames().size());
+            lastRequest.put("bytes_saved", latest.bytesSaved());
+            stats.put("last_request", lastRequest);
+        }
+        stats.put("pool_active", pool.getActiveCount());
+        stats.put("pool_queued", pool.getQueue().size());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
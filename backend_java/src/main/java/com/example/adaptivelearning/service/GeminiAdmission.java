@@ -0,0 +1,91 @@
+package com.example.adaptivelearning.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global concurrency limit in front of every upstream Gemini call.
+ *
+ * At most {@code app.gemini.max-concurrent} calls run at once; up to
+ * {@code app.gemini.max-queued} more wait (for at most
+ * {@code app.gemini.queue-timeout-ms}). Anything beyond that is rejected
+ * immediately with {@link GeminiOverloadedException} (HTTP 429) instead of
+ * piling up threads behind a slow upstream.
+ */
+@Service
+public class GeminiAdmission {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long queueTimeoutMs;
+    private final Semaphore permits;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public GeminiAdmission(@Value("${app.gemini.max-concurrent:8}") int maxConcurrent,
+            @Value("${app.gemini.max-queued:16}") int maxQueued,
+            @Value("${app.gemini.queue-timeout-ms:2000}") long queueTimeoutMs) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /** Takes a slot or throws; callers must {@link #release()} in a finally block. */
+    public void acquire() {
+        if (permits.tryAcquire()) {
+            admitted.incrementAndGet();
+            return;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new GeminiOverloadedException("Gemini queue is full");
+        }
+        try {
+            if (!permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timedOut.incrementAndGet();
+                throw new GeminiOverloadedException("Timed out waiting for a Gemini slot");
+            }
+            admitted.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeminiOverloadedException("Interrupted waiting for a Gemini slot");
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /** Takes a slot only if one is free right now, never queueing (used for optional extra calls). */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            admitted.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "max_concurrent", maxConcurrent,
+                "max_queued", maxQueued,
+                "in_flight", maxConcurrent - permits.availablePermits(),
+                "queued", queued.get(),
+                "admitted", admitted.get(),
+                "rejected", rejected.get(),
+                "timed_out", timedOut.get());
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.diagnostics.Profiling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedged POSTs for the interactive interview calls.
+ *
+ * If the first request has not answered within the configured percentile of
+ * recent upstream latency, an identical second request is sent and whichever
+ * succeeds first wins; the other is cancelled (the JDK client aborts the
+ * exchange). Hedges are paid for from a budget that grows by
+ * {@code app.gemini.hedge.max-ratio} per request, so at most that fraction of
+ * requests is ever duplicated, and a hedge is only sent when the admission
+ * limiter has a free slot right away.
+ */
+@Service
+public class GeminiHedger {
+
+    private static final int WINDOW = 256;
+    private static final double MAX_BUDGET = 10;
+
+    @Autowired
+    private GeminiAdmission admission;
+
+    @Value("${app.gemini.hedge.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.gemini.hedge.percentile:95}")
+    private double percentile;
+
+    @Value("${app.gemini.hedge.max-ratio:0.1}")
+    private double maxRatio;
+
+    // Until enough samples exist the percentile is not trusted and no hedges are sent
+    @Value("${app.gemini.hedge.min-samples:20}")
+    private int minSamples;
+
+    @Value("${app.gemini.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final long[] latencies = new long[WINDOW];
+    private int samples;
+    private int next;
+    private double budget;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /** POSTs a JSON body and returns the response body; non-2xx answers are failures. */
+    public String post(String url, String json) throws Exception {
+        Profiling.Upstream event = new Profiling.Upstream();
+        event.mode = "direct";
+        event.begin();
+        try {
+            String body = exchange(url, json, event);
+            event.succeeded = true;
+            return body;
+        } finally {
+            event.finish();
+        }
+    }
+
+    private String exchange(String url, String json, Profiling.Upstream event) throws Exception {
+        requests.incrementAndGet();
+        long delayMs = enabled ? earnBudget() : -1;
+
+        admission.acquire();
+        CompletableFuture<HttpResponse<String>> primary = send(url, json);
+        if (delayMs < 0) {
+            return body(await(primary));
+        }
+        try {
+            return body(primary.get(delayMs, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            // Slower than the percentile: hedge if the budget and a free slot allow
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+        if (!takeBudget()) {
+            return body(await(primary));
+        }
+        if (!admission.tryAcquire()) {
+            refundBudget();
+            return body(await(primary));
+        }
+        hedged.incrementAndGet();
+        event.mode = "hedged";
+        CompletableFuture<HttpResponse<String>> hedge = send(url, json);
+
+        CompletableFuture<HttpResponse<String>> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<HttpResponse<String>> attempt : List.of(primary, hedge)) {
+            attempt.whenComplete((response, error) -> {
+                if (error == null && response.statusCode() < 400) {
+                    winner.complete(response);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error != null ? error
+                            : new IllegalStateException("Gemini returned " + response.statusCode()));
+                }
+            });
+        }
+        try {
+            HttpResponse<String> response = await(winner);
+            if (response == hedge.getNow(null)) {
+                hedgeWins.incrementAndGet();
+            }
+            return body(response);
+        } finally {
+            primary.cancel(true);
+            hedge.cancel(true);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long total = requests.get();
+        long hedges = hedged.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("requests", total);
+        stats.put("hedged", hedges);
+        stats.put("hedge_wins", hedgeWins.get());
+        stats.put("hedge_rate", total > 0 ? (double) hedges / total : 0);
+        stats.put("win_rate", hedges > 0 ? (double) hedgeWins.get() / hedges : 0);
+        stats.put("hedge_delay_ms", hedgeDelayMs());
+        return stats;
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(String url, String json) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> future;
+        try {
+            future = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            admission.release();
+            throw e;
+        }
+        // Cancelled and failed attempts release their slot too; only answers count as latency samples
+        future.whenComplete((response, error) -> {
+            admission.release();
+            if (error == null) {
+                record((System.nanoTime() - start) / 1_000_000);
+            }
+        });
+        return future;
+    }
+
+    private HttpResponse<String> await(CompletableFuture<HttpResponse<String>> future) throws Exception {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    private static String body(HttpResponse<String> response) {
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Gemini returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        return e.getCause() instanceof Exception cause ? cause : e;
+    }
+
+    private synchronized void record(long millis) {
+        latencies[next] = millis;
+        next = (next + 1) % WINDOW;
+        samples = Math.min(samples + 1, WINDOW);
+    }
+
+    // Every request adds max-ratio of a hedge to the budget; returns the current hedge delay
+    private synchronized long earnBudget() {
+        budget = Math.min(MAX_BUDGET, budget + maxRatio);
+        return hedgeDelayMs();
+    }
+
+    // Percentile of the recent window, or -1 while there are too few samples
+    private synchronized long hedgeDelayMs() {
+        if (samples < minSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * samples) - 1;
+        return sorted[Math.max(0, Math.min(samples - 1, index))];
+    }
+
+    private synchronized boolean takeBudget() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    private synchronized void refundBudget() {
+        budget += 1;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.adaptivelearning.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when the Gemini admission queue or the frame pipeline is full, so the request is shed with 429
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class GeminiOverloadedException extends RuntimeException {
+    public GeminiOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.adaptivelearning.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.*;
 import java.util.*;
+import com.example.adaptivelearning.diagnostics.Profiling;
+import com.example.adaptivelearning.model.Question;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
+import java.io.IOException;
 
 @Service
 public class GeminiService {
@@ -14,18 +20,64 @@ public class GeminiService {
         @Value("${gemini.api.key:}")
         private String apiKey;
 
+        // Overridable so load tests can point the service at a local simulator
+        @Value("${gemini.api.base-url:https://generativelanguage.googleapis.com}")
+        private String baseUrl;
+
+        @Value("${gemini.api.model:gemini-1.5-flash}")
+        private String model;
+
+        @Autowired
+        private GeminiAdmission admission;
+
+        @Autowired
+        private GeminiHedger hedger;
+
+        @Autowired
+        private FramePipeline framePipeline;
+
         private final RestTemplate restTemplate = new RestTemplate();
         private final ObjectMapper objectMapper = new ObjectMapper();
+        private final JsonFactory jsonFactory = objectMapper.getFactory();
+
+        private String generateContentUrl() {
+                return baseUrl + "/v1beta/models/" + model + ":generateContent?key=" + apiKey;
+        }
+
+        // Every upstream call goes through the global admission limiter
+        private ResponseEntity<String> postToGemini(String url, HttpEntity<Map<String, Object>> entity) {
+                admission.acquire();
+                Profiling.Upstream event = new Profiling.Upstream();
+                event.mode = "direct";
+                event.begin();
+                try {
+                        ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
+                        event.succeeded = true;
+                        return response;
+                } finally {
+                        event.finish();
+                        admission.release();
+                }
+        }
+
+        public List<Question> generateQuestions() {
+                List<Question> candidates = generateCandidateQuestions();
+                if (candidates.size() > 15) {
+                        candidates.subList(15, candidates.size()).clear();
+                }
+                return candidates;
+        }
 
-        public List<Map<String, Object>> generateQuestions() {
+        // Everything available for one quiz, so callers can choose which 15 to serve.
+        // The list is the caller's to modify; the questions are shared and immutable.
+        public List<Question> generateCandidateQuestions() {
                 if (apiKey == null || apiKey.isEmpty()) {
                         System.out.println("Gemini API Key missing. Returning fallback questions.");
                         return getFallbackQuestions();
                 }
 
                 try {
-                        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent?key="
-                                        + apiKey;
+                        String url = generateContentUrl();
 
                         // Construct request for Gemini
                         Map<String, Object> requestBody = new HashMap<>();
@@ -42,10 +94,13 @@ public class GeminiService {
                         headers.setContentType(MediaType.APPLICATION_JSON);
 
                         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-                        ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
+                        ResponseEntity<String> response = postToGemini(url, entity);
 
                         return parseGeminiResponse(response.getBody());
 
+                } catch (GeminiOverloadedException e) {
+                        // Shed as 429 rather than degrading to a fallback answer
+                        throw e;
                 } catch (Exception e) {
                         e.printStackTrace();
                         System.out.println("Error calling Gemini API. Returning fallback questions.");
@@ -53,31 +108,97 @@ public class GeminiService {
                 }
         }
 
-        private List<Map<String, Object>> parseGeminiResponse(String jsonResponse) {
+        private List<Question> parseGeminiResponse(String jsonResponse) {
                 try {
-                        // Extract the actual text from Gemini's complex JSON structure
-                        // Use Jackson to parse the outer response
-                        Map<String, Object> root = objectMapper.readValue(jsonResponse,
-                                        new TypeReference<Map<String, Object>>() {
-                                        });
-                        List<Map<String, Object>> candidates = (List<Map<String, Object>>) root.get("candidates");
-                        Map<String, Object> content = (Map<String, Object>) candidates.get(0).get("content");
-                        List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-                        String rawText = (String) parts.get(0).get("text");
+                        String rawText = extractText(jsonResponse);
 
                         // Clean up markdown code blocks if present
                         rawText = rawText.replace("```json", "").replace("```", "").trim();
 
-                        return objectMapper.readValue(rawText, new TypeReference<List<Map<String, Object>>>() {
-                        });
+                        return readQuestions(rawText);
                 } catch (Exception e) {
                         System.err.println("Failed to parse Gemini response: " + jsonResponse);
                         return getFallbackQuestions();
                 }
         }
 
-        private List<Map<String, Object>> getFallbackQuestions() {
-                List<Map<String, Object>> pool = new ArrayList<>();
+        // candidates[0].content.parts[0].text, read by streaming instead of building the whole tree
+        private String extractText(String jsonResponse) throws IOException {
+                try (JsonParser parser = jsonFactory.createParser(jsonResponse)) {
+                        if (parser.nextToken() == JsonToken.START_OBJECT
+                                        && enterField(parser, "candidates", JsonToken.START_ARRAY)
+                                        && parser.nextToken() == JsonToken.START_OBJECT
+                                        && enterField(parser, "content", JsonToken.START_OBJECT)
+                                        && enterField(parser, "parts", JsonToken.START_ARRAY)
+                                        && parser.nextToken() == JsonToken.START_OBJECT
+                                        && enterField(parser, "text", JsonToken.VALUE_STRING)) {
+                                return parser.getText();
+                        }
+                }
+                throw new IOException("No candidate text in Gemini response");
+        }
+
+        // Skips sibling fields of the current object until the named one; true if its value has the expected type
+        private static boolean enterField(JsonParser parser, String name, JsonToken expected) throws IOException {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        JsonToken value = parser.nextToken();
+                        if (name.equals(parser.currentName())) {
+                                return value == expected;
+                        }
+                        parser.skipChildren();
+                }
+                return false;
+        }
+
+        // The model's JSON array of {id, question, options, answer}; entries without text or options are dropped
+        private List<Question> readQuestions(String json) throws IOException {
+                List<Question> questions = new ArrayList<>();
+                try (JsonParser parser = jsonFactory.createParser(json)) {
+                        if (parser.nextToken() != JsonToken.START_ARRAY) {
+                                throw new IOException("Expected a JSON array of questions");
+                        }
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                int id = questions.size() + 1;
+                                String text = null;
+                                String answer = null;
+                                List<String> options = null;
+                                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                        String field = parser.currentName();
+                                        JsonToken value = parser.nextToken();
+                                        if ("options".equals(field) && value == JsonToken.START_ARRAY) {
+                                                options = new ArrayList<>(4);
+                                                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                                        options.add(parser.getValueAsString());
+                                                }
+                                        } else if ("question".equals(field)) {
+                                                text = parser.getValueAsString();
+                                        } else if ("answer".equals(field)) {
+                                                answer = parser.getValueAsString();
+                                        } else if ("id".equals(field)) {
+                                                id = parser.getValueAsInt(id);
+                                        } else {
+                                                parser.skipChildren();
+                                        }
+                                }
+                                if (text != null && options != null) {
+                                        questions.add(new Question(id, text, options, answer));
+                                }
+                        }
+                }
+                return questions;
+        }
+
+        // Built once at class load; each request copies and shuffles this list and nothing else
+        private static final List<Question> FALLBACK_POOL = buildFallbackPool();
+
+        private List<Question> getFallbackQuestions() {
+                List<Question> pool = new ArrayList<>(FALLBACK_POOL);
+                Collections.shuffle(pool);
+                return pool;
+        }
+
+        private static List<Question> buildFallbackPool() {
+                List<Question> pool = new ArrayList<>();
 
                 // Populate a larger pool to simulate "randomness" even in fallback
                 pool.add(createQuestion(1, "What does CPU stand for?", new String[] { "Central Process Unit",
@@ -138,69 +259,71 @@ public class GeminiService {
                                                 "Cascading Style Sheets", "Colorful Style Sheets" },
                                 "Cascading Style Sheets"));
 
-                Collections.shuffle(pool);
-                return pool.subList(0, Math.min(15, pool.size()));
+                return List.copyOf(pool);
         }
 
-        private Map<String, Object> createQuestion(int id, String q, String[] opts, String ans) {
-                Map<String, Object> map = new HashMap<>();
-                map.put("id", id);
-                map.put("question", q);
-                map.put("options", opts);
-                map.put("answer", ans);
-                return map;
+        private static Question createQuestion(int id, String q, String[] opts, String ans) {
+                return new Question(id, q, List.of(opts), ans);
         }
 
-        public String getChatResponse(String userMessage, String subject) {
+        // An interview turn whose prompt InterviewSessions built, conversation context included
+        public String getInterviewReply(String prompt, String userMessage, String subject) {
                 if (apiKey == null || apiKey.isEmpty()) {
                         return getMockChatResponse(userMessage, subject);
                 }
-
                 try {
-                        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent?key="
-                                        + apiKey;
-
-                        Map<String, Object> requestBody = new HashMap<>();
-                        Map<String, Object> contentPart = new HashMap<>();
-
-                        // Context for the AI
-                        String prompt = "You are an expert technical interviewer for the subject: "
-                                        + (subject != null ? subject : "Computer Science") + ". " +
-                                        "The candidate says: \"" + userMessage + "\". " +
-                                        "Respond professionally, ask a follow-up technical question related to "
-                                        + (subject != null ? subject : "the topic") + ", or provide brief feedback. " +
-                                        "Keep your response concise (under 100 words).";
-
-                        contentPart.put("text", prompt);
-
-                        Map<String, Object> parts = new HashMap<>();
-                        parts.put("parts", Collections.singletonList(contentPart));
-
-                        requestBody.put("contents", Collections.singletonList(parts));
-
-                        HttpHeaders headers = new HttpHeaders();
-                        headers.setContentType(MediaType.APPLICATION_JSON);
-
-                        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-                        ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
-
-                        return parseGeminiChatResponse(response.getBody());
-
+                        String response = hedger.post(generateContentUrl(),
+                                        objectMapper.writeValueAsString(textRequest(prompt)));
+                        return parseGeminiChatResponse(response);
+                } catch (GeminiOverloadedException e) {
+                        throw e;
                 } catch (Exception e) {
                         e.printStackTrace();
                         return getMockChatResponse(userMessage, subject);
                 }
         }
 
+        /**
+         * The running summary of an interview with the given turns folded in,
+         * in at most maxWords words; null without an API key or on any failure,
+         * so the caller can condense locally instead.
+         */
+        public String summarizeInterview(String subject, String summary, String turns, int maxWords) {
+                if (apiKey == null || apiKey.isEmpty()) {
+                        return null;
+                }
+                String prompt = "You keep the running notes of a technical interview about "
+                                + (subject != null ? subject : "Computer Science") + ". "
+                                + "Update the notes with the new exchanges: keep the questions already asked, how well the "
+                                + "candidate answered each, and any strengths or gaps shown. Plain text, at most " + maxWords
+                                + " words, no preamble.\n\nCurrent notes:\n" + (summary.isEmpty() ? "(none)" : summary)
+                                + "\n\nNew exchanges:\n" + turns;
+                try {
+                        return extractText(postToGemini(generateContentUrl(),
+                                        new HttpEntity<>(textRequest(prompt), jsonHeaders())).getBody());
+                } catch (Exception e) {
+                        System.err.println("Interview summary failed: " + e.getMessage());
+                        return null;
+                }
+        }
+
+        private static Map<String, Object> textRequest(String prompt) {
+                Map<String, Object> requestBody = new HashMap<>();
+                Map<String, Object> parts = Collections.singletonMap("parts",
+                                Collections.singletonList(Collections.singletonMap("text", prompt)));
+                requestBody.put("contents", Collections.singletonList(parts));
+                return requestBody;
+        }
+
+        private static HttpHeaders jsonHeaders() {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                return headers;
+        }
+
         private String parseGeminiChatResponse(String jsonResponse) {
                 try {
-                        Map<String, Object> root = objectMapper.readValue(jsonResponse,
-                                        new TypeReference<Map<String, Object>>() {
-                                        });
-                        List<Map<String, Object>> candidates = (List<Map<String, Object>>) root.get("candidates");
-                        Map<String, Object> content = (Map<String, Object>) candidates.get(0).get("content");
-                        List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-                        return (String) parts.get(0).get("text");
+                        return extractText(jsonResponse);
                 } catch (Exception e) {
                         return "I'm having trouble connecting to the interview server. Let's move to the next topic.";
                 }
@@ -223,15 +346,14 @@ public class GeminiService {
                 return "That's an interesting point about " + subj + ". Can you elaborate on how that scales?";
         }
 
-        public String getMultimodalChatResponse(String userMessage, String subject, byte[] audioData,
+        public String getMultimodalChatResponse(String userMessage, String subject, String context, byte[] audioData,
                         List<String> base64Images) {
                 if (apiKey == null || apiKey.isEmpty()) {
                         return getMockChatResponse(userMessage, subject);
                 }
 
                 try {
-                        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent?key="
-                                        + apiKey;
+                        String url = generateContentUrl();
 
                         Map<String, Object> requestBody = new HashMap<>();
                         List<Map<String, Object>> parts = new ArrayList<>();
@@ -240,6 +362,10 @@ public class GeminiService {
                         Map<String, Object> textPart = new HashMap<>();
                         String prompt = "You are an expert technical interviewer for: "
                                         + (subject != null ? subject : "General CS") + ". " +
+                                        (context != null && !context.isEmpty()
+                                                        ? "The interview so far: \"" + context + "\". "
+                                                        : "")
+                                        +
                                         "Analyze the candidate's response. The candidate has provided Audio and Video frames. "
                                         +
                                         "The user text transcript (if available) or context is: \"" + userMessage
@@ -260,19 +386,14 @@ public class GeminiService {
                                 parts.add(audioPart);
                         }
 
-                        // 3. Image Data
-                        if (base64Images != null) {
-                                for (String img : base64Images) {
-                                        if (img != null && !img.isEmpty()) {
-                                                Map<String, Object> imgPart = new HashMap<>();
-                                                Map<String, Object> inlineData = new HashMap<>();
-                                                inlineData.put("mimeType", "image/jpeg");
-                                                String cleanBase64 = img.contains(",") ? img.split(",")[1] : img;
-                                                inlineData.put("data", cleanBase64);
-                                                imgPart.put("inlineData", inlineData);
-                                                parts.add(imgPart);
-                                        }
-                                }
+                        // 3. Image Data: near-duplicate frames dropped, the rest downscaled JPEG
+                        for (String img : framePipeline.process(base64Images).frames()) {
+                                Map<String, Object> imgPart = new HashMap<>();
+                                Map<String, Object> inlineData = new HashMap<>();
+                                inlineData.put("mimeType", "image/jpeg");
+                                inlineData.put("data", img);
+                                imgPart.put("inlineData", inlineData);
+                                parts.add(imgPart);
                         }
 
                         requestBody.put("contents",
@@ -282,10 +403,12 @@ public class GeminiService {
                         headers.setContentType(MediaType.APPLICATION_JSON);
 
                         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-                        ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
+                        ResponseEntity<String> response = postToGemini(url, entity);
 
                         return parseGeminiChatResponse(response.getBody());
 
+                } catch (GeminiOverloadedException e) {
+                        throw e;
                 } catch (Exception e) {
                         e.printStackTrace();
                         return "{\"feedback\": \"Error analyzing media.\", \"next_question\": \"Let's try text only. "
@@ -299,8 +422,7 @@ public class GeminiService {
                                         + ".";
                 }
                 try {
-                        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent?key="
-                                        + apiKey;
+                        String url = generateContentUrl();
                         Map<String, Object> requestBody = new HashMap<>();
                         Map<String, Object> contentPart = new HashMap<>();
 
@@ -314,13 +436,11 @@ public class GeminiService {
                         parts.put("parts", Collections.singletonList(contentPart));
                         requestBody.put("contents", Collections.singletonList(parts));
 
-                        HttpHeaders headers = new HttpHeaders();
-                        headers.setContentType(MediaType.APPLICATION_JSON);
-
-                        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-                        ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
+                        String response = hedger.post(url, objectMapper.writeValueAsString(requestBody));
 
-                        return parseGeminiChatResponse(response.getBody());
+                        return parseGeminiChatResponse(response);
+                } catch (GeminiOverloadedException e) {
+                        throw e;
                 } catch (Exception e) {
                         return "What are the core principles of " + subject + "?";
                 }
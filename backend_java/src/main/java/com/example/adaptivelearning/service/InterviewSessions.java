@@ -0,0 +1,480 @@
+package com.example.adaptivelearning.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Server-side interview sessions, so the interviewer remembers the
+ * conversation without the client resending it.
+ *
+ * Each session keeps its transcript and a rolling summary. A chat prompt is
+ * the instructions, the summary, as many recent turns as fit, and the new
+ * answer, and never exceeds app.interview.prompt-token-budget: once the
+ * turns not yet in the summary outgrow their share, the oldest are folded
+ * into the summary until half the share is free again (so compaction runs
+ * every few turns, not every turn). The summary is rewritten by Gemini when
+ * it is configured and otherwise condensed locally; either way it is held to
+ * app.interview.summary-token-budget. Tokens are estimated at four
+ * characters each, which is close for English and errs high for code.
+ *
+ * At most app.interview.max-sessions are held; the least recently used one
+ * makes room for a new one, and sessions idle for app.interview.idle-minutes
+ * are dropped. With app.interview.spill-dir set, both are written there as
+ * JSON instead and come back on their next turn; spilled files are deleted
+ * after app.interview.spill-retention-hours.
+ */
+@Service
+public class InterviewSessions {
+
+    private static final String INSTRUCTIONS = "You are an expert technical interviewer for the subject: %s. "
+            + "Use the interview so far for context: build on the candidate's earlier answers and do not repeat "
+            + "questions already asked. Respond professionally, ask a follow-up technical question or give brief "
+            + "feedback. Keep your response concise (under 100 words).";
+    private static final int CHARS_PER_TOKEN = 4;
+    // Turns beyond this are only in the summary; bounds a session's memory however long it runs
+    private static final int MAX_TRANSCRIPT_TURNS = 200;
+    private static final int MAX_SUBJECT_CHARS = 80;
+
+    @Autowired
+    private GeminiService geminiService;
+
+    @Value("${app.interview.max-sessions:10000}")
+    private int maxSessions;
+
+    @Value("${app.interview.idle-minutes:30}")
+    private long idleMinutes;
+
+    @Value("${app.interview.prompt-token-budget:1500}")
+    private int promptBudget;
+
+    @Value("${app.interview.summary-token-budget:300}")
+    private int summaryBudget;
+
+    @Value("${app.interview.message-token-budget:400}")
+    private int messageBudget;
+
+    @Value("${app.interview.spill-dir:}")
+    private String spillDir;
+
+    @Value("${app.interview.spill-retention-hours:24}")
+    private long spillRetentionHours;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Access order: the eldest entry is the least recently used session
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(256, 0.75f, true);
+    private Path spill;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong turns = new AtomicLong();
+    private final AtomicLong promptTokens = new AtomicLong();
+    private final AtomicLong maxPromptTokens = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong modelSummaries = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong capacityEvictions = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong restored = new AtomicLong();
+
+    public record Turn(String role, String text, long at) {
+    }
+
+    /** One interview; InterviewSessions reads and changes it only while holding its monitor. */
+    public static class Session {
+        public String id;
+        public String userId;
+        public String subject;
+        public long createdAt;
+        public volatile long lastAccess;
+        public String summary = "";
+        // Turns [0, summarized) are already folded into the summary
+        public int summarized;
+        public List<Turn> transcript = new ArrayList<>();
+
+        long bytes() {
+            long chars = summary.length();
+            for (Turn turn : transcript) {
+                chars += turn.text().length() + turn.role().length();
+            }
+            // UTF-16 chars plus rough per-turn object overhead
+            return chars * 2 + transcript.size() * 64L + 256;
+        }
+    }
+
+    /** What a chat turn needs: the prompt to send and its estimated size. */
+    public record Prompt(String text, int tokens) {
+    }
+
+    @PostConstruct
+    void checkBudgets() throws IOException {
+        int fixed = tokens(String.format(INSTRUCTIONS, "x".repeat(MAX_SUBJECT_CHARS))) + 64;
+        if (promptBudget < fixed + summaryBudget + messageBudget + 100) {
+            throw new IllegalStateException("app.interview.prompt-token-budget " + promptBudget
+                    + " leaves no room for recent turns after the summary, message and instruction budgets");
+        }
+        if (!spillDir.isBlank()) {
+            spill = Files.createDirectories(Path.of(spillDir));
+        }
+    }
+
+    public Session start(String userId, String subject) {
+        Session session = new Session();
+        session.id = UUID.randomUUID().toString();
+        session.userId = userId;
+        session.subject = subject != null && subject.length() > MAX_SUBJECT_CHARS
+                ? subject.substring(0, MAX_SUBJECT_CHARS) : subject;
+        session.createdAt = System.currentTimeMillis();
+        session.lastAccess = session.createdAt;
+        admit(session);
+        created.incrementAndGet();
+        return session;
+    }
+
+    // Adds the session, spilling the least recently used one if full; returns a session already held under its id
+    private Session admit(Session session) {
+        Session existing;
+        Session evicted = null;
+        synchronized (sessions) {
+            existing = sessions.get(session.id);
+            if (existing == null) {
+                if (sessions.size() >= maxSessions) {
+                    Iterator<Session> eldest = sessions.values().iterator();
+                    evicted = eldest.next();
+                    eldest.remove();
+                }
+                sessions.put(session.id, session);
+            }
+        }
+        if (evicted != null) {
+            capacityEvictions.incrementAndGet();
+            spill(evicted);
+        }
+        return existing;
+    }
+
+    /** The session, from memory or the spill directory, or null if it is unknown or has expired. */
+    public Session get(String id) {
+        Session session;
+        synchronized (sessions) {
+            session = sessions.get(id);
+        }
+        if (session == null) {
+            session = restore(id);
+        }
+        if (session != null) {
+            session.lastAccess = System.currentTimeMillis();
+        }
+        return session;
+    }
+
+    /**
+     * Records the candidate's message and builds the prompt for the reply,
+     * compacting the session first if its recent turns no longer fit.
+     */
+    public Prompt prepareTurn(Session session, String message) {
+        String answer = clamp(message != null ? message : "", messageBudget);
+        String instructions = String.format(INSTRUCTIONS,
+                session.subject != null ? session.subject : "Computer Science");
+        int window = promptBudget - tokens(instructions) - summaryBudget - tokens(answer) - 32;
+        compact(session, window);
+        synchronized (session) {
+            condenseOverflow(session, window);
+
+            StringBuilder prompt = new StringBuilder(instructions);
+            if (!session.summary.isEmpty()) {
+                prompt.append("\n\nSummary of the interview so far:\n").append(session.summary);
+            }
+            List<Turn> recent = session.transcript.subList(session.summarized, session.transcript.size());
+            if (!recent.isEmpty()) {
+                prompt.append("\n\nMost recent exchanges:");
+                for (Turn turn : recent) {
+                    prompt.append('\n').append(label(turn)).append(": ").append(turn.text());
+                }
+            }
+            prompt.append("\n\nThe candidate now says: \"").append(answer).append("\"");
+            append(session, "candidate", answer);
+
+            int size = tokens(prompt);
+            turns.incrementAndGet();
+            promptTokens.addAndGet(size);
+            maxPromptTokens.accumulateAndGet(size, Math::max);
+            return new Prompt(prompt.toString(), size);
+        }
+    }
+
+    public void recordInterviewer(Session session, String text) {
+        synchronized (session) {
+            append(session, "interviewer", clamp(text != null ? text : "", messageBudget));
+        }
+    }
+
+    // For turns whose prompt is built elsewhere (multimodal analysis)
+    public void recordCandidate(Session session, String text) {
+        synchronized (session) {
+            append(session, "candidate", clamp(text != null ? text : "", messageBudget));
+        }
+    }
+
+    /** Summary plus recent turns in at most half the prompt budget, for prompts built elsewhere. */
+    public String context(Session session) {
+        int window = promptBudget / 2 - summaryBudget;
+        compact(session, window);
+        synchronized (session) {
+            condenseOverflow(session, window);
+            StringBuilder context = new StringBuilder(session.summary);
+            for (Turn turn : session.transcript.subList(session.summarized, session.transcript.size())) {
+                context.append('\n').append(label(turn)).append(": ").append(turn.text());
+            }
+            return context.toString().trim();
+        }
+    }
+
+    // The oldest unsummarized turns, starting at index from, that fold() picked for one compaction
+    private record Fold(String summary, int from, List<Turn> turns) {
+    }
+
+    /**
+     * Once the unsummarized turns exceed window tokens, folds the oldest into
+     * the summary until half the window is free. The turns are picked under
+     * the session's monitor, the summary is rewritten without it (the Gemini
+     * call can take seconds) and swapped in under it again, unless another
+     * turn compacted the session in between.
+     */
+    private void compact(Session session, int window) {
+        Fold fold;
+        synchronized (session) {
+            fold = recentTokens(session) > window ? fold(session, window / 2) : null;
+        }
+        if (fold == null) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Turn turn : fold.turns()) {
+            text.append(label(turn)).append(": ").append(turn.text()).append('\n');
+        }
+        // About 0.75 words per token, with room to spare
+        String rewritten = geminiService.summarizeInterview(session.subject, fold.summary(), text.toString(),
+                summaryBudget / 2);
+        synchronized (session) {
+            if (session.summary.equals(fold.summary()) && session.summarized == fold.from()) {
+                apply(session, fold, rewritten);
+            }
+        }
+    }
+
+    // Caller holds the session: a compaction lost to a race is redone locally so the prompt still fits
+    private void condenseOverflow(Session session, int window) {
+        if (recentTokens(session) > window) {
+            Fold fold = fold(session, window / 2);
+            if (fold != null) {
+                apply(session, fold, null);
+            }
+        }
+    }
+
+    // Caller holds the session; null if nothing needs folding to get under target tokens
+    private Fold fold(Session session, int target) {
+        List<Turn> folded = new ArrayList<>();
+        int recent = recentTokens(session);
+        for (int i = session.summarized; i < session.transcript.size() && recent > target; i++) {
+            Turn turn = session.transcript.get(i);
+            recent -= turnTokens(turn);
+            folded.add(turn);
+        }
+        return folded.isEmpty() ? null : new Fold(session.summary, session.summarized, folded);
+    }
+
+    // Caller holds the session; rewritten is the model's summary, or null to condense locally
+    private void apply(Session session, Fold fold, String rewritten) {
+        compactions.incrementAndGet();
+        session.summarized += fold.turns().size();
+        if (rewritten != null && !rewritten.isBlank()) {
+            modelSummaries.incrementAndGet();
+            session.summary = clamp(rewritten.trim(), summaryBudget);
+        } else {
+            session.summary = condense(fold.summary(), fold.turns());
+        }
+    }
+
+    // Local fallback: one short line per folded turn, dropping the oldest lines beyond the budget
+    private String condense(String summary, List<Turn> folded) {
+        List<String> lines = new ArrayList<>(summary.isEmpty() ? List.of() : List.of(summary.split("\n")));
+        for (Turn turn : folded) {
+            String text = turn.text().replaceAll("\\s+", " ").trim();
+            int limit = "interviewer".equals(turn.role()) ? 120 : 160;
+            lines.add(("interviewer".equals(turn.role()) ? "Asked: " : "Answered: ")
+                    + (text.length() > limit ? text.substring(0, limit) + "..." : text));
+        }
+        while (lines.size() > 1 && tokens(String.join("\n", lines)) > summaryBudget) {
+            lines.remove(0);
+        }
+        return clamp(String.join("\n", lines), summaryBudget);
+    }
+
+    private void append(Session session, String role, String text) {
+        session.transcript.add(new Turn(role, text, System.currentTimeMillis()));
+        if (session.transcript.size() > MAX_TRANSCRIPT_TURNS && session.summarized > 0) {
+            int drop = Math.min(session.summarized, session.transcript.size() - MAX_TRANSCRIPT_TURNS);
+            session.transcript.subList(0, drop).clear();
+            session.summarized -= drop;
+        }
+    }
+
+    private int recentTokens(Session session) {
+        int total = 0;
+        for (Turn turn : session.transcript.subList(session.summarized, session.transcript.size())) {
+            total += turnTokens(turn);
+        }
+        return total;
+    }
+
+    private static int turnTokens(Turn turn) {
+        return tokens(turn.text()) + 4;
+    }
+
+    private static String label(Turn turn) {
+        return "interviewer".equals(turn.role()) ? "Interviewer" : "Candidate";
+    }
+
+    static int tokens(CharSequence text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private static String clamp(String text, int budget) {
+        int max = budget * CHARS_PER_TOKEN;
+        return text.length() <= max ? text : text.substring(0, max);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - Duration.ofMinutes(idleMinutes).toMillis();
+        List<Session> idle = new ArrayList<>();
+        synchronized (sessions) {
+            // Iteration order is least recently used first; access by get() is refreshed here too
+            Iterator<Session> it = sessions.values().iterator();
+            while (it.hasNext()) {
+                Session session = it.next();
+                if (session.lastAccess < cutoff) {
+                    idle.add(session);
+                    it.remove();
+                }
+            }
+        }
+        idleEvictions.addAndGet(idle.size());
+        idle.forEach(this::spill);
+
+        if (spill != null) {
+            long expired = System.currentTimeMillis() - Duration.ofHours(spillRetentionHours).toMillis();
+            try (Stream<Path> files = Files.list(spill)) {
+                files.filter(p -> p.toFile().lastModified() < expired).forEach(p -> p.toFile().delete());
+            } catch (IOException e) {
+                System.err.println("Could not clean interview spill dir: " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void spillAll() {
+        if (spill == null) {
+            return;
+        }
+        List<Session> all;
+        synchronized (sessions) {
+            all = new ArrayList<>(sessions.values());
+            sessions.clear();
+        }
+        all.forEach(this::spill);
+    }
+
+    private void spill(Session session) {
+        if (spill == null) {
+            return;
+        }
+        try {
+            synchronized (session) {
+                objectMapper.writeValue(spill.resolve(session.id + ".json").toFile(), session);
+            }
+            spilled.incrementAndGet();
+        } catch (IOException e) {
+            System.err.println("Could not spill interview session " + session.id + ": " + e.getMessage());
+        }
+    }
+
+    private Session restore(String id) {
+        if (spill == null || !id.matches("[0-9a-f-]{36}")) {
+            return null;
+        }
+        Path file = spill.resolve(id + ".json");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Session session;
+        try {
+            session = objectMapper.readValue(file.toFile(), Session.class);
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Could not restore interview session " + id + ": " + e.getMessage());
+            return null;
+        }
+        // Another request may have restored it first
+        Session existing = admit(session);
+        if (existing != null) {
+            return existing;
+        }
+        restored.incrementAndGet();
+        return session;
+    }
+
+    public Map<String, Object> getStats() {
+        List<Session> all;
+        synchronized (sessions) {
+            all = new ArrayList<>(sessions.values());
+        }
+        long bytes = 0;
+        long maxBytes = 0;
+        for (Session session : all) {
+            long size;
+            synchronized (session) {
+                size = session.bytes();
+            }
+            bytes += size;
+            maxBytes = Math.max(maxBytes, size);
+        }
+        long turnCount = turns.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active_sessions", all.size());
+        stats.put("max_sessions", maxSessions);
+        stats.put("created", created.get());
+        stats.put("turns", turnCount);
+        stats.put("session_bytes_total", bytes);
+        stats.put("session_bytes_avg", all.isEmpty() ? 0 : bytes / all.size());
+        stats.put("session_bytes_max", maxBytes);
+        stats.put("prompt_token_budget", promptBudget);
+        stats.put("prompt_tokens_avg", turnCount > 0 ? promptTokens.get() / turnCount : 0);
+        stats.put("prompt_tokens_max", maxPromptTokens.get());
+        stats.put("compactions", compactions.get());
+        stats.put("model_summaries", modelSummaries.get());
+        stats.put("idle_evictions", idleEvictions.get());
+        stats.put("capacity_evictions", capacityEvictions.get());
+        stats.put("spilled", spilled.get());
+        stats.put("restored", restored.get());
+        return stats;
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.adaptivelearning.service;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live per-class ranking of students by average quiz score.
+ *
+ * Each class keeps a {@link RankTree} plus running score sums, so a
+ * submission is an O(log n) remove/insert and top-K, rank-of-student and
+ * neighbours-around-rank queries never touch the database. Boards are
+ * rebuilt from quiz_submissions with one grouped query at startup, plus the
+ * totals of archived submissions.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class LeaderboardService implements SmartInitializingSingleton {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SubmissionArchive submissionArchive;
+
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+    private final Map<UUID, String> classOf = new ConcurrentHashMap<>();
+
+    private static final class Standing {
+        String name;
+        long scoreSum;
+        int quizzes;
+
+        double average() {
+            return (double) scoreSum / quizzes;
+        }
+    }
+
+    private static final class Board {
+        final RankTree tree = new RankTree();
+        final Map<UUID, Standing> standings = new HashMap<>();
+    }
+
+    // Left join: a student whose quizzes are all archived still has a standing
+    private static final String STANDINGS_QUERY = "SELECT u.id, u.class_id, u.name, SUM(q.score), COUNT(q.id) "
+            + "FROM users u LEFT JOIN quiz_submissions q ON q.user_id = u.id WHERE u.role = 'STUDENT' ";
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.query(STANDINGS_QUERY + "AND u.class_id IS NOT NULL GROUP BY u.id, u.class_id, u.name",
+                rs -> {
+                    Standing standing = standing(rs);
+                    if (standing != null) {
+                        put(rs.getString(2), rs.getObject(1, UUID.class), standing);
+                    }
+                });
+        System.out.println("Leaderboards restored for " + boards.size() + " classes.");
+    }
+
+    public void recordScore(UUID userId, String name, String classId, int score) {
+        if (classId == null) {
+            return;
+        }
+        String current = classOf.get(userId);
+        if (current != null && !current.equals(classId)) {
+            moveStudent(userId, classId);
+        }
+        Board board = boards.computeIfAbsent(classId, k -> new Board());
+        synchronized (board) {
+            Standing standing = board.standings.get(userId);
+            if (standing == null) {
+                standing = new Standing();
+                board.standings.put(userId, standing);
+                classOf.put(userId, classId);
+            } else {
+                board.tree.remove(userId, standing.average());
+            }
+            standing.name = name;
+            standing.scoreSum += score;
+            standing.quizzes++;
+            board.tree.insert(userId, standing.average());
+        }
+    }
+
+    // Keeps a student's standing when they are reassigned to another class
+    public void moveStudent(UUID userId, String newClassId) {
+        String oldClassId = classOf.get(userId);
+        if (oldClassId == null) {
+            // Not ranked anywhere yet, but may have quizzes taken before joining a class
+            if (newClassId != null) {
+                jdbcTemplate.query(STANDINGS_QUERY + "AND u.id = ? GROUP BY u.id, u.class_id, u.name", rs -> {
+                    Standing standing = standing(rs);
+                    if (standing != null) {
+                        put(newClassId, userId, standing);
+                    }
+                }, userId);
+            }
+            return;
+        }
+        if (oldClassId.equals(newClassId)) {
+            return;
+        }
+        Board board = boards.get(oldClassId);
+        Standing standing;
+        synchronized (board) {
+            standing = board.standings.remove(userId);
+            if (standing == null) {
+                return;
+            }
+            board.tree.remove(userId, standing.average());
+        }
+        classOf.remove(userId);
+        if (newClassId != null) {
+            put(newClassId, userId, standing);
+        }
+    }
+
+    /**
+     * Rebuilds the boards of the given classes from the database, for bulk
+     * changes (roster imports, section moves) that would otherwise take one
+     * {@link #moveStudent} per user. Students who left one of these classes
+     * for a class not in the list stay ranked there until it is reloaded too,
+     * so pass both the old and the new classes.
+     */
+    public void reloadClasses(Collection<String> classIds) {
+        for (String classId : classIds) {
+            if (classId == null) {
+                continue;
+            }
+            Board fresh = new Board();
+            jdbcTemplate.query(STANDINGS_QUERY + "AND u.class_id = ? GROUP BY u.id, u.class_id, u.name", rs -> {
+                Standing standing = standing(rs);
+                if (standing == null) {
+                    return;
+                }
+                UUID userId = rs.getObject(1, UUID.class);
+                fresh.standings.put(userId, standing);
+                fresh.tree.insert(userId, standing.average());
+            }, classId);
+
+            Board previous = boards.put(classId, fresh);
+            if (previous != null) {
+                synchronized (previous) {
+                    for (UUID userId : previous.standings.keySet()) {
+                        classOf.remove(userId, classId);
+                    }
+                }
+            }
+            for (UUID userId : fresh.standings.keySet()) {
+                classOf.put(userId, classId);
+            }
+        }
+    }
+
+    /** The best {@code limit} students of a class, best first. */
+    public List<Map<String, Object>> top(String classId, int limit) {
+        Board board = boards.get(classId);
+        if (board == null) {
+            return new ArrayList<>();
+        }
+        synchronized (board) {
+            return rows(board, board.tree.range(0, limit), 0);
+        }
+    }
+
+    /**
+     * A student's rank in their class with up to {@code radius} students
+     * either side, or null if they have no scored quiz yet.
+     */
+    public Map<String, Object> around(UUID userId, int radius) {
+        String classId = classOf.get(userId);
+        Board board = classId != null ? boards.get(classId) : null;
+        if (board == null) {
+            return null;
+        }
+        synchronized (board) {
+            Standing standing = board.standings.get(userId);
+            if (standing == null) {
+                return null;
+            }
+            int rank = board.tree.rankOf(userId, standing.average());
+            int from = Math.max(0, rank - radius);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("class_id", classId);
+            result.put("rank", rank + 1);
+            result.put("class_size", board.tree.size());
+            result.put("average_score", standing.average());
+            result.put("neighbors", rows(board, board.tree.range(from, rank + radius + 1), from));
+            return result;
+        }
+    }
+
+    /** Running average quiz score, or null if the student is not ranked. */
+    public Double averageScore(UUID userId) {
+        String classId = classOf.get(userId);
+        Board board = classId != null ? boards.get(classId) : null;
+        if (board == null) {
+            return null;
+        }
+        synchronized (board) {
+            Standing standing = board.standings.get(userId);
+            return standing != null ? standing.average() : null;
+        }
+    }
+
+    public int classSize(String classId) {
+        Board board = boards.get(classId);
+        if (board == null) {
+            return 0;
+        }
+        synchronized (board) {
+            return board.tree.size();
+        }
+    }
+
+    // From a STANDINGS_QUERY row plus the student's archived totals; null if they have no quizzes at all
+    private Standing standing(ResultSet rs) throws SQLException {
+        SubmissionArchive.Totals archived = submissionArchive.totalsFor(rs.getObject(1, UUID.class));
+        int quizzes = rs.getInt(5) + (int) archived.count();
+        if (quizzes == 0) {
+            return null;
+        }
+        Standing standing = new Standing();
+        standing.name = rs.getString(3);
+        standing.scoreSum = rs.getLong(4) + archived.scoreSum();
+        standing.quizzes = quizzes;
+        return standing;
+    }
+
+    private void put(String classId, UUID userId, Standing standing) {
+        Board board = boards.computeIfAbsent(classId, k -> new Board());
+        synchronized (board) {
+            board.standings.put(userId, standing);
+            board.tree.insert(userId, standing.average());
+        }
+        classOf.put(userId, classId);
+    }
+
+    // Caller holds the board's lock
+    private List<Map<String, Object>> rows(Board board, List<RankTree.Entry> entries, int firstRank) {
+        List<Map<String, Object>> rows = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            RankTree.Entry entry = entries.get(i);
+            Standing standing = board.standings.get(entry.id());
+            Map<String, Object> row = new HashMap<>();
+            row.put("rank", firstRank + i + 1);
+            row.put("id", entry.id());
+            row.put("name", standing.name);
+            row.put("average_score", entry.score());
+            row.put("quizzes", standing.quizzes);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.adaptivelearning.service;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Daily quiz rollups per student and per class for the trend charts.
+ *
+ * Each submission folds into its day's row for the student and for the
+ * student's class with a MERGE each (count, sums, min and max of score,
+ * accuracy and typing speed), in the same transaction as the submission.
+ * Weekly and monthly points are downsampled from the daily rows when
+ * queried; a query never spans more than {@link #MAX_DAYS} days, so it
+ * reads at most that many rows per scope whatever the granularity.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class ProgressRollups implements SmartInitializingSingleton {
+
+    public static final int MAX_DAYS = 366;
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        LocalDate periodStart(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        /** Parses day/week/month, case-insensitive; throws IllegalArgumentException otherwise. */
+        public static Granularity parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final String MERGE_SQL = "MERGE INTO progress_rollups r USING (VALUES (CAST(? AS VARCHAR(100)), "
+            + "CAST(? AS DATE), CAST(? AS INT), CAST(? AS INT), CAST(? AS INT))) AS v(scope, bucket_day, score, "
+            + "accuracy, speed) ON r.scope = v.scope AND r.bucket_day = v.bucket_day "
+            + "WHEN MATCHED THEN UPDATE SET submissions = r.submissions + 1, "
+            + "score_sum = r.score_sum + v.score, score_min = LEAST(r.score_min, v.score), "
+            + "score_max = GREATEST(r.score_max, v.score), "
+            + "accuracy_sum = r.accuracy_sum + v.accuracy, accuracy_min = LEAST(r.accuracy_min, v.accuracy), "
+            + "accuracy_max = GREATEST(r.accuracy_max, v.accuracy), "
+            + "speed_sum = r.speed_sum + v.speed, speed_min = LEAST(r.speed_min, v.speed), "
+            + "speed_max = GREATEST(r.speed_max, v.speed) "
+            + "WHEN NOT MATCHED THEN INSERT (scope, bucket_day, submissions, score_sum, score_min, score_max, "
+            + "accuracy_sum, accuracy_min, accuracy_max, speed_sum, speed_min, speed_max) "
+            + "VALUES (v.scope, v.bucket_day, 1, v.score, v.score, v.score, v.accuracy, v.accuracy, v.accuracy, "
+            + "v.speed, v.speed, v.speed)";
+
+    // Same aggregates straight from history, for the first start with this table
+    private static final String BACKFILL_COLUMNS = "INSERT INTO progress_rollups (scope, bucket_day, submissions, "
+            + "score_sum, score_min, score_max, accuracy_sum, accuracy_min, accuracy_max, "
+            + "speed_sum, speed_min, speed_max) ";
+    private static final String BACKFILL_AGGREGATES = "CAST(s.submitted_at AS DATE), COUNT(*), "
+            + "SUM(s.score), MIN(s.score), MAX(s.score), SUM(s.accuracy), MIN(s.accuracy), MAX(s.accuracy), "
+            + "SUM(s.typing_speed), MIN(s.typing_speed), MAX(s.typing_speed) ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static String studentScope(UUID userId) {
+        return "student:" + userId;
+    }
+
+    public static String classScope(String classId) {
+        return "class:" + classId;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM progress_rollups", Integer.class);
+        if (rows == null || rows > 0) {
+            return;
+        }
+        int students = jdbcTemplate.update(BACKFILL_COLUMNS + "SELECT 'student:' || CAST(s.user_id AS VARCHAR), "
+                + BACKFILL_AGGREGATES + "FROM quiz_submissions s "
+                + "GROUP BY s.user_id, CAST(s.submitted_at AS DATE)");
+        // Class trends only count students, as recordSubmission does
+        int classes = jdbcTemplate.update(BACKFILL_COLUMNS + "SELECT 'class:' || u.class_id, "
+                + BACKFILL_AGGREGATES + "FROM quiz_submissions s JOIN users u ON u.id = s.user_id "
+                + "WHERE u.class_id IS NOT NULL AND u.role = 'STUDENT' GROUP BY u.class_id, CAST(s.submitted_at AS DATE)");
+        if (students + classes > 0) {
+            System.out.println("Progress rollups backfilled " + students + " student-days and "
+                    + classes + " class-days.");
+        }
+    }
+
+    /** Folds one submission into today's rows for the student and (if any) the class. */
+    public void recordSubmission(UUID userId, String classId, int score, int accuracy, int typingSpeed,
+            LocalDate day) {
+        merge(studentScope(userId), day, score, accuracy, typingSpeed);
+        if (classId != null) {
+            merge(classScope(classId), day, score, accuracy, typingSpeed);
+        }
+    }
+
+    // One row per statement, so a retry never re-applies a row that already merged
+    private void merge(String scope, LocalDate day, int score, int accuracy, int typingSpeed) {
+        try {
+            jdbcTemplate.update(MERGE_SQL, scope, day, score, accuracy, typingSpeed);
+        } catch (DataIntegrityViolationException e) {
+            // Two first submissions of the day raced on the insert branch; the row exists now
+            jdbcTemplate.update(MERGE_SQL, scope, day, score, accuracy, typingSpeed);
+        }
+    }
+
+    /**
+     * Trend points for a scope between two days (inclusive), oldest first.
+     * The range is cut to the last {@link #MAX_DAYS} days before {@code to};
+     * periods without submissions are omitted.
+     */
+    public List<Map<String, Object>> trend(String scope, Granularity granularity, LocalDate from, LocalDate to) {
+        from = clampFrom(from, to);
+        Map<LocalDate, long[]> periods = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT bucket_day, submissions, score_sum, score_min, score_max, accuracy_sum, "
+                + "accuracy_min, accuracy_max, speed_sum, speed_min, speed_max FROM progress_rollups "
+                + "WHERE scope = ? AND bucket_day BETWEEN ? AND ? ORDER BY bucket_day", rs -> {
+                    LocalDate period = granularity.periodStart(rs.getObject(1, LocalDate.class));
+                    long[] day = new long[10];
+                    for (int i = 0; i < 10; i++) {
+                        day[i] = rs.getLong(i + 2);
+                    }
+                    periods.merge(period, day, ProgressRollups::combine);
+                }, scope, from, to);
+
+        List<Map<String, Object>> points = new ArrayList<>(periods.size());
+        for (Map.Entry<LocalDate, long[]> entry : periods.entrySet()) {
+            long[] p = entry.getValue();
+            Map<String, Object> point = new HashMap<>();
+            point.put("period_start", entry.getKey().toString());
+            point.put("submissions", p[0]);
+            point.put("avg_score", average(p[1], p[0]));
+            point.put("min_score", p[2]);
+            point.put("max_score", p[3]);
+            point.put("avg_accuracy", average(p[4], p[0]));
+            point.put("min_accuracy", p[5]);
+            point.put("max_accuracy", p[6]);
+            point.put("avg_typing_speed", average(p[7], p[0]));
+            point.put("min_typing_speed", p[8]);
+            point.put("max_typing_speed", p[9]);
+            points.add(point);
+        }
+        return points;
+    }
+
+    /** The later of {@code from} and the first day of the longest range ending at {@code to}. */
+    public static LocalDate clampFrom(LocalDate from, LocalDate to) {
+        LocalDate earliest = to.minusDays(MAX_DAYS - 1);
+        return from.isBefore(earliest) ? earliest : from;
+    }
+
+    // count, then (sum, min, max) for score, accuracy and speed
+    private static long[] combine(long[] a, long[] b) {
+        a[0] += b[0];
+        for (int i = 1; i < 10; i += 3) {
+            a[i] += b[i];
+            a[i + 1] = Math.min(a[i + 1], b[i + 1]);
+            a[i + 2] = Math.max(a[i + 2], b[i + 2]);
+        }
+        return a;
+    }
+
+    private static double average(long sum, long count) {
+        return count == 0 ? 0 : Math.round(sum * 100.0 / count) / 100.0;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.Question;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Every distinct generated question, kept so quizzes can be assembled
+ * locally instead of calling Gemini again.
+ *
+ * Questions are deduplicated by a SHA-256 of their normalized text and
+ * options, tagged with topics from the {@link RecommendationService}
+ * keyword table, and stored once in question_bank. An in-memory inverted
+ * index (topic -> question positions) is rebuilt from that table at startup.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class QuestionBank implements SmartInitializingSingleton {
+
+    // Recently added questions remembered by text so repeats skip hashing; older ones are just hashed again
+    private static final int KNOWN_CAPACITY = 4096;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final RecommendationService recommendationService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Integer> topicIndex = new HashMap<>();
+    private final List<String> topics;
+
+    private final Set<String> hashes = new HashSet<>();
+    private final List<Question> questions = new ArrayList<>();
+    // Questions already added (the fallback pool comes back on every request), skipped without hashing
+    private final Set<String> known = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > KNOWN_CAPACITY;
+                }
+            }));
+    private final int[][] postings;
+    private final int[] postingSizes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public QuestionBank(RecommendationService recommendationService) {
+        this.recommendationService = recommendationService;
+        this.topics = recommendationService.getTopics();
+        for (int i = 0; i < topics.size(); i++) {
+            topicIndex.put(topics.get(i), i);
+        }
+        this.postings = new int[topics.size()][16];
+        this.postingSizes = new int[topics.size()];
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        lock.writeLock().lock();
+        try {
+            jdbcTemplate.query("SELECT content_hash, payload FROM question_bank", rs -> {
+                try {
+                    Question question = Question.fromMap(objectMapper.readValue(rs.getString(2),
+                            new TypeReference<Map<String, Object>>() {
+                            }));
+                    if (question != null) {
+                        index(rs.getString(1), question);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Skipping unreadable bank question " + rs.getString(1));
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Question bank restored " + questions.size() + " questions.");
+    }
+
+    /** Adds the questions not already in the bank; returns how many were new. */
+    public int addAll(List<Question> generated) {
+        // Hash outside the lock, it is the expensive part
+        Map<String, Question> byHash = null;
+        for (Question q : generated) {
+            if (known.add(knownKey(q))) {
+                if (byHash == null) {
+                    byHash = new LinkedHashMap<>();
+                }
+                byHash.putIfAbsent(contentHash(q), q);
+            }
+        }
+        if (byHash == null) {
+            return 0;
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Question> entry : byHash.entrySet()) {
+                if (hashes.contains(entry.getKey())) {
+                    continue;
+                }
+                Question question = index(entry.getKey(), entry.getValue());
+                rows.add(new Object[] { entry.getKey(), question.toJson(),
+                        String.join(",", recommendationService.getTopicsForQuestion(question.question())),
+                        LocalDateTime.now() });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("MERGE INTO question_bank (content_hash, payload, topics, created_at) "
+                    + "KEY (content_hash) VALUES (?, ?, ?, ?)", rows);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Up to {@code count} distinct questions drawn round-robin from the given
+     * topics, each starting at a random offset. Unknown topics are ignored;
+     * the result may be shorter than {@code count}.
+     */
+    public List<Question> assemble(Collection<String> wantedTopics, int count) {
+        List<Integer> topicIds = new ArrayList<>();
+        for (String topic : wantedTopics) {
+            Integer t = topicIndex.get(topic);
+            if (t != null && !topicIds.contains(t)) {
+                topicIds.add(t);
+            }
+        }
+
+        List<Question> selected = new ArrayList<>(count);
+        Set<Integer> taken = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            int[] cursor = new int[topicIds.size()];
+            int[] visited = new int[topicIds.size()];
+            for (int i = 0; i < cursor.length; i++) {
+                int size = postingSizes[topicIds.get(i)];
+                cursor[i] = size > 0 ? ThreadLocalRandom.current().nextInt(size) : 0;
+            }
+
+            boolean progress = true;
+            while (selected.size() < count && progress) {
+                progress = false;
+                for (int i = 0; i < topicIds.size() && selected.size() < count; i++) {
+                    int t = topicIds.get(i);
+                    // Next question of this topic not already taken through another topic
+                    while (visited[i] < postingSizes[t]) {
+                        int position = postings[t][(cursor[i] + visited[i]++) % postingSizes[t]];
+                        if (taken.add(position)) {
+                            selected.add(questions.get(position));
+                            progress = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return selected;
+    }
+
+    public Map<String, Integer> topicCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int t = 0; t < topics.size(); t++) {
+                counts.put(topics.get(t), postingSizes[t]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return questions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private Question index(String hash, Question source) {
+        // Banked questions have no id of their own, quizzes number them by position
+        Question question = source.withId(0);
+
+        int position = questions.size();
+        hashes.add(hash);
+        questions.add(question);
+        for (String topic : recommendationService.getTopicsForQuestion(question.question())) {
+            int t = topicIndex.get(topic);
+            if (postingSizes[t] == postings[t].length) {
+                postings[t] = Arrays.copyOf(postings[t], postings[t].length * 2);
+            }
+            postings[t][postingSizes[t]++] = position;
+        }
+        return question;
+    }
+
+    // Normalized text and options as given; unlike the record's equality it ignores the id
+    private static String knownKey(Question question) {
+        StringBuilder key = new StringBuilder(RecommendationService.normalizeQuestion(question.question()));
+        for (String option : question.options()) {
+            key.append('\n').append(option);
+        }
+        return key.toString();
+    }
+
+    // Same question with reordered options or different spacing/case hashes the same
+    static String contentHash(Question question) {
+        List<String> options = new ArrayList<>(question.options().size());
+        for (String option : question.options()) {
+            options.add(RecommendationService.normalizeQuestion(String.valueOf(option)));
+        }
+        Collections.sort(options);
+
+        StringBuilder content = new StringBuilder(
+                RecommendationService.normalizeQuestion(question.question()).replaceAll("\\s+", " "));
+        for (String option : options) {
+            content.append('\n').append(option.replaceAll("\\s+", " "));
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
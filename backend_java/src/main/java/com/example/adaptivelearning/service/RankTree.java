@@ -0,0 +1,168 @@
+package com.example.adaptivelearning.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Order-statistic treap of (score, id) pairs, highest score first with ties
+ * broken by id. Insert, remove, rank-of and select-by-rank are O(log n)
+ * expected, using a subtree size kept in every node.
+ *
+ * Not thread-safe.
+ */
+public class RankTree {
+
+    public record Entry(UUID id, double score) {
+    }
+
+    private static final class Node {
+        final UUID id;
+        final double score;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(UUID id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private Node root;
+
+    public int size() {
+        return size(root);
+    }
+
+    public void insert(UUID id, double score) {
+        root = insert(root, new Node(id, score));
+    }
+
+    public void remove(UUID id, double score) {
+        root = remove(root, id, score);
+    }
+
+    /** 0-based position of the pair, or -1 if it is not in the tree. */
+    public int rankOf(UUID id, double score) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int c = compare(id, score, node);
+            if (c == 0) {
+                return rank + size(node.left);
+            }
+            if (c < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    /** Entries at positions [from, to), clamped to the tree size. */
+    public List<Entry> range(int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(size(), to);
+        List<Entry> result = new ArrayList<>(Math.max(0, to - from));
+        for (int k = from; k < to; k++) {
+            Node node = select(k);
+            result.add(new Entry(node.id, node.score));
+        }
+        return result;
+    }
+
+    private Node select(int k) {
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k == leftSize) {
+                return node;
+            } else {
+                k -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private Node insert(Node node, Node fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (compare(fresh.id, fresh.score, node) < 0) {
+            node.left = insert(node.left, fresh);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, fresh);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node remove(Node node, UUID id, double score) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(id, score, node);
+        if (c < 0) {
+            node.left = remove(node.left, id, score);
+        } else if (c > 0) {
+            node.right = remove(node.right, id, score);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = remove(node.right, id, score);
+        } else {
+            node = rotateLeft(node);
+            node.left = remove(node.left, id, score);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    // Higher scores sort first
+    private static int compare(UUID id, double score, Node node) {
+        int c = Double.compare(node.score, score);
+        return c != 0 ? c : id.compareTo(node.id);
+    }
+}
@@ -5,6 +5,40 @@ import org.springframework.stereotype.Service;
 @Service
 public class RecommendationService {
 
+    public static final String GENERAL_TOPIC = "General";
+
+    // Keyword -> topic table, also used to tag questions for ability tracking
+    private static final java.util.Map<String, String> KEYWORDS = new java.util.LinkedHashMap<>();
+    private static final java.util.List<String> TOPICS;
+
+    static {
+        KEYWORDS.put("complexity", "Algorithms");
+        KEYWORDS.put("O(", "Algorithms");
+        KEYWORDS.put("LIFO", "Data Structures");
+        KEYWORDS.put("Stack", "Data Structures");
+        KEYWORDS.put("Queue", "Data Structures");
+        KEYWORDS.put("Tree", "Data Structures");
+        KEYWORDS.put("HTML", "Web Development");
+        KEYWORDS.put("CSS", "Web Development");
+        KEYWORDS.put("React", "Web Development");
+        KEYWORDS.put("HTTP", "Networking");
+        KEYWORDS.put("IP", "Networking");
+        KEYWORDS.put("TCP", "Networking");
+        KEYWORDS.put("protocol", "Networking");
+        KEYWORDS.put("port", "Networking");
+        KEYWORDS.put("SQL", "Database Management");
+        KEYWORDS.put("Android", "Mobile Development");
+        KEYWORDS.put("Docker", "DevOps");
+        KEYWORDS.put("GIT", "DevOps");
+        KEYWORDS.put("Python", "Python Programming");
+        KEYWORDS.put("CPU", "Computer Architecture");
+        KEYWORDS.put("binary", "Digital Logic");
+
+        java.util.LinkedHashSet<String> topics = new java.util.LinkedHashSet<>(KEYWORDS.values());
+        topics.add(GENERAL_TOPIC);
+        TOPICS = java.util.List.copyOf(topics);
+    }
+
     public String recommendCourse(int score) {
         if (score <= 4) {
             return "Basic Programming";
@@ -24,37 +58,45 @@ public class RecommendationService {
             return new java.util.ArrayList<>();
         }
 
-        java.util.Map<String, String> keywords = new java.util.HashMap<>();
-        keywords.put("complexity", "Algorithms");
-        keywords.put("O(", "Algorithms");
-        keywords.put("LIFO", "Data Structures");
-        keywords.put("Stack", "Data Structures");
-        keywords.put("Queue", "Data Structures");
-        keywords.put("Tree", "Data Structures");
-        keywords.put("HTML", "Web Development");
-        keywords.put("CSS", "Web Development");
-        keywords.put("React", "Web Development");
-        keywords.put("HTTP", "Networking");
-        keywords.put("IP", "Networking");
-        keywords.put("TCP", "Networking");
-        keywords.put("protocol", "Networking");
-        keywords.put("port", "Networking");
-        keywords.put("SQL", "Database Management");
-        keywords.put("Android", "Mobile Development");
-        keywords.put("Docker", "DevOps");
-        keywords.put("GIT", "DevOps");
-        keywords.put("Python", "Python Programming");
-        keywords.put("CPU", "Computer Architecture");
-        keywords.put("binary", "Digital Logic");
-
         for (String question : wrongQuestions) {
-            for (java.util.Map.Entry<String, String> entry : keywords.entrySet()) {
-                if (question.toLowerCase().contains(entry.getKey().toLowerCase())) {
-                    recommendations.add(entry.getValue());
-                }
-            }
+            recommendations.addAll(matchTopics(question));
         }
 
         return new java.util.ArrayList<>(recommendations);
     }
+
+    // Courses stored on a submission as List.toString(), e.g. "[Course A, Course B]"
+    public static java.util.List<String> parseStoredCourses(String stored) {
+        if (stored == null || stored.length() <= 2 || !stored.startsWith("[")) {
+            return java.util.List.of();
+        }
+        return java.util.Arrays.asList(stored.substring(1, stored.length() - 1).split(", "));
+    }
+
+    // Canonical form used to match the same question across quizzes
+    public static String normalizeQuestion(String question) {
+        return question.trim().toLowerCase();
+    }
+
+    // All known topics in a stable order; GENERAL_TOPIC is always last
+    public java.util.List<String> getTopics() {
+        return TOPICS;
+    }
+
+    // Topics a question belongs to, GENERAL_TOPIC if no keyword matches
+    public java.util.List<String> getTopicsForQuestion(String question) {
+        java.util.Set<String> topics = matchTopics(question);
+        return topics.isEmpty() ? java.util.List.of(GENERAL_TOPIC) : new java.util.ArrayList<>(topics);
+    }
+
+    private java.util.Set<String> matchTopics(String question) {
+        java.util.Set<String> topics = new java.util.LinkedHashSet<>();
+        String lower = question.toLowerCase();
+        for (java.util.Map.Entry<String, String> entry : KEYWORDS.entrySet()) {
+            if (lower.contains(entry.getKey().toLowerCase())) {
+                topics.add(entry.getValue());
+            }
+        }
+        return topics;
+    }
 }
@@ -0,0 +1,266 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.Question;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Spaced-repetition schedule for missed quiz questions.
+ *
+ * Every wrong answer enters the student's schedule with SM-2 intervals
+ * (1 day, 6 days, then interval x ease factor); answering it again moves it
+ * along or resets it. Pending items sit in a {@link TimingWheel} at minute
+ * resolution and move to a per-student due set when their time comes, so
+ * inserting and polling stay O(1) however many reviews are pending.
+ *
+ * Each change is written through to review_items, and the wheel is rebuilt
+ * from that table at startup rather than from submission history.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class ReviewScheduler implements SmartInitializingSingleton {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int SERVED_CACHE_SIZE = 10_000;
+    private static final double INITIAL_EASE = 2.5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final TimingWheel wheel = new TimingWheel(currentTick());
+    private final Map<String, Integer> handles = new HashMap<>();
+    private UUID[] users = new UUID[1024];
+    private String[] payloads = new String[1024];
+    private int[] repetitions = new int[1024];
+    private int[] intervals = new int[1024];
+    private double[] ease = new double[1024];
+    private int count;
+
+    private final Map<UUID, LinkedHashSet<Integer>> due = new HashMap<>();
+    private final Map<UUID, List<Integer>> byUser = new HashMap<>();
+
+    // Recently served questions, so a later miss can be scheduled with its options
+    private final Map<String, Question> served = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Question> eldest) {
+            return size() > SERVED_CACHE_SIZE;
+        }
+    };
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        synchronized (this) {
+            jdbcTemplate.query("SELECT user_id, question_key, payload, repetitions, interval_days, ease_factor, due_at "
+                    + "FROM review_items", rs -> {
+                        int h = newHandle(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3));
+                        repetitions[h] = rs.getInt(4);
+                        intervals[h] = rs.getInt(5);
+                        ease[h] = rs.getDouble(6);
+                        wheel.schedule(h, toTick(rs.getObject(7, LocalDateTime.class)), this::markDue);
+                    });
+        }
+        System.out.println("Review scheduler restored " + count + " review items.");
+    }
+
+    // Only references are kept; a question is serialized when a miss schedules it
+    public synchronized void rememberServed(List<Question> questions) {
+        for (Question q : questions) {
+            served.put(RecommendationService.normalizeQuestion(q.question()), q);
+        }
+    }
+
+    public synchronized boolean wasServed(String question) {
+        return served.containsKey(RecommendationService.normalizeQuestion(question));
+    }
+
+    /**
+     * Updates the schedule from one quiz: misses enter (or reset) the
+     * schedule, correct answers to scheduled questions advance it.
+     */
+    public void recordQuiz(UUID userId, Collection<String> answered, Collection<String> wrong) {
+        Set<String> wrongKeys = new HashSet<>();
+        Set<String> questions = new LinkedHashSet<>();
+        if (wrong != null) {
+            wrong.forEach(q -> wrongKeys.add(RecommendationService.normalizeQuestion(q)));
+            questions.addAll(wrong);
+        }
+        if (answered != null) {
+            questions.addAll(answered);
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(currentTick(), this::markDue);
+            for (String question : questions) {
+                String key = RecommendationService.normalizeQuestion(question);
+                boolean correct = !wrongKeys.contains(key);
+                Integer h = handles.get(userId + "|" + key);
+                if (h == null) {
+                    if (correct) {
+                        continue;
+                    }
+                    Question servedQuestion = served.get(key);
+                    h = newHandle(userId, key, servedQuestion != null ? servedQuestion.toJson() : question);
+                    ease[h] = INITIAL_EASE;
+                }
+                grade(h, correct ? 4 : 1);
+
+                LinkedHashSet<Integer> dueForUser = due.get(userId);
+                if (dueForUser != null) {
+                    dueForUser.remove(h);
+                }
+                long dueTick = wheel.now() + (long) intervals[h] * MINUTES_PER_DAY;
+                wheel.schedule(h, dueTick, this::markDue);
+                rows.add(new Object[] { userId, key, payloads[h], repetitions[h], intervals[h], ease[h],
+                        toDateTime(dueTick) });
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            // Also called after a submission commits; the connection is back in auto-commit by then
+            jdbcTemplate.batchUpdate("MERGE INTO review_items (user_id, question_key, payload, repetitions, "
+                    + "interval_days, ease_factor, due_at) KEY (user_id, question_key) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    rows);
+        }
+    }
+
+    /** Due review questions for a student, oldest first, as full question maps where known. */
+    public synchronized List<Map<String, Object>> dueReviews(UUID userId, int limit) {
+        wheel.advance(currentTick(), this::markDue);
+        List<Map<String, Object>> result = new ArrayList<>();
+        LinkedHashSet<Integer> dueForUser = due.get(userId);
+        if (dueForUser == null) {
+            return result;
+        }
+        for (int h : dueForUser) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Map<String, Object> question = parsePayload(payloads[h]);
+            question.put("review", true);
+            question.put("repetitions", repetitions[h]);
+            question.put("due_at", toDateTime(wheel.deadlineOf(h)).toString());
+            result.add(question);
+        }
+        return result;
+    }
+
+    /** Due reviews that can be put in a quiz (those stored with their options), oldest first. */
+    public synchronized List<Question> dueQuestions(UUID userId, int limit) {
+        wheel.advance(currentTick(), this::markDue);
+        List<Question> result = new ArrayList<>();
+        LinkedHashSet<Integer> dueForUser = due.get(userId);
+        if (dueForUser == null) {
+            return result;
+        }
+        for (int h : dueForUser) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Question question = Question.fromMap(parsePayload(payloads[h]));
+            if (question != null) {
+                result.add(question);
+            }
+        }
+        return result;
+    }
+
+    /** A student's scheduled reviews that are not due yet. */
+    public synchronized int pendingCount(UUID userId) {
+        wheel.advance(currentTick(), this::markDue);
+        int pending = 0;
+        for (int h : byUser.getOrDefault(userId, List.of())) {
+            if (wheel.isScheduled(h)) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public synchronized void tick() {
+        wheel.advance(currentTick(), this::markDue);
+    }
+
+    // SM-2 update for a 0-5 answer quality
+    private void grade(int h, int quality) {
+        if (quality >= 3) {
+            repetitions[h]++;
+            intervals[h] = repetitions[h] == 1 ? 1
+                    : repetitions[h] == 2 ? 6 : (int) Math.round(intervals[h] * ease[h]);
+        } else {
+            repetitions[h] = 0;
+            intervals[h] = 1;
+        }
+        ease[h] = Math.max(1.3, ease[h] + 0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02));
+    }
+
+    private void markDue(int h) {
+        due.computeIfAbsent(users[h], k -> new LinkedHashSet<>()).add(h);
+    }
+
+    private int newHandle(UUID userId, String key, String payload) {
+        if (count == users.length) {
+            int size = count * 2;
+            users = Arrays.copyOf(users, size);
+            payloads = Arrays.copyOf(payloads, size);
+            repetitions = Arrays.copyOf(repetitions, size);
+            intervals = Arrays.copyOf(intervals, size);
+            ease = Arrays.copyOf(ease, size);
+        }
+        users[count] = userId;
+        payloads[count] = payload;
+        handles.put(userId + "|" + key, count);
+        byUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(count);
+        return count++;
+    }
+
+    private Map<String, Object> parsePayload(String payload) {
+        if (payload != null && payload.startsWith("{")) {
+            try {
+                return objectMapper.readValue(payload, new TypeReference<Map<String, Object>>() {
+                });
+            } catch (Exception e) {
+                // Fall through to text-only
+            }
+        }
+        Map<String, Object> question = new HashMap<>();
+        question.put("question", payload);
+        return question;
+    }
+
+    private static long currentTick() {
+        return System.currentTimeMillis() / 60_000;
+    }
+
+    private static long toTick(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toEpochSecond() / 60;
+    }
+
+    private static LocalDateTime toDateTime(long tick) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(tick * 60), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.adaptivelearning.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed "On Track / Needs Attention / At Risk" status per student.
+ *
+ * Each student carries exponentially weighted score and accuracy trends,
+ * updated in O(1) on every submission, and a last-activity day updated on
+ * login and submission. Health is 0.8 x score trend + 0.2 x accuracy trend
+ * (0-100) minus an inactivity penalty that grows towards
+ * {@code app.risk.inactivity-penalty} as days without activity pass; the
+ * status thresholds (50 / 70) are the ones the class dashboard used before.
+ *
+ * A scheduled sweep re-evaluates every student in parallel (fork/join over
+ * slot ranges) so inactivity decay shows up without any new events, then
+ * writes changed User.status values and dirty trend state in two batches.
+ * Rows count as persisted only once both batches have succeeded.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class RiskEngine implements SmartInitializingSingleton {
+
+    public static final String NEW = "New";
+    public static final String ON_TRACK = "On Track";
+    public static final String NEEDS_ATTENTION = "Needs Attention";
+    public static final String AT_RISK = "At Risk";
+    private static final String[] STATUSES = { NEW, ON_TRACK, NEEDS_ATTENTION, AT_RISK };
+
+    private static final int SWEEP_CHUNK = 4096;
+    private static final long NEVER = Long.MIN_VALUE;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.risk.alpha:0.3}")
+    private double alpha;
+
+    @Value("${app.risk.inactivity-days:14}")
+    private double inactivityDays;
+
+    @Value("${app.risk.inactivity-penalty:30}")
+    private double inactivityPenalty;
+
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private UUID[] ids = new UUID[1024];
+    private double[] score = new double[1024];
+    private double[] accuracy = new double[1024];
+    private int[] quizzes = new int[1024];
+    private long[] lastSubmitDay = new long[1024];
+    private long[] lastLoginDay = new long[1024];
+    private byte[] status = new byte[1024];
+    private byte[] persistedStatus = new byte[1024];
+    private boolean[] dirty = new boolean[1024];
+    private int count;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        lock.writeLock().lock();
+        try {
+            jdbcTemplate.query("SELECT id, last_login_date, status FROM users WHERE role = 'STUDENT'", rs -> {
+                int s = slotFor(rs.getObject(1, UUID.class));
+                Date login = rs.getDate(2);
+                lastLoginDay[s] = login != null ? login.toLocalDate().toEpochDay() : NEVER;
+                persistedStatus[s] = (byte) Math.max(0, Arrays.asList(STATUSES).indexOf(rs.getString(3)));
+            });
+            jdbcTemplate.query("SELECT user_id, ewma_score, ewma_accuracy, quizzes, last_submitted_on "
+                    + "FROM student_risk", rs -> {
+                        Integer s = slots.get(rs.getObject(1, UUID.class));
+                        if (s != null) {
+                            score[s] = rs.getDouble(2);
+                            accuracy[s] = rs.getDouble(3);
+                            quizzes[s] = rs.getInt(4);
+                            Date last = rs.getDate(5);
+                            lastSubmitDay[s] = last != null ? last.toLocalDate().toEpochDay() : NEVER;
+                        }
+                    });
+            // Students with history but no trend row yet (first start with this engine) begin at their average
+            jdbcTemplate.query("SELECT user_id, AVG(score), AVG(accuracy), COUNT(id), MAX(submitted_at) "
+                    + "FROM quiz_submissions GROUP BY user_id", rs -> {
+                        Integer s = slots.get(rs.getObject(1, UUID.class));
+                        if (s != null && quizzes[s] == 0) {
+                            score[s] = toPercent(rs.getDouble(2));
+                            accuracy[s] = rs.getDouble(3);
+                            quizzes[s] = rs.getInt(4);
+                            lastSubmitDay[s] = rs.getTimestamp(5).toLocalDateTime().toLocalDate().toEpochDay();
+                            dirty[s] = true;
+                        }
+                    });
+            long today = LocalDate.now().toEpochDay();
+            for (int s = 0; s < count; s++) {
+                status[s] = classify(s, today);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Risk engine restored " + count + " students.");
+    }
+
+    public void recordSubmission(UUID userId, int rawScore, int submissionAccuracy) {
+        lock.writeLock().lock();
+        try {
+            int s = slotFor(userId);
+            double percent = toPercent(rawScore);
+            if (quizzes[s] == 0) {
+                score[s] = percent;
+                accuracy[s] = submissionAccuracy;
+            } else {
+                score[s] += alpha * (percent - score[s]);
+                accuracy[s] += alpha * (submissionAccuracy - accuracy[s]);
+            }
+            quizzes[s]++;
+            long today = LocalDate.now().toEpochDay();
+            lastSubmitDay[s] = today;
+            status[s] = classify(s, today);
+            dirty[s] = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recordLogin(UUID userId, LocalDate day) {
+        lock.writeLock().lock();
+        try {
+            int s = slotFor(userId);
+            lastLoginDay[s] = day.toEpochDay();
+            status[s] = classify(s, LocalDate.now().toEpochDay());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Current status; {@link #NEW} for students without a scored quiz. */
+    public String statusOf(UUID userId) {
+        lock.readLock().lock();
+        try {
+            Integer s = slots.get(userId);
+            return s != null ? STATUSES[status[s]] : NEW;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.risk.sweep-interval-ms:300000}")
+    public void sweep() {
+        sweep(LocalDate.now());
+    }
+
+    void sweep(LocalDate day) {
+        long today = day.toEpochDay();
+        Rows rows;
+        // Read lock: chunks only write their own slots, submissions and logins wait for the sweep
+        lock.readLock().lock();
+        try {
+            rows = ForkJoinPool.commonPool().invoke(new SweepTask(0, count, today));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (!rows.status.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE users SET status = ? WHERE id = ?", rows.status);
+        }
+        if (!rows.state.isEmpty()) {
+            jdbcTemplate.batchUpdate("MERGE INTO student_risk (user_id, ewma_score, ewma_accuracy, quizzes, "
+                    + "last_submitted_on) KEY (user_id) VALUES (?, ?, ?, ?, ?)", rows.state);
+        }
+
+        // Only now that both batches are written; after a failure the next sweep finds the same rows
+        lock.writeLock().lock();
+        try {
+            for (int[] written : rows.statusSlots) {
+                persistedStatus[written[0]] = (byte) written[1];
+            }
+            for (int[] written : rows.stateSlots) {
+                // A submission since the sweep read the row keeps it dirty
+                if (quizzes[written[0]] == written[1]) {
+                    dirty[written[0]] = false;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void sweepOnShutdown() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            System.err.println("Final risk sweep failed: " + e.getMessage());
+        }
+    }
+
+    // Batch rows plus, per row, {slot, status written} and {slot, quizzes written}
+    private static final class Rows {
+        final List<Object[]> status = new ArrayList<>();
+        final List<Object[]> state = new ArrayList<>();
+        final List<int[]> statusSlots = new ArrayList<>();
+        final List<int[]> stateSlots = new ArrayList<>();
+    }
+
+    private final class SweepTask extends RecursiveTask<Rows> {
+        private final int from;
+        private final int to;
+        private final long today;
+
+        SweepTask(int from, int to, long today) {
+            this.from = from;
+            this.to = to;
+            this.today = today;
+        }
+
+        @Override
+        protected Rows compute() {
+            if (to - from > SWEEP_CHUNK) {
+                int mid = (from + to) >>> 1;
+                SweepTask left = new SweepTask(from, mid, today);
+                left.fork();
+                Rows rows = new SweepTask(mid, to, today).compute();
+                Rows leftRows = left.join();
+                leftRows.status.addAll(rows.status);
+                leftRows.state.addAll(rows.state);
+                leftRows.statusSlots.addAll(rows.statusSlots);
+                leftRows.stateSlots.addAll(rows.stateSlots);
+                return leftRows;
+            }
+            Rows rows = new Rows();
+            for (int s = from; s < to; s++) {
+                status[s] = classify(s, today);
+                if (status[s] != persistedStatus[s]) {
+                    rows.status.add(new Object[] { STATUSES[status[s]], ids[s] });
+                    rows.statusSlots.add(new int[] { s, status[s] });
+                }
+                if (dirty[s]) {
+                    rows.state.add(new Object[] { ids[s], score[s], accuracy[s], quizzes[s],
+                            lastSubmitDay[s] == NEVER ? null : LocalDate.ofEpochDay(lastSubmitDay[s]) });
+                    rows.stateSlots.add(new int[] { s, quizzes[s] });
+                }
+            }
+            return rows;
+        }
+    }
+
+    private byte classify(int s, long today) {
+        if (quizzes[s] == 0) {
+            return 0;
+        }
+        long lastActive = Math.max(lastSubmitDay[s], lastLoginDay[s]);
+        long idle = lastActive == NEVER ? 0 : Math.max(0, today - lastActive);
+        double health = 0.8 * score[s] + 0.2 * accuracy[s]
+                - inactivityPenalty * (1 - Math.exp(-idle / inactivityDays));
+        return (byte) (health < 50 ? 3 : health < 70 ? 2 : 1);
+    }
+
+    // Caller holds the write lock
+    private int slotFor(UUID userId) {
+        Integer existing = slots.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        if (count == ids.length) {
+            int size = count * 2;
+            ids = Arrays.copyOf(ids, size);
+            score = Arrays.copyOf(score, size);
+            accuracy = Arrays.copyOf(accuracy, size);
+            quizzes = Arrays.copyOf(quizzes, size);
+            lastSubmitDay = Arrays.copyOf(lastSubmitDay, size);
+            lastLoginDay = Arrays.copyOf(lastLoginDay, size);
+            status = Arrays.copyOf(status, size);
+            persistedStatus = Arrays.copyOf(persistedStatus, size);
+            dirty = Arrays.copyOf(dirty, size);
+        }
+        ids[count] = userId;
+        lastSubmitDay[count] = NEVER;
+        lastLoginDay[count] = NEVER;
+        slots.put(userId, count);
+        return count++;
+    }
+
+    // Quiz scores are out of 10 (the dashboards have always shown them x10), capped at 100
+    private static double toPercent(double rawScore) {
+        return Math.min(100, rawScore * 10);
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.TimeOrderedIdGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk roster changes: CSV import of users and moving many users between
+ * classes at once.
+ *
+ * The import reads the CSV line by line and writes it in batches of
+ * {@code app.roster.batch-size} rows, one transaction and two JDBC batches
+ * (inserts, updates) each; a bad row is reported with its line number and
+ * skipped. A batch the database rejects is retried row by row, each row in
+ * its own transaction, so only the rows at fault are reported. Leaderboards
+ * and dashboards are refreshed once per batch for the classes it touched,
+ * never per user.
+ */
+@Service
+public class RosterService {
+
+    public static final Set<String> ROLES = Set.of("STUDENT", "PROFESSOR", "HOD");
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    // Ids per IN (...) list in set-based updates
+    private static final int IN_CHUNK = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private DashboardEvents dashboardEvents;
+
+    @Autowired
+    private ObjectProvider<SubmissionShards> submissionShards;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Value("${app.roster.batch-size:500}")
+    private int batchSize;
+
+    private record Row(int line, String email, String name, String role, String classId, String password) {
+    }
+
+    // A row ready to write: a new user with a fresh id, or an existing one and their current class
+    private record Change(Row row, UUID id, boolean created, String previousClassId) {
+    }
+
+    /** Running totals and the per-row error report of one import. */
+    private static final class Report {
+        int processed;
+        int created;
+        int updated;
+        int failed;
+        final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void fail(int line, String email, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("line", line);
+                entry.put("email", email);
+                entry.put("error", error);
+                errors.add(entry);
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("processed", processed);
+            result.put("created", created);
+            result.put("updated", updated);
+            result.put("failed", failed);
+            // Rows failing at write time are found after later lines were validated
+            errors.sort(Comparator.comparingInt(e -> (Integer) e.get("line")));
+            result.put("errors", errors);
+            result.put("errors_truncated", failed > errors.size());
+            return result;
+        }
+    }
+
+    /**
+     * Imports a roster CSV with a header row. Columns (any order, case
+     * insensitive): email, name, role, and optionally class_id and password.
+     * Existing users (matched by email) get their name, role and class
+     * updated, and their password only when the column is filled in; new
+     * users need a password.
+     *
+     * @throws IllegalArgumentException if the header lacks a required column
+     */
+    public Map<String, Object> importCsv(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader b ? b : new BufferedReader(source);
+        Report report = new Report();
+
+        String header = reader.readLine();
+        int lineNo = 1;
+        while (header != null && header.isBlank()) {
+            header = reader.readLine();
+            lineNo++;
+        }
+        if (header == null) {
+            throw new IllegalArgumentException("The roster is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(removeBom(header));
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT).replace("classid", "class_id"), i);
+        }
+        for (String required : List.of("email", "name", "role")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("The header has no " + required + " column");
+            }
+        }
+
+        Set<String> seen = new HashSet<>();
+        List<Row> batch = new ArrayList<>(batchSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.processed++;
+            List<String> fields = splitCsv(line);
+            if (fields == null) {
+                report.fail(lineNo, null, "Unterminated quoted field");
+                continue;
+            }
+            String email = field(fields, columns.get("email"));
+            String name = field(fields, columns.get("name"));
+            String role = field(fields, columns.get("role"));
+            if (email == null || !email.contains("@")) {
+                report.fail(lineNo, email, "Missing or invalid email");
+            } else if (name == null) {
+                report.fail(lineNo, email, "Missing name");
+            } else if (role == null || !ROLES.contains(role.toUpperCase(Locale.ROOT))) {
+                report.fail(lineNo, email, "Role must be one of " + ROLES);
+            } else if (!seen.add(email)) {
+                report.fail(lineNo, email, "Duplicate email in this file");
+            } else {
+                batch.add(new Row(lineNo, email, name, role.toUpperCase(Locale.ROOT),
+                        field(fields, columns.get("class_id")), field(fields, columns.get("password"))));
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, report);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, report);
+        }
+        System.out.println("Roster import: " + report.created + " created, " + report.updated + " updated, "
+                + report.failed + " failed.");
+        return report.toMap();
+    }
+
+    private void writeBatch(List<Row> batch, Report report) {
+        List<String> emails = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            emails.add(row.email());
+        }
+        Map<String, Object[]> existing = new HashMap<>();
+        jdbcTemplate.query("SELECT email, id, class_id FROM users WHERE email IN (" + placeholders(emails.size())
+                + ")", rs -> {
+                    existing.put(rs.getString(1), new Object[] { rs.getObject(2, UUID.class), rs.getString(3) });
+                }, emails.toArray());
+
+        List<Change> changes = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            Object[] current = existing.get(row.email());
+            if (current == null) {
+                if (row.password() == null) {
+                    report.fail(row.line(), row.email(), "New users need a password");
+                    continue;
+                }
+                changes.add(new Change(row, TimeOrderedIdGenerator.next(), true, null));
+            } else {
+                changes.add(new Change(row, (UUID) current[0], false, (String) current[1]));
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        try {
+            write(changes);
+        } catch (DataAccessException e) {
+            // Typically an email registered between the lookup and the insert. The batch rolled back,
+            // so each row is retried on its own and only the ones the database still rejects fail
+            List<Change> written = new ArrayList<>(changes.size());
+            for (Change change : changes) {
+                try {
+                    write(List.of(change));
+                    written.add(change);
+                } catch (DataAccessException rowError) {
+                    report.fail(change.row().line(), change.row().email(),
+                            "Rejected by the database: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+            if (written.isEmpty()) {
+                return;
+            }
+            changes = written;
+        }
+
+        int created = 0;
+        List<UUID> updatedIds = new ArrayList<>(changes.size());
+        Set<String> classes = new LinkedHashSet<>();
+        // new class -> (user -> previous class), for the users whose class changes
+        Map<String, Map<UUID, String>> moves = new HashMap<>();
+        for (Change change : changes) {
+            String classId = change.row().classId();
+            if (change.created()) {
+                created++;
+            } else {
+                updatedIds.add(change.id());
+                classes.add(change.previousClassId());
+                if (!Objects.equals(change.previousClassId(), classId)) {
+                    moves.computeIfAbsent(classId, k -> new HashMap<>()).put(change.id(), change.previousClassId());
+                }
+            }
+            classes.add(classId);
+        }
+        report.created += created;
+        report.updated += updatedIds.size();
+        sessionTokens.usersChanged(updatedIds);
+        submissionShards.ifAvailable(shards -> moves.forEach((classId, previous) -> shards.moveUsers(previous,
+                classId)));
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("created", created);
+        event.put("updated", updatedIds.size());
+        refresh(classes, event);
+    }
+
+    // One transaction and one JDBC batch per statement for the given rows
+    private void write(List<Change> changes) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> passwords = new ArrayList<>();
+        for (Change change : changes) {
+            Row row = change.row();
+            if (change.created()) {
+                inserts.add(new Object[] { change.id(), row.email(), row.password(), row.name(), row.role(),
+                        row.classId(), "Active" });
+            } else {
+                updates.add(new Object[] { row.name(), row.role(), row.classId(), change.id() });
+                if (row.password() != null) {
+                    passwords.add(new Object[] { row.password(), change.id() });
+                }
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("INSERT INTO users (id, email, password, name, role, class_id, status, "
+                    + "current_streak) VALUES (?, ?, ?, ?, ?, ?, ?, 0)", inserts);
+            jdbcTemplate.batchUpdate("UPDATE users SET name = ?, role = ?, class_id = ? WHERE id = ?", updates);
+            jdbcTemplate.batchUpdate("UPDATE users SET password = ? WHERE id = ?", passwords);
+        });
+    }
+
+    /**
+     * Moves the given users to a class with one UPDATE per {@value #IN_CHUNK}
+     * ids, all in one transaction. Returns the number of users moved.
+     */
+    public int reassignUsers(List<UUID> userIds, String classId) {
+        Map<UUID, String> previous = new HashMap<>();
+        Integer moved = transactionTemplate.execute(status -> {
+            int total = 0;
+            for (int from = 0; from < userIds.size(); from += IN_CHUNK) {
+                Object[] ids = userIds.subList(from, Math.min(from + IN_CHUNK, userIds.size())).toArray();
+                String in = placeholders(ids.length);
+                jdbcTemplate.query("SELECT id, class_id FROM users WHERE id IN (" + in + ")",
+                        rs -> {
+                            previous.put(rs.getObject(1, UUID.class), rs.getString(2));
+                        }, ids);
+                Object[] args = new Object[ids.length + 1];
+                args[0] = classId;
+                System.arraycopy(ids, 0, args, 1, ids.length);
+                total += jdbcTemplate.update("UPDATE users SET class_id = ? WHERE id IN (" + in + ")", args);
+            }
+            return total;
+        });
+        if (moved > 0) {
+            sessionTokens.usersChanged(previous.keySet());
+            submissionShards.ifAvailable(shards -> shards.moveUsers(previous, classId));
+            Set<String> classes = new LinkedHashSet<>(previous.values());
+            classes.add(classId);
+            refresh(classes, Map.of("moved", moved));
+        }
+        return moved;
+    }
+
+    /**
+     * Moves everyone in {@code fromClassId} (only users with {@code role}, if
+     * given) to {@code toClassId} with a single UPDATE. Returns the number moved.
+     */
+    public int reassignClass(String fromClassId, String toClassId, String role) {
+        String where = role == null ? " WHERE class_id = ?" : " WHERE class_id = ? AND role = ?";
+        Object[] filter = role == null ? new Object[] { fromClassId } : new Object[] { fromClassId, role };
+        SubmissionShards shards = submissionShards.getIfAvailable();
+        Map<UUID, String> previous = new HashMap<>();
+        Integer moved = transactionTemplate.execute(status -> {
+            // Shards move rows by user, so they need the ids that are about to change
+            if (shards != null) {
+                jdbcTemplate.query("SELECT id FROM users" + where, rs -> {
+                    previous.put(rs.getObject(1, UUID.class), fromClassId);
+                }, filter);
+            }
+            Object[] args = new Object[filter.length + 1];
+            args[0] = toClassId;
+            System.arraycopy(filter, 0, args, 1, filter.length);
+            return jdbcTemplate.update("UPDATE users SET class_id = ?" + where, args);
+        });
+        if (shards != null) {
+            shards.moveUsers(previous, toClassId);
+        }
+        if (moved > 0) {
+            sessionTokens.classChanged(fromClassId);
+            refresh(List.of(fromClassId, toClassId), Map.of("moved", moved));
+        }
+        return moved;
+    }
+
+    // One leaderboard rebuild and one dashboard event per class for the whole change
+    private void refresh(Collection<String> classIds, Map<String, Object> summary) {
+        List<String> classes = new ArrayList<>(classIds);
+        classes.removeIf(c -> c == null);
+        leaderboardService.reloadClasses(classes);
+
+        Map<String, Object> event = new HashMap<>(summary);
+        event.put("class_ids", classes);
+        dashboardEvents.publish("roster", event, classes.toArray(new String[0]));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String field(List<String> fields, Integer index) {
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String removeBom(String line) {
+        return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+    }
+
+    /** Splits one RFC 4180 line; null if a quoted field is not closed on it. */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
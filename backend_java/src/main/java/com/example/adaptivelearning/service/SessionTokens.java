@@ -0,0 +1,232 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stateless session tokens: HS256 JWTs carrying the user's id, email, name,
+ * role and class, so an authenticated request needs no user lookup.
+ *
+ * Keys come from app.auth.keys as comma-separated "kid:base64-secret" pairs
+ * and are decoded once at startup. New tokens are signed with
+ * app.auth.active-key (default: the first pair); every listed key still
+ * verifies, so rotating is: add the new key, make it active, and drop the old
+ * one after app.auth.ttl-minutes. Without configured keys a random key is
+ * used and tokens stop verifying on restart.
+ *
+ * A class or name change marks the user's earlier tokens stale here;
+ * AuthTokenFilter re-issues those from the database. The marks are local to
+ * this instance and are dropped once every token they cover has expired.
+ */
+@Service
+public class SessionTokens {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${app.auth.keys:}")
+    private String configuredKeys;
+
+    @Value("${app.auth.active-key:}")
+    private String activeKeyId;
+
+    @Value("${app.auth.ttl-minutes:720}")
+    private long ttlMinutes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+    // Encoded header per key id, the same for every token signed with it
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance("HmacSHA256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    // Epoch millis of the last change per user / per class
+    private final Map<UUID, Long> userChanges = new ConcurrentHashMap<>();
+    private final Map<String, Long> classChanges = new ConcurrentHashMap<>();
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /** What a verified token says about its holder. {@code issuedAt} is in epoch millis. */
+    public record Principal(UUID userId, String email, String name, String role, String classId, long issuedAt,
+            String keyId) {
+
+        public boolean isStudent() {
+            return "STUDENT".equals(role);
+        }
+
+        public boolean isStaff() {
+            return "PROFESSOR".equals(role) || "HOD".equals(role);
+        }
+    }
+
+    @PostConstruct
+    void loadKeys() {
+        for (String entry : configuredKeys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalStateException("app.auth.keys entries must be kid:base64-secret");
+            }
+            byte[] secret = Base64.getDecoder().decode(entry.substring(colon + 1).trim());
+            if (secret.length < 32) {
+                throw new IllegalStateException("Signing key " + entry.substring(0, colon) + " is shorter than 256 bits");
+            }
+            addKey(entry.substring(0, colon).trim(), secret);
+        }
+        if (keys.isEmpty()) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            addKey("local", secret);
+            System.out.println("No app.auth.keys configured; session tokens are signed with a random key.");
+        }
+        if (activeKeyId.isBlank()) {
+            activeKeyId = keys.keySet().iterator().next();
+        } else if (!keys.containsKey(activeKeyId)) {
+            throw new IllegalStateException("app.auth.active-key " + activeKeyId + " is not in app.auth.keys");
+        }
+    }
+
+    private void addKey(String keyId, byte[] secret) {
+        keys.put(keyId, new SecretKeySpec(secret, "HmacSHA256"));
+        ObjectNode header = objectMapper.createObjectNode().put("alg", "HS256").put("typ", "JWT").put("kid", keyId);
+        headers.put(keyId, ENCODER.encodeToString(header.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public String issue(User user) {
+        long now = System.currentTimeMillis();
+        ObjectNode claims = objectMapper.createObjectNode();
+        claims.put("sub", user.getId().toString());
+        claims.put("email", user.getEmail());
+        claims.put("name", user.getName());
+        claims.put("role", user.getRole());
+        claims.put("cls", user.getClassId());
+        // NumericDate allows fractions; millisecond iat keeps stale checks exact
+        claims.put("iat", BigDecimal.valueOf(now, 3));
+        claims.put("exp", now / 1000 + ttlMinutes * 60);
+        String signingInput = headers.get(activeKeyId) + "."
+                + ENCODER.encodeToString(claims.toString().getBytes(StandardCharsets.UTF_8));
+        issued.incrementAndGet();
+        return signingInput + "." + ENCODER.encodeToString(sign(activeKeyId, signingInput));
+    }
+
+    /** The token's principal, or null if it is malformed, signed with an unknown key, tampered with or expired. */
+    public Principal verify(String token) {
+        try {
+            int first = token.indexOf('.');
+            int last = token.lastIndexOf('.');
+            if (first <= 0 || last == first) {
+                return reject();
+            }
+            JsonNode header = objectMapper.readTree(DECODER.decode(token.substring(0, first)));
+            String keyId = header.path("kid").asText();
+            if (!"HS256".equals(header.path("alg").asText()) || !keys.containsKey(keyId)) {
+                return reject();
+            }
+            byte[] expected = sign(keyId, token.substring(0, last));
+            if (!MessageDigest.isEqual(expected, DECODER.decode(token.substring(last + 1)))) {
+                return reject();
+            }
+            JsonNode claims = objectMapper.readTree(DECODER.decode(token.substring(first + 1, last)));
+            if (claims.path("exp").asLong() <= System.currentTimeMillis() / 1000) {
+                return reject();
+            }
+            return new Principal(UUID.fromString(claims.path("sub").asText()), text(claims, "email"),
+                    text(claims, "name"), text(claims, "role"), text(claims, "cls"),
+                    Math.round(claims.path("iat").asDouble() * 1000), keyId);
+        } catch (Exception e) {
+            // Bad base64, bad JSON or a bad subject: all just an invalid token
+            return reject();
+        }
+    }
+
+    /** True if the user's class or name changed after the token was issued. */
+    public boolean isStale(Principal principal) {
+        Long userChange = userChanges.get(principal.userId());
+        if (userChange != null && userChange >= principal.issuedAt()) {
+            return true;
+        }
+        Long classChange = principal.classId() == null ? null : classChanges.get(principal.classId());
+        return classChange != null && classChange >= principal.issuedAt();
+    }
+
+    public void usersChanged(Collection<UUID> userIds) {
+        long now = System.currentTimeMillis();
+        for (UUID userId : userIds) {
+            userChanges.put(userId, now);
+        }
+    }
+
+    // Everyone whose token still names this class
+    public void classChanged(String classId) {
+        if (classId != null) {
+            classChanges.put(classId, System.currentTimeMillis());
+        }
+    }
+
+    @Scheduled(fixedDelay = 600_000)
+    public void evictExpiredMarks() {
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000;
+        userChanges.values().removeIf(changedAt -> changedAt < cutoff);
+        classChanges.values().removeIf(changedAt -> changedAt < cutoff);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", List.copyOf(keys.keySet()));
+        stats.put("active_key", activeKeyId);
+        stats.put("issued", issued.get());
+        stats.put("rejected", rejected.get());
+        stats.put("stale_marks", userChanges.size() + classChanges.size());
+        return stats;
+    }
+
+    private byte[] sign(String keyId, String signingInput) {
+        Mac mac = macs.get();
+        try {
+            mac.init(keys.get(keyId));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Principal reject() {
+        rejected.incrementAndGet();
+        return null;
+    }
+
+    private static String text(JsonNode claims, String field) {
+        JsonNode value = claims.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
@@ -0,0 +1,561 @@
+package com.example.adaptivelearning.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Cold tier for quiz submissions older than {@code app.archive.max-age-days}.
+ *
+ * The archive job moves them out of quiz_submissions into immutable segment
+ * files of up to {@code app.archive.segment-rows} rows. A segment is a
+ * header, a per-user index sorted by user id (count, score sum/min/max,
+ * accuracy and speed sums, last submission, block position) and one
+ * deflate-compressed block of rows per user, newest first. Segments are
+ * memory-mapped read-only; the index is scanned once at startup into
+ * per-user and global totals, so averages combine the hot table with
+ * archived totals without reading any block. A user's archived rows are
+ * only inflated when history is explicitly paged past the hot table.
+ *
+ * A segment is written and renamed into place first, then registered in
+ * archive_segments in the same transaction that deletes its rows, so a
+ * crash leaves either the rows or the segment, never both; unregistered
+ * files are removed at startup.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class SubmissionArchive {
+
+    private static final int MAGIC = 0x414c5353; // "ALSS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    // msb, lsb, count, score sum/min/max, accuracy sum, speed sum, last submitted, block offset, block and raw length
+    private static final int ENTRY_BYTES = 8 + 8 + 4 + 8 + 4 + 4 + 8 + 8 + 8 + 8 + 4 + 4;
+    private static final int DELETE_CHUNK = 1000;
+
+    /** Archived aggregates of one user, or of everyone. */
+    public record Totals(long count, long scoreSum, int scoreMin, int scoreMax, long accuracySum, long speedSum,
+            LocalDateTime lastSubmittedAt) {
+
+        public static final Totals EMPTY = new Totals(0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE, 0, 0, null);
+
+        Totals plus(Totals o) {
+            LocalDateTime last = lastSubmittedAt == null || (o.lastSubmittedAt != null
+                    && o.lastSubmittedAt.isAfter(lastSubmittedAt)) ? o.lastSubmittedAt : lastSubmittedAt;
+            return new Totals(count + o.count, scoreSum + o.scoreSum, Math.min(scoreMin, o.scoreMin),
+                    Math.max(scoreMax, o.scoreMax), accuracySum + o.accuracySum, speedSum + o.speedSum, last);
+        }
+    }
+
+    /** One archived submission as read back from a segment. */
+    public record ArchivedSubmission(UUID id, LocalDateTime submittedAt, int score, int accuracy, int typingSpeed,
+            String topicMastery) {
+    }
+
+    private record Row(UUID id, UUID userId, int score, int accuracy, int typingSpeed, String topicMastery,
+            LocalDateTime submittedAt) {
+    }
+
+    private static final class Segment {
+        final String name;
+        final MappedByteBuffer map;
+        final int users;
+        final int rows;
+        final long firstSubmitted;
+        final long lastSubmitted;
+        final long bytes;
+
+        Segment(String name, Path file) throws IOException {
+            this.name = name;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                bytes = channel.size();
+                map = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            }
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+            users = map.getInt(8);
+            rows = map.getInt(12);
+            firstSubmitted = map.getLong(16);
+            lastSubmitted = map.getLong(24);
+        }
+
+        int entry(int i) {
+            return HEADER_BYTES + i * ENTRY_BYTES;
+        }
+
+        UUID userAt(int i) {
+            return new UUID(map.getLong(entry(i)), map.getLong(entry(i) + 8));
+        }
+
+        // Binary search over the sorted index, in UUID.compareTo order
+        int find(UUID userId) {
+            int lo = 0;
+            int hi = users - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int at = entry(mid);
+                int cmp = Long.compare(map.getLong(at), userId.getMostSignificantBits());
+                if (cmp == 0) {
+                    cmp = Long.compare(map.getLong(at + 8), userId.getLeastSignificantBits());
+                }
+                if (cmp < 0) {
+                    lo = mid + 1;
+                } else if (cmp > 0) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        int countAt(int i) {
+            return map.getInt(entry(i) + 16);
+        }
+
+        Totals totalsAt(int i) {
+            int at = entry(i) + 16;
+            return new Totals(map.getInt(at), map.getLong(at + 4), map.getInt(at + 12), map.getInt(at + 16),
+                    map.getLong(at + 20), map.getLong(at + 28), fromMillis(map.getLong(at + 36)));
+        }
+
+        List<ArchivedSubmission> rowsAt(int i) {
+            int at = entry(i) + 60;
+            int offset = (int) map.getLong(at);
+            int compressed = map.getInt(at + 8);
+            byte[] raw = new byte[map.getInt(at + 12)];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(map.slice(offset, compressed));
+                int n = 0;
+                while (n < raw.length && !inflater.finished()) {
+                    n += inflater.inflate(raw, n, raw.length - n);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt block in archive segment " + name, e);
+            } finally {
+                inflater.end();
+            }
+
+            int count = countAt(i);
+            List<ArchivedSubmission> result = new ArrayList<>(count);
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+                for (int r = 0; r < count; r++) {
+                    UUID id = new UUID(in.readLong(), in.readLong());
+                    LocalDateTime submittedAt = fromMillis(in.readLong());
+                    int score = in.readInt();
+                    int accuracy = in.readInt();
+                    int speed = in.readInt();
+                    String mastery = in.readBoolean() ? in.readUTF() : null;
+                    result.add(new ArchivedSubmission(id, submittedAt, score, accuracy, speed, mastery));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return result;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectProvider<SubmissionShards> submissionShards;
+
+    @Value("${app.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.archive.max-age-days:365}")
+    private int maxAgeDays;
+
+    @Value("${app.archive.segment-rows:100000}")
+    private int segmentRows;
+
+    @Value("${app.archive.dir:./data/archive}")
+    private Path dir;
+
+    // Newest first, so history pages walk back in time
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Map<UUID, Totals> userTotals = new ConcurrentHashMap<>();
+    private volatile Totals globalTotals = Totals.EMPTY;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @PostConstruct
+    void load() throws IOException {
+        Files.createDirectories(dir);
+        Set<String> registered = new HashSet<>(jdbcTemplate.queryForList("SELECT name FROM archive_segments",
+                String.class));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "segment-*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!registered.contains(name)) {
+                    // Written by a run that did not commit; its rows are still in quiz_submissions
+                    System.out.println("Removing unregistered archive file " + name);
+                    Files.delete(file);
+                }
+            }
+        }
+        List<Segment> loaded = new ArrayList<>();
+        for (String name : registered) {
+            Path file = dir.resolve(name);
+            if (!Files.exists(file)) {
+                System.err.println("Archive segment " + name + " is registered but missing from " + dir);
+                continue;
+            }
+            loaded.add(new Segment(name, file));
+            sequence.accumulateAndGet(number(name), Math::max);
+        }
+        for (Segment segment : loaded) {
+            index(segment);
+        }
+        loaded.sort(Comparator.comparingLong((Segment s) -> s.lastSubmitted).reversed());
+        segments.addAll(loaded);
+        if (!segments.isEmpty()) {
+            System.out.println("Submission archive loaded " + segments.size() + " segments, "
+                    + globalTotals.count() + " submissions.");
+        }
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Moves every submission older than the configured age into new
+     * segments. Returns the number of submissions archived.
+     */
+    public synchronized int archive() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(maxAgeDays));
+        int total = 0;
+        while (true) {
+            List<Row> rows = jdbcTemplate.query("SELECT id, user_id, score, accuracy, typing_speed, topic_mastery, "
+                    + "submitted_at FROM quiz_submissions WHERE submitted_at < ? ORDER BY submitted_at LIMIT ?",
+                    (rs, i) -> new Row(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getInt(3),
+                            rs.getInt(4), rs.getInt(5), rs.getString(6), rs.getTimestamp(7).toLocalDateTime()),
+                    cutoff, segmentRows);
+            if (rows.isEmpty()) {
+                break;
+            }
+            writeSegment(rows);
+            total += rows.size();
+            if (rows.size() < segmentRows) {
+                break;
+            }
+        }
+        if (total > 0) {
+            System.out.println("Archived " + total + " submissions older than " + maxAgeDays + " days.");
+        }
+        return total;
+    }
+
+    private void writeSegment(List<Row> rows) {
+        TreeMap<UUID, List<Row>> byUser = new TreeMap<>();
+        for (Row row : rows) {
+            byUser.computeIfAbsent(row.userId(), k -> new ArrayList<>()).add(row);
+        }
+        String name = String.format("segment-%06d.alss", sequence.incrementAndGet());
+        Path file = dir.resolve(name);
+        Path tmp = dir.resolve(name + ".tmp");
+        try {
+            write(tmp, byUser, rows);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive segment " + name, e);
+        }
+
+        Segment segment;
+        List<UUID> ids = new ArrayList<>(rows.size());
+        try {
+            segment = new Segment(name, file);
+            for (Row row : rows) {
+                ids.add(row.id());
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("INSERT INTO archive_segments (name, submissions, users, first_submitted_at, "
+                        + "last_submitted_at, bytes, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", name, rows.size(),
+                        byUser.size(), Timestamp.valueOf(rows.get(0).submittedAt()),
+                        Timestamp.valueOf(rows.get(rows.size() - 1).submittedAt()), segment.bytes,
+                        Timestamp.valueOf(LocalDateTime.now()));
+                for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+                    List<UUID> chunk = ids.subList(from, Math.min(from + DELETE_CHUNK, ids.size()));
+                    jdbcTemplate.update("DELETE FROM quiz_submissions WHERE id IN ("
+                            + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")", chunk.toArray());
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Removed as unregistered at the next start
+            }
+            throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+        }
+
+        index(segment);
+        segments.add(0, segment);
+        submissionShards.ifAvailable(shards -> shards.deleteSubmissions(ids));
+    }
+
+    private static void write(Path tmp, TreeMap<UUID, List<Row>> byUser, List<Row> rows) throws IOException {
+        // Compress every user's block first; the index needs their offsets and lengths
+        List<byte[]> blocks = new ArrayList<>(byUser.size());
+        List<Integer> rawLengths = new ArrayList<>(byUser.size());
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            for (List<Row> userRows : byUser.values()) {
+                userRows.sort(Comparator.comparing(Row::submittedAt).reversed());
+                ByteArrayOutputStream raw = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(raw);
+                for (Row row : userRows) {
+                    out.writeLong(row.id().getMostSignificantBits());
+                    out.writeLong(row.id().getLeastSignificantBits());
+                    out.writeLong(toMillis(row.submittedAt()));
+                    out.writeInt(row.score());
+                    out.writeInt(row.accuracy());
+                    out.writeInt(row.typingSpeed());
+                    out.writeBoolean(row.topicMastery() != null);
+                    if (row.topicMastery() != null) {
+                        out.writeUTF(row.topicMastery());
+                    }
+                }
+                byte[] input = raw.toByteArray();
+                deflater.reset();
+                deflater.setInput(input);
+                deflater.finish();
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(input.length / 2 + 64);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    compressed.write(buffer, 0, deflater.deflate(buffer));
+                }
+                blocks.add(compressed.toByteArray());
+                rawLengths.add(input.length);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES + byUser.size() * ENTRY_BYTES);
+        head.putInt(MAGIC).putInt(VERSION).putInt(byUser.size()).putInt(rows.size())
+                .putLong(toMillis(rows.get(0).submittedAt())).putLong(toMillis(rows.get(rows.size() - 1).submittedAt()));
+        long offset = head.capacity();
+        int i = 0;
+        for (Map.Entry<UUID, List<Row>> entry : byUser.entrySet()) {
+            List<Row> userRows = entry.getValue();
+            long scoreSum = 0;
+            long accuracySum = 0;
+            long speedSum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (Row row : userRows) {
+                scoreSum += row.score();
+                accuracySum += row.accuracy();
+                speedSum += row.typingSpeed();
+                min = Math.min(min, row.score());
+                max = Math.max(max, row.score());
+            }
+            head.putLong(entry.getKey().getMostSignificantBits()).putLong(entry.getKey().getLeastSignificantBits())
+                    .putInt(userRows.size()).putLong(scoreSum).putInt(min).putInt(max)
+                    .putLong(accuracySum).putLong(speedSum).putLong(toMillis(userRows.get(0).submittedAt()))
+                    .putLong(offset).putInt(blocks.get(i).length).putInt(rawLengths.get(i));
+            offset += blocks.get(i).length;
+            i++;
+        }
+        head.flip();
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (head.hasRemaining()) {
+                channel.write(head);
+            }
+            for (byte[] block : blocks) {
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(true);
+        }
+    }
+
+    private void index(Segment segment) {
+        Totals global = Totals.EMPTY;
+        for (int i = 0; i < segment.users; i++) {
+            Totals totals = segment.totalsAt(i);
+            userTotals.merge(segment.userAt(i), totals, Totals::plus);
+            global = global.plus(totals);
+        }
+        synchronized (this) {
+            globalTotals = globalTotals.plus(global);
+        }
+    }
+
+    /** Archived totals of a user; {@link Totals#EMPTY} if nothing of theirs is archived. */
+    public Totals totalsFor(UUID userId) {
+        return userTotals.getOrDefault(userId, Totals.EMPTY);
+    }
+
+    public Totals globalTotals() {
+        return globalTotals;
+    }
+
+    /** A user's most recent archived submission; inflates one block. */
+    public Optional<ArchivedSubmission> latest(UUID userId) {
+        // Segments are newest first and each holds older rows than the one before
+        for (Segment segment : segments) {
+            int i = segment.find(userId);
+            if (i >= 0) {
+                return Optional.of(segment.rowsAt(i).get(0));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * A user's archived submissions, newest first, skipping the first
+     * {@code skip}. Only the blocks of segments that overlap the requested
+     * range are inflated.
+     */
+    public List<ArchivedSubmission> history(UUID userId, long skip, int limit) {
+        List<ArchivedSubmission> page = new ArrayList<>(Math.min(limit, 256));
+        for (Segment segment : segments) {
+            if (page.size() >= limit) {
+                break;
+            }
+            int i = segment.find(userId);
+            if (i < 0) {
+                continue;
+            }
+            int count = segment.countAt(i);
+            if (skip >= count) {
+                skip -= count;
+                continue;
+            }
+            List<ArchivedSubmission> rows = segment.rowsAt(i);
+            int from = (int) skip;
+            page.addAll(rows.subList(from, Math.min(rows.size(), from + limit - page.size())));
+            skip = 0;
+        }
+        return page;
+    }
+
+    /** Time of the oldest archived submission, or null if nothing is archived. */
+    public LocalDateTime firstSubmittedAt() {
+        OptionalLong at = segments.stream().mapToLong(segment -> segment.firstSubmitted).min();
+        return at.isPresent() ? fromMillis(at.getAsLong()) : null;
+    }
+
+    /** Time of the newest archived submission, or null if nothing is archived. */
+    public LocalDateTime lastSubmittedAt() {
+        OptionalLong at = segments.stream().mapToLong(segment -> segment.lastSubmitted).max();
+        return at.isPresent() ? fromMillis(at.getAsLong()) : null;
+    }
+
+    /**
+     * Passes every archived submission made at or after {@code from} and
+     * before {@code to} to the action, with its user id. Segments outside the
+     * range are skipped and the rest are inflated one user block at a time,
+     * so rows come oldest segment first but grouped by user, not in time order.
+     */
+    public void forEachSubmission(LocalDateTime from, LocalDateTime to,
+            BiConsumer<UUID, ArchivedSubmission> action) {
+        long lower = toMillis(from);
+        long upper = toMillis(to);
+        List<Segment> oldestFirst = new ArrayList<>(segments);
+        Collections.reverse(oldestFirst);
+        for (Segment segment : oldestFirst) {
+            if (segment.lastSubmitted < lower || segment.firstSubmitted >= upper) {
+                continue;
+            }
+            for (int i = 0; i < segment.users; i++) {
+                UUID userId = segment.userAt(i);
+                for (ArchivedSubmission submission : segment.rowsAt(i)) {
+                    if (!submission.submittedAt().isBefore(from) && submission.submittedAt().isBefore(to)) {
+                        action.accept(userId, submission);
+                    }
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.bytes;
+        }
+        stats.put("enabled", enabled);
+        stats.put("max_age_days", maxAgeDays);
+        stats.put("segments", segments.size());
+        stats.put("submissions", globalTotals.count());
+        stats.put("users", userTotals.size());
+        stats.put("bytes", bytes);
+        return stats;
+    }
+
+    private static int number(String name) {
+        try {
+            return Integer.parseInt(name.substring("segment-".length(), name.indexOf('.')));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,404 @@
+package com.example.adaptivelearning.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every quiz submission, joined with the submitting user's role,
+ * class and status, to gzip-compressed CSV or to a columnar binary file.
+ *
+ * The export walks the date range in chunks of {@code app.export.chunk-days}.
+ * Each chunk is one short read-only query (on the replica when routing is
+ * enabled) over the submitted_at index, read through a forward-only cursor.
+ * Rows go straight to the output, so memory does not grow with the number
+ * of submissions, and no transaction stays open for the whole export. User
+ * columns come from one read of the (much smaller) users table instead of
+ * a per-row join. Only ids are exported, not names or emails.
+ *
+ * Submissions the archive job has moved out of quiz_submissions are read
+ * from the archive segments that overlap the range and written first, one
+ * user block at a time; hot rows follow in submitted_at order.
+ *
+ * Columnar layout (all big-endian, inside the gzip stream):
+ * <pre>
+ * "ALSX" magic, byte version = 1, short column count, per column: UTF name, byte type
+ * blocks: int rows (0 ends the file), then each column's values for those rows:
+ *   type 1 UUID       rows x (long msb, long lsb), both 0 for null
+ *   type 2 INT        rows x int
+ *   type 3 TIMESTAMP  rows x long, wall-clock time as epoch millis (read it back as UTC)
+ *   type 4 STRING     int dictionary size, that many UTF entries, then rows x int index (-1 for null)
+ * </pre>
+ */
+@Service
+public class SubmissionExporter {
+
+    public enum Format {
+        CSV("csv.gz"), COLUMNAR("alsx.gz");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /** csv or columnar, case-insensitive; throws IllegalArgumentException otherwise. */
+        public static Format parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final String[] COLUMNS = { "submission_id", "user_id", "role", "class_id", "user_status",
+            "score", "accuracy", "typing_speed", "topic_mastery", "submitted_at" };
+    private static final byte UUID_COLUMN = 1;
+    private static final byte INT_COLUMN = 2;
+    private static final byte TIMESTAMP_COLUMN = 3;
+    private static final byte STRING_COLUMN = 4;
+    private static final byte[] TYPES = { UUID_COLUMN, UUID_COLUMN, STRING_COLUMN, STRING_COLUMN, STRING_COLUMN,
+            INT_COLUMN, INT_COLUMN, INT_COLUMN, STRING_COLUMN, TIMESTAMP_COLUMN };
+
+    private static final String CHUNK_QUERY = "SELECT id, user_id, score, accuracy, typing_speed, topic_mastery, "
+            + "submitted_at FROM quiz_submissions WHERE submitted_at >= ? AND submitted_at < ? ORDER BY submitted_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final SubmissionArchive archive;
+
+    @Value("${app.export.chunk-days:7}")
+    private int chunkDays;
+
+    // Rows buffered per columnar block
+    @Value("${app.export.block-rows:8192}")
+    private int blockRows;
+
+    public SubmissionExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+            SubmissionArchive archive, @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.archive = archive;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Exports to a file (created or truncated); returns the number of rows written. */
+    public long exportToFile(Format format, LocalDate from, LocalDate to, Path file) throws IOException {
+        return export(format, from, to, FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Exports submissions made on {@code from} through {@code to} (either
+     * may be null for the oldest / newest submission) to the channel, which
+     * is closed afterwards. Returns the number of rows written.
+     */
+    public long export(Format format, LocalDate from, LocalDate to, WritableByteChannel channel) throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 1 << 16);
+                RowSink sink = format == Format.CSV ? new CsvSink(gzip) : new ColumnarSink(gzip, blockRows)) {
+            LocalDate first = from != null ? from : boundary("MIN");
+            LocalDate last = to != null ? to : boundary("MAX");
+            if (first == null || last == null) {
+                return 0;
+            }
+            // role, class_id, status per user
+            Map<UUID, String[]> users = new HashMap<>();
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query("SELECT id, role, class_id, status FROM users",
+                    rs -> {
+                        users.put(rs.getObject(1, UUID.class),
+                                new String[] { rs.getString(2), rs.getString(3), rs.getString(4) });
+                    }));
+
+            Row row = new Row();
+            archive.forEachSubmission(first.atStartOfDay(), last.plusDays(1).atStartOfDay(), (userId, archived) -> {
+                row.read(userId, archived, users);
+                try {
+                    sink.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            for (LocalDate start = first; !start.isAfter(last); start = start.plusDays(chunkDays)) {
+                LocalDate end = start.plusDays(chunkDays);
+                LocalDateTime upper = (end.isAfter(last) ? last.plusDays(1) : end).atStartOfDay();
+                LocalDateTime lower = start.atStartOfDay();
+                readOnly.executeWithoutResult(status -> jdbcTemplate.query(CHUNK_QUERY, rs -> {
+                    row.read(rs, users);
+                    try {
+                        sink.write(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, lower, upper));
+            }
+            return sink.rows();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Oldest or newest submission day across the hot table and the archive
+    private LocalDate boundary(String aggregate) {
+        boolean min = aggregate.equals("MIN");
+        Timestamp hot = readOnly.execute(status -> jdbcTemplate.queryForObject(
+                "SELECT " + aggregate + "(submitted_at) FROM quiz_submissions", Timestamp.class));
+        LocalDateTime archived = min ? archive.firstSubmittedAt() : archive.lastSubmittedAt();
+        if (hot == null || archived == null) {
+            LocalDateTime at = hot != null ? hot.toLocalDateTime() : archived;
+            return at != null ? at.toLocalDate() : null;
+        }
+        LocalDateTime at = hot.toLocalDateTime();
+        return (min == archived.isBefore(at) ? archived : at).toLocalDate();
+    }
+
+    // One export row, refilled for every result row
+    private static final class Row {
+        final UUID[] uuids = new UUID[COLUMNS.length];
+        final int[] ints = new int[COLUMNS.length];
+        final String[] strings = new String[COLUMNS.length];
+        final LocalDateTime[] times = new LocalDateTime[COLUMNS.length];
+
+        void read(ResultSet rs, Map<UUID, String[]> users) throws SQLException {
+            uuids[0] = rs.getObject(1, UUID.class);
+            uuids[1] = rs.getObject(2, UUID.class);
+            String[] user = users.getOrDefault(uuids[1], NO_USER);
+            strings[2] = user[0];
+            strings[3] = user[1];
+            strings[4] = user[2];
+            ints[5] = rs.getInt(3);
+            ints[6] = rs.getInt(4);
+            ints[7] = rs.getInt(5);
+            strings[8] = rs.getString(6);
+            times[9] = rs.getObject(7, LocalDateTime.class);
+        }
+
+        void read(UUID userId, SubmissionArchive.ArchivedSubmission archived, Map<UUID, String[]> users) {
+            uuids[0] = archived.id();
+            uuids[1] = userId;
+            String[] user = users.getOrDefault(userId, NO_USER);
+            strings[2] = user[0];
+            strings[3] = user[1];
+            strings[4] = user[2];
+            ints[5] = archived.score();
+            ints[6] = archived.accuracy();
+            ints[7] = archived.typingSpeed();
+            strings[8] = archived.topicMastery();
+            times[9] = archived.submittedAt();
+        }
+
+        // Column value as CSV text, null when empty
+        String text(int c) {
+            return switch (TYPES[c]) {
+                case UUID_COLUMN -> uuids[c] != null ? uuids[c].toString() : null;
+                case INT_COLUMN -> Integer.toString(ints[c]);
+                case TIMESTAMP_COLUMN -> times[c] != null ? times[c].toString() : null;
+                default -> strings[c];
+            };
+        }
+    }
+
+    private static final String[] NO_USER = new String[3];
+
+    private interface RowSink extends Closeable {
+        void write(Row row) throws IOException;
+
+        long rows();
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final Writer out;
+        private long rows;
+
+        CsvSink(OutputStream stream) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 1 << 16);
+            out.write(String.join(",", COLUMNS));
+            out.write('\n');
+        }
+
+        @Override
+        public void write(Row row) throws IOException {
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (c > 0) {
+                    out.write(',');
+                }
+                String value = row.text(c);
+                if (value != null) {
+                    writeField(value);
+                }
+            }
+            out.write('\n');
+            rows++;
+        }
+
+        // RFC 4180: quote fields holding separators, quotes or line breaks
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public long rows() {
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class ColumnarSink implements RowSink {
+        private final DataOutputStream out;
+        private final int capacity;
+        private final long[][] longs = new long[COLUMNS.length][];
+        private final int[][] ints = new int[COLUMNS.length][];
+        private final Map<String, Integer>[] dictionaries;
+        private int buffered;
+        private long rows;
+
+        @SuppressWarnings("unchecked")
+        ColumnarSink(OutputStream stream, int capacity) throws IOException {
+            this.out = new DataOutputStream(stream);
+            this.capacity = capacity;
+            this.dictionaries = new Map[COLUMNS.length];
+            for (int c = 0; c < COLUMNS.length; c++) {
+                switch (TYPES[c]) {
+                    case UUID_COLUMN -> longs[c] = new long[capacity * 2];
+                    case TIMESTAMP_COLUMN -> longs[c] = new long[capacity];
+                    case STRING_COLUMN -> {
+                        ints[c] = new int[capacity];
+                        dictionaries[c] = new HashMap<>();
+                    }
+                    default -> ints[c] = new int[capacity];
+                }
+            }
+
+            out.writeBytes("ALSX");
+            out.writeByte(1);
+            out.writeShort(COLUMNS.length);
+            for (int c = 0; c < COLUMNS.length; c++) {
+                out.writeUTF(COLUMNS[c]);
+                out.writeByte(TYPES[c]);
+            }
+        }
+
+        @Override
+        public void write(Row row) throws IOException {
+            int r = buffered;
+            for (int c = 0; c < COLUMNS.length; c++) {
+                switch (TYPES[c]) {
+                    case UUID_COLUMN -> {
+                        UUID id = row.uuids[c];
+                        longs[c][2 * r] = id != null ? id.getMostSignificantBits() : 0;
+                        longs[c][2 * r + 1] = id != null ? id.getLeastSignificantBits() : 0;
+                    }
+                    case INT_COLUMN -> ints[c][r] = row.ints[c];
+                    case TIMESTAMP_COLUMN -> {
+                        LocalDateTime at = row.times[c];
+                        longs[c][r] = at != null ? at.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+                    }
+                    default -> {
+                        String value = row.strings[c];
+                        Map<String, Integer> dictionary = dictionaries[c];
+                        ints[c][r] = value == null ? -1 : dictionary.computeIfAbsent(value, k -> dictionary.size());
+                    }
+                }
+            }
+            rows++;
+            if (++buffered == capacity) {
+                flushBlock();
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (buffered == 0) {
+                return;
+            }
+            out.writeInt(buffered);
+            for (int c = 0; c < COLUMNS.length; c++) {
+                switch (TYPES[c]) {
+                    case UUID_COLUMN -> {
+                        for (int i = 0; i < buffered * 2; i++) {
+                            out.writeLong(longs[c][i]);
+                        }
+                    }
+                    case TIMESTAMP_COLUMN -> {
+                        for (int i = 0; i < buffered; i++) {
+                            out.writeLong(longs[c][i]);
+                        }
+                    }
+                    case STRING_COLUMN -> {
+                        // Dictionary in insertion order, so the index of an entry is its position
+                        String[] entries = new String[dictionaries[c].size()];
+                        dictionaries[c].forEach((value, index) -> entries[index] = value);
+                        out.writeInt(entries.length);
+                        for (String entry : entries) {
+                            out.writeUTF(entry);
+                        }
+                        for (int i = 0; i < buffered; i++) {
+                            out.writeInt(ints[c][i]);
+                        }
+                        dictionaries[c].clear();
+                    }
+                    default -> {
+                        for (int i = 0; i < buffered; i++) {
+                            out.writeInt(ints[c][i]);
+                        }
+                    }
+                }
+            }
+            buffered = 0;
+        }
+
+        @Override
+        public long rows() {
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushBlock();
+            out.writeInt(0);
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.repository.QuizSubmissionRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Class-sharded copy of quiz submissions for the class and department
+ * analytics, enabled with {@code app.shards.enabled=true}.
+ *
+ * Each class lives on one of {@code app.shards.count} H2 databases
+ * ({@code app.shards.url-pattern} with the shard index), picked by a hash of
+ * the class id, with its own small pool; rows carry the submitter's class so
+ * a class query reads one table on one shard. Department queries run on all
+ * shards in parallel and merge partial aggregates (sums and counts, never
+ * averages of averages).
+ *
+ * The primary database stays the system of record: users, logins and the
+ * per-student engines are looked up by user or email, not by class, and
+ * submissions keep their foreign key there. Submissions reach their shard
+ * after the primary commit; moving a user to a class on another shard
+ * copies their rows over before deleting them from the old one, so a
+ * department query during the move may count them twice. Shards are
+ * rebuilt from the primary at startup whenever their row counts or shard
+ * count disagree with it.
+ *
+ * A shard write that fails after the primary commit is logged rather than
+ * thrown at a caller whose transaction has already committed; the shards
+ * are then stale, analytics read the primary, and the next repair rebuilds
+ * them. Submissions are still written to the primary first, so the shards
+ * spread the analytics reads, not the submission writes.
+ */
+@Service
+@ConditionalOnProperty(name = "app.shards.enabled", havingValue = "true")
+public class SubmissionShards {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int IN_CHUNK = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO shard_submissions (id, user_id, class_id, score, "
+            + "submitted_at) VALUES (?, ?, ?, ?, ?)";
+    // A post-commit write held up by a rebuild may find its row already reloaded from the primary
+    private static final String MERGE_SQL = "MERGE INTO shard_submissions (id, user_id, class_id, score, "
+            + "submitted_at) KEY (id) VALUES (?, ?, ?, ?, ?)";
+
+    // Row writes share the lock's read side; a rebuild takes the write side
+    private record Shard(int index, HikariDataSource dataSource, JdbcTemplate jdbc, TransactionTemplate tx,
+            ReentrantReadWriteLock lock) {
+    }
+
+    public record ClassScore(String classId, Double averageScore, long submissions)
+            implements QuizSubmissionRepository.ClassScore {
+        @Override
+        public String getClassId() {
+            return classId;
+        }
+
+        @Override
+        public Double getAverageScore() {
+            return averageScore;
+        }
+
+        @Override
+        public long getSubmissions() {
+            return submissions;
+        }
+    }
+
+    public record LatestScore(UUID userId, int score, LocalDateTime submittedAt)
+            implements QuizSubmissionRepository.LatestScore {
+        @Override
+        public UUID getUserId() {
+            return userId;
+        }
+
+        @Override
+        public int getScore() {
+            return score;
+        }
+    }
+
+    public record ScoreTotals(Long scoreSum, Long submissions) implements QuizSubmissionRepository.ScoreTotals {
+        @Override
+        public Long getScoreSum() {
+            return scoreSum;
+        }
+
+        @Override
+        public Long getSubmissions() {
+            return submissions;
+        }
+    }
+
+    public record UserScoreSummary(UUID userId, Double averageScore, LocalDateTime lastSubmittedAt,
+            Long submissionCount) implements QuizSubmissionRepository.UserScoreSummary {
+        @Override
+        public UUID getUserId() {
+            return userId;
+        }
+
+        @Override
+        public Double getAverageScore() {
+            return averageScore;
+        }
+
+        @Override
+        public LocalDateTime getLastSubmittedAt() {
+            return lastSubmittedAt;
+        }
+
+        @Override
+        public Long getSubmissionCount() {
+            return submissionCount;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final ExecutorService scatter;
+
+    // Failed post-commit writes, and how many of them the last rebuild covered
+    private final AtomicLong failedWrites = new AtomicLong();
+    private volatile long repairedThrough;
+
+    public SubmissionShards(@Value("${app.shards.count:4}") int count,
+            @Value("${app.shards.url-pattern}") String urlPattern,
+            @Value("${app.shards.maximum-pool-size:4}") int maxPoolSize,
+            @Value("${spring.datasource.username:sa}") String username,
+            @Value("${spring.datasource.password:}") String password) {
+        if (count < 1) {
+            throw new IllegalArgumentException("app.shards.count must be at least 1");
+        }
+        for (int i = 0; i < count; i++) {
+            HikariDataSource ds = new HikariDataSource();
+            ds.setPoolName("shard-" + i);
+            ds.setJdbcUrl(String.format(urlPattern, i));
+            ds.setUsername(username);
+            ds.setPassword(password);
+            ds.setMaximumPoolSize(maxPoolSize);
+            JdbcTemplate jdbc = new JdbcTemplate(ds);
+            jdbc.execute("CREATE TABLE IF NOT EXISTS shard_submissions (id UUID PRIMARY KEY, user_id UUID NOT NULL, "
+                    + "class_id VARCHAR(255), score INT NOT NULL, submitted_at TIMESTAMP)");
+            jdbc.execute("CREATE INDEX IF NOT EXISTS idx_shard_submissions_class_user "
+                    + "ON shard_submissions (class_id, user_id)");
+            jdbc.execute("CREATE INDEX IF NOT EXISTS idx_shard_submissions_user ON shard_submissions (user_id)");
+            jdbc.execute("CREATE TABLE IF NOT EXISTS shard_meta (shard_index INT NOT NULL, shard_count INT NOT NULL)");
+            shards.add(new Shard(i, ds, jdbc, new TransactionTemplate(new DataSourceTransactionManager(ds)),
+                    new ReentrantReadWriteLock()));
+        }
+        scatter = Executors.newFixedThreadPool(count, r -> {
+            Thread t = new Thread(r, "shard-scatter");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Shard index of a class; users without a class live on shard 0. */
+    public int shardOf(String classId) {
+        return classId == null ? 0 : Math.floorMod(classId.hashCode(), shards.size());
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    // After the CommandLineRunners, so rows written by the seeder are included
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        Long expected = primary.queryForObject("SELECT COUNT(*) FROM quiz_submissions", Long.class);
+        long actual = 0;
+        boolean layoutChanged = false;
+        for (Shard shard : shards) {
+            actual += shard.jdbc().queryForObject("SELECT COUNT(*) FROM shard_submissions", Long.class);
+            List<Integer> count = shard.jdbc().queryForList("SELECT shard_count FROM shard_meta", Integer.class);
+            layoutChanged |= count.size() != 1 || count.get(0) != shards.size();
+        }
+        if (!layoutChanged && expected != null && expected == actual) {
+            System.out.println("Submission shards in sync: " + actual + " rows on " + shards.size() + " shards.");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Reloads every shard from the primary's quiz_submissions. Post-commit
+     * writes wait until it is done, so none land between the delete and the
+     * reload.
+     */
+    public void rebuild() {
+        for (Shard shard : shards) {
+            shard.lock().writeLock().lock();
+        }
+        try {
+            reload();
+        } finally {
+            for (Shard shard : shards) {
+                shard.lock().writeLock().unlock();
+            }
+        }
+    }
+
+    private void reload() {
+        long started = System.currentTimeMillis();
+        for (Shard shard : shards) {
+            shard.tx().executeWithoutResult(status -> {
+                shard.jdbc().update("DELETE FROM shard_submissions");
+                shard.jdbc().update("DELETE FROM shard_meta");
+                shard.jdbc().update("INSERT INTO shard_meta (shard_index, shard_count) VALUES (?, ?)",
+                        shard.index(), shards.size());
+            });
+        }
+        List<List<Object[]>> pending = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            pending.add(new ArrayList<>());
+        }
+        long[] rows = new long[1];
+        primary.query("SELECT s.id, s.user_id, u.class_id, s.score, s.submitted_at FROM quiz_submissions s "
+                + "JOIN users u ON u.id = s.user_id", rs -> {
+                    String classId = rs.getString(3);
+                    List<Object[]> batch = pending.get(shardOf(classId));
+                    batch.add(new Object[] { rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), classId,
+                            rs.getInt(4), rs.getTimestamp(5) });
+                    if (batch.size() >= BATCH_SIZE) {
+                        shards.get(shardOf(classId)).jdbc().batchUpdate(INSERT_SQL, batch);
+                        batch.clear();
+                    }
+                    rows[0]++;
+                });
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).jdbc().batchUpdate(INSERT_SQL, pending.get(i));
+        }
+        System.out.println("Submission shards rebuilt: " + rows[0] + " rows on " + shards.size() + " shards in "
+                + (System.currentTimeMillis() - started) + " ms.");
+    }
+
+    /** True while a failed write has not been repaired; callers should read the primary instead. */
+    public boolean isStale() {
+        return failedWrites.get() != repairedThrough;
+    }
+
+    @Scheduled(fixedDelayString = "${app.shards.repair-interval-ms:60000}")
+    public void repair() {
+        long failed = failedWrites.get();
+        if (failed == repairedThrough) {
+            return;
+        }
+        try {
+            rebuild();
+            repairedThrough = failed;
+        } catch (RuntimeException e) {
+            System.err.println("Submission shard repair failed, retrying later: " + e.getMessage());
+        }
+    }
+
+    /** Copies a saved submission to its class's shard once the surrounding transaction commits. */
+    public void recordSubmission(UUID submissionId, UUID userId, String classId, int score,
+            LocalDateTime submittedAt) {
+        Shard shard = shards.get(shardOf(classId));
+        afterCommit(() -> writing(List.of(shard), () -> shard.jdbc().update(MERGE_SQL, submissionId, userId,
+                classId, score, submittedAt != null ? Timestamp.valueOf(submittedAt) : null)));
+    }
+
+    /**
+     * Moves users' rows to {@code newClassId} after commit: an UPDATE where
+     * the old and new class share a shard, otherwise copy to the new shard
+     * and delete from the old one.
+     *
+     * @param previousClasses each user's class before the move (null for none)
+     */
+    public void moveUsers(Map<UUID, String> previousClasses, String newClassId) {
+        if (previousClasses.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<UUID>> bySource = new HashMap<>();
+        previousClasses.forEach((userId, classId) -> bySource.computeIfAbsent(shardOf(classId),
+                k -> new ArrayList<>()).add(userId));
+        afterCommit(() -> {
+            Shard target = shards.get(shardOf(newClassId));
+            bySource.forEach((index, userIds) -> {
+                Shard source = shards.get(index);
+                writing(List.of(source, target), () -> {
+                    for (int from = 0; from < userIds.size(); from += IN_CHUNK) {
+                        Object[] ids = userIds.subList(from, Math.min(from + IN_CHUNK, userIds.size())).toArray();
+                        move(source, target, ids, newClassId);
+                    }
+                });
+            });
+        });
+    }
+
+    private void move(Shard source, Shard target, Object[] ids, String newClassId) {
+        String in = " WHERE user_id IN (" + String.join(", ", Collections.nCopies(ids.length, "?")) + ")";
+        if (source == target) {
+            Object[] args = new Object[ids.length + 1];
+            args[0] = newClassId;
+            System.arraycopy(ids, 0, args, 1, ids.length);
+            source.jdbc().update("UPDATE shard_submissions SET class_id = ?" + in, args);
+            return;
+        }
+        List<Object[]> rows = source.jdbc().query("SELECT id, user_id, score, submitted_at FROM shard_submissions"
+                + in, (rs, i) -> new Object[] { rs.getObject(1, UUID.class), rs.getObject(2, UUID.class),
+                        newClassId, rs.getInt(3), rs.getTimestamp(4) }, ids);
+        target.tx().executeWithoutResult(status -> target.jdbc().batchUpdate(INSERT_SQL, rows));
+        source.jdbc().update("DELETE FROM shard_submissions" + in, ids);
+    }
+
+    /** Drops archived submissions from whichever shards hold them. */
+    public void deleteSubmissions(List<UUID> submissionIds) {
+        writing(shards, () -> {
+            for (int from = 0; from < submissionIds.size(); from += IN_CHUNK) {
+                Object[] ids = submissionIds.subList(from, Math.min(from + IN_CHUNK, submissionIds.size()))
+                        .toArray();
+                String sql = "DELETE FROM shard_submissions WHERE id IN ("
+                        + String.join(", ", Collections.nCopies(ids.length, "?")) + ")";
+                scatter(jdbc -> jdbc.update(sql, ids));
+            }
+        });
+    }
+
+    /** Per-user average and last submission for one class, from that class's shard only. */
+    public List<UserScoreSummary> summarizeClass(String classId) {
+        return shards.get(shardOf(classId)).jdbc().query("SELECT user_id, AVG(CAST(score AS DOUBLE)), "
+                + "MAX(submitted_at), COUNT(*) FROM shard_submissions WHERE class_id = ? GROUP BY user_id",
+                (rs, i) -> new UserScoreSummary(rs.getObject(1, UUID.class), rs.getDouble(2),
+                        rs.getObject(3, LocalDateTime.class), rs.getLong(4)), classId);
+    }
+
+    /** Score sum and count over every submission, merged from the per-shard partials. */
+    public ScoreTotals scoreTotals() {
+        long sum = 0;
+        long count = 0;
+        for (long[] partial : scatter(jdbc -> jdbc.queryForObject("SELECT COALESCE(SUM(score), 0), COUNT(*) "
+                + "FROM shard_submissions", (rs, i) -> new long[] { rs.getLong(1), rs.getLong(2) }))) {
+            sum += partial[0];
+            count += partial[1];
+        }
+        return new ScoreTotals(sum, count);
+    }
+
+    /** Average score per class; a class split by an in-flight move is merged from both shards. */
+    public List<ClassScore> averageScoreByClass() {
+        Map<String, long[]> totals = new HashMap<>();
+        for (List<Object[]> partial : scatter(jdbc -> jdbc.query("SELECT class_id, SUM(score), COUNT(*) "
+                + "FROM shard_submissions WHERE class_id IS NOT NULL GROUP BY class_id",
+                (rs, i) -> new Object[] { rs.getString(1), rs.getLong(2), rs.getLong(3) }))) {
+            for (Object[] row : partial) {
+                long[] total = totals.computeIfAbsent((String) row[0], k -> new long[2]);
+                total[0] += (Long) row[1];
+                total[1] += (Long) row[2];
+            }
+        }
+        List<ClassScore> result = new ArrayList<>(totals.size());
+        totals.forEach((classId, t) -> result.add(new ClassScore(classId, (double) t[0] / t[1], t[1])));
+        return result;
+    }
+
+    /** Score of each user's most recent submission, across all shards. */
+    public List<LatestScore> latestScores() {
+        Map<UUID, LatestScore> latest = new HashMap<>();
+        for (List<LatestScore> partial : scatter(jdbc -> jdbc.query("SELECT s.user_id, s.score, s.submitted_at "
+                + "FROM shard_submissions s WHERE s.submitted_at = (SELECT MAX(s2.submitted_at) "
+                + "FROM shard_submissions s2 WHERE s2.user_id = s.user_id)",
+                (rs, i) -> new LatestScore(rs.getObject(1, UUID.class), rs.getInt(2),
+                        rs.getObject(3, LocalDateTime.class))))) {
+            for (LatestScore score : partial) {
+                latest.merge(score.userId(), score,
+                        (a, b) -> a.submittedAt() == null || (b.submittedAt() != null
+                                && b.submittedAt().isAfter(a.submittedAt())) ? b : a);
+            }
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    /** Rows per shard, for the datasource metrics. */
+    public List<Map<String, Object>> getStats() {
+        List<Long> rows = scatter(jdbc -> jdbc.queryForObject("SELECT COUNT(*) FROM shard_submissions", Long.class));
+        List<Map<String, Object>> stats = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("shard", shard.index());
+            entry.put("url", shard.dataSource().getJdbcUrl());
+            entry.put("rows", rows.get(shard.index()));
+            entry.put("active_connections", shard.dataSource().getHikariPoolMXBean() != null
+                    ? shard.dataSource().getHikariPoolMXBean().getActiveConnections() : 0);
+            stats.add(entry);
+        }
+        return stats;
+    }
+
+    // Runs the query on every shard at once; results are in shard order
+    private <T> List<T> scatter(Function<JdbcTemplate, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard.jdbc()), scatter));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return results;
+    }
+
+    // Runs a row write with the given shards' read locks, taken in shard order like the rebuild's
+    private static void writing(List<Shard> touched, Runnable action) {
+        List<Shard> ordered = touched.stream().distinct().sorted(Comparator.comparingInt(Shard::index)).toList();
+        for (Shard shard : ordered) {
+            shard.lock().readLock().lock();
+        }
+        try {
+            action.run();
+        } finally {
+            for (Shard shard : ordered) {
+                shard.lock().readLock().unlock();
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                failedWrites.incrementAndGet();
+                System.err.println("Submission shard write failed, shards marked for repair: " + e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scatter.shutdownNow();
+        for (Shard shard : shards) {
+            shard.dataSource().close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.adaptivelearning.service;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Hierarchical timing wheel over caller-assigned int handles.
+ *
+ * Four levels of 64 slots each, so one wheel covers 64^4 ticks (about 31
+ * years at one tick per minute). Scheduling and cancelling are O(1): each
+ * slot is an intrusive doubly linked list kept in int arrays, so millions of
+ * pending handles cost a few ints each and no per-item objects. Advancing by
+ * one tick touches one level-0 slot, and every 64 ticks a coarser slot is
+ * cascaded down, the same scheme as the classic Linux kernel timer wheel.
+ *
+ * Not thread-safe.
+ */
+public class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (BITS * LEVELS)) - 1;
+    private static final int NONE = -1;
+
+    private final int[] heads = new int[LEVELS * SLOTS];
+    private int[] next = new int[0];
+    private int[] prev = new int[0];
+    private int[] list = new int[0];
+    private long[] deadline = new long[0];
+    private long now;
+    private int size;
+
+    public TimingWheel(long startTick) {
+        this.now = startTick;
+        Arrays.fill(heads, NONE);
+    }
+
+    public long now() {
+        return now;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isScheduled(int handle) {
+        return handle < list.length && list[handle] != NONE;
+    }
+
+    public long deadlineOf(int handle) {
+        return deadline[handle];
+    }
+
+    /**
+     * Schedules (or reschedules) a handle. Deadlines at or before the current
+     * tick are handed straight to {@code expired}.
+     */
+    public void schedule(int handle, long tick, IntConsumer expired) {
+        ensureCapacity(handle + 1);
+        cancel(handle);
+        deadline[handle] = tick;
+        if (tick <= now) {
+            expired.accept(handle);
+            return;
+        }
+        insert(handle);
+        size++;
+    }
+
+    public void cancel(int handle) {
+        if (handle >= list.length || list[handle] == NONE) {
+            return;
+        }
+        unlink(handle);
+        size--;
+    }
+
+    /** Moves time forward, passing every handle whose deadline is reached to {@code expired}. */
+    public void advance(long toTick, IntConsumer expired) {
+        while (now < toTick) {
+            now++;
+            // Cascade coarser levels whose block boundary we just crossed
+            for (int level = 1; level < LEVELS; level++) {
+                if ((now & ((1L << (BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level * SLOTS + (int) ((now >>> (BITS * level)) & MASK), expired);
+            }
+            int slot = (int) (now & MASK);
+            for (int h = heads[slot]; h != NONE;) {
+                int following = next[h];
+                unlink(h);
+                size--;
+                expired.accept(h);
+                h = following;
+            }
+        }
+    }
+
+    private void cascade(int slot, IntConsumer expired) {
+        int h = heads[slot];
+        heads[slot] = NONE;
+        while (h != NONE) {
+            int following = next[h];
+            list[h] = NONE;
+            if (deadline[h] <= now) {
+                size--;
+                expired.accept(h);
+            } else {
+                insert(h);
+            }
+            h = following;
+        }
+    }
+
+    private void insert(int handle) {
+        long delta = Math.min(deadline[handle] - now, MAX_DELTA);
+        long due = now + delta;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = level * SLOTS + (int) ((due >>> (BITS * level)) & MASK);
+
+        list[handle] = slot;
+        prev[handle] = NONE;
+        next[handle] = heads[slot];
+        if (heads[slot] != NONE) {
+            prev[heads[slot]] = handle;
+        }
+        heads[slot] = handle;
+    }
+
+    private void unlink(int handle) {
+        int slot = list[handle];
+        if (prev[handle] != NONE) {
+            next[prev[handle]] = next[handle];
+        } else {
+            heads[slot] = next[handle];
+        }
+        if (next[handle] != NONE) {
+            prev[next[handle]] = prev[handle];
+        }
+        list[handle] = NONE;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= list.length) {
+            return;
+        }
+        int size = Math.max(capacity, Math.max(1024, list.length * 2));
+        int old = list.length;
+        next = Arrays.copyOf(next, size);
+        prev = Arrays.copyOf(prev, size);
+        deadline = Arrays.copyOf(deadline, size);
+        list = Arrays.copyOf(list, size);
+        Arrays.fill(list, old, size, NONE);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.adaptivelearning.bench;
+
+import com.example.adaptivelearning.service.AbilityModel;
+import com.example.adaptivelearning.service.RecommendationService;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Measures AbilityModel update throughput over millions of simulated answers
+ * and checks the estimated difficulties track the simulated ones.
+ *
+ * mvn -Pbenchmark test-compile exec:java
+ * -Dexec.mainClass=com.example.adaptivelearning.bench.AbilityModelBenchmark
+ * -Dbench.answers=5000000 -Dbench.students=200000 -Dbench.questions=20000
+ */
+public class AbilityModelBenchmark {
+
+    public static void main(String[] args) {
+        int answers = Integer.getInteger("bench.answers", 5_000_000);
+        int studentCount = Integer.getInteger("bench.students", 200_000);
+        int questionCount = Integer.getInteger("bench.questions", 20_000);
+        Random random = new Random(7);
+
+        int topics = new RecommendationService().getTopics().size();
+        AbilityModel model = new AbilityModel(topics, 0.4, 0.05);
+
+        // Ground truth the simulated students answer against
+        double[] trueDifficulty = new double[questionCount];
+        int[] questionSlots = new int[questionCount];
+        for (int q = 0; q < questionCount; q++) {
+            trueDifficulty[q] = random.nextGaussian();
+            int[] qTopics = random.nextInt(4) == 0
+                    ? new int[] { random.nextInt(topics), random.nextInt(topics) }
+                    : new int[] { random.nextInt(topics) };
+            questionSlots[q] = model.questionSlot("q-" + q, qTopics);
+        }
+        double[] trueAbility = new double[studentCount];
+        int[] studentSlots = new int[studentCount];
+        for (int s = 0; s < studentCount; s++) {
+            trueAbility[s] = random.nextGaussian();
+            studentSlots[s] = model.studentSlot(new UUID(s, s));
+        }
+
+        // Pre-draw the answer stream so the timed loop only measures updates
+        int[] streamStudent = new int[answers];
+        int[] streamQuestion = new int[answers];
+        boolean[] streamCorrect = new boolean[answers];
+        for (int i = 0; i < answers; i++) {
+            int s = random.nextInt(studentCount);
+            int q = random.nextInt(questionCount);
+            double p = 1.0 / (1.0 + Math.exp(trueDifficulty[q] - trueAbility[s]));
+            streamStudent[i] = studentSlots[s];
+            streamQuestion[i] = questionSlots[q];
+            streamCorrect[i] = random.nextDouble() < p;
+        }
+
+        run(model, streamStudent, streamQuestion, streamCorrect, Math.min(answers, 500_000), "warmup");
+        run(model, streamStudent, streamQuestion, streamCorrect, answers, "measured");
+
+        System.out.printf("difficulty correlation with ground truth: %.3f%n",
+                correlation(trueDifficulty, questionSlots, model));
+        System.out.printf("state: %d questions, %d students, %d topics%n",
+                model.questionCount(), model.studentCount(), topics);
+    }
+
+    private static void run(AbilityModel model, int[] students, int[] questions, boolean[] correct, int n,
+            String label) {
+        double sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            sink += model.update(students[i], questions[i], correct[i]);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-9s %,d updates in %.2fs: %,.0f updates/s, %.0f ns/update (checksum %.1f)%n",
+                label, n, elapsed / 1e9, n / (elapsed / 1e9), (double) elapsed / n, sink);
+    }
+
+    private static double correlation(double[] truth, int[] slots, AbilityModel model) {
+        int n = truth.length;
+        double mx = 0, my = 0;
+        for (int i = 0; i < n; i++) {
+            mx += truth[i];
+            my += model.difficulty(slots[i]);
+        }
+        mx /= n;
+        my /= n;
+        double sxy = 0, sxx = 0, syy = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = truth[i] - mx;
+            double dy = model.difficulty(slots[i]) - my;
+            sxy += dx * dy;
+            sxx += dx * dx;
+            syy += dy * dy;
+        }
+        return sxy / Math.sqrt(sxx * syy);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.adaptivelearning.bench;
+
+import com.example.adaptivelearning.service.FramePipeline;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Upload size and latency of one multimodal turn's frames through
+ * FramePipeline, against forwarding them as sent. The turn is a webcam
+ * sequence where the candidate moves every bench.still frames, so most
+ * frames are near-duplicates of the one before; each pool size is timed
+ * over the same turn.
+ *
+ * mvn -Pbenchmark test-compile exec:java
+ * -Dexec.mainClass=com.example.adaptivelearning.bench.FrameBenchmark
+ * -Dbench.frames=24 -Dbench.still=4 -Dbench.width=1280 -Dbench.height=720
+ * -Dbench.max-dimension=512 -Dbench.threads=1,2,4
+ */
+public class FrameBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int frames = Integer.getInteger("bench.frames", 24);
+        int still = Integer.getInteger("bench.still", 4);
+        int width = Integer.getInteger("bench.width", 1280);
+        int height = Integer.getInteger("bench.height", 720);
+        int maxDimension = Integer.getInteger("bench.max-dimension", 512);
+        int[] threads = Arrays.stream(System.getProperty("bench.threads", "1,2,4").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        System.setProperty("java.awt.headless", "true");
+
+        Random random = new Random(17);
+        List<String> turn = new ArrayList<>(frames);
+        long sent = 0;
+        for (int i = 0; i < frames; i++) {
+            int x = width / 4 + (i / still) * width / 12;
+            String frame = jpeg(scene(width, height, x, random));
+            turn.add(frame);
+            sent += frame.length();
+        }
+        System.out.printf("%d frames %dx%d, a new pose every %d, %d base64 KB as sent%n", frames, width, height,
+                still, sent / 1024);
+        System.out.printf("  %-8s %10s %10s %12s %10s %10s%n", "threads", "frames", "dupes", "KB out", "saved",
+                "ms/turn");
+        for (int n : threads) {
+            FramePipeline pipeline = pipeline(n, maxDimension);
+            // Enough turns for the JIT; the median of the measured turns is reported
+            for (int i = 0; i < 5; i++) {
+                pipeline.process(turn);
+            }
+            long[] nanos = new long[9];
+            FramePipeline.Result result = null;
+            for (int i = 0; i < nanos.length; i++) {
+                long start = System.nanoTime();
+                result = pipeline.process(turn);
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("  %-8d %10d %10d %12d %9.1f%% %10.1f%n", n, result.frames().size(),
+                    result.duplicates(), result.bytesOut() / 1024, 100.0 * result.bytesSaved() / result.bytesIn(),
+                    nanos[nanos.length / 2] / 1_000_000.0);
+            pipeline.shutdown();
+        }
+    }
+
+    private static FramePipeline pipeline(int threads, int maxDimension) {
+        FramePipeline pipeline = new FramePipeline(threads, 64);
+        ReflectionTestUtils.setField(pipeline, "enabled", true);
+        ReflectionTestUtils.setField(pipeline, "maxDimension", maxDimension);
+        ReflectionTestUtils.setField(pipeline, "quality", 0.7f);
+        ReflectionTestUtils.setField(pipeline, "duplicateDistance", 5);
+        ReflectionTestUtils.setField(pipeline, "maxPixels", 16_000_000L);
+        return pipeline;
+    }
+
+    // Background gradient, a figure at x and per-frame sensor noise
+    private static BufferedImage scene(int width, int height, int x, Random random) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        for (int y = 0; y < height; y += 4) {
+            int shade = 60 + 120 * y / height;
+            g.setColor(new Color(shade, shade, shade + 20));
+            g.fillRect(0, y, width, 4);
+        }
+        g.setColor(new Color(200, 150, 120));
+        g.fillOval(x, height / 5, width / 6, height / 2);
+        g.setColor(new Color(40, 60, 160));
+        g.fillRect(x - width / 24, height * 3 / 5, width / 4, height * 2 / 5);
+        g.dispose();
+        for (int i = 0; i < width * height / 10; i++) {
+            int px = random.nextInt(width);
+            int py = random.nextInt(height);
+            int delta = random.nextInt(13) - 6;
+            int rgb = image.getRGB(px, py);
+            int r = Math.max(0, Math.min(255, ((rgb >> 16) & 0xff) + delta));
+            int gr = Math.max(0, Math.min(255, ((rgb >> 8) & 0xff) + delta));
+            int b = Math.max(0, Math.min(255, (rgb & 0xff) + delta));
+            image.setRGB(px, py, (r << 16) | (gr << 8) | b);
+        }
+        return image;
+    }
+
+    // What the browser sends: canvas.toDataURL('image/jpeg', ...)
+    private static String jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", bytes);
+        return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+}
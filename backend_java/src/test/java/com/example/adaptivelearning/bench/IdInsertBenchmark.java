@@ -0,0 +1,105 @@
+package com.example.adaptivelearning.bench;
+
+import com.example.adaptivelearning.model.TimeOrderedIdGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Insert throughput into a file-backed H2 table shaped like quiz_submissions
+ * (UUID primary key, user_id index) with random v4 ids and with
+ * TimeOrderedIdGenerator ids. Prints rows/s for each slice of rows as the
+ * table grows, since random keys slow down once the key index no longer fits
+ * in the page cache, plus the final database size.
+ *
+ * mvn -Pbenchmark test-compile exec:java
+ * -Dexec.mainClass=com.example.adaptivelearning.bench.IdInsertBenchmark
+ * -Dbench.rows=20000000 -Dbench.batch=1000 -Dbench.cache-kb=65536 -Dbench.ids=v4,v7
+ */
+public class IdInsertBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long rows = Long.getLong("bench.rows", 20_000_000L);
+        int batch = Integer.getInteger("bench.batch", 1000);
+        int cacheKb = Integer.getInteger("bench.cache-kb", 65536);
+        String ids = System.getProperty("bench.ids", "v4,v7");
+
+        for (String kind : ids.split(",")) {
+            Supplier<UUID> generator = switch (kind.trim()) {
+                case "v4" -> UUID::randomUUID;
+                case "v7" -> TimeOrderedIdGenerator::next;
+                default -> throw new IllegalArgumentException("bench.ids takes v4 and/or v7, not " + kind);
+            };
+            run(kind.trim(), generator, rows, batch, cacheKb);
+        }
+    }
+
+    private static void run(String kind, Supplier<UUID> ids, long rows, int batch, int cacheKb)
+            throws SQLException, IOException {
+        Path dir = Files.createTempDirectory("id-insert-" + kind);
+        String url = "jdbc:h2:file:" + dir.resolve("bench") + ";CACHE_SIZE=" + cacheKb;
+        Random random = new Random(3);
+        UUID[] users = new UUID[10_000];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = UUID.randomUUID();
+        }
+
+        System.out.println(kind + ": " + rows + " rows, batches of " + batch + ", " + cacheKb + " KB page cache");
+        long slice = Math.max(batch, rows / 10);
+        long start = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE quiz_submissions (id UUID PRIMARY KEY, user_id UUID NOT NULL, "
+                        + "score INT, accuracy INT, typing_speed INT, submitted_at TIMESTAMP)");
+                statement.execute("CREATE INDEX idx_bench_user ON quiz_submissions (user_id)");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO quiz_submissions "
+                    + "(id, user_id, score, accuracy, typing_speed, submitted_at) VALUES (?, ?, ?, ?, ?, ?)")) {
+                long sliceStart = System.nanoTime();
+                for (long row = 1; row <= rows; row++) {
+                    insert.setObject(1, ids.get());
+                    insert.setObject(2, users[random.nextInt(users.length)]);
+                    insert.setInt(3, random.nextInt(11));
+                    insert.setInt(4, random.nextInt(101));
+                    insert.setInt(5, 20 + random.nextInt(80));
+                    insert.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+                    insert.addBatch();
+                    if (row % batch == 0 || row == rows) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                    if (row % slice == 0 || row == rows) {
+                        long now = System.nanoTime();
+                        long inSlice = row % slice == 0 ? slice : row % slice;
+                        System.out.printf("  %,14d rows  %,10.0f rows/s%n", row, inSlice * 1e9 / (now - sliceStart));
+                        sliceStart = now;
+                    }
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long bytes;
+        try (Stream<Path> files = Files.list(dir)) {
+            bytes = files.mapToLong(p -> p.toFile().length()).sum();
+        }
+        System.out.printf("  total %.1f s, %,.0f rows/s, %,d MB on disk%n%n", seconds, rows / seconds,
+                bytes >> 20);
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.adaptivelearning.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bytes on the wire and CPU per response for the department and class
+ * analytics payloads in JSON, Smile and CBOR, each plain and gzipped the way
+ * CompressionFilter does it. Payloads have the controller's field names and
+ * value shapes.
+ *
+ * mvn -Pbenchmark test-compile exec:java
+ * -Dexec.mainClass=com.example.adaptivelearning.bench.PayloadBenchmark
+ * -Dbench.students=5000 -Dbench.professors=60 -Dbench.class-size=120
+ */
+public class PayloadBenchmark {
+
+    private static final String[] STATUSES = { "On Track", "Needs Attention", "At Risk" };
+
+    public static void main(String[] args) throws IOException {
+        int students = Integer.getInteger("bench.students", 5000);
+        int professors = Integer.getInteger("bench.professors", 60);
+        int classSize = Integer.getInteger("bench.class-size", 120);
+        Random random = new Random(11);
+
+        Map<String, ObjectMapper> formats = new java.util.LinkedHashMap<>();
+        formats.put("json", new ObjectMapper());
+        formats.put("smile", new ObjectMapper(new SmileFactory()));
+        formats.put("cbor", new ObjectMapper(new CBORFactory()));
+
+        run("department (" + students + " students, " + professors + " professors)",
+                department(students, professors, random), formats);
+        run("class (" + classSize + " students)", classAnalytics(classSize, random), formats);
+    }
+
+    private static void run(String label, Map<String, Object> payload, Map<String, ObjectMapper> formats)
+            throws IOException {
+        System.out.println(label);
+        System.out.printf("  %-6s %12s %12s %14s %14s%n", "format", "bytes", "gzip bytes", "serialize us",
+                "+ gzip us");
+        for (Map.Entry<String, ObjectMapper> format : formats.entrySet()) {
+            ObjectMapper mapper = format.getValue();
+            byte[] body = mapper.writeValueAsBytes(payload);
+            byte[] zipped = gzip(body);
+
+            // Enough rounds for the JIT; the median of the measured rounds is reported
+            int iterations = Math.max(20, 20_000_000 / Math.max(1, body.length));
+            long[] serialize = new long[15];
+            long[] compress = new long[15];
+            long sink = 0;
+            for (int round = -5; round < serialize.length; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    sink += mapper.writeValueAsBytes(payload).length;
+                }
+                long mid = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    sink += gzip(body).length;
+                }
+                long end = System.nanoTime();
+                if (round >= 0) {
+                    serialize[round] = (mid - start) / iterations;
+                    compress[round] = (end - mid) / iterations;
+                }
+            }
+            java.util.Arrays.sort(serialize);
+            java.util.Arrays.sort(compress);
+            System.out.printf("  %-6s %,12d %,12d %14.1f %14.1f%s%n", format.getKey(), body.length, zipped.length,
+                    serialize[serialize.length / 2] / 1000.0, compress[compress.length / 2] / 1000.0,
+                    sink == 42 ? " " : "");
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    // Same shape as GET /department/analytics
+    private static Map<String, Object> department(int students, int professors, Random random) {
+        Map<String, Object> response = new HashMap<>();
+        Map<String, Object> overview = new HashMap<>();
+        overview.put("total_professors", (long) professors);
+        overview.put("total_students", (long) students);
+        overview.put("avg_dept_score", 6);
+        response.put("overview", overview);
+
+        List<Map<String, Object>> profList = new ArrayList<>();
+        for (int p = 0; p < professors; p++) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", UUID.randomUUID());
+            m.put("name", "Professor " + p);
+            m.put("assigned_class", "CS" + (100 + p));
+            m.put("students_count", (long) (students / professors));
+            m.put("avg_class_score", random.nextInt(11));
+            m.put("status", "Active");
+            profList.add(m);
+        }
+        response.put("professors", profList);
+
+        List<Map<String, Object>> studentList = new ArrayList<>();
+        for (int s = 0; s < students; s++) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", UUID.randomUUID());
+            m.put("name", "Student " + s);
+            m.put("score", random.nextInt(11));
+            m.put("status", STATUSES[random.nextInt(STATUSES.length)]);
+            m.put("last_active", random.nextInt(10) == 0 ? "Never"
+                    : LocalDate.of(2026, 1, 1).plusDays(random.nextInt(300)).toString());
+            studentList.add(m);
+        }
+        response.put("students", studentList);
+        return response;
+    }
+
+    // Same shape as GET /analytics/class/{classId}
+    private static Map<String, Object> classAnalytics(int students, Random random) {
+        Map<String, Object> response = new HashMap<>();
+        List<Map<String, Object>> studentList = new ArrayList<>();
+        for (int s = 0; s < students; s++) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", UUID.randomUUID());
+            m.put("name", "Student " + s);
+            m.put("score", random.nextInt(101));
+            m.put("status", STATUSES[random.nextInt(STATUSES.length)]);
+            m.put("last_active", LocalDate.of(2026, 1, 1).plusDays(random.nextInt(300)).toString());
+            studentList.add(m);
+        }
+        response.put("average_score", 64);
+        response.put("total_students", students);
+        response.put("pending_reviews", 0);
+        response.put("students", studentList);
+        return response;
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.adaptivelearning.bench;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offline per-endpoint phase breakdown of a flight recording with the
+ * diagnostics.Profiling events. Needs only the JDK, not the application context:
+ *
+ * mvn -Pbenchmark test-compile exec:java
+ * -Dexec.mainClass=com.example.adaptivelearning.bench.PhaseReport
+ * -Dexec.args="phases.jfr --top=5 --endpoint='GET /api/dashboard/{userId}'"
+ *
+ * Phase times are self times: a Repository call inside an Aggregation counts
+ * for the repository only, and "request" is what the filters and dispatch
+ * spent outside any phase. Phases that ran on other threads (dashboard
+ * sections) are added as they are, so per-request phase time can exceed the
+ * wall time of a parallel endpoint. Events without a request (scheduled
+ * jobs) are not reported.
+ */
+public class PhaseReport {
+
+    private static final String PREFIX = "adaptivelearning.";
+
+    record Phase(String type, String detail, long thread, long start, long end) {
+    }
+
+    static final class Request {
+        String endpoint;
+        long wallNanos = -1;
+        final List<Phase> phases = new ArrayList<>();
+    }
+
+    static final class Totals {
+        long nanos;
+        long calls;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: PhaseReport <recording.jfr> [--top=N] [--endpoint=METHOD pattern]");
+            System.exit(2);
+        }
+        int top = 5;
+        String only = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--top=")) {
+                top = Integer.parseInt(args[i].substring(6));
+            } else if (args[i].startsWith("--endpoint=")) {
+                only = args[i].substring(11);
+            }
+        }
+
+        Map<Long, Request> requests = read(Path.of(args[0]));
+        Map<String, List<Request>> byEndpoint = new TreeMap<>();
+        for (Request request : requests.values()) {
+            if (request.wallNanos >= 0 && (only == null || only.equals(request.endpoint))) {
+                byEndpoint.computeIfAbsent(request.endpoint, k -> new ArrayList<>()).add(request);
+            }
+        }
+        if (byEndpoint.isEmpty()) {
+            System.out.println("No profiled requests in " + args[0]);
+            return;
+        }
+        for (Map.Entry<String, List<Request>> entry : byEndpoint.entrySet()) {
+            report(entry.getKey(), entry.getValue(), top);
+        }
+    }
+
+    private static Map<Long, Request> read(Path file) throws IOException {
+        Map<Long, Request> requests = new HashMap<>();
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String name = event.getEventType().getName();
+                if (!name.startsWith(PREFIX) || !event.hasField("requestId") || event.getLong("requestId") == 0) {
+                    continue;
+                }
+                Request request = requests.computeIfAbsent(event.getLong("requestId"), k -> new Request());
+                String type = name.substring(PREFIX.length()).toLowerCase();
+                long start = nanos(event.getStartTime());
+                long end = nanos(event.getEndTime());
+                if (type.equals("request")) {
+                    request.endpoint = event.getString("endpoint");
+                    request.wallNanos = end - start;
+                }
+                RecordedThread thread = event.getThread();
+                String detail = type.equals("request") ? null : detail(event);
+                request.phases.add(new Phase(type, detail, thread != null ? thread.getJavaThreadId() : -1, start,
+                        end));
+            }
+        }
+        return requests;
+    }
+
+    private static String detail(RecordedEvent event) {
+        for (String field : new String[] { "handler", "method", "operation", "mode", "format" }) {
+            if (event.hasField(field) && event.getValue(field) instanceof String text) {
+                return text;
+            }
+        }
+        return null;
+    }
+
+    private static long nanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    // Self time of every phase of one request, by "type" and by "type detail"
+    static void selfTimes(Request request, Map<String, Totals> byType, Map<String, Totals> byDetail) {
+        Map<Long, List<Phase>> byThread = new HashMap<>();
+        for (Phase phase : request.phases) {
+            byThread.computeIfAbsent(phase.thread(), k -> new ArrayList<>()).add(phase);
+        }
+        for (List<Phase> phases : byThread.values()) {
+            // Parents sort before the children they contain
+            phases.sort(Comparator.comparingLong(Phase::start).thenComparing(Phase::end, Comparator.reverseOrder()));
+            Map<Phase, Long> children = new IdentityHashMap<>();
+            Deque<Phase> open = new ArrayDeque<>();
+            for (Phase phase : phases) {
+                while (!open.isEmpty() && open.peek().end() <= phase.start()) {
+                    open.pop();
+                }
+                if (!open.isEmpty()) {
+                    children.merge(open.peek(), phase.end() - phase.start(), Long::sum);
+                }
+                open.push(phase);
+            }
+            for (Phase phase : phases) {
+                long self = Math.max(0, phase.end() - phase.start() - children.getOrDefault(phase, 0L));
+                add(byType, phase.type(), self);
+                if (phase.detail() != null) {
+                    add(byDetail, phase.type() + " " + phase.detail(), self);
+                }
+            }
+        }
+    }
+
+    private static void add(Map<String, Totals> totals, String key, long nanos) {
+        Totals t = totals.computeIfAbsent(key, k -> new Totals());
+        t.nanos += nanos;
+        t.calls++;
+    }
+
+    private static void report(String endpoint, List<Request> requests, int top) {
+        long[] walls = requests.stream().mapToLong(r -> r.wallNanos).sorted().toArray();
+        Map<String, Totals> byType = new LinkedHashMap<>();
+        Map<String, Totals> byDetail = new HashMap<>();
+        for (Request request : requests) {
+            selfTimes(request, byType, byDetail);
+        }
+        int n = requests.size();
+        long phaseNanos = byType.values().stream().mapToLong(t -> t.nanos).sum();
+
+        System.out.printf("%s  requests=%d  p50=%.1f ms  p95=%.1f ms  max=%.1f ms%n", endpoint, n,
+                ms(percentile(walls, 50)), ms(percentile(walls, 95)), ms(walls[walls.length - 1]));
+        System.out.printf("  %-16s %12s %8s %10s%n", "phase", "self ms/req", "share", "calls/req");
+        byType.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.comparingLong((Totals t) -> t.nanos).reversed()))
+                .forEach(e -> System.out.printf("  %-16s %12.2f %7.1f%% %10.1f%n", e.getKey(),
+                        ms(e.getValue().nanos) / n, 100.0 * e.getValue().nanos / Math.max(1, phaseNanos),
+                        (double) e.getValue().calls / n));
+        if (top > 0) {
+            System.out.println("  top by self time:");
+            byDetail.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue(Comparator.comparingLong((Totals t) -> t.nanos).reversed()))
+                    .limit(top)
+                    .forEach(e -> System.out.printf("    %-60s %10.2f ms/req %8.1f calls/req%n", e.getKey(),
+                            ms(e.getValue().nanos) / n, (double) e.getValue().calls / n));
+        }
+        System.out.println();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.adaptivelearning.bench;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PhaseReportTest {
+
+    @Test
+    void nestedPhasesCountOnlyTheirSelfTime() {
+        PhaseReport.Request request = new PhaseReport.Request();
+        request.phases.addAll(List.of(
+                new PhaseReport.Phase("request", null, 1, 0, 100),
+                new PhaseReport.Phase("controller", "DashboardController.get", 1, 5, 95),
+                new PhaseReport.Phase("repository", "findUser", 1, 10, 30),
+                new PhaseReport.Phase("aggregation", "mastery", 1, 40, 90),
+                new PhaseReport.Phase("repository", "findSubmissions", 1, 50, 70),
+                // A section on another thread overlaps the request's own phases but is not nested in them
+                new PhaseReport.Phase("aggregation", "trend", 2, 20, 60),
+                new PhaseReport.Phase("repository", "findSubmissions", 2, 25, 35)));
+        Map<String, PhaseReport.Totals> byType = new HashMap<>();
+        Map<String, PhaseReport.Totals> byDetail = new HashMap<>();
+
+        PhaseReport.selfTimes(request, byType, byDetail);
+
+        assertEquals(10, byType.get("request").nanos);
+        assertEquals(90 - 20 - 50, byType.get("controller").nanos);
+        assertEquals(20 + 20 + 10, byType.get("repository").nanos);
+        assertEquals(3, byType.get("repository").calls);
+        assertEquals((50 - 20) + (40 - 10), byType.get("aggregation").nanos);
+        assertEquals(30, byDetail.get("repository findSubmissions").nanos);
+        assertEquals(2, byDetail.get("repository findSubmissions").calls);
+        assertNull(byDetail.get("request null"));
+    }
+
+    @Test
+    void backToBackPhasesAreSiblingsNotChildren() {
+        PhaseReport.Request request = new PhaseReport.Request();
+        request.phases.addAll(List.of(
+                new PhaseReport.Phase("request", null, 1, 0, 30),
+                new PhaseReport.Phase("repository", "first", 1, 0, 10),
+                new PhaseReport.Phase("repository", "second", 1, 10, 20),
+                new PhaseReport.Phase("serialization", "json", 1, 20, 30)));
+        Map<String, PhaseReport.Totals> byType = new HashMap<>();
+
+        PhaseReport.selfTimes(request, byType, new HashMap<>());
+
+        assertEquals(0, byType.get("request").nanos);
+        assertEquals(20, byType.get("repository").nanos);
+        assertEquals(10, byType.get("serialization").nanos);
+    }
+}
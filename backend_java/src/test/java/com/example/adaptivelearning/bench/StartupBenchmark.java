@@ -0,0 +1,106 @@
+package com.example.adaptivelearning.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time from process launch to the first 200 response, for the container layout
+ * built by the cds profile, with and without the application CDS archive and
+ * the Spring AOT initializers. Every run gets a fresh JVM and in-memory database.
+ *
+ * mvn -Pcds package -DskipTests
+ * mvn -Pbenchmark test-compile exec:java
+ * -Dexec.mainClass=com.example.adaptivelearning.bench.StartupBenchmark
+ * -Dbench.runs=5 -Dbench.path=/quiz/bank
+ */
+public class StartupBenchmark {
+
+    private static final String[][] MODES = {
+            { "baseline", "-Dspring.aot.enabled=false" },
+            { "cds", "-Dspring.aot.enabled=false", "-XX:SharedArchiveFile=application.jsa", "-Xshare:auto" },
+            { "aot", "-Dspring.aot.enabled=true" },
+            { "cds+aot", "-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=application.jsa", "-Xshare:auto" },
+    };
+
+    public static void main(String[] args) throws Exception {
+        File dir = new File(System.getProperty("bench.dir", "target/container"));
+        int runs = Integer.getInteger("bench.runs", 5);
+        String path = System.getProperty("bench.path", "/quiz/bank");
+        File[] jars = dir.listFiles((d, name) -> name.endsWith("-app.jar"));
+        if (jars == null || jars.length != 1 || !new File(dir, "application.jsa").isFile()) {
+            System.err.println("No container layout in " + dir.getAbsolutePath() + "; run mvn -Pcds package first");
+            System.exit(1);
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+        // One untimed start per mode warms the page cache for the jars and the archive
+        for (String[] mode : MODES) {
+            start(java, dir, jars[0].getName(), mode, client, path, "warmup");
+        }
+        for (String[] mode : MODES) {
+            long[] times = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                times[i] = start(java, dir, jars[0].getName(), mode, client, path, mode[0] + "-" + i);
+            }
+            Arrays.sort(times);
+            System.out.printf("%-9s first 200 after: median %5d ms, min %5d ms, max %5d ms (%d runs)%n",
+                    mode[0], times[runs / 2], times[0], times[runs - 1], runs);
+        }
+    }
+
+    private static long start(String java, File dir, String jar, String[] mode, HttpClient client, String path,
+            String database) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(Arrays.asList(mode).subList(1, mode.length));
+        command.add("-Xlog:cds=off");
+        command.addAll(List.of("-jar", jar, "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:" + database,
+                "--app.archive.dir=" + new File("target/startup-bench").getAbsolutePath()));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(5)).build();
+
+        long begin = System.nanoTime();
+        Process process = new ProcessBuilder(command).directory(dir)
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode[0] + " exited with " + process.exitValue());
+                }
+                if (System.nanoTime() - begin > 120_000_000_000L) {
+                    throw new IllegalStateException(mode[0] + " did not answer within 120s");
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - begin) / 1_000_000;
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(5);
+            }
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
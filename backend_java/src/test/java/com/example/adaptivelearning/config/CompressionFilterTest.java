@@ -0,0 +1,94 @@
+package com.example.adaptivelearning.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionFilterTest {
+
+    private static final byte[] LARGE = ("{\"rows\":[" + "{\"score\":7},".repeat(400) + "{}]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void acceptsGzipHonoursWeightsAndParameters() {
+        assertTrue(CompressionFilter.acceptsGzip("gzip"));
+        assertTrue(CompressionFilter.acceptsGzip("deflate, GZIP"));
+        assertTrue(CompressionFilter.acceptsGzip("br;q=1.0, gzip;q=0.5"));
+        assertTrue(CompressionFilter.acceptsGzip("gzip;level=1"));
+        assertTrue(CompressionFilter.acceptsGzip("gzip ; Q=0.1"));
+        assertFalse(CompressionFilter.acceptsGzip(null));
+        assertFalse(CompressionFilter.acceptsGzip(""));
+        assertFalse(CompressionFilter.acceptsGzip("deflate, br"));
+        assertFalse(CompressionFilter.acceptsGzip("gzip;q=0"));
+        assertFalse(CompressionFilter.acceptsGzip("gzip;q=0.000"));
+        assertFalse(CompressionFilter.acceptsGzip("identity, gzip;Q=0"));
+        assertFalse(CompressionFilter.acceptsGzip("gzip;q=high"));
+        // A name that merely starts with gzip is another coding
+        assertFalse(CompressionFilter.acceptsGzip("gzipped"));
+    }
+
+    @Test
+    void compressesLargeListedTypesForGzipClients() throws Exception {
+        MockHttpServletResponse response = run("/analytics/class/CS101", "gzip", "application/json", LARGE);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+        assertTrue(response.getContentAsByteArray().length < LARGE.length / 4);
+        assertArrayEquals(LARGE, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    void leavesSmallUnlistedStreamingAndUnacceptedResponsesAlone() throws Exception {
+        byte[] small = "{\"score\":7}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletResponse tooSmall = run("/analytics/class/CS101", "gzip", "application/json", small);
+        MockHttpServletResponse image = run("/uploads/a.png", "gzip", "image/png", LARGE);
+        MockHttpServletResponse export = run("/api/admin/export/submissions", "gzip", "application/json", LARGE);
+        MockHttpServletResponse refused = run("/analytics/class/CS101", "gzip;q=0", "application/json", LARGE);
+
+        assertArrayEquals(small, tooSmall.getContentAsByteArray());
+        for (MockHttpServletResponse response : List.of(image, export, refused)) {
+            assertNull(response.getHeader("Content-Encoding"));
+            assertArrayEquals(LARGE, response.getContentAsByteArray());
+        }
+        assertNull(tooSmall.getHeader("Content-Encoding"));
+        // Streaming paths are not filtered at all, so they do not vary on the header either
+        assertNull(export.getHeader("Vary"));
+        assertEquals("Accept-Encoding", refused.getHeader("Vary"));
+    }
+
+    private static MockHttpServletResponse run(String path, String acceptEncoding, String contentType, byte[] body)
+            throws Exception {
+        CompressionFilter filter = new CompressionFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "minSize", 2048);
+        ReflectionTestUtils.setField(filter, "mimeTypes", List.of("application/json", "text/plain"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader("Accept-Encoding", acceptEncoding);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            res.setContentType(contentType);
+            res.getOutputStream().write(body);
+        });
+        return response;
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}
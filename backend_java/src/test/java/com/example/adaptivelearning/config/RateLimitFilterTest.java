@@ -0,0 +1,92 @@
+package com.example.adaptivelearning.config;
+
+import com.example.adaptivelearning.service.SessionTokens;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RateLimitFilterTest {
+
+    @Test
+    void overLimitRequestsGet429WithRetryAfter() throws Exception {
+        RateLimitFilter filter = filter(2, 100);
+
+        assertEquals(200, run(filter, request("/quiz/generate", "10.0.0.1")).getStatus());
+        assertEquals(200, run(filter, request("/quiz/generate", "10.0.0.1")).getStatus());
+        MockHttpServletResponse limited = run(filter, request("/quiz/generate", "10.0.0.1"));
+
+        assertEquals(429, limited.getStatus());
+        // One token per minute: the next one is a minute away
+        assertEquals("60", limited.getHeader("Retry-After"));
+        assertEquals("{\"error\":\"Too many requests\"}", limited.getContentAsString());
+        // Buckets are per endpoint, and other endpoints are not limited at all
+        assertEquals(200, run(filter, request("/interview/start", "10.0.0.1")).getStatus());
+        assertEquals(200, run(filter, request("/quiz/submit", "10.0.0.1")).getStatus());
+    }
+
+    @Test
+    void unauthenticatedClientsAreKeyedByAddressNotByWhatTheySend() throws Exception {
+        RateLimitFilter filter = filter(1, 100);
+        run(filter, request("/quiz/generate", "10.0.0.2"));
+
+        MockHttpServletRequest spoofed = request("/quiz/generate", "10.0.0.2");
+        spoofed.addHeader("X-User-Id", UUID.randomUUID().toString());
+        spoofed.setParameter("student_id", UUID.randomUUID().toString());
+        assertEquals(429, run(filter, spoofed).getStatus());
+
+        assertEquals(200, run(filter, request("/quiz/generate", "10.0.0.3")).getStatus());
+        // A verified user has their own bucket, even behind a shared address
+        MockHttpServletRequest signedIn = request("/quiz/generate", "10.0.0.2");
+        signedIn.setAttribute(AuthTokenFilter.PRINCIPAL, new SessionTokens.Principal(UUID.randomUUID(),
+                "s@example.com", "Student", "STUDENT", "CS101", 0, "k1"));
+        assertEquals(200, run(filter, signedIn).getStatus());
+    }
+
+    @Test
+    void clientsBeyondTheBucketCapShareAnOverflowBucket() throws Exception {
+        RateLimitFilter filter = filter(1, 2);
+        run(filter, request("/quiz/generate", "10.0.1.1"));
+        run(filter, request("/quiz/generate", "10.0.1.2"));
+
+        assertEquals(200, run(filter, request("/quiz/generate", "10.0.1.3")).getStatus());
+        assertEquals(429, run(filter, request("/quiz/generate", "10.0.1.4")).getStatus());
+        assertEquals(2, filter.getStats().get("buckets"));
+        assertEquals(2L, filter.getStats().get("overflowed"));
+    }
+
+    private static RateLimitFilter filter(int capacity, int maxBuckets) {
+        RateLimitFilter filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "capacity", capacity);
+        ReflectionTestUtils.setField(filter, "refillPerMinute", 1.0);
+        ReflectionTestUtils.setField(filter, "maxBuckets", maxBuckets);
+        return filter;
+    }
+
+    private static MockHttpServletRequest request(String path, String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(address);
+        return request;
+    }
+
+    private static MockHttpServletResponse run(RateLimitFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (response.getStatus() == 429) {
+            assertNull(chain.getRequest());
+        } else {
+            assertNotNull(chain.getRequest());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.adaptivelearning.config;
+
+import com.example.adaptivelearning.model.User;
+import com.example.adaptivelearning.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.datasource.routing.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.url=jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.sync-interval-ms=3600000" })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadWriteRoutingTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    private ReplicationStandIn replication;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void readOnlyTransactionsSeeReplicaUntilSynced() throws Exception {
+        String email = "routing-" + UUID.randomUUID() + "@example.com";
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+        TransactionTemplate read = new TransactionTemplate(transactionManager);
+        read.setReadOnly(true);
+
+        write.executeWithoutResult(tx -> userRepository.save(student(email)));
+        assertTrue(visible(write, email));
+
+        long replicaBefore = routingDataSource.getReplicaConnections();
+        assertFalse(visible(read, email));
+        assertTrue(routingDataSource.getReplicaConnections() > replicaBefore);
+
+        replication.sync();
+        assertTrue(visible(read, email));
+    }
+
+    @Test
+    void reportsUtilizationPerPool() throws Exception {
+        mockMvc.perform(get("/api/metrics/datasource"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pools.length()").value(2))
+                .andExpect(jsonPath("$.replication.last_sync_rows").exists());
+        assertEquals(2, routingDataSource.getResolvedDataSources().size());
+    }
+
+    private boolean visible(TransactionTemplate tx, String email) {
+        return Boolean.TRUE.equals(tx.execute(status -> userRepository.findByEmail(email).isPresent()));
+    }
+
+    private static User student(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setName("Routing Student");
+        user.setRole("STUDENT");
+        return user;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.adaptivelearning.controller;
+
+import com.example.adaptivelearning.model.User;
+import com.example.adaptivelearning.repository.UserRepository;
+import com.example.adaptivelearning.service.SessionTokens;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdminAuthorizationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Test
+    void adminEndpointsNeedAStaffToken() throws Exception {
+        User student = user("STUDENT");
+        String studentToken = sessionTokens.issue(student);
+        String professorToken = sessionTokens.issue(user("PROFESSOR"));
+        String assign = "{\"userId\":\"" + student.getId() + "\",\"classId\":\"AUTH-1\"}";
+
+        MockHttpServletRequestBuilder[] requests = {
+                post("/api/admin/assign-class").contentType(MediaType.APPLICATION_JSON).content(assign),
+                post("/api/admin/bulk-assign").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fromClassId\":\"AUTH-0\",\"classId\":\"AUTH-1\"}"),
+                post("/api/admin/roster/import").contentType("text/csv")
+                        .content("email,name,role,class_id,password\nx@auth.test,X,STUDENT,AUTH-1,secret\n"),
+                post("/api/admin/archive/run"),
+                get("/api/admin/export/submissions") };
+        for (MockHttpServletRequestBuilder request : requests) {
+            mockMvc.perform(request).andExpect(status().isUnauthorized());
+            mockMvc.perform(request.header("Authorization", "Bearer " + studentToken))
+                    .andExpect(status().isForbidden());
+        }
+
+        mockMvc.perform(post("/api/admin/assign-class").contentType(MediaType.APPLICATION_JSON).content(assign)
+                .header("Authorization", "Bearer " + professorToken)).andExpect(status().isOk());
+    }
+
+    @Test
+    void studentsUpdateOnlyTheirOwnProfile() throws Exception {
+        User student = user("STUDENT");
+        User other = user("STUDENT");
+        String token = sessionTokens.issue(student);
+
+        mockMvc.perform(put("/api/profile/update").contentType(MediaType.APPLICATION_JSON)
+                .content(update(other))).andExpect(status().isUnauthorized());
+        mockMvc.perform(put("/api/profile/update").contentType(MediaType.APPLICATION_JSON)
+                .content(update(other)).header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/profile/update").contentType(MediaType.APPLICATION_JSON)
+                .content(update(student)).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/profile/update").contentType(MediaType.APPLICATION_JSON)
+                .content(update(other)).header("Authorization", "Bearer " + sessionTokens.issue(user("HOD"))))
+                .andExpect(status().isOk());
+    }
+
+    private User user(String role) {
+        User user = new User();
+        user.setEmail(role.toLowerCase() + "-" + UUID.randomUUID() + "@auth.test");
+        user.setPassword("password");
+        user.setName(role);
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    private static String update(User user) {
+        return "{\"email\":\"" + user.getEmail() + "\",\"name\":\"Renamed\"}";
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.adaptivelearning.controller;
+
+import com.example.adaptivelearning.model.QuizSubmission;
+import com.example.adaptivelearning.model.User;
+import com.example.adaptivelearning.repository.QuizSubmissionRepository;
+import com.example.adaptivelearning.repository.UserRepository;
+import com.example.adaptivelearning.support.MaxStatementsPerRequest;
+import com.example.adaptivelearning.support.RequestStatementRecorder;
+import com.example.adaptivelearning.support.StatementCountingConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the analytics endpoints against N+1 regressions: each endpoint must
+ * issue the same, bounded number of statements at two dataset sizes.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(StatementCountingConfiguration.class)
+@MaxStatementsPerRequest(8)
+class AnalyticsStatementBudgetTest {
+
+    private static final int SMALL = 3;
+    private static final int LARGE = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private QuizSubmissionRepository quizRepository;
+
+    @Autowired
+    private RequestStatementRecorder recorder;
+
+    @Test
+    void departmentAnalyticsIsIndependentOfDepartmentSize() throws Exception {
+        seedClass("DEPT-" + UUID.randomUUID(), SMALL);
+        long small = statementsFor("/department/analytics");
+
+        for (int i = 0; i < LARGE / SMALL; i++) {
+            seedClass("DEPT-" + UUID.randomUUID(), SMALL);
+        }
+        long large = statementsFor("/department/analytics");
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    @MaxStatementsPerRequest(2)
+    void classAnalyticsIsIndependentOfClassSize() throws Exception {
+        String classId = "CLS-" + UUID.randomUUID();
+        seedClass(classId, SMALL);
+        long small = statementsFor("/analytics/class/" + classId);
+
+        seedClass(classId, LARGE - SMALL);
+        long large = statementsFor("/analytics/class/" + classId);
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    @MaxStatementsPerRequest(2)
+    void studentAnalyticsIsIndependentOfHistoryLength() throws Exception {
+        User student = seedStudent("STU-" + UUID.randomUUID(), SMALL);
+        long small = statementsFor("/analytics/" + student.getId());
+
+        addSubmissions(student, LARGE - SMALL);
+        long large = statementsFor("/analytics/" + student.getId());
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    @MaxStatementsPerRequest(2)
+    void userAnalyticsIsIndependentOfHistoryLength() throws Exception {
+        User student = seedStudent("USR-" + UUID.randomUUID(), SMALL);
+        long small = statementsFor("/api/analytics/user/" + student.getEmail());
+
+        addSubmissions(student, LARGE - SMALL);
+        long large = statementsFor("/api/analytics/user/" + student.getEmail());
+
+        assertEquals(small, large);
+    }
+
+    private long statementsFor(String path) throws Exception {
+        mockMvc.perform(get(path)).andExpect(status().isOk());
+        long statements = recorder.last().statements();
+        // Counting is per thread; a request that reads on another thread would show up as zero here
+        assertTrue(statements > 0, path);
+        return statements;
+    }
+
+    private void seedClass(String classId, int students) {
+        if (userRepository.findByClassIdAndRole(classId, "PROFESSOR").isEmpty()) {
+            User prof = new User();
+            prof.setEmail("prof-" + UUID.randomUUID() + "@example.com");
+            prof.setPassword("password");
+            prof.setName("Professor " + classId);
+            prof.setRole("PROFESSOR");
+            prof.setClassId(classId);
+            userRepository.save(prof);
+        }
+        for (int i = 0; i < students; i++) {
+            seedStudent(classId, 2);
+        }
+    }
+
+    private User seedStudent(String classId, int submissions) {
+        User student = new User();
+        student.setEmail("student-" + UUID.randomUUID() + "@example.com");
+        student.setPassword("password");
+        student.setName("Student " + classId);
+        student.setRole("STUDENT");
+        student.setClassId(classId);
+        userRepository.save(student);
+        addSubmissions(student, submissions);
+        return student;
+    }
+
+    private void addSubmissions(User student, int count) {
+        List<QuizSubmission> subs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QuizSubmission sub = new QuizSubmission();
+            sub.setUser(student);
+            sub.setScore(i % 11);
+            sub.setAccuracy(80);
+            sub.setTypingSpeed(40);
+            sub.setTopicMastery("{\"Java\": 80, \"SQL\": 70}");
+            subs.add(sub);
+        }
+        quizRepository.saveAll(subs);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.adaptivelearning.controller;
+
+import com.example.adaptivelearning.model.User;
+import com.example.adaptivelearning.repository.UserRepository;
+import com.example.adaptivelearning.service.SessionTokens;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EventsAuthorizationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Test
+    void streamsNeedATokenForTheirAudience() throws Exception {
+        String classId = "EV-" + UUID.randomUUID().toString().substring(0, 8);
+        String student = sessionTokens.issue(user("STUDENT", classId));
+        String professor = sessionTokens.issue(user("PROFESSOR", classId));
+        String otherProfessor = sessionTokens.issue(user("PROFESSOR", "EV-OTHER"));
+        String hod = sessionTokens.issue(user("HOD", null));
+
+        mockMvc.perform(get("/api/events/class/" + classId)).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/events/department")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/events/class/" + classId).param("access_token", "forged"))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/api/events/class/" + classId).param("access_token", student))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/events/class/" + classId).param("access_token", otherProfessor))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/events/department").param("access_token", professor))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/events/class/" + classId).param("access_token", professor))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get("/api/events/class/" + classId).header("Authorization", "Bearer " + hod))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get("/api/events/department").param("access_token", hod))
+                .andExpect(request().asyncStarted());
+    }
+
+    private User user(String role, String classId) {
+        User user = new User();
+        user.setEmail(role.toLowerCase() + "-" + UUID.randomUUID() + "@events.test");
+        user.setPassword("password");
+        user.setName(role);
+        user.setRole(role);
+        user.setClassId(classId);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.adaptivelearning.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fake of the Gemini {@code generateContent} HTTP API.
+ *
+ * Latency follows a log-normal distribution (median and sigma configurable)
+ * and a configurable fraction of calls fail with 503, so GeminiService's
+ * fallback paths are exercised too. Quiz prompts get a JSON question array,
+ * everything else a short interviewer reply.
+ */
+public class GeminiSimulator implements AutoCloseable {
+
+    private final double medianMillis;
+    private final double sigma;
+    private final double errorRate;
+    private final Random random;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public GeminiSimulator(double medianMillis, double sigma, double errorRate, long seed) {
+        this.medianMillis = medianMillis;
+        this.sigma = sigma;
+        this.errorRate = errorRate;
+        this.random = new Random(seed);
+    }
+
+    public GeminiSimulator start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/v1beta/models/", this::handle);
+        server.start();
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long calls() {
+        return calls.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            calls.incrementAndGet();
+            if (!exchange.getRequestURI().getPath().endsWith(":generateContent")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+
+            double latency;
+            boolean fail;
+            synchronized (random) {
+                latency = medianMillis * Math.exp(sigma * random.nextGaussian());
+                fail = random.nextDouble() < errorRate;
+            }
+            Thread.sleep((long) latency);
+
+            if (fail) {
+                errors.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            String prompt = request.path("contents").path(0).path("parts").path(0).path("text").asText("");
+            String text = prompt.contains("multiple choice questions") ? questionsJson() : interviewerReply();
+
+            Map<String, Object> body = Map.of("candidates",
+                    List.of(Map.of("content", Map.of("role", "model", "parts", List.of(Map.of("text", text))))));
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String questionsJson() throws IOException {
+        List<Map<String, Object>> questions = new ArrayList<>();
+        for (int i = 1; i <= 15; i++) {
+            questions.add(Map.of(
+                    "id", i,
+                    "question", "Simulated question " + i + " about TCP, SQL or Stack usage?",
+                    "options", List.of("A", "B", "C", "D"),
+                    "answer", "A"));
+        }
+        return objectMapper.writeValueAsString(questions);
+    }
+
+    private String interviewerReply() {
+        return "Good answer. How would that approach scale with ten times the data?";
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.adaptivelearning.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects raw per-step latencies and prints a p50/p95/p99 report.
+ *
+ * Samples are kept exactly (a growable long array per step) because a load
+ * run produces at most a few hundred thousand of them.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, Samples> steps = new ConcurrentHashMap<>();
+
+    public void record(String step, long nanos, boolean ok) {
+        steps.computeIfAbsent(step, k -> new Samples()).add(nanos, ok);
+    }
+
+    public void print(PrintStream out, double elapsedSeconds, long droppedArrivals) {
+        out.printf("%-40s %8s %7s %9s %9s %9s %9s %9s%n",
+                "step", "count", "errors", "rps", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, Samples> e : new TreeMap<>(steps).entrySet()) {
+            long[] sorted = e.getValue().sorted();
+            out.printf("%-40s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    e.getKey(), sorted.length, e.getValue().errors(), sorted.length / elapsedSeconds,
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.95)),
+                    millis(percentile(sorted, 0.99)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        }
+        out.printf("elapsed %.1fs, dropped arrivals %d%n", elapsedSeconds, droppedArrivals);
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void add(long nanos, boolean ok) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+    }
+}
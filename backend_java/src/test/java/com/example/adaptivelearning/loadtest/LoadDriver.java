@@ -0,0 +1,173 @@
+package com.example.adaptivelearning.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator.
+ *
+ * New scenario runs arrive as a Poisson process at a fixed rate regardless of
+ * how quickly earlier runs finish, so a slow server shows up as growing
+ * latency rather than as silently reduced load. Runs that would exceed
+ * {@code maxInFlight} are counted as dropped arrivals instead of queued.
+ */
+public class LoadDriver {
+
+    private final URI baseUri;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private double arrivalsPerSecond = 10;
+    private Duration duration = Duration.ofSeconds(30);
+    private int maxInFlight = 256;
+    private long seed = 42;
+
+    public LoadDriver(URI baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    public LoadDriver arrivalsPerSecond(double rate) {
+        this.arrivalsPerSecond = rate;
+        return this;
+    }
+
+    public LoadDriver duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public LoadDriver maxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    public LoadDriver seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public LoadDriver scenario(Scenario scenario) {
+        scenarios.add(scenario);
+        return this;
+    }
+
+    public LatencyRecorder recorder() {
+        return recorder;
+    }
+
+    /** Runs the load and returns the number of dropped arrivals. */
+    public long run() throws InterruptedException {
+        int totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+        Random arrivals = new Random(seed);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        ExecutorService workers = Executors.newCachedThreadPool();
+        long dropped = 0;
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long next = start;
+        long runId = 0;
+        while (true) {
+            // Exponential inter-arrival times give a Poisson arrival process
+            next += (long) (-Math.log(1 - arrivals.nextDouble()) / arrivalsPerSecond * 1e9);
+            if (next >= end) {
+                break;
+            }
+            LockSupport.parkNanos(next - System.nanoTime());
+
+            Scenario scenario = pick(arrivals.nextInt(totalWeight));
+            long scheduledAt = next;
+            long sessionSeed = seed + runId++;
+            if (!inFlight.tryAcquire()) {
+                dropped++;
+                continue;
+            }
+            workers.execute(() -> {
+                try {
+                    runScenario(scenario, new Session(sessionSeed), scheduledAt);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(2, TimeUnit.MINUTES);
+        return dropped;
+    }
+
+    private Scenario pick(int ticket) {
+        for (Scenario s : scenarios) {
+            ticket -= s.weight();
+            if (ticket < 0) {
+                return s;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    private void runScenario(Scenario scenario, Session session, long scheduledAt) {
+        boolean ok = true;
+        try {
+            scenario.before().accept(session);
+            for (Scenario.Step step : scenario.steps()) {
+                if (!execute(scenario.name() + "/" + step.name, step, session)) {
+                    ok = false;
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            ok = false;
+        }
+        // Measured from the scheduled arrival so driver lag is not hidden
+        recorder.record(scenario.name() + " (total)", System.nanoTime() - scheduledAt, ok);
+    }
+
+    private boolean execute(String name, Scenario.Step step, Session session) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(step.path.apply(session)))
+                .timeout(Duration.ofSeconds(30));
+        if (session.token() != null) {
+            request.header("Authorization", "Bearer " + session.token());
+        }
+        if (step.method.equals("POST")) {
+            byte[] body = objectMapper.writeValueAsBytes(step.body.apply(session));
+            request.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        } else {
+            request.GET();
+        }
+
+        long t0 = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (Exception e) {
+            recorder.record(name, System.nanoTime() - t0, false);
+            return false;
+        }
+        boolean ok = response.statusCode() < 400;
+        recorder.record(name, System.nanoTime() - t0, ok);
+
+        if (ok && !step.extractors.isEmpty()) {
+            JsonNode json = objectMapper.readTree(response.body());
+            step.extractors.forEach(x -> x.accept(session, json));
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.adaptivelearning.loadtest;
+
+import com.example.adaptivelearning.AdaptiveLearningApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the backend against an in-memory database and a local Gemini
+ * simulator, then drives the production request mix at an open arrival rate.
+ *
+ * Run with {@code mvn -Ploadtest test-compile exec:java}. Tunables are system
+ * properties, e.g. {@code -Dloadtest.rate=100 -Dloadtest.duration=60
+ * -Dloadtest.gemini.median-ms=800 -Dloadtest.gemini.error-rate=0.02}. Every
+ * scenario logs in first and sends its token, so the mix also runs with
+ * {@code -Dloadtest.auth-required=true}.
+ */
+public class LoadTestRunner {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "50"));
+        int seconds = Integer.getInteger("loadtest.duration", 30);
+        int students = Integer.getInteger("loadtest.students", 200);
+        long seed = Long.getLong("loadtest.seed", 42L);
+        double geminiMedian = Double.parseDouble(System.getProperty("loadtest.gemini.median-ms", "400"));
+        double geminiSigma = Double.parseDouble(System.getProperty("loadtest.gemini.sigma", "0.5"));
+        double geminiErrors = Double.parseDouble(System.getProperty("loadtest.gemini.error-rate", "0.01"));
+
+        try (GeminiSimulator gemini = new GeminiSimulator(geminiMedian, geminiSigma, geminiErrors, seed).start()) {
+            // Passed as command-line args so they override application.properties
+            ConfigurableApplicationContext app = new SpringApplicationBuilder(AdaptiveLearningApplication.class)
+                    .run("--server.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                            "--spring.jpa.hibernate.ddl-auto=create-drop",
+                            "--spring.jpa.show-sql=false",
+                            "--logging.level.root=WARN",
+                            "--gemini.api.key=simulated",
+                            // Simulated users share one client address, per-user limits would throttle them all
+                            "--app.ratelimit.enabled=" + System.getProperty("loadtest.ratelimit", "false"),
+                            "--app.auth.required=" + System.getProperty("loadtest.auth-required", "false"),
+                            "--gemini.api.base-url=" + gemini.baseUrl());
+            try {
+                URI base = URI.create("http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port"));
+                List<String> emails = registerStudents(base, students);
+
+                LoadDriver driver = new LoadDriver(base)
+                        .arrivalsPerSecond(rate)
+                        .duration(Duration.ofSeconds(seconds))
+                        .seed(seed);
+                requestMix(emails).forEach(driver::scenario);
+
+                System.out.printf("Running %.0f arrivals/s for %ds against %s (gemini median %.0fms, errors %.1f%%)%n",
+                        rate, seconds, base, geminiMedian, geminiErrors * 100);
+                long start = System.nanoTime();
+                long dropped = driver.run();
+                double elapsed = (System.nanoTime() - start) / 1e9;
+
+                driver.recorder().print(System.out, elapsed, dropped);
+                System.out.printf("gemini simulator: %d calls, %d injected errors%n", gemini.calls(), gemini.errors());
+            } finally {
+                app.close();
+            }
+        }
+    }
+
+    static List<Scenario> requestMix(List<String> emails) {
+        List<Scenario> mix = new ArrayList<>();
+
+        mix.add(Scenario.named("student-quiz").weight(5)
+                .before(s -> s.put("email", emails.get(s.random().nextInt(emails.size()))))
+                .post("login", s -> "/login", LoadTestRunner::credentials)
+                .extract(LoadTestRunner::signedIn)
+                .get("generate", s -> "/quiz/generate?student_id=" + s.get("userId"))
+                .extract((s, json) -> s.put("questions", json))
+                .post("submit", s -> "/quiz/submit", s -> {
+                    List<String> answered = new ArrayList<>();
+                    List<String> wrong = new ArrayList<>();
+                    for (JsonNode q : s.<JsonNode>get("questions")) {
+                        answered.add(q.path("question").asText());
+                        if (s.random().nextInt(3) == 0) {
+                            wrong.add(q.path("question").asText());
+                        }
+                    }
+                    return Map.of("student_id", s.get("userId"), "score", 10 - Math.min(10, wrong.size()),
+                            "wrong_answers", wrong, "answered_questions", answered);
+                }));
+
+        mix.add(Scenario.named("student-dashboard").weight(3)
+                .before(s -> s.put("email", emails.get(s.random().nextInt(emails.size()))))
+                .post("login", s -> "/login", LoadTestRunner::credentials)
+                .extract(LoadTestRunner::signedIn)
+                .get("user-analytics", s -> "/api/analytics/user/" + s.get("email"))
+                .get("recommendation", s -> "/recommendation/" + s.get("userId") + "?score=7")
+                .get("profile", s -> "/api/profile/" + s.get("email")));
+
+        mix.add(Scenario.named("professor-dashboard").weight(1)
+                .before(s -> s.put("email", "prof@example.com"))
+                .post("login", s -> "/login", LoadTestRunner::credentials)
+                .extract(LoadTestRunner::signedIn)
+                .get("class-analytics", s -> "/analytics/class/CS101"));
+
+        mix.add(Scenario.named("hod-dashboard").weight(1)
+                .before(s -> s.put("email", "hod@university.edu"))
+                .post("login", s -> "/login", s -> Map.of("email", s.get("email"), "password", "admin123"))
+                .extract(LoadTestRunner::signedIn)
+                .get("department-analytics", s -> "/department/analytics"));
+
+        mix.add(Scenario.named("interview").weight(2)
+                .before(s -> s.put("email", emails.get(s.random().nextInt(emails.size()))))
+                .post("login", s -> "/login", LoadTestRunner::credentials)
+                .extract(LoadTestRunner::signedIn)
+                .post("start", s -> "/interview/start", s -> Map.of("subject", "Data Structures"))
+                .extract((s, json) -> s.put("sessionId", json.path("session_id").asText()))
+                .post("chat-1", s -> "/interview/chat", s -> Map.of("session_id", s.get("sessionId"),
+                        "subject", "Data Structures", "message", "An array is contiguous memory."))
+                .post("chat-2", s -> "/interview/chat", s -> Map.of("session_id", s.get("sessionId"),
+                        "subject", "Data Structures", "message", "A linked list trades locality.")));
+
+        return mix;
+    }
+
+    private static void signedIn(Session s, JsonNode login) {
+        s.put("userId", login.path("user").path("id").asText()).token(login.path("token").asText());
+    }
+
+    private static Object credentials(Session s) {
+        return Map.of("email", s.get("email"), "password", "password");
+    }
+
+    private static List<String> registerStudents(URI base, int count) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        List<String> emails = new ArrayList<>();
+        // Class assignment is staff-only
+        String token = post(client, base.resolve("/login"),
+                Map.of("email", "hod@university.edu", "password", "admin123"), null).path("token").asText();
+        for (int i = 0; i < count; i++) {
+            String email = "load-student-" + i + "@example.com";
+            JsonNode registered = post(client, base.resolve("/register"), Map.of("name", "Load Student " + i,
+                    "email", email, "password", "password", "role", "STUDENT"), null);
+            post(client, base.resolve("/api/admin/assign-class"),
+                    Map.of("userId", registered.path("user").path("id").asText(), "classId", "CS101"), token);
+            emails.add(email);
+        }
+        return emails;
+    }
+
+    private static JsonNode post(HttpClient client, URI uri, Object body, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body)));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(uri + " returned " + response.statusCode());
+        }
+        return MAPPER.readTree(response.body());
+    }
+}
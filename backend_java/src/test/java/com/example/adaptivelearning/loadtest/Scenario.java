@@ -0,0 +1,97 @@
+package com.example.adaptivelearning.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A named sequence of HTTP steps one virtual user walks through.
+ *
+ * <pre>
+ * Scenario.named("student-quiz").weight(5)
+ *         .before(s -&gt; s.put("email", pickStudent()))
+ *         .post("login", s -&gt; "/login", s -&gt; Map.of("email", s.get("email"), "password", "password"))
+ *         .extract((s, json) -&gt; s.put("userId", json.path("user").path("id").asText()))
+ *         .get("generate", s -&gt; "/quiz/generate");
+ * </pre>
+ */
+public final class Scenario {
+
+    private final String name;
+    private int weight = 1;
+    private Consumer<Session> before = s -> {
+    };
+    private final List<Step> steps = new ArrayList<>();
+
+    private Scenario(String name) {
+        this.name = name;
+    }
+
+    public static Scenario named(String name) {
+        return new Scenario(name);
+    }
+
+    public Scenario weight(int weight) {
+        this.weight = weight;
+        return this;
+    }
+
+    public Scenario before(Consumer<Session> before) {
+        this.before = before;
+        return this;
+    }
+
+    public Scenario get(String step, Function<Session, String> path) {
+        steps.add(new Step(step, "GET", path, null));
+        return this;
+    }
+
+    public Scenario post(String step, Function<Session, String> path, Function<Session, Object> body) {
+        steps.add(new Step(step, "POST", path, body));
+        return this;
+    }
+
+    /** Reads values out of the previous step's JSON response into the session. */
+    public Scenario extract(BiConsumer<Session, JsonNode> extractor) {
+        if (steps.isEmpty()) {
+            throw new IllegalStateException("extract() must follow a request step");
+        }
+        steps.get(steps.size() - 1).extractors.add(extractor);
+        return this;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    Consumer<Session> before() {
+        return before;
+    }
+
+    List<Step> steps() {
+        return steps;
+    }
+
+    static final class Step {
+        final String name;
+        final String method;
+        final Function<Session, String> path;
+        final Function<Session, Object> body;
+        final List<BiConsumer<Session, JsonNode>> extractors = new ArrayList<>();
+
+        Step(String name, String method, Function<Session, String> path, Function<Session, Object> body) {
+            this.name = name;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+    }
+}
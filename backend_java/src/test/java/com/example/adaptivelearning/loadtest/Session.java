@@ -0,0 +1,47 @@
+package com.example.adaptivelearning.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Per-virtual-user state carried between the steps of one scenario run.
+ */
+public final class Session {
+
+    private final Map<String, Object> vars = new HashMap<>();
+    private final Random random;
+    private String token;
+
+    Session(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public Session put(String key, Object value) {
+        vars.put(key, value);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key) {
+        T value = (T) vars.get(key);
+        if (value == null) {
+            throw new IllegalStateException("Session variable '" + key + "' is not set");
+        }
+        return value;
+    }
+
+    /** Sent as a bearer token on every later request of this run. */
+    public Session token(String token) {
+        this.token = token;
+        return this;
+    }
+
+    String token() {
+        return token;
+    }
+
+    public Random random() {
+        return random;
+    }
+}
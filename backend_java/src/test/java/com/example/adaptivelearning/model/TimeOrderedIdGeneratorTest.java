@@ -0,0 +1,63 @@
+package com.example.adaptivelearning.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void idsAreVersion7AndCarryTheClock() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedIdGenerator.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after + 1, "timestamp " + millis);
+    }
+
+    @Test
+    void idsIncreaseAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<UUID[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    UUID[] ids = new UUID[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = TimeOrderedIdGenerator.next();
+                    }
+                    return ids;
+                }));
+            }
+            Set<UUID> all = new HashSet<>();
+            for (Future<UUID[]> future : futures) {
+                UUID[] ids = future.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertTrue(all.add(ids[i]), "duplicate " + ids[i]);
+                    // Unsigned, as the database compares them
+                    if (i > 0) {
+                        assertTrue(Long.compareUnsigned(ids[i - 1].getMostSignificantBits(),
+                                ids[i].getMostSignificantBits()) < 0, ids[i - 1] + " before " + ids[i]);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.Question;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AbilityEngineTest {
+
+    // Records the first column of every batch row; the ability batch fails while failing is set
+    private static class RecordingJdbc extends JdbcTemplate {
+        final List<String> written = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (failing && sql.contains("student_topic_ability")) {
+                throw new DataAccessResourceFailureException("database unavailable");
+            }
+            for (Object[] row : batchArgs) {
+                written.add(row[0].toString());
+            }
+            return new int[batchArgs.size()];
+        }
+    }
+
+    // Treats only the given questions as served
+    private static ReviewScheduler servedOnly(String... questions) {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        scheduler.rememberServed(Arrays.stream(questions)
+                .map(q -> new Question(0, q, List.of("a", "b"), "a"))
+                .toList());
+        return scheduler;
+    }
+
+    private static AbilityEngine engine(RecordingJdbc jdbc, ReviewScheduler scheduler) {
+        AbilityEngine engine = new AbilityEngine(new RecommendationService(), 0.4, 0.05);
+        ReflectionTestUtils.setField(engine, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(engine, "reviewScheduler", scheduler);
+        return engine;
+    }
+
+    @Test
+    void onlyServedQuestionsGetAModelSlot() {
+        RecordingJdbc jdbc = new RecordingJdbc();
+        AbilityEngine engine = engine(jdbc, servedOnly("What is a binary search tree?"));
+        UUID student = UUID.randomUUID();
+
+        engine.recordQuiz(student, List.of("  What is a Binary Search Tree?", "made-up question 1",
+                "made-up question 2"), List.of("made-up question 2"));
+        engine.checkpoint();
+
+        assertEquals(List.of(RecommendationService.normalizeQuestion("What is a binary search tree?")),
+                jdbc.written.stream().filter(key -> !key.equals(student.toString())).toList());
+    }
+
+    @Test
+    void failedCheckpointIsRetriedByTheNextOne() {
+        RecordingJdbc jdbc = new RecordingJdbc();
+        AbilityEngine engine = engine(jdbc, servedOnly("What is a binary search tree?"));
+        UUID student = UUID.randomUUID();
+        engine.recordQuiz(student, List.of("What is a binary search tree?"), List.of());
+
+        jdbc.failing = true;
+        assertThrows(DataAccessResourceFailureException.class, engine::checkpoint);
+
+        jdbc.failing = false;
+        jdbc.written.clear();
+        engine.checkpoint();
+        // The question row (written before the failure) and every student-topic row
+        assertEquals(RecommendationService.normalizeQuestion("What is a binary search tree?"), jdbc.written.get(0));
+        assertTrue(jdbc.written.size() > 1);
+        assertTrue(jdbc.written.subList(1, jdbc.written.size()).stream().allMatch(student.toString()::equals));
+
+        jdbc.written.clear();
+        engine.checkpoint();
+        assertEquals(0, jdbc.written.size());
+    }
+}
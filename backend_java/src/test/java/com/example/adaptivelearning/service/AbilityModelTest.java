@@ -0,0 +1,93 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AbilityModelTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    void answersMoveDifficultyAndAbilityAgainstThePrediction() {
+        AbilityModel model = new AbilityModel(3, 0.4, 0.05);
+        int student = model.studentSlot(UUID.randomUUID());
+        int question = model.questionSlot("q1", new int[] { 0, 2 });
+
+        // Prior: ability 0, difficulty 0, so p = 0.5 and a correct answer moves both by 0.4 * 0.5
+        assertEquals(0.5, model.update(student, question, true), EPS);
+        assertEquals(-0.2, model.difficulty(question), EPS);
+        assertEquals(0.2, model.ability(student, 0), EPS);
+        assertEquals(0.0, model.ability(student, 1), EPS);
+        assertEquals(0.2, model.ability(student, 2), EPS);
+
+        // Second answer: theta 0.2, b -0.2, smaller step after one answer
+        double p = 1.0 / (1.0 + Math.exp(-0.4));
+        double step = 0.4 / 1.05;
+        assertEquals(p, model.update(student, question, false), EPS);
+        assertEquals(-0.2 + step * p, model.difficulty(question), EPS);
+        assertEquals(0.2 - step * p, model.ability(student, 0), EPS);
+        assertEquals(2, model.abilityAnswers(student, 2));
+        assertEquals(0.2 - step * p, model.estimate(student, new int[] { 0, 2 }), EPS);
+        assertEquals(0.0, model.estimate(-1, new int[] { 0 }), EPS);
+    }
+
+    @Test
+    void drainReturnsEachChangeOnceAndRestoreMarksItAgain() {
+        AbilityModel model = new AbilityModel(2, 0.4, 0.05);
+        UUID id = UUID.randomUUID();
+        int student = model.studentSlot(id);
+        int question = model.questionSlot("q1", new int[] { 1 });
+        model.update(student, question, true);
+        model.update(student, question, true);
+
+        AbilityModel.Changes changes = model.drainChanges();
+        assertEquals(1, changes.questionKeys.length);
+        assertEquals("q1", changes.questionKeys[0]);
+        assertEquals(2, changes.questionAnswers[0]);
+        assertEquals(1, changes.studentIds.length);
+        assertEquals(id, changes.studentIds[0]);
+        assertEquals(1, changes.topics[0]);
+        assertEquals(model.ability(student, 1), changes.abilities[0], EPS);
+        assertTrue(model.drainChanges().isEmpty());
+
+        // Restored state is not a change
+        model.restoreQuestion(question, 1.5, 10);
+        assertTrue(model.drainChanges().isEmpty());
+
+        model.restoreChanges(changes);
+        assertEquals(2, model.dirtyCount());
+        AbilityModel.Changes again = model.drainChanges();
+        assertEquals(1.5, again.difficulties[0], EPS);
+        assertEquals(0, model.dirtyCount());
+    }
+
+    @Test
+    void growsPastTheInitialCapacityWithoutLosingState() {
+        AbilityModel model = new AbilityModel(4, 0.4, 0.05);
+        UUID[] ids = new UUID[3000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID();
+            int student = model.studentSlot(ids[i]);
+            int question = model.questionSlot("q" + i, new int[] { i % 4 });
+            model.update(student, question, i % 2 == 0);
+        }
+
+        assertEquals(3000, model.studentCount());
+        assertEquals(3000, model.questionCount());
+        for (int i = 0; i < ids.length; i++) {
+            int student = model.findStudent(ids[i]);
+            assertEquals(i, student);
+            assertEquals(i % 2 == 0 ? 0.2 : -0.2, model.ability(student, i % 4), EPS);
+            assertEquals(i % 2 == 0 ? -0.2 : 0.2, model.difficulty(model.findQuestion("q" + i)), EPS);
+        }
+        assertEquals(3000, model.studentSlot(UUID.randomUUID()));
+        assertEquals(0, model.studentSlot(ids[0]));
+        AbilityModel.Changes changes = model.drainChanges();
+        assertEquals(3000, changes.questionKeys.length);
+        assertEquals(3000, changes.studentIds.length);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.User;
+import com.example.adaptivelearning.repository.QuizSubmissionRepository;
+import com.example.adaptivelearning.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DashboardServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private QuizSubmissionRepository quizRepository;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private SubmissionArchive submissionArchive;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    @Autowired
+    private RiskEngine riskEngine;
+
+    @Autowired
+    private AbilityEngine abilityEngine;
+
+    private final List<DashboardService> services = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        services.forEach(DashboardService::shutdown);
+    }
+
+    @Test
+    void sectionsAreBuiltInParallelIntoOneResponse() {
+        User user = student();
+
+        Map<String, Object> dashboard = service(3, 3, riskEngine, abilityEngine).bootstrap(user.getId())
+                .orElseThrow();
+
+        assertEquals(Map.of(), dashboard.get("degraded"));
+        assertEquals(user.getEmail(), section(dashboard, "profile").get("email"));
+        assertEquals(0L, section(dashboard, "analytics").get("totalQuizzes"));
+        assertEquals("General Assessment", section(dashboard, "recommendation").get("recommended_subject"));
+        assertTrue(service(1, 1, riskEngine, abilityEngine).bootstrap(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void lateAndFailingSectionsDegradeWithoutTheOthers() {
+        User user = student();
+        DashboardService service = service(3, 3, slowRisk(), failingAbility());
+
+        long start = System.nanoTime();
+        Map<String, Object> dashboard = service.bootstrap(user.getId()).orElseThrow();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Map.of("profile", "timeout", "recommendation", "error"), dashboard.get("degraded"));
+        assertNull(dashboard.get("profile"));
+        assertNull(dashboard.get("recommendation"));
+        assertNotNull(dashboard.get("analytics"));
+        // The slow section is abandoned at the deadline, not waited for
+        assertTrue(elapsedMs < 1500, elapsedMs + " ms");
+        assertEquals(1L, degraded(service, "profile"));
+        assertEquals(1L, degraded(service, "recommendation"));
+    }
+
+    @Test
+    void aFullPoolDegradesSectionsInsteadOfQueueingThem() {
+        User user = student();
+        // One thread held by the slow profile and one queue slot: the last section is rejected
+        DashboardService service = service(1, 1, stubbornRisk(), abilityEngine);
+
+        Map<String, Object> dashboard = service.bootstrap(user.getId()).orElseThrow();
+
+        assertEquals(Map.of("profile", "timeout", "analytics", "timeout", "recommendation", "overloaded"),
+                dashboard.get("degraded"));
+    }
+
+    private DashboardService service(int threads, int queueSize, RiskEngine risk, AbilityEngine ability) {
+        DashboardService service = new DashboardService(threads, queueSize);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "quizRepository", quizRepository);
+        ReflectionTestUtils.setField(service, "analyticsService", analyticsService);
+        ReflectionTestUtils.setField(service, "submissionArchive", submissionArchive);
+        ReflectionTestUtils.setField(service, "leaderboardService", leaderboardService);
+        ReflectionTestUtils.setField(service, "reviewScheduler", reviewScheduler);
+        ReflectionTestUtils.setField(service, "riskEngine", risk);
+        ReflectionTestUtils.setField(service, "abilityEngine", ability);
+        ReflectionTestUtils.setField(service, "historySize", 50);
+        ReflectionTestUtils.setField(service, "sectionTimeoutMs", 200L);
+        ReflectionTestUtils.setField(service, "maxReviews", 5);
+        services.add(service);
+        return service;
+    }
+
+    // Holds its section thread well past the deadline unless cancelled
+    private static RiskEngine slowRisk() {
+        return new RiskEngine() {
+            @Override
+            public String statusOf(UUID userId) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "ON_TRACK";
+            }
+        };
+    }
+
+    // Keeps its thread past the deadline even when cancelled, so the section queued behind it cannot sneak in
+    private static RiskEngine stubbornRisk() {
+        return new RiskEngine() {
+            @Override
+            public String statusOf(UUID userId) {
+                long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(600);
+                for (long left; (left = until - System.nanoTime()) > 0;) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(left);
+                    } catch (InterruptedException ignored) {
+                        // Cancelled: keep holding the thread until the time is up
+                    }
+                }
+                return "ON_TRACK";
+            }
+        };
+    }
+
+    private static AbilityEngine failingAbility() {
+        return new AbilityEngine(new RecommendationService(), 0.4, 0.05) {
+            @Override
+            public Map<String, Object> getAbilities(UUID studentId) {
+                throw new IllegalStateException("ability store unavailable");
+            }
+        };
+    }
+
+    private User student() {
+        User user = new User();
+        user.setEmail("dashboard-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setName("Dashboard Student");
+        user.setRole("STUDENT");
+        return userRepository.save(user);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> section(Map<String, Object> dashboard, String name) {
+        return (Map<String, Object>) dashboard.get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long degraded(DashboardService service, String section) {
+        return ((Map<String, Long>) service.getStats().get("degraded")).getOrDefault(section, 0L);
+    }
+}
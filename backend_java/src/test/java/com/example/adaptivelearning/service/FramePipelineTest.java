@@ -0,0 +1,118 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FramePipelineTest {
+
+    private final FramePipeline pipeline = pipeline();
+
+    @AfterEach
+    void shutdown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void dropsNearDuplicatesAndDownscalesTheRest() throws IOException {
+        Random random = new Random(3);
+        String desk = dataUrl(scene(1280, 720, Color.DARK_GRAY, 200, random), "jpg");
+        String deskAgain = dataUrl(scene(1280, 720, Color.DARK_GRAY, 200, random), "jpg");
+        String whiteboard = dataUrl(scene(1280, 720, Color.WHITE, 900, random), "png");
+
+        FramePipeline.Result result = pipeline.process(List.of(desk, deskAgain, whiteboard, "not an image"));
+
+        assertEquals(4, result.received());
+        assertEquals(1, result.duplicates());
+        assertEquals(1, result.dropped());
+        assertEquals(2, result.frames().size());
+        for (String frame : result.frames()) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(frame)));
+            assertEquals(512, image.getWidth());
+            assertEquals(288, image.getHeight());
+        }
+        assertTrue(result.bytesOut() < result.bytesIn() / 2, result.bytesOut() + " of " + result.bytesIn());
+    }
+
+    @Test
+    void keepsSmallJpegsAsSentWhenReencodingDoesNotHelp() throws IOException {
+        String small = dataUrl(scene(320, 240, Color.GRAY, 100, new Random(5)), "jpg");
+
+        FramePipeline.Result result = pipeline.process(List.of(small));
+
+        assertEquals(1, result.frames().size());
+        assertTrue(result.frames().get(0).length() <= FramePipeline.stripDataUrl(small).length());
+    }
+
+    @Test
+    void aFullPipelineShedsTheTurnInsteadOfDecodingOnTheCaller() throws IOException {
+        String frame = dataUrl(scene(320, 240, Color.GRAY, 100, new Random(7)), "jpg");
+        // Every slot is taken by other turns' frames
+        Semaphore slots = (Semaphore) ReflectionTestUtils.getField(pipeline, "slots");
+        slots.acquireUninterruptibly(10);
+
+        assertThrows(GeminiOverloadedException.class, () -> pipeline.process(List.of(frame)));
+        assertEquals(1L, pipeline.getStats().get("rejected"));
+
+        slots.release(10);
+        assertEquals(1, pipeline.process(List.of(frame)).frames().size());
+    }
+
+    private static FramePipeline pipeline() {
+        FramePipeline pipeline = new FramePipeline(2, 8);
+        ReflectionTestUtils.setField(pipeline, "enabled", true);
+        ReflectionTestUtils.setField(pipeline, "maxDimension", 512);
+        ReflectionTestUtils.setField(pipeline, "quality", 0.7f);
+        ReflectionTestUtils.setField(pipeline, "duplicateDistance", 5);
+        ReflectionTestUtils.setField(pipeline, "maxPixels", 16_000_000L);
+        ReflectionTestUtils.setField(pipeline, "queueTimeoutMs", 50L);
+        return pipeline;
+    }
+
+    // A webcam-like frame: a background, a figure at x and sensor noise that differs on every call
+    private static BufferedImage scene(int width, int height, Color background, int x, Random random) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        g.setColor(new Color(200, 150, 120));
+        g.fillOval(x, height / 5, width / 5, height / 2);
+        g.setColor(Color.BLUE);
+        g.fillRect(x - width / 20, height * 3 / 5, width / 3, height * 2 / 5);
+        g.dispose();
+        for (int i = 0; i < width * height / 20; i++) {
+            int px = random.nextInt(width);
+            int py = random.nextInt(height);
+            int rgb = image.getRGB(px, py);
+            int delta = random.nextInt(17) - 8;
+            int r = Math.max(0, Math.min(255, ((rgb >> 16) & 0xff) + delta));
+            int gr = Math.max(0, Math.min(255, ((rgb >> 8) & 0xff) + delta));
+            int b = Math.max(0, Math.min(255, (rgb & 0xff) + delta));
+            image.setRGB(px, py, (r << 16) | (gr << 8) | b);
+        }
+        return image;
+    }
+
+    private static String dataUrl(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, format, bytes);
+        String mime = format.equals("png") ? "image/png" : "image/jpeg";
+        return "data:" + mime + ";base64," + Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+}
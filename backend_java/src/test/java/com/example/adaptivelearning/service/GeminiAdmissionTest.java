@@ -0,0 +1,84 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class GeminiAdmissionTest {
+
+    @Test
+    void callsBeyondTheQueueAreRejectedAndQueuedOnesTimeOut() throws Exception {
+        GeminiAdmission admission = new GeminiAdmission(1, 1, 1000);
+        admission.acquire();
+        assertFalse(admission.tryAcquire());
+
+        // One caller waits in the queue; a second one finds it full
+        AtomicReference<RuntimeException> queuedFailure = new AtomicReference<>();
+        Thread queued = new Thread(() -> {
+            try {
+                admission.acquire();
+            } catch (RuntimeException e) {
+                queuedFailure.set(e);
+            }
+        });
+        queued.start();
+        while (!Integer.valueOf(1).equals(admission.getStats().get("queued"))) {
+            Thread.onSpinWait();
+        }
+        assertThrows(GeminiOverloadedException.class, admission::acquire);
+        queued.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertTrue(queuedFailure.get() instanceof GeminiOverloadedException);
+        assertEquals(1L, admission.getStats().get("rejected"));
+        assertEquals(1L, admission.getStats().get("timed_out"));
+        assertEquals(0, admission.getStats().get("queued"));
+
+        admission.release();
+        assertTrue(admission.tryAcquire());
+        assertEquals(1, admission.getStats().get("in_flight"));
+    }
+
+    @Test
+    void aQueuedCallerGetsTheNextFreeSlot() throws Exception {
+        GeminiAdmission admission = new GeminiAdmission(1, 1, 5000);
+        admission.acquire();
+
+        Thread queued = new Thread(admission::acquire);
+        queued.start();
+        while (!Integer.valueOf(1).equals(admission.getStats().get("queued"))) {
+            Thread.onSpinWait();
+        }
+        admission.release();
+        queued.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(2L, admission.getStats().get("admitted"));
+        assertEquals(1, admission.getStats().get("in_flight"));
+    }
+
+    @RestController
+    static class OverloadedController {
+        @GetMapping("/overloaded")
+        String overloaded() {
+            throw new GeminiOverloadedException("Gemini queue is full");
+        }
+    }
+
+    @Test
+    void overloadIsShedAs429() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new OverloadedController()).build();
+
+        mockMvc.perform(get("/overloaded")).andExpect(status().isTooManyRequests());
+    }
+}
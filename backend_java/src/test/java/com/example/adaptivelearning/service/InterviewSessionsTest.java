@@ -0,0 +1,119 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InterviewSessionsTest {
+
+    @Test
+    void promptsStayWithinBudgetAsTheInterviewGrows() throws Exception {
+        InterviewSessions sessions = sessions(100, "");
+        InterviewSessions.Session session = sessions.start("u1", "Operating Systems");
+        sessions.recordInterviewer(session, "What is a deadlock?");
+
+        for (int i = 0; i < 300; i++) {
+            InterviewSessions.Prompt prompt = sessions.prepareTurn(session,
+                    "Answer " + i + ": " + "mutual exclusion, hold and wait, no preemption. ".repeat(20));
+            assertTrue(prompt.tokens() <= 1500, "turn " + i + " used " + prompt.tokens() + " tokens");
+            assertTrue(prompt.text().contains("Answer " + i + ":"));
+            sessions.recordInterviewer(session, "Question " + (i + 1) + ": how would you detect one?");
+        }
+
+        Map<String, Object> stats = sessions.getStats();
+        assertTrue((Long) stats.get("compactions") > 0);
+        assertTrue((Long) stats.get("prompt_tokens_max") <= 1500);
+        // No API key: summaries are condensed locally and still fit their budget
+        assertEquals(0L, stats.get("model_summaries"));
+        assertTrue(session.summary.length() / 4 <= 300);
+        assertTrue(session.transcript.size() <= 200);
+    }
+
+    @Test
+    void evictedSessionsAreSpilledAndRestored(@TempDir Path dir) throws Exception {
+        InterviewSessions sessions = sessions(2, dir.toString());
+        InterviewSessions.Session first = sessions.start("u1", "DBMS & SQL");
+        sessions.recordInterviewer(first, "Explain normalization.");
+        sessions.start("u2", "Java");
+        sessions.start("u3", "Algorithms");
+
+        InterviewSessions.Session restored = sessions.get(first.id);
+        assertNotNull(restored);
+        assertEquals("u1", restored.userId);
+        assertEquals("Explain normalization.", restored.transcript.get(0).text());
+        Map<String, Object> stats = sessions.getStats();
+        assertEquals(1L, stats.get("restored"));
+        assertTrue((Long) stats.get("capacity_evictions") >= 1);
+    }
+
+    @Test
+    void modelSummariesAreRequestedWithoutHoldingTheSession() throws Exception {
+        List<Boolean> heldLock = new ArrayList<>();
+        InterviewSessions.Session[] current = new InterviewSessions.Session[1];
+        InterviewSessions sessions = sessions(100, "", new GeminiService() {
+            @Override
+            public String summarizeInterview(String subject, String summary, String turns, int maxWords) {
+                heldLock.add(Thread.holdsLock(current[0]));
+                return "Covered deadlocks so far.";
+            }
+        });
+        current[0] = sessions.start("u1", "Operating Systems");
+
+        for (int i = 0; i < 30; i++) {
+            InterviewSessions.Prompt prompt = sessions.prepareTurn(current[0],
+                    "Answer " + i + ": " + "x ".repeat(400));
+            assertTrue(prompt.tokens() <= 1500);
+            sessions.recordInterviewer(current[0], "Next question.");
+        }
+
+        assertFalse(heldLock.isEmpty());
+        assertFalse(heldLock.contains(true));
+        assertEquals((long) heldLock.size(), sessions.getStats().get("model_summaries"));
+        assertEquals("Covered deadlocks so far.", current[0].summary);
+    }
+
+    @Test
+    void restoredSessionsCountTowardsTheLimit(@TempDir Path dir) throws Exception {
+        InterviewSessions sessions = sessions(2, dir.toString());
+        InterviewSessions.Session first = sessions.start("u1", "Java");
+        InterviewSessions.Session second = sessions.start("u2", "Java");
+        sessions.start("u3", "Java");
+        sessions.start("u4", "Java");
+
+        assertNotNull(sessions.get(first.id));
+        assertNotNull(sessions.get(second.id));
+        assertEquals(2, sessions.getStats().get("active_sessions"));
+        assertEquals(4L, sessions.getStats().get("capacity_evictions"));
+    }
+
+    private static InterviewSessions sessions(int maxSessions, String spillDir) throws Exception {
+        GeminiService gemini = new GeminiService();
+        ReflectionTestUtils.setField(gemini, "apiKey", "");
+        return sessions(maxSessions, spillDir, gemini);
+    }
+
+    private static InterviewSessions sessions(int maxSessions, String spillDir, GeminiService gemini)
+            throws Exception {
+        InterviewSessions sessions = new InterviewSessions();
+        ReflectionTestUtils.setField(sessions, "geminiService", gemini);
+        ReflectionTestUtils.setField(sessions, "maxSessions", maxSessions);
+        ReflectionTestUtils.setField(sessions, "idleMinutes", 30L);
+        ReflectionTestUtils.setField(sessions, "promptBudget", 1500);
+        ReflectionTestUtils.setField(sessions, "summaryBudget", 300);
+        ReflectionTestUtils.setField(sessions, "messageBudget", 400);
+        ReflectionTestUtils.setField(sessions, "spillDir", spillDir);
+        ReflectionTestUtils.setField(sessions, "spillRetentionHours", 24L);
+        sessions.checkBudgets();
+        return sessions;
+    }
+}
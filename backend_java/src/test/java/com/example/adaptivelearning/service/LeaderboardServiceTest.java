@@ -0,0 +1,97 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LeaderboardServiceTest {
+
+    // Only scoring and moves between ranked classes, neither touches the database
+    private final LeaderboardService leaderboard = new LeaderboardService();
+
+    @Test
+    void ranksFollowTheRunningAverage() {
+        UUID ada = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        UUID cy = UUID.randomUUID();
+        leaderboard.recordScore(ada, "Ada", "LB1", 6);
+        leaderboard.recordScore(bob, "Bob", "LB1", 9);
+        leaderboard.recordScore(cy, "Cy", "LB1", 7);
+
+        assertEquals(List.of(bob, cy, ada), ids(leaderboard.top("LB1", 10)));
+
+        // 9 and 3 average 6, below Ada's 6 and 10
+        leaderboard.recordScore(bob, "Bob", "LB1", 3);
+        leaderboard.recordScore(ada, "Ada", "LB1", 10);
+
+        List<Map<String, Object>> top = leaderboard.top("LB1", 10);
+        assertEquals(List.of(ada, cy, bob), ids(top));
+        assertEquals(8.0, top.get(0).get("average_score"));
+        assertEquals(2, top.get(0).get("quizzes"));
+        assertEquals(3, leaderboard.around(bob, 1).get("rank"));
+        assertEquals(List.of(cy, bob), ids(neighbors(leaderboard.around(bob, 1))));
+        assertEquals(List.of(ada), ids(leaderboard.top("LB1", 1)));
+    }
+
+    @Test
+    void tiesGetDistinctRanksOrderedById() {
+        UUID first = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID second = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        UUID leader = UUID.randomUUID();
+        leaderboard.recordScore(second, "Second", "LB2", 7);
+        leaderboard.recordScore(first, "First", "LB2", 7);
+        leaderboard.recordScore(leader, "Leader", "LB2", 10);
+
+        List<Map<String, Object>> top = leaderboard.top("LB2", 10);
+        assertEquals(List.of(leader, first, second), ids(top));
+        assertEquals(List.of(1, 2, 3), top.stream().map(row -> row.get("rank")).toList());
+        assertEquals(2, leaderboard.around(first, 0).get("rank"));
+        assertEquals(3, leaderboard.around(second, 0).get("rank"));
+        assertEquals(3, leaderboard.classSize("LB2"));
+    }
+
+    @Test
+    void movedStudentsKeepTheirStandingInTheNewClass() {
+        UUID mover = UUID.randomUUID();
+        UUID stayer = UUID.randomUUID();
+        UUID newcomer = UUID.randomUUID();
+        leaderboard.recordScore(mover, "Mover", "LB3", 9);
+        leaderboard.recordScore(mover, "Mover", "LB3", 7);
+        leaderboard.recordScore(stayer, "Stayer", "LB3", 5);
+        leaderboard.recordScore(newcomer, "Newcomer", "LB4", 6);
+
+        leaderboard.moveStudent(mover, "LB4");
+
+        assertEquals(List.of(stayer), ids(leaderboard.top("LB3", 10)));
+        assertEquals(1, leaderboard.around(stayer, 0).get("rank"));
+        List<Map<String, Object>> lb4 = leaderboard.top("LB4", 10);
+        assertEquals(List.of(mover, newcomer), ids(lb4));
+        assertEquals(8.0, lb4.get(0).get("average_score"));
+        assertEquals(2, lb4.get(0).get("quizzes"));
+        assertEquals("LB4", leaderboard.around(mover, 0).get("class_id"));
+
+        // A score reported under another class moves the student there first
+        leaderboard.recordScore(newcomer, "Newcomer", "LB3", 10);
+        assertEquals(List.of(newcomer, stayer), ids(leaderboard.top("LB3", 10)));
+        assertEquals(8.0, leaderboard.averageScore(newcomer));
+        assertEquals(List.of(mover), ids(leaderboard.top("LB4", 10)));
+
+        leaderboard.moveStudent(mover, null);
+        assertNull(leaderboard.around(mover, 0));
+        assertEquals(0, leaderboard.classSize("LB4"));
+    }
+
+    private static List<Object> ids(List<Map<String, Object>> rows) {
+        return rows.stream().map(row -> row.get("id")).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> neighbors(Map<String, Object> around) {
+        return (List<Map<String, Object>>) around.get("neighbors");
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProgressRollupsTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void sameDaySubmissionsFoldIntoOneRow() {
+        ProgressRollups rollups = rollups(new JdbcTemplate(dataSource));
+        UUID student = UUID.randomUUID();
+        String classId = "PR-" + UUID.randomUUID().toString().substring(0, 8);
+        LocalDate day = LocalDate.of(2026, 3, 10);
+
+        rollups.recordSubmission(student, classId, 6, 60, 40, day);
+        rollups.recordSubmission(student, classId, 9, 80, 50, day);
+        rollups.recordSubmission(student, classId, 3, 70, 30, day.plusDays(1));
+
+        List<Map<String, Object>> days = rollups.trend(ProgressRollups.studentScope(student),
+                ProgressRollups.Granularity.DAY, day, day.plusDays(1));
+        assertEquals(2, days.size());
+        assertEquals(2L, days.get(0).get("submissions"));
+        assertEquals(7.5, days.get(0).get("avg_score"));
+        assertEquals(6L, days.get(0).get("min_score"));
+        assertEquals(9L, days.get(0).get("max_score"));
+        assertEquals(1L, days.get(1).get("submissions"));
+
+        List<Map<String, Object>> week = rollups.trend(ProgressRollups.classScope(classId),
+                ProgressRollups.Granularity.WEEK, day, day.plusDays(1));
+        assertEquals(1, week.size());
+        assertEquals(3L, week.get(0).get("submissions"));
+        assertEquals(6.0, week.get(0).get("avg_score"));
+    }
+
+    @Test
+    void aLostInsertRaceRetriesOnlyTheRowThatFailed() {
+        String classId = "PR-" + UUID.randomUUID().toString().substring(0, 8);
+        int[] failures = { 1 };
+        // The class row loses the race once: its statement fails without effect, as the duplicate insert would
+        JdbcTemplate racing = new JdbcTemplate(dataSource) {
+            @Override
+            public int update(String sql, Object... args) throws DataAccessException {
+                if (ProgressRollups.classScope(classId).equals(args[0]) && failures[0]-- > 0) {
+                    throw new DataIntegrityViolationException("duplicate key");
+                }
+                return super.update(sql, args);
+            }
+        };
+        ProgressRollups rollups = rollups(racing);
+        UUID student = UUID.randomUUID();
+        LocalDate day = LocalDate.of(2026, 3, 10);
+
+        rollups.recordSubmission(student, classId, 8, 90, 45, day);
+
+        for (String scope : List.of(ProgressRollups.studentScope(student), ProgressRollups.classScope(classId))) {
+            List<Map<String, Object>> points = rollups.trend(scope, ProgressRollups.Granularity.DAY, day, day);
+            assertEquals(1L, points.get(0).get("submissions"), scope);
+            assertEquals(8.0, points.get(0).get("avg_score"), scope);
+        }
+    }
+
+    private static ProgressRollups rollups(JdbcTemplate jdbcTemplate) {
+        ProgressRollups rollups = new ProgressRollups();
+        ReflectionTestUtils.setField(rollups, "jdbcTemplate", jdbcTemplate);
+        return rollups;
+    }
+}
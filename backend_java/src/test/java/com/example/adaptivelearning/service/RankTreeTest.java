@@ -0,0 +1,65 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankTreeTest {
+
+    @Test
+    void tiesAreOrderedById() {
+        RankTree tree = new RankTree();
+        UUID low = new UUID(0, 1);
+        UUID high = new UUID(0, 2);
+        UUID top = new UUID(0, 3);
+        tree.insert(high, 7);
+        tree.insert(top, 9);
+        tree.insert(low, 7);
+
+        assertEquals(0, tree.rankOf(top, 9));
+        assertEquals(1, tree.rankOf(low, 7));
+        assertEquals(2, tree.rankOf(high, 7));
+        // The pair is the key: the right id with a stale score is not found
+        assertEquals(-1, tree.rankOf(low, 8));
+        assertEquals(List.of(new RankTree.Entry(low, 7), new RankTree.Entry(high, 7)), tree.range(1, 10));
+    }
+
+    @Test
+    void rankAndSelectMatchASortedListThroughInsertsAndRemovals() {
+        Random random = new Random(7);
+        RankTree tree = new RankTree();
+        List<RankTree.Entry> expected = new ArrayList<>();
+        Comparator<RankTree.Entry> order = Comparator.comparingDouble(RankTree.Entry::score).reversed()
+                .thenComparing(RankTree.Entry::id);
+
+        for (int round = 0; round < 2000; round++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                RankTree.Entry gone = expected.remove(random.nextInt(expected.size()));
+                tree.remove(gone.id(), gone.score());
+            } else {
+                // Few distinct scores, so most entries share theirs with others
+                RankTree.Entry entry = new RankTree.Entry(UUID.randomUUID(), random.nextInt(10));
+                tree.insert(entry.id(), entry.score());
+                expected.add(entry);
+            }
+        }
+        expected.sort(order);
+
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected, tree.range(0, expected.size()));
+        assertEquals(expected.subList(5, 15), tree.range(5, 15));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, tree.rankOf(expected.get(i).id(), expected.get(i).score()));
+        }
+
+        // Removing an absent pair leaves the tree as it was
+        tree.remove(UUID.randomUUID(), 3);
+        assertEquals(expected.size(), tree.size());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReviewSchedulerTest {
+
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void aMissRecordedAfterCommitIsStillWrittenThrough() {
+        UUID student = UUID.randomUUID();
+
+        // As QuizController does it: once the submission's transaction has committed
+        transactionTemplate.executeWithoutResult(status ->
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        reviewScheduler.recordQuiz(student, null, List.of("What is a heap?"));
+                    }
+                }));
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM review_items WHERE user_id = ?",
+                Integer.class, student));
+    }
+
+    @Test
+    void pendingCountIsPerStudent() {
+        UUID student = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+
+        reviewScheduler.recordQuiz(student, null, List.of("What is a stack?", "What is a queue?"));
+        reviewScheduler.recordQuiz(other, null, List.of("What is a stack?"));
+
+        assertEquals(2, reviewScheduler.pendingCount(student));
+        assertEquals(1, reviewScheduler.pendingCount(other));
+        assertEquals(0, reviewScheduler.pendingCount(UUID.randomUUID()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RiskEngineTest {
+
+    // Keeps the rows of every batch; the trend batch fails while failing is set
+    private static class RecordingJdbc extends JdbcTemplate {
+        final List<Object[]> statusRows = new ArrayList<>();
+        final List<Object[]> stateRows = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (sql.startsWith("UPDATE users")) {
+                statusRows.addAll(batchArgs);
+            } else if (failing) {
+                throw new DataAccessResourceFailureException("database unavailable");
+            } else {
+                stateRows.addAll(batchArgs);
+            }
+            return new int[batchArgs.size()];
+        }
+    }
+
+    private final RecordingJdbc jdbc = new RecordingJdbc();
+    private final RiskEngine engine = engine(jdbc);
+
+    @Test
+    void trendsAreExponentiallyWeighted() {
+        UUID student = UUID.randomUUID();
+        assertEquals(RiskEngine.NEW, engine.statusOf(student));
+
+        // First quiz sets the trend: 0.8 x 90 + 0.2 x 90
+        engine.recordSubmission(student, 9, 90);
+        assertEquals(RiskEngine.ON_TRACK, engine.statusOf(student));
+        // 90 + 0.3 x (30 - 90) = 72
+        engine.recordSubmission(student, 3, 30);
+        assertEquals(RiskEngine.ON_TRACK, engine.statusOf(student));
+        // 72 - 0.3 x 72 = 50.4
+        engine.recordSubmission(student, 0, 0);
+        assertEquals(RiskEngine.NEEDS_ATTENTION, engine.statusOf(student));
+        // 35.28
+        engine.recordSubmission(student, 0, 0);
+        assertEquals(RiskEngine.AT_RISK, engine.statusOf(student));
+    }
+
+    @Test
+    void sweepAppliesInactivityAndRetriesFailedWrites() {
+        UUID student = UUID.randomUUID();
+        engine.recordSubmission(student, 9, 90);
+        LocalDate later = LocalDate.now().plusDays(60);
+
+        // 90 minus 30 x (1 - e^(-60/14)) is about 60.4
+        jdbc.failing = true;
+        assertThrows(DataAccessResourceFailureException.class, () -> engine.sweep(later));
+        assertEquals(RiskEngine.NEEDS_ATTENTION, engine.statusOf(student));
+        assertEquals(1, jdbc.statusRows.size());
+
+        jdbc.failing = false;
+        jdbc.statusRows.clear();
+        engine.sweep(later);
+        assertEquals(1, jdbc.statusRows.size());
+        assertEquals(RiskEngine.NEEDS_ATTENTION, jdbc.statusRows.get(0)[0]);
+        assertEquals(student, jdbc.statusRows.get(0)[1]);
+        assertEquals(1, jdbc.stateRows.size());
+        assertEquals(1, jdbc.stateRows.get(0)[3]);
+
+        jdbc.statusRows.clear();
+        jdbc.stateRows.clear();
+        engine.sweep(later);
+        assertEquals(0, jdbc.statusRows.size());
+        assertEquals(0, jdbc.stateRows.size());
+    }
+
+    private static RiskEngine engine(JdbcTemplate jdbc) {
+        RiskEngine engine = new RiskEngine();
+        ReflectionTestUtils.setField(engine, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(engine, "alpha", 0.3);
+        ReflectionTestUtils.setField(engine, "inactivityDays", 14.0);
+        ReflectionTestUtils.setField(engine, "inactivityPenalty", 30.0);
+        return engine;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RosterServiceTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private DashboardEvents dashboardEvents;
+
+    @Autowired
+    private ObjectProvider<SubmissionShards> submissionShards;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Test
+    void badRowsAreReportedAndTheRestImported() throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        RosterService roster = roster(jdbc);
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        roster.importCsv(new StringReader("email,name,role,class_id,password\n"
+                + "kept-" + tag + "@roster.test,Kept,student,R1,pw\n"));
+
+        Map<String, Object> report = roster.importCsv(new StringReader("Email,Name,Role,ClassId,Password\n"
+                + "new-" + tag + "@roster.test,New Student,student,R1,pw\n"
+                + "not-an-email,Nobody,student,R1,pw\n"
+                + "\n"
+                + "role-" + tag + "@roster.test,Bad Role,janitor,R1,pw\n"
+                + "kept-" + tag + "@roster.test,Kept Renamed,student,R2,\n"
+                + "new-" + tag + "@roster.test,Again,student,R1,pw\n"
+                + "nopw-" + tag + "@roster.test,No Password,professor,R1,\n"
+                + "\"quoted-" + tag + "@roster.test\",\"Quoted, Name\",HOD,,pw\n"));
+
+        assertEquals(7, report.get("processed"));
+        assertEquals(2, report.get("created"));
+        assertEquals(1, report.get("updated"));
+        assertEquals(4, report.get("failed"));
+        assertEquals(List.of(3, 5, 7, 8), lines(report));
+        assertEquals("Duplicate email in this file", errors(report).get(2).get("error"));
+        assertEquals("New users need a password", errors(report).get(3).get("error"));
+        assertEquals("Kept Renamed", jdbc.queryForObject("SELECT name FROM users WHERE email = ?", String.class,
+                "kept-" + tag + "@roster.test"));
+        assertEquals("Quoted, Name", jdbc.queryForObject("SELECT name FROM users WHERE email = ?", String.class,
+                "quoted-" + tag + "@roster.test"));
+    }
+
+    @Test
+    void aRejectedBatchIsRetriedRowByRow() throws Exception {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        String late = "late-" + tag + "@roster.test";
+        // Someone registers one of the emails between the import's lookup and its insert
+        JdbcTemplate racing = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) throws DataAccessException {
+                super.query(sql, rch, args);
+                if (sql.startsWith("SELECT email, id, class_id FROM users")) {
+                    update("INSERT INTO users (id, email, password, name, role, status, current_streak) "
+                            + "VALUES (?, ?, 'pw', 'Registered', 'STUDENT', 'Active', 0)", UUID.randomUUID(), late);
+                }
+            }
+        };
+        RosterService roster = roster(racing);
+
+        Map<String, Object> report = roster.importCsv(new StringReader("email,name,role,class_id,password\n"
+                + "first-" + tag + "@roster.test,First,student,R1,pw\n"
+                + late + ",Late,student,R1,pw\n"
+                + "third-" + tag + "@roster.test,Third,student,R1,pw\n"));
+
+        assertEquals(2, report.get("created"));
+        assertEquals(1, report.get("failed"));
+        assertEquals(List.of(3), lines(report));
+        assertEquals(late, errors(report).get(0).get("email"));
+        assertEquals(2, racing.queryForObject("SELECT COUNT(*) FROM users WHERE email IN (?, ?)", Integer.class,
+                "first-" + tag + "@roster.test", "third-" + tag + "@roster.test"));
+        assertEquals("Registered", racing.queryForObject("SELECT name FROM users WHERE email = ?", String.class,
+                late));
+    }
+
+    private RosterService roster(JdbcTemplate jdbc) {
+        RosterService roster = new RosterService();
+        ReflectionTestUtils.setField(roster, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(roster, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(roster, "leaderboardService", leaderboardService);
+        ReflectionTestUtils.setField(roster, "dashboardEvents", dashboardEvents);
+        ReflectionTestUtils.setField(roster, "submissionShards", submissionShards);
+        ReflectionTestUtils.setField(roster, "sessionTokens", sessionTokens);
+        ReflectionTestUtils.setField(roster, "batchSize", 500);
+        return roster;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> errors(Map<String, Object> report) {
+        return (List<Map<String, Object>>) report.get("errors");
+    }
+
+    private static List<Object> lines(Map<String, Object> report) {
+        return errors(report).stream().map(e -> e.get("line")).toList();
+    }
+}
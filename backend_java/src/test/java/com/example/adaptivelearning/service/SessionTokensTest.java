@@ -0,0 +1,107 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTokensTest {
+
+    private static final String OLD = "k1:" + secret(1);
+    private static final String NEW = "k2:" + secret(2);
+
+    @Test
+    void verifiesItsOwnTokensAndRejectsTamperedOnes() {
+        SessionTokens tokens = tokens(OLD, "", 60);
+        User user = user();
+        String token = tokens.issue(user);
+
+        SessionTokens.Principal principal = tokens.verify(token);
+        assertNotNull(principal);
+        assertEquals(user.getId(), principal.userId());
+        assertEquals("CS-101", principal.classId());
+        assertEquals("k1", principal.keyId());
+        assertTrue(principal.isStudent());
+
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + parts[1].substring(0, parts[1].length() - 2) + "AA." + parts[2];
+        assertNull(tokens.verify(forged));
+        assertNull(tokens.verify("jwt-token-1700000000000"));
+        assertNull(tokens(NEW, "", 60).verify(token));
+    }
+
+    @Test
+    void rotatedKeysKeepVerifyingUntilRemoved() {
+        String token = tokens(OLD, "", 60).issue(user());
+
+        SessionTokens rotated = tokens(NEW + "," + OLD, "k2", 60);
+        assertNotNull(rotated.verify(token));
+        assertEquals("k2", rotated.verify(rotated.issue(user())).keyId());
+
+        assertNull(tokens(NEW, "", 60).verify(token));
+    }
+
+    @Test
+    void expiredTokensAreRejected() {
+        SessionTokens tokens = tokens(OLD, "", 0);
+        assertNull(tokens.verify(tokens.issue(user())));
+    }
+
+    @Test
+    void changesMakeEarlierTokensStale() throws InterruptedException {
+        SessionTokens tokens = tokens(OLD, "", 60);
+        User user = user();
+        SessionTokens.Principal before = tokens.verify(tokens.issue(user));
+        assertFalse(tokens.isStale(before));
+
+        tokens.usersChanged(List.of(user.getId()));
+        assertTrue(tokens.isStale(before));
+        Thread.sleep(2);
+        assertFalse(tokens.isStale(tokens.verify(tokens.issue(user))));
+
+        User classmate = user();
+        User other = user();
+        other.setClassId("CS-202");
+        SessionTokens.Principal classmateBefore = tokens.verify(tokens.issue(classmate));
+        SessionTokens.Principal otherBefore = tokens.verify(tokens.issue(other));
+        Thread.sleep(2);
+        tokens.classChanged("CS-101");
+        assertTrue(tokens.isStale(classmateBefore));
+        assertFalse(tokens.isStale(otherBefore));
+    }
+
+    private static SessionTokens tokens(String keys, String active, long ttlMinutes) {
+        SessionTokens tokens = new SessionTokens();
+        ReflectionTestUtils.setField(tokens, "configuredKeys", keys);
+        ReflectionTestUtils.setField(tokens, "activeKeyId", active);
+        ReflectionTestUtils.setField(tokens, "ttlMinutes", ttlMinutes);
+        tokens.loadKeys();
+        return tokens;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("student@example.com");
+        user.setName("Student");
+        user.setRole("STUDENT");
+        user.setClassId("CS-101");
+        return user;
+    }
+
+    private static String secret(int seed) {
+        byte[] bytes = new byte[32];
+        Arrays.fill(bytes, (byte) seed);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
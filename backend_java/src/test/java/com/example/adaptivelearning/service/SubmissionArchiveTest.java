@@ -0,0 +1,176 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.User;
+import com.example.adaptivelearning.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// A directory of its own: another context's startup would remove segments it has not registered
+@SpringBootTest(properties = "app.archive.dir=./target/archive-test-segments")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SubmissionArchiveTest {
+
+    @Autowired
+    private SubmissionArchive archive;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SubmissionExporter exporter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void segmentsRoundTripAndDepartmentViewIncludesArchivedHistory() throws Exception {
+        String classId = "ARC-" + UUID.randomUUID().toString().substring(0, 8);
+        User professor = user("PROFESSOR", classId);
+        User partly = user("STUDENT", classId);
+        User fully = user("STUDENT", classId);
+        LocalDateTime old = LocalDateTime.now().minusDays(400);
+        UUID newestArchived = submit(partly, 8, old.plusHours(2));
+        submit(partly, 4, old);
+        submit(partly, 6, LocalDateTime.now());
+        submit(fully, 3, old.plusHours(1));
+        String mastery = "{\"Trees\":80}";
+        jdbcTemplate.update("UPDATE quiz_submissions SET topic_mastery = ? WHERE id = ?", mastery, newestArchived);
+
+        SubmissionArchive.Totals before = archive.globalTotals();
+        assertEquals(3, archive.archive());
+
+        // Totals come from the segment index, rows from the user's inflated block, newest first
+        SubmissionArchive.Totals totals = archive.totalsFor(partly.getId());
+        assertEquals(2, totals.count());
+        assertEquals(12, totals.scoreSum());
+        assertEquals(4, totals.scoreMin());
+        assertEquals(8, totals.scoreMax());
+        assertEquals(120, totals.accuracySum());
+        assertEquals(old.plusHours(2).withNano(0), totals.lastSubmittedAt().withNano(0));
+        assertEquals(before.count() + 3, archive.globalTotals().count());
+
+        List<SubmissionArchive.ArchivedSubmission> history = archive.history(partly.getId(), 0, 10);
+        assertEquals(2, history.size());
+        assertEquals(newestArchived, history.get(0).id());
+        assertEquals(8, history.get(0).score());
+        assertEquals(mastery, history.get(0).topicMastery());
+        assertNull(history.get(1).topicMastery());
+        assertEquals(4, archive.history(partly.getId(), 1, 10).get(0).score());
+        assertEquals(3, archive.latest(fully.getId()).orElseThrow().score());
+        assertTrue(archive.latest(professor.getId()).isEmpty());
+
+        // A second instance over the same directory rebuilds the same totals from the mapped segments
+        SubmissionArchive reloaded = new SubmissionArchive();
+        ReflectionTestUtils.setField(reloaded, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(reloaded, "dir", ReflectionTestUtils.getField(archive, "dir"));
+        ReflectionTestUtils.invokeMethod(reloaded, "load");
+        assertEquals(totals, reloaded.totalsFor(partly.getId()));
+        assertEquals(archive.globalTotals(), reloaded.globalTotals());
+
+        JsonNode department = objectMapper.readTree(mockMvc.perform(get("/department/analytics"))
+                .andReturn().getResponse().getContentAsString());
+        int checked = 0;
+        for (JsonNode p : department.get("professors")) {
+            if (p.get("id").asText().equals(professor.getId().toString())) {
+                // (8 + 4 + 6 + 3) / 4, not the hot table's 6
+                assertEquals(5, p.get("avg_class_score").asInt());
+                checked++;
+            }
+        }
+        for (JsonNode s : department.get("students")) {
+            if (s.get("id").asText().equals(fully.getId().toString())) {
+                assertEquals(3, s.get("score").asInt());
+                checked++;
+            } else if (s.get("id").asText().equals(partly.getId().toString())) {
+                assertEquals(6, s.get("score").asInt());
+                checked++;
+            }
+        }
+        assertEquals(3, checked);
+    }
+
+    @Test
+    void exportsReadArchivedSegmentsAcrossTheCutoff() throws Exception {
+        String classId = "ARX-" + UUID.randomUUID().toString().substring(0, 8);
+        User student = user("STUDENT", classId);
+        LocalDateTime old = LocalDateTime.now().minusDays(400);
+        UUID archived = submit(student, 2, old);
+        UUID alsoArchived = submit(student, 5, old.plusDays(3));
+        UUID hot = submit(student, 9, LocalDateTime.now());
+        archive.archive();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quiz_submissions WHERE user_id = ?",
+                Integer.class, student.getId()));
+        assertEquals(2, archive.history(student.getId(), 0, 10).size());
+
+        // Open bounds reach back into the archive; a range ending before the cutoff reads only segments
+        assertEquals(Map.of(archived, "2", alsoArchived, "5", hot, "9"), exportedScores(student, null, null));
+        assertEquals(Map.of(archived, "2", alsoArchived, "5"),
+                exportedScores(student, old.toLocalDate(), old.toLocalDate().plusDays(3)));
+        assertEquals(Map.of(alsoArchived, "5", hot, "9"),
+                exportedScores(student, old.toLocalDate().plusDays(1), LocalDate.now()));
+    }
+
+    // Submission id to score for one user's rows in a CSV export
+    private Map<UUID, String> exportedScores(User user, LocalDate from, LocalDate to) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(SubmissionExporter.Format.CSV, from, to, Channels.newChannel(out));
+        Map<UUID, String> scores = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())), StandardCharsets.UTF_8))) {
+            reader.lines().skip(1).map(line -> line.split(",", -1))
+                    .filter(columns -> columns[1].equals(user.getId().toString()))
+                    .forEach(columns -> scores.put(UUID.fromString(columns[0]), columns[5]));
+        }
+        return scores;
+    }
+
+    private User user(String role, String classId) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@archive.test");
+        user.setName(role + " " + classId);
+        user.setRole(role);
+        user.setClassId(classId);
+        return userRepository.save(user);
+    }
+
+    private UUID submit(User user, int score, LocalDateTime at) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO quiz_submissions (id, user_id, score, accuracy, typing_speed, submitted_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", id, user.getId(), score, score * 10, 40, Timestamp.valueOf(at));
+        return id;
+    }
+}
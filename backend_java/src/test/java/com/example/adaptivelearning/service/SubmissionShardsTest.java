@@ -0,0 +1,183 @@
+package com.example.adaptivelearning.service;
+
+import com.example.adaptivelearning.model.User;
+import com.example.adaptivelearning.repository.QuizSubmissionRepository;
+import com.example.adaptivelearning.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Three shard files under target/; stale ones from earlier runs are rebuilt at startup
+@SpringBootTest(properties = {
+        "app.shards.enabled=true",
+        "app.shards.count=3",
+        "app.shards.url-pattern=jdbc:h2:file:./target/shard-test/shard-%d",
+        "spring.datasource.url=jdbc:h2:mem:shard-primary;DB_CLOSE_DELAY=-1" })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SubmissionShardsTest {
+
+    @Autowired
+    private SubmissionShards shards;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private QuizSubmissionRepository quizRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    @Test
+    void scatterGatherMatchesThePrimaryAndRebalancesOnReassignment() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        String classA = "SH-A-" + run;
+        String classB = classA;
+        for (int i = 0; shards.shardOf(classB) == shards.shardOf(classA); i++) {
+            classB = "SH-B" + i + "-" + run;
+        }
+
+        User alice = student(classA);
+        User bob = student(classA);
+        User carol = student(classB);
+        submit(alice, 9);
+        submit(alice, 5);
+        submit(bob, 7);
+        submit(carol, 3);
+
+        assertEquals(quizRepository.findScoreTotals().getScoreSum(), shards.scoreTotals().getScoreSum());
+        assertEquals(quizRepository.findScoreTotals().getSubmissions(), shards.scoreTotals().getSubmissions());
+        assertEquals(averages(quizRepository.findAverageScoreGroupedByClassId()),
+                averages(shards.averageScoreByClass()));
+        assertEquals(2, shards.summarizeClass(classA).size());
+        assertEquals(7.0, average(classA, alice), 1e-9);
+
+        long rowsOnA = rows(shards.shardOf(classA));
+        long rowsOnB = rows(shards.shardOf(classB));
+        User hod = student(null);
+        hod.setRole("HOD");
+        String token = sessionTokens.issue(userRepository.save(hod));
+        mockMvc.perform(post("/api/admin/assign-class").contentType(MediaType.APPLICATION_JSON)
+                .header("Authorization", "Bearer " + token)
+                .content("{\"userId\":\"" + alice.getId() + "\",\"classId\":\"" + classB + "\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals(rowsOnA - 2, rows(shards.shardOf(classA)));
+        assertEquals(rowsOnB + 2, rows(shards.shardOf(classB)));
+        assertEquals(1, shards.summarizeClass(classA).size());
+        assertEquals(7.0, average(classB, alice), 1e-9);
+        assertEquals(averages(quizRepository.findAverageScoreGroupedByClassId()),
+                averages(shards.averageScoreByClass()));
+        assertTrue(shards.latestScores().stream().anyMatch(l -> l.getUserId().equals(alice.getId())
+                && l.getScore() == 5));
+    }
+
+    @Test
+    void failedShardWriteIsLoggedAndRepairedFromThePrimary() throws Exception {
+        User dave = student("SH-R-" + UUID.randomUUID().toString().substring(0, 8));
+        submit(dave, 6);
+        QuizSubmissionRepository.UserScoreSummary saved = shards.summarizeClass(dave.getClassId()).get(0);
+
+        // A row the shard cannot take (no user): the write fails, the caller does not see it
+        shards.recordSubmission(UUID.randomUUID(), null, dave.getClassId(), 6, null);
+        assertTrue(shards.isStale());
+
+        shards.repair();
+        assertFalse(shards.isStale());
+        assertEquals(quizRepository.findScoreTotals().getSubmissions(), shards.scoreTotals().getSubmissions());
+        assertEquals(saved.getSubmissionCount(), shards.summarizeClass(dave.getClassId()).get(0).getSubmissionCount());
+    }
+
+    @Test
+    void writesArrivingDuringARebuildWaitForItAndAreNotDuplicated() throws Exception {
+        User erin = student("SH-W-" + UUID.randomUUID().toString().substring(0, 8));
+        submit(erin, 4);
+        UUID committed = quizRepository.findByUserOrderBySubmittedAtDesc(erin).get(0).getId();
+        JdbcTemplate primary = (JdbcTemplate) ReflectionTestUtils.getField(shards, "primary");
+        AtomicReference<Thread> writer = new AtomicReference<>();
+        // While the rebuild reads the primary, the committed submission's own shard write comes in late
+        ReflectionTestUtils.setField(shards, "primary", new JdbcTemplate(primary.getDataSource()) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) throws DataAccessException {
+                Thread late = new Thread(() -> shards.recordSubmission(committed, erin.getId(), erin.getClassId(),
+                        4, null));
+                writer.set(late);
+                late.start();
+                try {
+                    late.join(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.query(sql, rch);
+            }
+        });
+        try {
+            shards.rebuild();
+        } finally {
+            ReflectionTestUtils.setField(shards, "primary", primary);
+        }
+        writer.get().join();
+
+        assertFalse(shards.isStale());
+        assertEquals(quizRepository.findScoreTotals().getSubmissions(), shards.scoreTotals().getSubmissions());
+        assertEquals(1L, shards.summarizeClass(erin.getClassId()).get(0).getSubmissionCount());
+    }
+
+    private User student(String classId) {
+        User user = new User();
+        user.setEmail("shard-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setName("Shard Student");
+        user.setRole("STUDENT");
+        user.setClassId(classId);
+        return userRepository.save(user);
+    }
+
+    private void submit(User user, int score) throws Exception {
+        mockMvc.perform(post("/quiz/submit").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"student_id\":\"" + user.getId() + "\",\"score\":" + score + "}"))
+                .andExpect(status().isOk());
+        // submitted_at decides the latest score; keep it strictly increasing
+        Thread.sleep(5);
+    }
+
+    private long rows(int shard) {
+        return ((Number) shards.getStats().get(shard).get("rows")).longValue();
+    }
+
+    private double average(String classId, User user) {
+        return shards.summarizeClass(classId).stream().filter(s -> s.getUserId().equals(user.getId()))
+                .findFirst().orElseThrow().getAverageScore();
+    }
+
+    private static Map<String, Double> averages(Iterable<? extends QuizSubmissionRepository.ClassScore> scores) {
+        Map<String, Double> result = new HashMap<>();
+        for (QuizSubmissionRepository.ClassScore score : scores) {
+            result.put(score.getClassId(), Math.round(score.getAverageScore() * 1e6) / 1e6);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.adaptivelearning.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void overdueDeadlinesExpireImmediately() {
+        TimingWheel wheel = new TimingWheel(100);
+        List<Integer> expired = new ArrayList<>();
+
+        wheel.schedule(1, 100, expired::add);
+        wheel.schedule(2, 40, expired::add);
+        wheel.schedule(3, 101, expired::add);
+
+        assertEquals(List.of(1, 2), expired);
+        assertEquals(1, wheel.size());
+        assertFalse(wheel.isScheduled(1));
+        assertTrue(wheel.isScheduled(3));
+    }
+
+    @Test
+    void deadlinesAcrossSlotAndLevelBoundariesFireOnTheirTick() {
+        // 63 is the last level-0 slot; 4095 and 262143 end a level-1 and a level-2 block
+        long start = 63;
+        long[] deadlines = { 64, 65, 127, 128, 4095, 4096, 4160, 262143, 262144, 262145, 300_000 };
+        TimingWheel wheel = new TimingWheel(start);
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (int h = 0; h < deadlines.length; h++) {
+            wheel.schedule(h, deadlines[h], handle -> firedAt.put(handle, -1L));
+        }
+        assertEquals(deadlines.length, wheel.size());
+
+        // Uneven steps, so boundaries are crossed both mid-step and at the end of one
+        for (long tick = start; tick < 300_000;) {
+            tick = Math.min(300_000, tick + (tick % 7 == 0 ? 1 : 997));
+            wheel.advance(tick, handle -> firedAt.put(handle, wheel.now()));
+        }
+
+        assertEquals(0, wheel.size());
+        for (int h = 0; h < deadlines.length; h++) {
+            assertEquals(deadlines[h], firedAt.get(h), "handle " + h);
+        }
+    }
+
+    @Test
+    void cancelledAndRescheduledHandlesFireOnceAtTheLatestDeadline() {
+        Random random = new Random(11);
+        TimingWheel wheel = new TimingWheel(random.nextInt(10_000));
+        long start = wheel.now();
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int h = 0; h < 5000; h++) {
+            long tick = start + 1 + random.nextInt(200_000);
+            wheel.schedule(h, tick, handle -> { });
+            expected.put(h, tick);
+        }
+        for (int h = 0; h < 5000; h += 3) {
+            if (h % 2 == 0) {
+                wheel.cancel(h);
+                expected.remove(h);
+            } else {
+                long tick = start + 1 + random.nextInt(200_000);
+                wheel.schedule(h, tick, handle -> { });
+                expected.put(h, tick);
+            }
+        }
+        assertEquals(expected.size(), wheel.size());
+
+        Map<Integer, Long> firedAt = new HashMap<>();
+        wheel.advance(start + 200_001, handle -> assertNull(firedAt.put(handle, wheel.now())));
+
+        assertEquals(expected, firedAt);
+        assertEquals(0, wheel.size());
+    }
+}
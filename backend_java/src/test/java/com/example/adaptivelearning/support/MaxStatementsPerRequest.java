@@ -0,0 +1,20 @@
+package com.example.adaptivelearning.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the annotated test if any HTTP request it performs issues more than
+ * {@link #value()} SQL statements. Can be placed on a test class or method;
+ * the method annotation wins.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface MaxStatementsPerRequest {
+    int value();
+}
@@ -0,0 +1,55 @@
+package com.example.adaptivelearning.support;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Servlet filter that records how many SQL statements each HTTP request issued
+ * on its own thread.
+ */
+public class RequestStatementRecorder extends OncePerRequestFilter {
+
+    private final SqlStatementCounter counter;
+    private final List<RequestStatements> recorded = new CopyOnWriteArrayList<>();
+
+    public RequestStatementRecorder(SqlStatementCounter counter) {
+        this.counter = counter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        counter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            recorded.add(new RequestStatements(request.getMethod() + " " + request.getRequestURI(),
+                    counter.stop()));
+        }
+    }
+
+    public List<RequestStatements> recorded() {
+        return List.copyOf(recorded);
+    }
+
+    public RequestStatements last() {
+        if (recorded.isEmpty()) {
+            throw new IllegalStateException("No HTTP request has been recorded");
+        }
+        return recorded.get(recorded.size() - 1);
+    }
+
+    public void clear() {
+        recorded.clear();
+    }
+
+    public record RequestStatements(String request, long statements) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.adaptivelearning.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Counts every SQL statement sent through the application's DataSource.
+ *
+ * Registered as a BeanPostProcessor so the application's "dataSource" bean is
+ * wrapped before JPA or any JdbcTemplate sees it. Prepared and callable statements count
+ * once when prepared; plain statements count once per execute call.
+ *
+ * Only statements issued on a thread between {@link #start()} and {@link #stop()}
+ * are counted, so scheduled jobs running alongside a request do not inflate it.
+ */
+public class SqlStatementCounter implements BeanPostProcessor {
+
+    private final ThreadLocal<long[]> statements = new ThreadLocal<>();
+
+    /** Starts counting the statements issued on the calling thread. */
+    public void start() {
+        statements.set(new long[1]);
+    }
+
+    /** Stops counting on the calling thread and returns how many statements it issued. */
+    public long stop() {
+        long[] count = statements.get();
+        statements.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    private void count() {
+        long[] count = statements.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+            return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection c ? wrapConnection(c) : result;
+            });
+        }
+        return bean;
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("prepareStatement") || name.equals("prepareCall")) {
+                count();
+            }
+            Object result = invoke(target, method, args);
+            if (name.equals("createStatement")) {
+                return wrapStatement((Statement) result);
+            }
+            return result;
+        });
+    }
+
+    private Statement wrapStatement(Statement statement) {
+        return proxy(Statement.class, statement, (target, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                count();
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler h = (p, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, h);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+}
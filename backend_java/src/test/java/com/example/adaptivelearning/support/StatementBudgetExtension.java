@@ -0,0 +1,42 @@
+package com.example.adaptivelearning.support;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+/**
+ * Enforces {@link MaxStatementsPerRequest} against the requests captured by
+ * {@link RequestStatementRecorder} during a single test method.
+ */
+public class StatementBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        recorder(context).clear();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        int budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), MaxStatementsPerRequest.class)
+                .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(),
+                        MaxStatementsPerRequest.class))
+                .map(MaxStatementsPerRequest::value)
+                .orElseThrow();
+
+        List<RequestStatementRecorder.RequestStatements> overBudget = recorder(context).recorded().stream()
+                .filter(r -> r.statements() > budget)
+                .toList();
+        if (!overBudget.isEmpty()) {
+            throw new AssertionError("Expected at most " + budget + " SQL statements per request but got "
+                    + overBudget);
+        }
+    }
+
+    private RequestStatementRecorder recorder(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(RequestStatementRecorder.class);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.adaptivelearning.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Import into a {@code @SpringBootTest} to count SQL statements per HTTP request.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class StatementCountingConfiguration {
+
+    @Bean
+    static SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    RequestStatementRecorder requestStatementRecorder(SqlStatementCounter counter) {
+        return new RequestStatementRecorder(counter);
+    }
+}
@@ -7,6 +7,8 @@ const AIInterview = () => {
     const [messages, setMessages] = React.useState([]);
     const [loading, setLoading] = React.useState(false);
     const [isRecording, setIsRecording] = React.useState(false);
+    // Server-side interview context; replaced if the server had to restart the session
+    const sessionIdRef = React.useRef(null);
 
     const videoRef = React.useRef(null);
     const mediaRecorderRef = React.useRef(null);
@@ -99,10 +101,12 @@ const AIInterview = () => {
             formData.append('audio', audioBlob, 'response.webm');
             formData.append('subject', selectedSubject.name);
             if (screenshot) formData.append('images', screenshot); // Sending as string for this impl, or could be blob
+            if (sessionIdRef.current) formData.append('session_id', sessionIdRef.current);
 
             // Import api dynamically
             const { api } = await import('../services/api');
             const data = await api.analyzeInterview(formData);
+            if (data.session_id) sessionIdRef.current = data.session_id;
 
             // Expected response: { response: "{ feedback: ..., next_question: ... }" }
             const aiMsg = { id: Date.now() + 1, sender: 'ai', text: parseAIResponse(data.response) };
@@ -147,9 +151,11 @@ const AIInterview = () => {
     const startInterview = async (subject) => {
         setSelectedSubject(subject);
         setLoading(true);
+        sessionIdRef.current = null;
         try {
             const { api } = await import('../services/api');
             const data = await api.startInterview(subject.name);
+            sessionIdRef.current = data.session_id || null;
             setMessages([
                 { id: 1, sender: 'ai', text: data.message }
             ]);
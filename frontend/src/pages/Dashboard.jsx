@@ -15,9 +15,11 @@ const Dashboard = () => {
     useEffect(() => {
         const fetchData = async () => {
             try {
+                // One round trip; only degraded (null) sections fall back to their own endpoints
+                const dashboard = await api.getDashboard(user.id).catch(() => ({}));
                 const [recRes, analyticsRes] = await Promise.all([
-                    api.getRecommendation(user.id),
-                    api.getAnalytics()
+                    dashboard.recommendation ?? api.getRecommendation(user.id),
+                    dashboard.analytics ?? api.getAnalytics()
                 ]);
                 setRecommendation(recRes);
 
@@ -1,4 +1,4 @@
-import React, { useEffect, useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import Navbar from '../components/Navbar';
 import { api } from '../services/api';
 import { Users, GraduationCap, TrendingUp, AlertTriangle, BookOpen, User } from 'lucide-react';
@@ -14,6 +14,7 @@ const HODDashboard = () => {
 
     const [editingProf, setEditingProf] = useState(null);
     const [newClassId, setNewClassId] = useState('');
+    const connections = useRef(0);
 
     useEffect(() => {
         const loadData = async () => {
@@ -29,6 +30,20 @@ const HODDashboard = () => {
             }
         };
         loadData();
+
+        const patch = (list, id, changes) => setData(prev => prev && ({
+            ...prev,
+            [list]: prev[list].map(item => item.id === id ? { ...item, ...changes } : item)
+        }));
+        const source = api.subscribeEvents('department', {
+            // Events may have been missed while disconnected: reload once on reconnect
+            connected: () => { if (connections.current++ > 0) loadData(); },
+            submission: (e) => patch('students', e.id, { score: e.latest_score, status: e.status, last_active: e.last_active }),
+            activity: (e) => patch('students', e.id, { status: e.status, last_active: e.last_active }),
+            assignment: (e) => patch(e.role === 'PROFESSOR' ? 'professors' : 'students', e.id, { assigned_class: e.class_id }),
+            roster: () => loadData()
+        });
+        return () => source && source.close();
     }, []);
 
     const handleAssignClick = (prof) => {
@@ -1,4 +1,4 @@
-import React, { useEffect, useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import { api } from '../services/api';
 import Navbar from '../components/Navbar';
 import { Users, BookOpen, AlertCircle, CheckCircle, BarChart2 } from 'lucide-react';
@@ -6,11 +6,13 @@ import { Users, BookOpen, AlertCircle, CheckCircle, BarChart2 } from 'lucide-rea
 const ProfessorDashboard = ({ user }) => {
     const [classData, setClassData] = useState(null);
     const [loading, setLoading] = useState(true);
+    const connections = useRef(0);
 
     useEffect(() => {
+        const classId = 'class-101';
         const fetchClassData = async () => {
             try {
-                const data = await api.getClassAnalytics('class-101');
+                const data = await api.getClassAnalytics(classId);
                 setClassData(data);
             } catch (err) {
                 console.error("Failed to load class data", err);
@@ -19,6 +21,36 @@ const ProfessorDashboard = ({ user }) => {
             }
         };
         fetchClassData();
+
+        // Patch single rows from live events instead of re-fetching the whole class
+        const patchStudent = (id, changes) => setClassData(prev => prev && ({
+            ...prev,
+            students: prev.students.map(s => s.id === id ? { ...s, ...changes } : s)
+        }));
+        const source = api.subscribeEvents(`class/${classId}`, {
+            // Events may have been missed while disconnected: reload once on reconnect
+            connected: () => { if (connections.current++ > 0) fetchClassData(); },
+            submission: (e) => patchStudent(e.id, { score: e.score, status: e.status, last_active: e.last_active }),
+            activity: (e) => patchStudent(e.id, { status: e.status, last_active: e.last_active }),
+            assignment: (e) => {
+                if (e.role !== 'STUDENT') return;
+                setClassData(prev => {
+                    if (!prev) return prev;
+                    const present = prev.students.some(s => s.id === e.id);
+                    if (e.class_id !== classId && present) {
+                        return { ...prev, total_students: prev.total_students - 1, students: prev.students.filter(s => s.id !== e.id) };
+                    }
+                    if (e.class_id === classId && !present) {
+                        const row = { id: e.id, name: e.name, score: 0, status: 'New', last_active: 'Never' };
+                        return { ...prev, total_students: prev.total_students + 1, students: [...prev.students, row] };
+                    }
+                    return prev;
+                });
+            },
+            // A bulk import or move: one event per batch, so reload rather than patch
+            roster: () => fetchClassData()
+        });
+        return () => source && source.close();
     }, []);
 
     if (loading) return <div className="flex-center" style={{ height: '100vh' }}>Loading class insights...</div>;
@@ -55,7 +55,8 @@ const Quiz = () => {
     useEffect(() => {
         // Fetch dynamic questions
         const loadQuiz = async () => {
-            const fetchedQuestions = await api.generateQuiz();
+            const user = JSON.parse(localStorage.getItem('user') || '{}');
+            const fetchedQuestions = await api.generateQuiz(user.id);
             setQuestions(fetchedQuestions);
             setLoading(false);
             metricsRef.current.startTime = Date.now(); // Reset timer on load
@@ -132,7 +133,8 @@ const Quiz = () => {
                 student_id: user.id,
                 score: finalScore,
                 typing_metrics: typingMetrics,
-                wrong_answers: wrongAnswers
+                wrong_answers: wrongAnswers,
+                answered_questions: questions.map(q => q.question)
             });
 
             if (response.success) {
@@ -2,6 +2,21 @@
 const USE_MOCK = false; // Set to true if backend is not running
 const API_BASE_URL = "http://localhost:8080";
 
+// fetch with the session token; keeps a token the server re-issued and drops one it rejects
+const authFetch = async (url, options = {}) => {
+    const token = localStorage.getItem('token');
+    const headers = { ...(options.headers || {}), ...(token ? { Authorization: `Bearer ${token}` } : {}) };
+    const res = await fetch(url, { ...options, headers });
+    const refreshed = res.headers.get('X-Auth-Token');
+    if (refreshed) localStorage.setItem('token', refreshed);
+    if (res.status === 401 && token) {
+        localStorage.removeItem('token');
+        localStorage.removeItem('user');
+        window.location.assign('/login');
+    }
+    return res;
+};
+
 export const api = {
     login: async (email, password) => {
         if (USE_MOCK) return mockApi.login(email, password, null);
@@ -50,7 +65,7 @@ export const api = {
     getProfile: async (email) => {
         if (USE_MOCK) return mockApi.getProfile(email);
         try {
-            const res = await fetch(`${API_BASE_URL}/api/profile/${email}`);
+            const res = await authFetch(`${API_BASE_URL}/api/profile/${email}`);
             if (!res.ok) throw new Error('Failed to fetch profile');
             return await res.json();
         } catch (e) {
@@ -62,7 +77,7 @@ export const api = {
     updateProfile: async (data) => {
         if (USE_MOCK) return mockApi.updateProfile(data);
         try {
-            const res = await fetch(`${API_BASE_URL}/api/profile/update`, {
+            const res = await authFetch(`${API_BASE_URL}/api/profile/update`, {
                 method: 'PUT',
                 headers: { 'Content-Type': 'application/json' },
                 body: JSON.stringify(data)
@@ -78,7 +93,7 @@ export const api = {
     assignClass: async (userId, classId) => {
         if (USE_MOCK) return mockApi.assignClass(userId, classId);
         try {
-            const res = await fetch(`${API_BASE_URL}/api/admin/assign-class`, {
+            const res = await authFetch(`${API_BASE_URL}/api/admin/assign-class`, {
                 method: 'POST',
                 headers: { 'Content-Type': 'application/json' },
                 body: JSON.stringify({ userId, classId })
@@ -90,12 +105,28 @@ export const api = {
             throw e;
         }
     },
+    importRoster: async (file) => {
+        const form = new FormData();
+        form.append('file', file);
+        const res = await authFetch(`${API_BASE_URL}/api/admin/roster/import`, { method: 'POST', body: form });
+        if (!res.ok) throw new Error(await res.text() || 'Failed to import roster');
+        return await res.json();
+    },
+    bulkAssign: async (payload) => {
+        const res = await authFetch(`${API_BASE_URL}/api/admin/bulk-assign`, {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify(payload)
+        });
+        if (!res.ok) throw new Error(await res.text() || 'Failed to reassign users');
+        return await res.json();
+    },
 
     submitQuiz: async (data) => {
         if (USE_MOCK) return mockApi.submitQuiz(data);
 
         try {
-            const res = await fetch(`${API_BASE_URL}/quiz/submit`, {
+            const res = await authFetch(`${API_BASE_URL}/quiz/submit`, {
                 method: 'POST',
                 headers: { 'Content-Type': 'application/json' },
                 body: JSON.stringify(data)
@@ -116,7 +147,7 @@ export const api = {
         // For this demo, let's assume we want to see the ML logic work, so we pass ?score=7 (or from storage)
 
         try {
-            const res = await fetch(`${API_BASE_URL}/recommendation/${studentId}?score=7`);
+            const res = await authFetch(`${API_BASE_URL}/recommendation/${studentId}?score=7`);
             return await res.json();
         } catch (e) {
             return mockApi.getRecommendation(studentId);
@@ -128,7 +159,7 @@ export const api = {
         if (studentId) {
             if (USE_MOCK) return mockApi.getAnalytics(studentId);
             try {
-                const res = await fetch(`${API_BASE_URL}/analytics/${studentId}`);
+                const res = await authFetch(`${API_BASE_URL}/analytics/${studentId}`);
                 return await res.json();
             } catch (e) {
                 return mockApi.getAnalytics(studentId);
@@ -141,7 +172,7 @@ export const api = {
             const userStr = localStorage.getItem('user');
             if (!userStr) throw new Error("No user found");
             const user = JSON.parse(userStr);
-            const res = await fetch(`${API_BASE_URL}/api/analytics/user/${user.email}`);
+            const res = await authFetch(`${API_BASE_URL}/api/analytics/user/${user.email}`);
             if (!res.ok) throw new Error('Failed to fetch user analytics');
             const data = await res.json();
             console.log("Analytics fetched:", data);
@@ -153,20 +184,30 @@ export const api = {
         }
     },
 
+    // Profile, analytics and recommendation in one request; sections the server gave up on are null
+    getDashboard: async (userId) => {
+        if (USE_MOCK) return { profile: null, analytics: null, recommendation: null, degraded: {} };
+        const res = await authFetch(`${API_BASE_URL}/api/dashboard/${userId}`);
+        if (!res.ok) throw new Error('Failed to fetch dashboard');
+        return await res.json();
+    },
+
     getDepartmentAnalytics: async () => {
         if (USE_MOCK) return mockApi.getDepartmentAnalytics();
         try {
-            const res = await fetch(`${API_BASE_URL}/department/analytics`);
+            const res = await authFetch(`${API_BASE_URL}/department/analytics`);
             return await res.json();
         } catch (e) {
             return mockApi.getDepartmentAnalytics();
         }
     },
 
-    generateQuiz: async () => {
+    generateQuiz: async (studentId) => {
         if (USE_MOCK) return mockApi.generateQuiz();
         try {
-            const res = await fetch(`${API_BASE_URL}/quiz/generate`);
+            // With a student id the backend picks questions near the student's ability
+            const query = studentId ? `?student_id=${studentId}` : '';
+            const res = await authFetch(`${API_BASE_URL}/quiz/generate${query}`);
             return await res.json();
         } catch (e) {
             console.warn("Quiz generation failed, using mock", e);
@@ -177,7 +218,7 @@ export const api = {
     getClassAnalytics: async (classId) => {
         if (USE_MOCK) return mockApi.getClassAnalytics(classId);
         try {
-            const res = await fetch(`${API_BASE_URL}/analytics/class/${classId}`);
+            const res = await authFetch(`${API_BASE_URL}/analytics/class/${classId}`);
             if (!res.ok) throw new Error('Failed to fetch class analytics');
             return await res.json();
         } catch (e) {
@@ -186,10 +227,49 @@ export const api = {
         }
     },
 
+    // Trend points for charts; scope is `<studentId>` or `class/<classId>`, granularity day | week | month
+    // Pass the previous response's next_cursor as `after` to page the hot rows by key
+    getHistory: async (studentId, page = 0, size = 20, includeArchived = false, after = null) => {
+        if (USE_MOCK) return { page, size, items: [], has_more: false, next_cursor: null };
+        const params = new URLSearchParams({ page, size, include_archived: includeArchived });
+        if (after) params.set('after', after);
+        const res = await authFetch(`${API_BASE_URL}/analytics/${studentId}/history?${params}`);
+        if (!res.ok) throw new Error('Failed to fetch quiz history');
+        return await res.json();
+    },
+    getProgressTrend: async (scope, granularity = 'week', from, to) => {
+        if (USE_MOCK) return { granularity, points: [] };
+        try {
+            const params = new URLSearchParams({ granularity });
+            if (from) params.set('from', from);
+            if (to) params.set('to', to);
+            const res = await authFetch(`${API_BASE_URL}/analytics/${scope}/trend?${params}`);
+            if (!res.ok) throw new Error('Failed to fetch progress trend');
+            return await res.json();
+        } catch (e) {
+            console.warn("Progress trend fetch failed", e);
+            return { granularity, points: [] };
+        }
+    },
+
+    // Live dashboard deltas over server-sent events; topic is `class/<id>` or `department`.
+    // Returns the EventSource (null in mock mode) so the caller can close it on unmount.
+    subscribeEvents: (topic, handlers) => {
+        if (USE_MOCK || typeof EventSource === 'undefined') return null;
+        // EventSource cannot send an Authorization header, so the token goes in the query
+        const token = localStorage.getItem('token');
+        const query = token ? `?access_token=${encodeURIComponent(token)}` : '';
+        const source = new EventSource(`${API_BASE_URL}/api/events/${topic}${query}`);
+        Object.entries(handlers).forEach(([name, handler]) => {
+            source.addEventListener(name, (e) => handler(JSON.parse(e.data)));
+        });
+        return source;
+    },
+
     getClassDetails: async (classId) => {
         if (USE_MOCK) return mockApi.getClassDetails(classId);
         try {
-            const res = await fetch(`${API_BASE_URL}/api/class/${classId}/details`);
+            const res = await authFetch(`${API_BASE_URL}/api/class/${classId}/details`);
             if (!res.ok) throw new Error('Failed to fetch class details');
             return await res.json();
         } catch (e) {
@@ -198,13 +278,27 @@ export const api = {
         }
     },
 
-    interviewChat: async (message, subject) => {
+    // Returns { message, session_id }; later turns send the session_id back so the server keeps the context
+    startInterview: async (subject) => {
+        const user = JSON.parse(localStorage.getItem('user') || '{}');
+        const res = await authFetch(`${API_BASE_URL}/interview/start`, {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json', ...(user.id ? { 'X-User-Id': user.id } : {}) },
+            body: JSON.stringify({ subject })
+        });
+        if (!res.ok) throw new Error('Failed to start interview');
+        return await res.json();
+    },
+
+    interviewChat: async (message, subject, sessionId = null) => {
         if (USE_MOCK) return mockApi.interviewChat(message, subject);
         try {
-            const res = await fetch(`${API_BASE_URL}/interview/chat`, {
+            // Interview endpoints are rate limited per user
+            const user = JSON.parse(localStorage.getItem('user') || '{}');
+            const res = await authFetch(`${API_BASE_URL}/interview/chat`, {
                 method: 'POST',
-                headers: { 'Content-Type': 'application/json' },
-                body: JSON.stringify({ message, subject })
+                headers: { 'Content-Type': 'application/json', ...(user.id ? { 'X-User-Id': user.id } : {}) },
+                body: JSON.stringify({ message, subject, ...(sessionId ? { session_id: sessionId } : {}) })
             });
             if (!res.ok) throw new Error('Chat failed');
             return await res.json();
@@ -214,6 +308,18 @@ export const api = {
         }
     },
 
+    // formData carries audio, subject, images and the session_id from startInterview
+    analyzeInterview: async (formData) => {
+        const user = JSON.parse(localStorage.getItem('user') || '{}');
+        const res = await authFetch(`${API_BASE_URL}/interview/analyze`, {
+            method: 'POST',
+            headers: user.id ? { 'X-User-Id': user.id } : {},
+            body: formData
+        });
+        if (!res.ok) throw new Error('Interview analysis failed');
+        return await res.json();
+    },
+
     // Correct getAnalytics is already defined above at line 126
     // Removing valid redundant override that was causing issues with wrong endpoint
 };